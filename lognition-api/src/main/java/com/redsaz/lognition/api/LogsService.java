@@ -39,6 +39,27 @@ public interface LogsService {
 
   File getAvroFile(long id) throws FileNotFoundException;
 
+  /**
+   * Gets the samples file of the log, if the log was stored in the compact columnar format instead
+   * of Avro.
+   *
+   * @param id the log
+   * @return the columnar samples file.
+   * @throws FileNotFoundException if the log was not stored in the columnar format.
+   */
+  File getColumnarFile(long id) throws FileNotFoundException;
+
+  /**
+   * Gets the directory with the samples of the log split up by label, if the log was stored that
+   * way. The samples are the same as in {@link #getAvroFile(long)} or {@link
+   *     #getColumnarFile(long)}.
+   *
+   * @param id the log
+   * @return the directory of the label partitions.
+   * @throws FileNotFoundException if the log was not stored split up by label.
+   */
+  File getLabelPartitionsDir(long id) throws FileNotFoundException;
+
   Log get(long id);
 
   List<Log> list();
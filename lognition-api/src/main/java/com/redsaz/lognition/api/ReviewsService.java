@@ -18,6 +18,8 @@ package com.redsaz.lognition.api;
 import com.redsaz.lognition.api.model.Attachment;
 import com.redsaz.lognition.api.model.Log;
 import com.redsaz.lognition.api.model.Review;
+import com.redsaz.lognition.api.model.ReviewChart;
+import com.redsaz.lognition.api.model.ReviewCharts;
 import java.io.InputStream;
 import java.util.Collection;
 import java.util.List;
@@ -43,6 +45,30 @@ public interface ReviewsService {
 
   List<Log> getReviewLogs(long reviewId);
 
+  /**
+   * Gets the stored charts of a review, and whether they are stale. The logs of the review changing,
+   * or the stats of any of its logs changing, makes the charts stale.
+   *
+   * @param reviewId the review
+   * @return the stored charts, or null if the review does not exist
+   */
+  ReviewCharts getCharts(long reviewId);
+
+  /**
+   * Replaces the stored charts of a review. The charts are only stale afterward if the data changed
+   * again since dataVersion.
+   *
+   * @param reviewId the review
+   * @param dataVersion the {@link ReviewCharts#getDataVersion()} the charts were built from
+   * @param charts every chart of the review, in order
+   */
+  void putCharts(long reviewId, long dataVersion, List<ReviewChart> charts);
+
+  /**
+   * @return the ids of the reviews with stale charts.
+   */
+  List<Long> listStaleChartReviewIds();
+
   /**
    * Adds a new attachment or replaces an existing attachment. If the reviewId+attachment.path combo
    * already exist, then the attachment will be replaced.
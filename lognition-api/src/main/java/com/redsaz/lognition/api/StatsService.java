@@ -16,6 +16,7 @@
 package com.redsaz.lognition.api;
 
 import com.redsaz.lognition.api.model.CodeCounts;
+import com.redsaz.lognition.api.model.EncodedHistograms;
 import com.redsaz.lognition.api.model.Histogram;
 import com.redsaz.lognition.api.model.Percentiles;
 import com.redsaz.lognition.api.model.Stats;
@@ -30,6 +31,13 @@ import java.util.Map;
  */
 public interface StatsService {
 
+  /**
+   * Stores the sample labels of a log, numbered by their position in the list. Any labels the log
+   * already had are replaced, and all of the stats stored for them are removed.
+   *
+   * @param logId The log identifier
+   * @param labels The labels, where index 0 is "Overall"
+   */
   public void createSampleLabels(long logId, List<String> labels);
 
   public List<String> getSampleLabels(long logId);
@@ -42,6 +50,40 @@ public interface StatsService {
 
   public Percentiles getPercentiles(long logId, long labelId);
 
+  /**
+   * Retrieves the percentiles of a label normalized onto a fixed set of percentile points, so that
+   * the curves of different logs line up point for point.
+   *
+   * @param logId The log identifier
+   * @param labelId The sample label identifier
+   * @return The value at each point if found, or null otherwise.
+   */
+  public long[] getPercentileCurve(long logId, long labelId);
+
+  /**
+   * Retrieves the mergeable histograms of a given log, label, and spansize.
+   *
+   * @param logId The log identifier
+   * @param labelId The sample label identifier
+   * @param spanMillis The spansize of each histogram, or 0 for the histogram of the entire log
+   * @return The histograms if found, or null otherwise.
+   */
+  public EncodedHistograms getHdrHistograms(long logId, long labelId, long spanMillis);
+
+  /**
+   * Retrieves the moving timeseries of a given log, label, step, and window. Each point of a
+   * moving timeseries is the stats of the window of time ending at that point, rather than of a
+   * bin of its own, so the windows of neighbouring points overlap.
+   *
+   * @param logId The log identifier
+   * @param labelId The sample label identifier
+   * @param stepMillis The time between each point
+   * @param windowMillis The time that the window of each point spans
+   * @return The moving timeseries if found, or null otherwise.
+   */
+  public Timeseries getMovingTimeseries(
+      long logId, long labelId, long stepMillis, long windowMillis);
+
   /**
    * Retrieves a specific code count for a given log, label, and spansize.
    *
@@ -70,6 +112,38 @@ public interface StatsService {
 
   public void createOrUpdatePercentiles(long logId, long labelId, Percentiles percentiles);
 
+  /**
+   * Stores or updates the normalized percentiles of a label. This is derived from the percentiles,
+   * so storing it does not count as a change to the stats of the log.
+   *
+   * @param logId The log identifier
+   * @param labelId The sample label identifier
+   * @param curve The value at each of the fixed percentile points.
+   */
+  public void createOrUpdatePercentileCurve(long logId, long labelId, long[] curve);
+
+  /**
+   * Stores or updates the mergeable histograms for a given log, label, and spansize. The spansize
+   * is looked up in the given histograms.
+   *
+   * @param logId The log identifier
+   * @param labelId The sample label identifier
+   * @param histograms The encoded histograms, including spansize.
+   */
+  public void createOrUpdateHdrHistograms(long logId, long labelId, EncodedHistograms histograms);
+
+  /**
+   * Stores or updates the moving timeseries for a given log, label, step, and window. The step is
+   * looked up in the span of the given timeseries.
+   *
+   * @param logId The log identifier
+   * @param labelId The sample label identifier
+   * @param windowMillis The time that the window of each point spans
+   * @param timeseries The moving timeseries, with the step as its span.
+   */
+  public void createOrUpdateMovingTimeseries(
+      long logId, long labelId, long windowMillis, Timeseries timeseries);
+
   /**
    * Stores or updates the code counts for a given log, label, and spansize. The spansize is looked
    * up in the given codeCounts parameter. A spansize of 0 defines the aggregate code count whereas
@@ -80,4 +154,14 @@ public interface StatsService {
    * @param codeCounts The count of status codes, including spansize.
    */
   public void createOrUpdateCodeCounts(long logId, long labelId, CodeCounts codeCounts);
+
+  /**
+   * Tells that the stats of a log were stored, so anything built from them, such as the charts of
+   * the reviews with the log, is out of date. The store methods do not do this themselves, since a
+   * log has many stats, so this is called once after all of the stats of an import or of a live
+   * update are stored.
+   *
+   * @param logId The log identifier
+   */
+  public void statsChanged(long logId);
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.api.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Histograms of durations, each in the compressed form of an HdrHistogram. Unlike {@link
+ * Histogram}, which only has the buckets derived for display, these keep every recorded value at
+ * the same precision and range, so the histograms of different labels, bins, or logs can be merged
+ * exactly.
+ *
+ * <p>A span of 0 means there is a single histogram covering the entire log. Otherwise there is a
+ * histogram for each span of time, the same as the bins of a {@link Timeseries}.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class EncodedHistograms {
+
+  private final long spanMillis;
+  private final List<byte[]> histograms;
+
+  /**
+   * @param spanMillis The time each histogram spans, or 0 for the entire log
+   * @param histograms Each histogram, encoded. Bins without any samples have empty histograms.
+   */
+  public EncodedHistograms(long spanMillis, List<byte[]> histograms) {
+    if (histograms == null) {
+      throw new IllegalArgumentException("histograms cannot be null.");
+    }
+    this.spanMillis = spanMillis;
+    this.histograms = Collections.unmodifiableList(new ArrayList<>(histograms));
+  }
+
+  public long getSpanMillis() {
+    return spanMillis;
+  }
+
+  public List<byte[]> getHistograms() {
+    return histograms;
+  }
+
+  public int size() {
+    return histograms.size();
+  }
+}
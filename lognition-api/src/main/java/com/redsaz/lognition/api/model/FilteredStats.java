@@ -0,0 +1,82 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.api.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+/**
+ * The stats of only the samples of a log which were selected by a {@link SampleFilter}, calculated
+ * when asked for rather than when the log was imported.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class FilteredStats {
+
+  private final List<String> filter;
+  private final Stats aggregate;
+  private final Timeseries timeseries;
+  private final CodeCounts codeCounts;
+  private final Histogram histogram;
+  private final Percentiles percentiles;
+
+  @JsonCreator
+  public FilteredStats(
+      @JsonProperty("filter") List<String> filter,
+      @JsonProperty("aggregate") Stats aggregate,
+      @JsonProperty("timeseries") Timeseries timeseries,
+      @JsonProperty("codeCounts") CodeCounts codeCounts,
+      @JsonProperty("histogram") Histogram histogram,
+      @JsonProperty("percentiles") Percentiles percentiles) {
+    this.filter = filter == null ? List.of() : List.copyOf(filter);
+    this.aggregate = aggregate;
+    this.timeseries = timeseries;
+    this.codeCounts = codeCounts;
+    this.histogram = histogram;
+    this.percentiles = percentiles;
+  }
+
+  /**
+   * @return the normalized terms of the filter the stats are for.
+   */
+  public List<String> getFilter() {
+    return filter;
+  }
+
+  public Stats getAggregate() {
+    return aggregate;
+  }
+
+  public Timeseries getTimeseries() {
+    return timeseries;
+  }
+
+  /**
+   * @return the count of each status code of the selected samples, across the whole log.
+   */
+  public CodeCounts getCodeCounts() {
+    return codeCounts;
+  }
+
+  public Histogram getHistogram() {
+    return histogram;
+  }
+
+  public Percentiles getPercentiles() {
+    return percentiles;
+  }
+}
@@ -137,6 +137,9 @@ public class Log {
     QUEUED,
     IMPORTING,
     IMPORT_FAILED,
-    COMPLETE
+    COMPLETE,
+    // Samples are still being streamed in while the test runs. Status is stored by ordinal, so
+    // new values must be added to the end.
+    RUNNING
   }
 }
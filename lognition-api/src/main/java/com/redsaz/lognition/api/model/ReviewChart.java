@@ -13,21 +13,21 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package com.redsaz.lognition.view.model;
+package com.redsaz.lognition.api.model;
 
 /**
- * Contains chart data for browser viewing.
+ * One chart of a review, already rendered into the script which draws it in the browser.
  *
  * @author Redsaz <redsaz@gmail.com>
  */
-public class Chart {
+public class ReviewChart {
 
   private final String name;
   private final String urlName;
   private final String chartHtml;
   private final String height;
 
-  public Chart(String inName, String inUrlName, String inChartHtml, String inHeight) {
+  public ReviewChart(String inName, String inUrlName, String inChartHtml, String inHeight) {
     name = inName;
     urlName = inUrlName;
     chartHtml = inChartHtml;
@@ -46,6 +46,9 @@ public class Chart {
     return chartHtml;
   }
 
+  /**
+   * @return how tall the chart should be drawn, as a CSS length, or null for the default height.
+   */
   public String getHeight() {
     return height;
   }
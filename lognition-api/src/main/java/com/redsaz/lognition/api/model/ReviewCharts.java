@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.api.model;
+
+import java.util.List;
+
+/**
+ * The stored charts of a review. The charts are built from the logs of the review and their stats
+ * as of some version of that data. When the logs or stats change, the data version goes up, and the
+ * charts are stale until they are built again.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class ReviewCharts {
+
+  private final long dataVersion;
+  private final long builtVersion;
+  private final List<ReviewChart> charts;
+
+  public ReviewCharts(long inDataVersion, long inBuiltVersion, List<ReviewChart> inCharts) {
+    dataVersion = inDataVersion;
+    builtVersion = inBuiltVersion;
+    charts = inCharts;
+  }
+
+  /**
+   * @return the current version of the data of the review, to build the charts from.
+   */
+  public long getDataVersion() {
+    return dataVersion;
+  }
+
+  /**
+   * @return the version of the data the stored charts were built from.
+   */
+  public long getBuiltVersion() {
+    return builtVersion;
+  }
+
+  /**
+   * @return the stored charts, in order. Empty if the charts were never built.
+   */
+  public List<ReviewChart> getCharts() {
+    return charts;
+  }
+
+  /**
+   * @return true if the logs of the review or their stats changed since the charts were built.
+   */
+  public boolean isStale() {
+    return builtVersion < dataVersion;
+  }
+}
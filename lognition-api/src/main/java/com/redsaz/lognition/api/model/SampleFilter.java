@@ -0,0 +1,315 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.api.model;
+
+import com.redsaz.lognition.api.exceptions.AppClientException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Which samples of a log to calculate stats for. Every part of the filter must match for a sample
+ * to be selected, and a part which is not given matches every sample.
+ *
+ * <p>A filter can be parsed from terms of the form "key: value", the same as the filters of review
+ * charts:
+ *
+ * <ul>
+ *   <li>{@code name: GET status} - the label is exactly this. Can be given more than once, to
+ *       select samples with any of the labels.
+ *   <li>{@code name~: GET .*} - the whole label matches the regular expression.
+ *   <li>{@code success: true} - the sample succeeded, or failed for false.
+ *   <li>{@code code: 200,204} - the status code is one of these. Can be given more than once.
+ *   <li>{@code thread~: Thread Group 1-.*} - the whole thread name matches the regular expression.
+ *   <li>{@code from: 60000} - the sample started at or after this many millis into the log.
+ *   <li>{@code to: 120000} - the sample started before this many millis into the log.
+ * </ul>
+ *
+ * <p>Filters are normalized, so two filters which select samples the same way are equal and have
+ * the same {@link #toString()} no matter what order their terms were given in.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class SampleFilter {
+
+  /** Selects every sample. */
+  public static final SampleFilter ALL = builder().build();
+
+  private final SortedSet<String> labels;
+  private final String labelPattern;
+  private final Boolean success;
+  private final SortedSet<String> statusCodes;
+  private final String threadPattern;
+  private final long fromOffset;
+  private final long toOffset;
+  private final List<String> terms;
+
+  private SampleFilter(Builder builder) {
+    labels = Collections.unmodifiableSortedSet(new TreeSet<>(builder.labels));
+    labelPattern = builder.labelPattern;
+    success = builder.success;
+    statusCodes = Collections.unmodifiableSortedSet(new TreeSet<>(builder.statusCodes));
+    threadPattern = builder.threadPattern;
+    fromOffset = builder.fromOffset;
+    toOffset = builder.toOffset;
+
+    List<String> normalized = new ArrayList<>();
+    for (String label : labels) {
+      normalized.add("name: " + label);
+    }
+    if (labelPattern != null) {
+      normalized.add("name~: " + labelPattern);
+    }
+    if (success != null) {
+      normalized.add("success: " + success);
+    }
+    if (!statusCodes.isEmpty()) {
+      normalized.add("code: " + String.join(",", statusCodes));
+    }
+    if (threadPattern != null) {
+      normalized.add("thread~: " + threadPattern);
+    }
+    if (fromOffset != Long.MIN_VALUE) {
+      normalized.add("from: " + fromOffset);
+    }
+    if (toOffset != Long.MAX_VALUE) {
+      normalized.add("to: " + toOffset);
+    }
+    terms = Collections.unmodifiableList(normalized);
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Parses a filter from terms like "name: GET status" and "success: true".
+   *
+   * @param terms the terms of the filter, or null for a filter which selects every sample
+   * @return the filter.
+   * @throws AppClientException if a term could not be understood.
+   */
+  public static SampleFilter parse(List<String> terms) {
+    Builder builder = builder();
+    if (terms == null) {
+      return builder.build();
+    }
+    for (String term : terms) {
+      int colon = term.indexOf(':');
+      if (colon < 0) {
+        throw new AppClientException(
+            "Filter terms must be in the form \"key: value\", but was: " + term);
+      }
+      String key = term.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+      String value = term.substring(colon + 1).trim();
+      switch (key) {
+        case "name", "label" -> builder.label(value);
+        case "name~", "label~" -> builder.labelPattern(value);
+        case "success" -> builder.success(parseBoolean(term, value));
+        case "code" -> {
+          for (String code : value.split(",")) {
+            if (!code.isBlank()) {
+              builder.statusCode(code.trim());
+            }
+          }
+        }
+        case "thread~" -> builder.threadPattern(value);
+        case "from" -> builder.fromOffset(parseLong(term, value));
+        case "to" -> builder.toOffset(parseLong(term, value));
+        default -> throw new AppClientException("Unknown filter term: " + term);
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * @return the labels a sample must have one of, or empty for any label.
+   */
+  public SortedSet<String> getLabels() {
+    return labels;
+  }
+
+  /**
+   * @return the regular expression the whole label must match, or null for any label.
+   */
+  public String getLabelPattern() {
+    return labelPattern;
+  }
+
+  /**
+   * @return true for successful samples only, false for failed samples only, or null for both.
+   */
+  public Boolean getSuccess() {
+    return success;
+  }
+
+  /**
+   * @return the status codes a sample must have one of, or empty for any status code.
+   */
+  public SortedSet<String> getStatusCodes() {
+    return statusCodes;
+  }
+
+  /**
+   * @return the regular expression the whole thread name must match, or null for any thread.
+   */
+  public String getThreadPattern() {
+    return threadPattern;
+  }
+
+  /**
+   * @return the earliest offset, inclusive, or Long.MIN_VALUE if there is no earliest.
+   */
+  public long getFromOffset() {
+    return fromOffset;
+  }
+
+  /**
+   * @return the latest offset, exclusive, or Long.MAX_VALUE if there is no latest.
+   */
+  public long getToOffset() {
+    return toOffset;
+  }
+
+  /**
+   * @return the terms of the filter, normalized, which parse back into the same filter.
+   */
+  public List<String> getTerms() {
+    return terms;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof SampleFilter)) {
+      return false;
+    }
+    return terms.equals(((SampleFilter) obj).terms);
+  }
+
+  @Override
+  public int hashCode() {
+    return terms.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return String.join("; ", terms);
+  }
+
+  private static boolean parseBoolean(String term, String value) {
+    return switch (value.toLowerCase(Locale.ROOT)) {
+      case "true" -> true;
+      case "false" -> false;
+      default -> throw new AppClientException("Must be true or false: " + term);
+    };
+  }
+
+  private static long parseLong(String term, String value) {
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException ex) {
+      throw new AppClientException("Must be a whole number of milliseconds: " + term, ex);
+    }
+  }
+
+  public static class Builder {
+
+    private final SortedSet<String> labels = new TreeSet<>();
+    private String labelPattern;
+    private Boolean success;
+    private final SortedSet<String> statusCodes = new TreeSet<>();
+    private String threadPattern;
+    private long fromOffset = Long.MIN_VALUE;
+    private long toOffset = Long.MAX_VALUE;
+
+    private Builder() {}
+
+    /** Adds a label, so that samples with it are selected along with those of any other labels. */
+    public Builder label(String value) {
+      labels.add(value);
+      return this;
+    }
+
+    public Builder labelPattern(String value) {
+      labelPattern = value;
+      return this;
+    }
+
+    public Builder success(Boolean value) {
+      success = value;
+      return this;
+    }
+
+    /** Adds a status code, so that samples with it are selected along with any other codes. */
+    public Builder statusCode(String value) {
+      statusCodes.add(value);
+      return this;
+    }
+
+    public Builder threadPattern(String value) {
+      threadPattern = value;
+      return this;
+    }
+
+    public Builder fromOffset(long value) {
+      fromOffset = value;
+      return this;
+    }
+
+    public Builder toOffset(long value) {
+      toOffset = value;
+      return this;
+    }
+
+    /**
+     * @return the filter.
+     * @throws AppClientException if a regular expression is not valid, or if the range of time is
+     *     empty.
+     */
+    public SampleFilter build() {
+      checkPattern("name~", labelPattern);
+      checkPattern("thread~", threadPattern);
+      if (fromOffset >= toOffset) {
+        throw new AppClientException(
+            "Filter \"from\" must be before \"to\", but was from "
+                + fromOffset
+                + " to "
+                + toOffset);
+      }
+      return new SampleFilter(this);
+    }
+
+    private static void checkPattern(String key, String pattern) {
+      if (pattern == null) {
+        return;
+      }
+      try {
+        Pattern.compile(pattern);
+      } catch (PatternSyntaxException ex) {
+        throw new AppClientException(
+            "Filter \"" + key + "\" is not a valid regular expression: " + pattern, ex);
+      }
+    }
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.app.services;
+
+import com.redsaz.lognition.services.ImportMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes import measurements to Micrometer, which Quarkus serves from /q/metrics for Prometheus
+ * to scrape.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class MicrometerImportMetrics implements ImportMetrics {
+
+  private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+  private final MeterRegistry registry;
+  private final Timer queueWait;
+  private final Map<Phase, Timer> phases = new EnumMap<>(Phase.class);
+  private final Counter rows;
+  private final Counter bytes;
+  private final DistributionSummary rowsPerSecond;
+  private final DistributionSummary bytesPerSecond;
+  private final DistributionSummary heapHighWater;
+
+  public MicrometerImportMetrics(MeterRegistry meterRegistry) {
+    registry = meterRegistry;
+    queueWait =
+        Timer.builder("lognition.import.queue.wait")
+            .description("Time an import waited in the queue before starting")
+            .register(registry);
+    for (Phase phase : Phase.values()) {
+      phases.put(
+          phase,
+          Timer.builder("lognition.import.phase")
+              .description("Time spent in each part of an import")
+              .tag("phase", phaseName(phase))
+              .register(registry));
+    }
+    rows =
+        Counter.builder("lognition.import.rows")
+            .description("Samples read from imported files")
+            .register(registry);
+    bytes =
+        Counter.builder("lognition.import.bytes")
+            .baseUnit("bytes")
+            .description("Bytes of imported files")
+            .register(registry);
+    rowsPerSecond =
+        DistributionSummary.builder("lognition.import.rows.rate")
+            .baseUnit("rows.per.second")
+            .description("Samples read and written per second, for each import")
+            .register(registry);
+    bytesPerSecond =
+        DistributionSummary.builder("lognition.import.bytes.rate")
+            .baseUnit("bytes.per.second")
+            .description("Bytes of the imported file read per second, for each import")
+            .register(registry);
+    heapHighWater =
+        DistributionSummary.builder("lognition.import.heap.peak")
+            .baseUnit("bytes")
+            .description("Most heap used during each import")
+            .register(registry);
+  }
+
+  @Override
+  public void watchQueue(Collection<?> queue) {
+    registry.gaugeCollectionSize("lognition.import.queue.depth", Tags.empty(), queue);
+  }
+
+  @Override
+  public void queueWait(long waitNanos) {
+    queueWait.record(waitNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void phase(Phase phase, long nanos) {
+    phases.get(phase).record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void imported(long numRows, long numBytes, long nanos) {
+    rows.increment(numRows);
+    bytes.increment(numBytes);
+    if (nanos > 0L) {
+      double seconds = nanos / NANOS_PER_SECOND;
+      rowsPerSecond.record(numRows / seconds);
+      bytesPerSecond.record(numBytes / seconds);
+    }
+  }
+
+  @Override
+  public void heapHighWater(long numBytes) {
+    heapHighWater.record(numBytes);
+  }
+
+  @Override
+  public void failed(Phase phase, Throwable cause) {
+    registry
+        .counter(
+            "lognition.import.failures",
+            "phase",
+            phaseName(phase),
+            "cause",
+            cause.getClass().getSimpleName())
+        .increment();
+  }
+
+  private static String phaseName(Phase phase) {
+    return phase.name().toLowerCase(Locale.ROOT);
+  }
+}
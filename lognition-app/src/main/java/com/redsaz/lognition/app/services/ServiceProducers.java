@@ -19,15 +19,24 @@ import com.redsaz.lognition.api.ImportService;
 import com.redsaz.lognition.api.LogsService;
 import com.redsaz.lognition.api.ReviewsService;
 import com.redsaz.lognition.api.StatsService;
+import com.redsaz.lognition.convert.AvroSamplesWriter;
+import com.redsaz.lognition.services.LiveIngestService;
+import com.redsaz.lognition.services.LogEvents;
+import com.redsaz.lognition.services.ParallelLogLoader;
+import com.redsaz.lognition.services.ReviewMembership;
+import com.redsaz.lognition.services.SampleQueryService;
 import com.redsaz.lognition.services.Services;
 import com.redsaz.lognition.view.Processor;
 import com.redsaz.lognition.view.Sanitizer;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.context.Destroyed;
 import jakarta.enterprise.context.Initialized;
 import jakarta.enterprise.event.Observes;
 import jakarta.enterprise.inject.Produces;
 import jakarta.inject.Singleton;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,8 +52,37 @@ public class ServiceProducers implements AutoCloseable {
 
   public ServiceProducers(
       @ConfigProperty(name = "lognition.data.embeddeddb.location") String embeddedDbPath,
-      @ConfigProperty(name = "lognition.data.embeddeddb.autoinit") boolean autoinit) {
-    services = new Services(embeddedDbPath, autoinit);
+      @ConfigProperty(name = "lognition.data.embeddeddb.autoinit") boolean autoinit,
+      @ConfigProperty(name = "lognition.data.avro.codec", defaultValue = "null") String avroCodec,
+      @ConfigProperty(name = "lognition.data.avro.sync-interval", defaultValue = "64000")
+          int avroSyncInterval,
+      @ConfigProperty(name = "lognition.data.format", defaultValue = "avro") String dataFormat,
+      @ConfigProperty(name = "lognition.data.avro.label-partition-min-rows", defaultValue = "0")
+          int labelPartitionMinRows,
+      @ConfigProperty(name = "lognition.import.offheap.budget", defaultValue = "0")
+          long offHeapBudgetBytes,
+      @ConfigProperty(name = "lognition.import.offheap.spill") Optional<String> offHeapSpillPath,
+      MeterRegistry meterRegistry) {
+    services =
+        new Services(
+            embeddedDbPath,
+            autoinit,
+            new MicrometerImportMetrics(meterRegistry),
+            new AvroSamplesWriter(avroCodec, avroSyncInterval),
+            columnar(dataFormat),
+            labelPartitionMinRows,
+            offHeapBudgetBytes,
+            offHeapSpillPath.orElse(null));
+  }
+
+  private static boolean columnar(String dataFormat) {
+    return switch (dataFormat) {
+      case "avro" -> false;
+      case "columnar" -> true;
+      default ->
+          throw new IllegalArgumentException(
+              "lognition.data.format must be avro or columnar, but was " + dataFormat);
+    };
   }
 
   @Produces
@@ -74,6 +112,43 @@ public class ServiceProducers implements AutoCloseable {
     return services.statsService();
   }
 
+  @Produces
+  @Singleton
+  public LiveIngestService createLiveIngestService() {
+    return services.liveIngestService();
+  }
+
+  @Produces
+  @Singleton
+  public LogEvents createLogEvents() {
+    return services.logEvents();
+  }
+
+  @Produces
+  @Singleton
+  public ReviewMembership createReviewMembership() {
+    return services.reviewMembership();
+  }
+
+  @Produces
+  @Singleton
+  public ParallelLogLoader createParallelLogLoader() {
+    return services.parallelLogLoader();
+  }
+
+  @Produces
+  @Singleton
+  public SampleQueryService createSampleQueryService() {
+    return services.sampleQueryService();
+  }
+
+  @Produces
+  @Singleton
+  @Processor
+  public ExecutorService createDecodeExecutor() {
+    return services.decodeExecutor();
+  }
+
   public void init() {
     LOG.info("Started up Lognition.");
   }
@@ -17,11 +17,8 @@ package com.redsaz.lognition.view;
 
 import com.redsaz.lognition.api.ImportService;
 import com.redsaz.lognition.api.LogsService;
-import com.redsaz.lognition.api.ReviewsService;
 import com.redsaz.lognition.api.StatsService;
 import com.redsaz.lognition.api.exceptions.AppClientException;
-import com.redsaz.lognition.api.labelselector.LabelSelectorExpression;
-import com.redsaz.lognition.api.labelselector.LabelSelectorSyntaxException;
 import com.redsaz.lognition.api.model.CodeCounts;
 import com.redsaz.lognition.api.model.Histogram;
 import com.redsaz.lognition.api.model.ImportInfo;
@@ -29,10 +26,11 @@ import com.redsaz.lognition.api.model.Label;
 import com.redsaz.lognition.api.model.Log;
 import com.redsaz.lognition.api.model.LogBrief;
 import com.redsaz.lognition.api.model.Percentiles;
-import com.redsaz.lognition.api.model.Review;
 import com.redsaz.lognition.api.model.Stats;
 import com.redsaz.lognition.api.model.Timeseries;
-import com.redsaz.lognition.services.LabelSelectorParser;
+import com.redsaz.lognition.services.LiveIngestService;
+import com.redsaz.lognition.services.ReviewMembership;
+import com.redsaz.lognition.services.SampleQueryService;
 import io.vertx.core.http.HttpServerRequest;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
@@ -55,8 +53,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import org.commonmark.node.Node;
 import org.commonmark.parser.Parser;
@@ -77,30 +73,35 @@ public class BrowserLogsResource {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(BrowserLogsResource.class);
 
-  private ReviewsService reviewsSrv;
   private LogsService logsSrv;
   private ImportService importSrv;
   private StatsService statsSrv;
   private Templater cfg;
+  private ReviewMembership reviewMembership;
+  private LiveIngestService liveSrv;
+  private SampleQueryService sampleQuerySrv;
 
   private static final Parser CM_PARSER = Parser.builder().build();
   private static final HtmlRenderer HTML_RENDERER = HtmlRenderer.builder().escapeHtml(true).build();
-  private static final ExecutorService REVIEWS_CALC_EXEC = Executors.newSingleThreadExecutor();
 
   public BrowserLogsResource() {}
 
   @Inject
   public BrowserLogsResource(
-      @Sanitizer ReviewsService reviewsService,
       @Sanitizer LogsService logsService,
       @Processor ImportService importService,
       StatsService statsService,
-      Templater config) {
-    reviewsSrv = reviewsService;
+      Templater config,
+      ReviewMembership membership,
+      LiveIngestService liveIngestService,
+      SampleQueryService sampleQueryService) {
     logsSrv = logsService;
     importSrv = importService;
     statsSrv = statsService;
     cfg = config;
+    reviewMembership = membership;
+    liveSrv = liveIngestService;
+    sampleQuerySrv = sampleQueryService;
   }
 
   /**
@@ -243,10 +244,7 @@ public class BrowserLogsResource {
         resultLog = logsSrv.update(updatedLog);
       }
 
-      REVIEWS_CALC_EXEC.execute(
-          () -> {
-            calculateAllReviewLogs();
-          });
+      reviewMembership.logChanged(resultLog.getId());
 
       Response resp = Response.seeOther(URI.create("logs")).build();
       LOGGER.info("Finished uploading log {} for import", content);
@@ -367,10 +365,7 @@ public class BrowserLogsResource {
         logsSrv.setLabels(logId, labels);
       }
 
-      REVIEWS_CALC_EXEC.execute(
-          () -> {
-            calculateAllReviewLogs();
-          });
+      reviewMembership.logChanged(logId);
 
       Response resp = Response.seeOther(URI.create("logs/" + logId)).build();
       LOGGER.info("Finished updating log {}.", logId);
@@ -388,7 +383,10 @@ public class BrowserLogsResource {
   @POST
   @Path("delete")
   public Response deleteLog(@FormParam("id") long id) {
+    liveSrv.discard(id);
     logsSrv.delete(id);
+    sampleQuerySrv.evict(id);
+    reviewMembership.logChanged(id);
     Response resp = Response.seeOther(URI.create("/logs")).build();
     return resp;
   }
@@ -489,24 +487,6 @@ public class BrowserLogsResource {
     return Response.ok(cfg.buildFromTemplate(root, "base.ftl")).build();
   }
 
-  private void calculateAllReviewLogs() {
-    for (Review review : reviewsSrv.list()) {
-      try {
-        String body = review.getBody();
-        LabelSelectorExpression labelSelector = LabelSelectorParser.parse(body);
-        List<Long> logIds = logsSrv.listIdsBySelector(labelSelector);
-
-        reviewsSrv.setReviewLogs(review.getId(), logIds);
-      } catch (LabelSelectorSyntaxException ex) {
-        LOGGER.error(
-            "Review_id={} has a syntax error with it's label selector. No more logs will be added to the review until fixed.",
-            review.getId());
-      } catch (RuntimeException ex) {
-        LOGGER.error("Exception when using label selector from review_id={}.", ex);
-      }
-    }
-  }
-
   // https://developer.mozilla.org/en-US/docs/Web/HTTP/Headers/Content-Disposition
   private static void parseContentDispositionHeader(
       String headerValue, NameValueListener listener) {
@@ -597,6 +577,8 @@ public class BrowserLogsResource {
       return "";
     }
     StringBuilder sb = new StringBuilder();
+    // Registered so that the graph can be patched with live stats.
+    sb.append("lognitionGraphs[\"graphdiv").append(index).append("\"] = ");
     sb.append("new Dygraph(document.getElementById(\"graphdiv").append(index).append("\"),\n");
     String csvRowTail = " +\n";
     sb.append("\"offsetMillis,p50,p25,p75\\n\"").append(csvRowTail);
@@ -783,6 +765,7 @@ public class BrowserLogsResource {
       return "";
     }
     StringBuilder sb = new StringBuilder();
+    sb.append("lognitionGraphs[\"errorTimeseriesdiv").append(index).append("\"] = ");
     sb.append("new Dygraph(document.getElementById(\"errorTimeseriesdiv")
         .append(index)
         .append("\"),\n");
@@ -15,23 +15,19 @@
  */
 package com.redsaz.lognition.view;
 
-import com.github.slugify.Slugify;
-import com.redsaz.lognition.api.LogsService;
 import com.redsaz.lognition.api.ReviewsService;
-import com.redsaz.lognition.api.StatsService;
 import com.redsaz.lognition.api.exceptions.AppServerException;
-import com.redsaz.lognition.api.labelselector.LabelSelectorExpression;
 import com.redsaz.lognition.api.labelselector.LabelSelectorExpressionFormatter;
 import com.redsaz.lognition.api.labelselector.LabelSelectorSyntaxException;
 import com.redsaz.lognition.api.model.Attachment;
 import com.redsaz.lognition.api.model.Log;
-import com.redsaz.lognition.api.model.Percentiles;
 import com.redsaz.lognition.api.model.Review;
-import com.redsaz.lognition.api.model.Stats;
+import com.redsaz.lognition.api.model.ReviewCharts;
 import com.redsaz.lognition.quarkus.ErrorMessage;
 import com.redsaz.lognition.services.LabelSelectorParser;
 import com.redsaz.lognition.services.MediaTypeDetector;
-import com.redsaz.lognition.view.model.Chart;
+import com.redsaz.lognition.services.ReviewMembership;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import io.vertx.core.http.HttpServerRequest;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
@@ -48,27 +44,14 @@ import jakarta.ws.rs.core.Response;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.SortedMap;
-import java.util.TreeMap;
-import java.util.function.Function;
 import java.util.stream.Collectors;
-import org.apache.commons.math3.analysis.UnivariateFunction;
-import org.apache.commons.math3.analysis.interpolation.LinearInterpolator;
-import org.apache.commons.math3.analysis.interpolation.UnivariateInterpolator;
-import org.apache.commons.math3.exception.DimensionMismatchException;
-import org.apache.commons.math3.exception.MathIllegalArgumentException;
 import org.commonmark.node.Node;
 import org.commonmark.parser.Parser;
 import org.commonmark.renderer.html.HtmlRenderer;
@@ -89,36 +72,26 @@ public class BrowserReviewsResource {
   private static final Logger LOGGER = LoggerFactory.getLogger(BrowserReviewsResource.class);
 
   private ReviewsService reviewsSrv;
-  private LogsService logsSrv;
-  private StatsService statsSrv;
+  private ReviewMembership reviewMembership;
+  private ReviewChartMaterializer chartMaterializer;
   private Templater cfg;
 
   private static final Parser CM_PARSER = Parser.builder().build();
   private static final HtmlRenderer HTML_RENDERER = HtmlRenderer.builder().escapeHtml(true).build();
-  private static final Slugify SLG =
-      Slugify.builder().lowerCase(Boolean.TRUE).locale(Locale.US).build();
   private static final MediaTypeDetector MEDIA_TYPE_DETECTOR = new MediaTypeDetector();
 
-  private static final ThreadLocal<NumberFormat> PERC_FORMAT =
-      new ThreadLocal<NumberFormat>() {
-        @Override
-        protected NumberFormat initialValue() {
-          return new DecimalFormat("0.00");
-        }
-      };
-
   public BrowserReviewsResource() {}
 
   @Inject
   public BrowserReviewsResource(
       @Sanitizer ReviewsService reviewsService,
-      @Sanitizer LogsService logsService,
-      StatsService statsService,
-      Templater config) {
-    logsSrv = logsService;
+      Templater config,
+      ReviewMembership membership,
+      ReviewChartMaterializer materializer) {
     reviewsSrv = reviewsService;
-    statsSrv = statsService;
     cfg = config;
+    reviewMembership = membership;
+    chartMaterializer = materializer;
   }
 
   /**
@@ -152,6 +125,7 @@ public class BrowserReviewsResource {
   @GET
   @Produces(MediaType.TEXT_HTML)
   @Path("{id}")
+  @RunOnVirtualThread
   public Response getReviewById(@PathParam("id") long reviewId) {
     return getReview(reviewId, null);
   }
@@ -166,6 +140,7 @@ public class BrowserReviewsResource {
   @GET
   @Produces(MediaType.TEXT_HTML)
   @Path("{id}/{urlName}")
+  @RunOnVirtualThread
   public Response getReviewByIdWithName(
       @PathParam("id") long reviewId, @PathParam("urlName") String urlName) {
     return getReview(reviewId, urlName);
@@ -229,7 +204,7 @@ public class BrowserReviewsResource {
               null,
               body);
       Review result = reviewsSrv.create(review);
-      calculateReviewLogs(result);
+      reviewMembership.reviewChanged(result);
       Response resp = Response.seeOther(URI.create("reviews")).build();
       LOGGER.info("Finished creating review {}", result);
       return resp;
@@ -348,7 +323,7 @@ public class BrowserReviewsResource {
               null,
               body);
       Review result = reviewsSrv.update(review);
-      calculateReviewLogs(result);
+      reviewMembership.reviewChanged(result);
       Response resp = Response.seeOther(URI.create("reviews/" + reviewId)).build();
       LOGGER.info("Finished updating review {}.", reviewId);
       return resp;
@@ -366,6 +341,7 @@ public class BrowserReviewsResource {
   @Path("delete")
   public Response deleteReviewForm(@FormParam("id") long id) {
     reviewsSrv.delete(id);
+    reviewMembership.reviewDeleted(id);
     Response resp = Response.seeOther(URI.create("/reviews")).build();
     return resp;
   }
@@ -557,8 +533,7 @@ public class BrowserReviewsResource {
           .build();
     }
     List<Log> briefs = reviewsSrv.getReviewLogs(reviewId);
-
-    List<Chart> reviewGraphs = createReviewCharts(briefs);
+    ReviewCharts charts = chartMaterializer.getCharts(reviewId);
 
     Map<String, Object> root = new HashMap<>();
     root.put("review", review);
@@ -575,7 +550,8 @@ public class BrowserReviewsResource {
     root.put("title", review.getName());
     root.put("descriptionHtml", commonMarkToHtml(review.getDescription()));
     root.put("content", "review-view.ftl");
-    root.put("reviewGraphs", reviewGraphs);
+    root.put("reviewGraphs", charts == null ? List.of() : charts.getCharts());
+    root.put("chartsStale", charts == null || charts.isStale());
     addAttachments(root, reviewId);
 
     return Response.ok(cfg.buildFromTemplate(root, "base.ftl")).build();
@@ -675,415 +651,6 @@ public class BrowserReviewsResource {
     return cursor;
   }
 
-  private static final Stats EMPTY_STAT =
-      new Stats(0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L);
-  private static final Percentiles EMPTY_PERCENTILES = null;
-  private static final Metrics EMPTY_METRICS = new Metrics(EMPTY_STAT, EMPTY_PERCENTILES);
-
-  private static final UnivariateInterpolator INTERP = new ConstantOrLinearInterpolator();
-
-  private static final double[] PERCENTILE_POINTS =
-      new double[] {
-        0d, 1d, 2d, 3d, 4d, 5d, 6d, 7d, 8d, 9d, 10d, 11d, 12d, 13d, 14d, 15d, 16d, 17d, 18d, 19d,
-        20d, 21d, 22d, 23d, 24d, 25d, 26d, 27d, 28d, 29d, 30d, 31d, 32d, 33d, 34d, 35d, 36d, 37d,
-        38d, 39d, 40d, 41d, 42d, 43d, 44d, 45d, 46d, 47d, 48d, 49d, 50d, 51d, 52d, 53d, 54d, 55d,
-        56d, 57d, 58d, 59d, 60d, 61d, 62d, 63d, 64d, 65d, 66d, 67d, 68d, 69d, 70d, 71d, 72d, 73d,
-        74d, 75d, 76d, 77d, 78d, 79d, 80d, 81d, 82d, 83d, 84d, 85d, 86d, 87d, 88d, 89d, 90d, 91d,
-        92d, 93d, 94d, 95d, 96d, 97d, 97.5d, 98d, 98.25d, 98.5d, 98.75d, 99d, 99.125d, 99.25d,
-        99.375d, 99.5d, 99.625d, 99.75d, 99.875d, 99.9d, 99.99d, 99.999, 99.9999d, 100d
-      };
-
-  /**
-   * Combines a list of different {@link Percentiles} into a two-dimensional array of values, sorted
-   * by percentile. This is required because different series can have differently sized
-   * percentiles.
-   *
-   * @param percentiles List of percentiles to combine into 2d array
-   * @return 2d array of percentiles
-   */
-  private static SortedMap<Double, List<Long>> unifyPercentiles(List<Percentiles> percentiles) {
-    SortedMap<Double, List<Long>> unified = new TreeMap<>();
-    for (int i = 0; i < percentiles.size(); ++i) {
-      Percentiles percs = percentiles.get(i);
-      if (percs == null) {
-        continue;
-      }
-      List<Double> originalPercs = percs.getPercentiles();
-      List<Long> originalMillis = percs.getValues();
-      List<Double> savedPercs = new ArrayList<>();
-      List<Long> savedMillis = new ArrayList<>();
-      Double prevPerc = null;
-      for (int j = 1; j < originalPercs.size(); ++j) {
-        Double perc = originalPercs.get(j);
-        if (!perc.equals(prevPerc)) {
-          savedPercs.add(perc);
-          savedMillis.add(originalMillis.get(j));
-        }
-        prevPerc = perc;
-      }
-      double[] xvals = new double[savedPercs.size()];
-      double[] yvals = new double[savedMillis.size()];
-      for (int j = 0; j < savedPercs.size(); ++j) {
-        xvals[j] = savedPercs.get(j);
-        yvals[j] = savedMillis.get(j);
-      }
-      UnivariateFunction interp = INTERP.interpolate(xvals, yvals);
-      double minX = xvals[0];
-      double maxX = xvals[xvals.length - 1];
-      for (int j = 0; j < PERCENTILE_POINTS.length; ++j) {
-        double x = PERCENTILE_POINTS[j];
-        double y;
-        if (x < minX) {
-          y = yvals[0];
-        } else if (x > maxX) {
-          y = yvals[yvals.length - 1];
-        } else {
-          y = interp.value(x);
-        }
-        Double perc = x;
-        Long millis = Math.round(y);
-        List<Long> values = unified.get(perc);
-        if (values == null) {
-          values = new ArrayList<>(percentiles.size());
-          for (int k = 0; k < percentiles.size(); ++k) {
-            values.add(null);
-          }
-          unified.put(perc, values);
-        }
-        values.set(i, millis);
-      }
-    }
-
-    return unified;
-  }
-
-  private static Chart createPercentileChart(
-      String name,
-      String urlName,
-      List<Percentiles> percentiles,
-      List<String> seriesNames,
-      int index) {
-    if (percentiles == null) {
-      LOGGER.debug("Percentiles list is empty.");
-      return new Chart(name, urlName, "", null);
-    }
-    SortedMap<Double, List<Long>> unifiedPercs = unifyPercentiles(percentiles);
-    StringBuilder sb = new StringBuilder();
-    sb.append("new Dygraph(document.getElementById(\"graphdiv").append(index).append("\"),\n");
-    String csvRowTail = " +\n";
-
-    sb.append("\"percentile,");
-    // THIS WON'T WORK WITH SERIES NAMES THAT HAVE COMMAS!
-    for (String seriesName : seriesNames) {
-      sb.append(seriesName).append(",");
-    }
-    if (!seriesNames.isEmpty()) {
-      sb.setLength(sb.length() - 1);
-    }
-    sb.append("\\n\"").append(csvRowTail);
-
-    for (Entry<Double, List<Long>> percs : unifiedPercs.entrySet()) {
-      Double perc = percs.getKey();
-      List<Long> seriesMillis = percs.getValue();
-      sb.append("\"").append(perc).append(",");
-      for (Long millis : seriesMillis) {
-        if (millis != null) {
-          sb.append(millis);
-        }
-        sb.append(",");
-      }
-      sb.setLength(sb.length() - 1);
-      sb.append("\\n\"").append(csvRowTail);
-    }
-    if (!unifiedPercs.isEmpty()) {
-      sb.setLength(sb.length() - csvRowTail.length());
-    }
-    sb.append(", {\n");
-    sb.append("legend: 'always',\n");
-    sb.append("xlabel: 'Percentile',\n");
-    sb.append("ylabel: 'Response Time (ms)',\n");
-    sb.append("connectSeparatedPoints: true,\n");
-    sb.append("});");
-    return new Chart(name, urlName, sb.toString(), null);
-  }
-
-  private Metrics getMetrics(long logId, long labelId) {
-    Stats stats = statsSrv.getAggregate(logId, labelId);
-    Percentiles percentiles = statsSrv.getPercentiles(logId, labelId);
-    return new Metrics(stats, percentiles);
-  }
-
-  private List<Chart> createReviewCharts(List<Log> briefs) {
-    Map<String, List<Metrics>> metricsMap = new TreeMap<>();
-    int iBrief = 0;
-    for (Log brief : briefs) {
-      List<String> labels = statsSrv.getSampleLabels(brief.getId());
-      int iLabel = 0;
-      for (String label : labels) {
-        Metrics metrics = getMetrics(brief.getId(), iLabel);
-        List<Metrics> labelMetrics = metricsMap.get(label);
-        if (labelMetrics == null) {
-          labelMetrics = new ArrayList<>(briefs.size());
-          metricsMap.put(label, labelMetrics);
-        }
-        // All logs must maintain the same index in each label's list.
-        if (labelMetrics.size() < iBrief) {
-          for (int i = 0; i < iBrief; ++i) {
-            labelMetrics.add(EMPTY_METRICS);
-          }
-        }
-        labelMetrics.add(metrics);
-        ++iLabel;
-      }
-      ++iBrief;
-    }
-    // Make sure each list is the same length.
-    for (List<Metrics> labelMetrics : metricsMap.values()) {
-      for (int i = labelMetrics.size(); i < briefs.size(); ++i) {
-        labelMetrics.add(EMPTY_METRICS);
-      }
-    }
-
-    // Now, we have a map of key=categoryName, value=ordered list of values per log.
-    // But, what we need is a map of key=logName, value=ordered list of values per category.
-    List<String> categoryNames = new ArrayList<>(metricsMap.size());
-    List<String> seriesNames = new ArrayList<>(briefs.size());
-    List<List<Metrics>> seriesCategoriesMetrics = new ArrayList<>(briefs.size());
-    for (Log brief : briefs) {
-      seriesNames.add(brief.getName());
-      List<Metrics> logValues = new ArrayList<>(metricsMap.size());
-      seriesCategoriesMetrics.add(logValues);
-    }
-    for (Entry<String, List<Metrics>> statsEntry : metricsMap.entrySet()) {
-      categoryNames.add(statsEntry.getKey());
-      for (int i = 0; i < briefs.size(); ++i) {
-        List<Metrics> logValues = seriesCategoriesMetrics.get(i);
-        logValues.add(statsEntry.getValue().get(i));
-      }
-    }
-
-    List<Chart> charts = new ArrayList<Chart>();
-    charts.add(
-        createStatBarChart(
-            "Average",
-            "avg",
-            categoryNames,
-            seriesNames,
-            seriesCategoriesMetrics,
-            Stats::getAvg,
-            false,
-            0));
-    charts.add(
-        createStatBarChart(
-            "Median",
-            "p50",
-            categoryNames,
-            seriesNames,
-            seriesCategoriesMetrics,
-            Stats::getP50,
-            false,
-            1));
-    charts.add(
-        createStatBarChart(
-            "90th Percentile",
-            "p90",
-            categoryNames,
-            seriesNames,
-            seriesCategoriesMetrics,
-            Stats::getP90,
-            false,
-            2));
-    charts.add(
-        createStatBarChart(
-            "95th Percentile",
-            "p95",
-            categoryNames,
-            seriesNames,
-            seriesCategoriesMetrics,
-            Stats::getP95,
-            false,
-            3));
-    charts.add(
-        createStatBarChart(
-            "99th Percentile",
-            "p99",
-            categoryNames,
-            seriesNames,
-            seriesCategoriesMetrics,
-            Stats::getP99,
-            false,
-            4));
-    charts.add(
-        createStatBarChart(
-            "Error Count",
-            "numErrors",
-            categoryNames,
-            seriesNames,
-            seriesCategoriesMetrics,
-            Stats::getNumErrors,
-            false,
-            5));
-    charts.add(
-        createStatBarChart(
-            "Error %",
-            "percErrors",
-            categoryNames,
-            seriesNames,
-            seriesCategoriesMetrics,
-            (t) -> {
-              if (t == null || t.getNumSamples() == 0) {
-                return "0";
-              }
-              return PERC_FORMAT
-                  .get()
-                  .format(((double) t.getNumErrors() * 100d) / ((double) t.getNumSamples()));
-            },
-            true,
-            6));
-    charts.addAll(
-        createMultiPercentileChart(categoryNames, seriesNames, seriesCategoriesMetrics, 7));
-
-    return charts;
-  }
-
-  private List<Chart> createMultiPercentileChart(
-      List<String> categoryNames,
-      List<String> seriesNames,
-      List<List<Metrics>> seriesCategoriesMetrics,
-      int index) {
-    List<Chart> percentiles = new ArrayList<>(seriesNames.size() * categoryNames.size());
-    for (int chartI = 0; chartI < categoryNames.size(); ++chartI) {
-      List<Percentiles> seriesCategory = new ArrayList<>();
-      for (List<Metrics> categories : seriesCategoriesMetrics) {
-        seriesCategory.add(categories.get(chartI).percentiles());
-      }
-      String categoryName = categoryNames.get(chartI);
-      String name = categoryName + " - Percentiles";
-      String urlName = SLG.slugify(name);
-      Chart chart =
-          createPercentileChart(name, urlName, seriesCategory, seriesNames, index + chartI);
-      percentiles.add(chart);
-    }
-    return percentiles;
-  }
-
-  private Chart createStatBarChart(
-      String name,
-      String urlName,
-      List<String> categoryNames,
-      List<String> seriesNames,
-      List<List<Metrics>> seriesCategoriesMetrics,
-      Function<Stats, ?> statPart,
-      boolean isPercentage,
-      int index) {
-    List<List<?>> results = new ArrayList<>(seriesCategoriesMetrics.size());
-    for (List<Metrics> listMetrics : seriesCategoriesMetrics) {
-      List<Object> category = new ArrayList<>(listMetrics.size());
-      for (Metrics metrics : listMetrics) {
-        category.add(statPart.apply(metrics.stats()));
-      }
-      results.add(category);
-    }
-    return createBarChart(name, urlName, categoryNames, seriesNames, results, isPercentage, index);
-  }
-
-  private static Chart createBarChart(
-      String name,
-      String urlName,
-      List<String> categoryNames,
-      List<String> seriesNames,
-      List<List<?>> seriesCategoriesValues,
-      boolean isPercentage,
-      int index) {
-    StringBuilder sb = new StringBuilder();
-    sb.append("new Chartist.Bar('#graphdiv").append(index).append("', {\n");
-    sb.append("  labels: [");
-    for (String categoryName : categoryNames) {
-      sb.append("'").append(categoryName).append("',");
-    }
-    if (!categoryNames.isEmpty()) {
-      // If we have at least one category listed, then take off the last comma
-      sb.setLength(sb.length() - 1);
-    }
-    sb.append("],\n");
-    sb.append("  series: [\n");
-    for (int i = 0; i < seriesCategoriesValues.size(); ++i) {
-      List<?> categoryValues = seriesCategoriesValues.get(i);
-      String seriesName = seriesNames.get(i);
-      sb.append("    {\"name\": \"").append(seriesName).append("\", \"data\": [");
-      for (int j = 0; j < categoryValues.size(); ++j) {
-        sb.append(categoryValues.get(j)).append(",");
-      }
-      if (!categoryValues.isEmpty()) {
-        // If we have at least one item in the series, then take off the last comma
-        sb.setLength(sb.length() - 1);
-      }
-      sb.append("]},\n");
-    }
-
-    if (!seriesCategoriesValues.isEmpty()) {
-      // If there is at least one series in the map, then remove last comma.
-      sb.setLength(sb.length() - 2);
-      sb.append("\n");
-    }
-
-    sb.append("  ]\n");
-    sb.append("}, {\n");
-    sb.append("  seriesBarDistance: 10,\n");
-    sb.append("  horizontalBars: true,\n");
-    sb.append("  reverseDate: true,\n");
-    sb.append("  axisY: {\n");
-    sb.append("    offset: 70\n");
-    sb.append("  },\n");
-    if (isPercentage) {
-      sb.append("  axisX: {\n");
-      sb.append("    type: Chartist.FixedScaleAxis,\n");
-      sb.append("    ticks: [0, 10, 20, 30, 40, 50, 60, 70, 80, 90, 100],\n");
-      sb.append("    low: 0,\n");
-      sb.append("    high: 100,\n");
-      sb.append("    labelInterpolationFnc: function(value) {\n");
-      sb.append("      return value + '%';\n");
-      sb.append("    },\n");
-      sb.append("  },\n");
-    }
-    sb.append("  plugins: [\n");
-    sb.append("    Chartist.plugins.tooltip({\n");
-    if (isPercentage) {
-      sb.append("    transformTooltipTextFnc: function(value) {\n");
-      sb.append("      return value + '%';\n");
-      sb.append("    },\n");
-    }
-    sb.append("      anchorToPoint: false\n");
-    sb.append("    }),\n");
-    sb.append("    Chartist.plugins.legend({\n");
-    sb.append("      position: 'top'\n");
-    sb.append("    })\n");
-    sb.append("  ]\n");
-    sb.append("});\n");
-
-    // Height calculation is based on number of series * number of categories, rather than
-    // using the ct-square (or other sizes) since that causes the legend to disappear.
-    int height = categoryNames.size() * seriesNames.size();
-    height = Math.max(height, 10);
-    String heightText = height + "em";
-
-    return new Chart(name, urlName, sb.toString(), heightText);
-  }
-
-  private void calculateReviewLogs(Review review) {
-    try {
-      String body = review.getBody();
-      LabelSelectorExpression labelSelector = LabelSelectorParser.parse(body);
-      List<Long> logIds = logsSrv.listIdsBySelector(labelSelector);
-
-      reviewsSrv.setReviewLogs(review.getId(), logIds);
-    } catch (LabelSelectorSyntaxException ex) {
-      LOGGER.error(
-          "Could not find logs for review due to Syntax error in label selector for review_id={}",
-          review.getId());
-    }
-  }
-
   private static String commonMarkToHtml(String commonMarkText) {
     Node document = CM_PARSER.parse(commonMarkText);
     return HTML_RENDERER.render(document);
@@ -1141,53 +708,4 @@ public class BrowserReviewsResource {
       // Good.
     }
   }
-
-  private static class Metrics {
-
-    private final Stats stats;
-    private final Percentiles percentiles;
-
-    public Metrics(Stats inStats, Percentiles inPercentiles) {
-      stats = inStats;
-      percentiles = inPercentiles;
-    }
-
-    public Stats stats() {
-      return stats;
-    }
-
-    public Percentiles percentiles() {
-      return percentiles;
-    }
-  }
-
-  private static class ConstantOrLinearInterpolator implements UnivariateInterpolator {
-
-    private static final UnivariateInterpolator LINEINTERP = new LinearInterpolator();
-
-    @Override
-    public UnivariateFunction interpolate(double[] xvals, double[] yvals)
-        throws MathIllegalArgumentException, DimensionMismatchException {
-      if (xvals.length == 1 && yvals.length == 1) {
-        // If we only have one value, then return it along the entire x-axis.
-        return new ConstantFunction(yvals[0]);
-      } else {
-        return LINEINTERP.interpolate(xvals, yvals);
-      }
-    }
-  }
-
-  private static class ConstantFunction implements UnivariateFunction {
-
-    private final double yval;
-
-    public ConstantFunction(double inYval) {
-      yval = inYval;
-    }
-
-    @Override
-    public double value(double d) {
-      return yval;
-    }
-  }
 }
@@ -18,39 +18,51 @@ package com.redsaz.lognition.view;
 import com.redsaz.lognition.api.ImportService;
 import com.redsaz.lognition.api.LognitionMediaType;
 import com.redsaz.lognition.api.LogsService;
-import com.redsaz.lognition.api.ReviewsService;
+import com.redsaz.lognition.api.exceptions.AppServerException;
 import com.redsaz.lognition.api.labelselector.LabelSelectorExpression;
-import com.redsaz.lognition.api.labelselector.LabelSelectorSyntaxException;
 import com.redsaz.lognition.api.model.Label;
 import com.redsaz.lognition.api.model.Log;
-import com.redsaz.lognition.api.model.Review;
 import com.redsaz.lognition.api.model.Sample;
+import com.redsaz.lognition.api.model.SampleFilter;
 import com.redsaz.lognition.convert.AvroSamplesReader;
+import com.redsaz.lognition.convert.ColumnarSamplesReader;
+import com.redsaz.lognition.convert.ColumnarSamplesWriter;
 import com.redsaz.lognition.convert.CsvJtlSamplesWriter;
+import com.redsaz.lognition.convert.LabelPartitions;
+import com.redsaz.lognition.convert.ParallelAvroSamplesReader;
 import com.redsaz.lognition.services.LabelSelectorParser;
+import com.redsaz.lognition.services.LiveIngestService;
+import com.redsaz.lognition.services.LogEvents;
+import com.redsaz.lognition.services.ReviewMembership;
+import com.redsaz.lognition.services.SampleQueryService;
 import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.Status;
 import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.slf4j.Logger;
@@ -66,22 +78,34 @@ import org.slf4j.LoggerFactory;
 public class LogsResource {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(LogsResource.class);
+  private static final String NDJSON = "application/x-ndjson";
 
-  private ReviewsService reviewsSrv;
   private LogsService logsSrv;
   private ImportService importSrv;
-  private static final ExecutorService REVIEWS_CALC_EXEC = Executors.newSingleThreadExecutor();
+  private LiveIngestService liveSrv;
+  private LogEvents logEvents;
+  private ReviewMembership reviewMembership;
+  private SampleQueryService sampleQuerySrv;
+  private ExecutorService decodeExecutor;
 
   public LogsResource() {}
 
   @Inject
   public LogsResource(
-      @Sanitizer ReviewsService reviewsService,
       @Sanitizer LogsService logsService,
-      @Processor ImportService importService) {
-    reviewsSrv = reviewsService;
+      @Processor ImportService importService,
+      LiveIngestService liveIngestService,
+      LogEvents events,
+      ReviewMembership membership,
+      SampleQueryService sampleQueryService,
+      @Processor ExecutorService decodingExecutor) {
     logsSrv = logsService;
     importSrv = importService;
+    liveSrv = liveIngestService;
+    logEvents = events;
+    reviewMembership = membership;
+    sampleQuerySrv = sampleQueryService;
+    decodeExecutor = decodingExecutor;
   }
 
   /**
@@ -140,21 +164,30 @@ public class LogsResource {
   }
 
   /**
-   * Allow a client to download the log data in CSV form.
+   * Allow a client to download the log data in CSV form, either all of it or only a window of time.
    *
    * @param id The id of the log.
+   * @param from The earliest millisecond to include, relative to the start of the log. If not
+   *     given, the window starts at the start of the log.
+   * @param to The millisecond to stop at, exclusive, relative to the start of the log. If not
+   *     given, the window goes to the end of the log.
+   * @param labels Only include samples with these labels. If not given, all labels are included.
    * @return log data.
    */
   @GET
   @Produces({"text/csv", "*/*"})
   @Path("{id}/{urlName}/content")
   @RunOnVirtualThread
-  public Response getCsvContent(@PathParam("id") long id) {
+  public Response getCsvContent(
+      @PathParam("id") long id,
+      @QueryParam("from") Long from,
+      @QueryParam("to") Long to,
+      @QueryParam("label") List<String> labels) {
     try {
-      File file = logsSrv.getAvroFile(id);
+      File file = dataFile(id);
       StreamingOutput streamOut =
           os -> {
-            try (Stream<Sample> samples = AvroSamplesReader.sampleStream(file.toPath())) {
+            try (Stream<Sample> samples = contentStream(id, file, from, to, labels)) {
               CsvJtlSamplesWriter.outputStreamWriter(samples).accept(os);
             }
           };
@@ -166,6 +199,134 @@ public class LogsResource {
     }
   }
 
+  /**
+   * Calculates the stats of only the samples of the log selected by the filter, such as
+   * "?filter=name: GET status&amp;filter=success: true". See {@link SampleFilter} for the terms.
+   *
+   * @param id The id of the log.
+   * @param filter The terms of the filter. If not given, the stats are of every sample.
+   * @param spanMillis The time each bin of the timeseries spans. If not given, 60 seconds.
+   * @return the stats of the selected samples.
+   */
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  @Path("{id}/{urlName}/stats")
+  @RunOnVirtualThread
+  public Response getFilteredStats(
+      @PathParam("id") long id,
+      @QueryParam("filter") List<String> filter,
+      @QueryParam("spanMillis") Long spanMillis) {
+    long span = spanMillis == null ? SampleQueryService.DEFAULT_SPAN_MILLIS : spanMillis;
+    return Response.ok(sampleQuerySrv.query(id, SampleFilter.parse(filter), span)).build();
+  }
+
+  /**
+   * Calculates the timeseries of the log for any span, such as 5 seconds over a window of a few
+   * minutes, rather than only the 60 second timeseries stored when the log was imported.
+   *
+   * @param id The id of the log.
+   * @param spanMillis The time each bin of the timeseries spans. If not given, 60 seconds.
+   * @param from The earliest millisecond to include, relative to the start of the log. If not
+   *     given, the window starts at the start of the log.
+   * @param to The millisecond to stop at, exclusive, relative to the start of the log. If not
+   *     given, the window goes to the end of the log.
+   * @param labels Only include samples with these labels. If not given, all labels are included.
+   * @return the bins of the timeseries which overlap the window.
+   */
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  @Path("{id}/{urlName}/timeseries")
+  @RunOnVirtualThread
+  public Response getTimeseries(
+      @PathParam("id") long id,
+      @QueryParam("spanMillis") Long spanMillis,
+      @QueryParam("from") Long from,
+      @QueryParam("to") Long to,
+      @QueryParam("label") List<String> labels) {
+    long span = spanMillis == null ? SampleQueryService.DEFAULT_SPAN_MILLIS : spanMillis;
+    long fromOffset = from == null ? Long.MIN_VALUE : from;
+    long toOffset = to == null ? Long.MAX_VALUE : to;
+    return Response.ok(sampleQuerySrv.timeseries(id, labels, fromOffset, toOffset, span)).build();
+  }
+
+  private Stream<Sample> contentStream(
+      long id, File dataFile, Long from, Long to, List<String> labels) throws IOException {
+    long fromOffset = from == null ? 0L : from;
+    long toOffset = to == null ? Long.MAX_VALUE : to;
+    boolean filterLabels = labels != null && !labels.isEmpty();
+    if (filterLabels) {
+      LabelPartitions partitions = labelPartitions(id);
+      if (partitions != null) {
+        return partitions.sampleStream(labels, fromOffset, toOffset);
+      }
+    }
+    if (dataFile.getName().endsWith("." + ColumnarSamplesWriter.EXTENSION)) {
+      return ColumnarSamplesReader.sampleStream(
+          dataFile.toPath(), fromOffset, toOffset, filterLabels ? labels : null);
+    }
+    if (filterLabels) {
+      return AvroSamplesReader.sampleStream(dataFile.toPath(), fromOffset, toOffset, labels);
+    }
+    if (from == null && to == null) {
+      return ParallelAvroSamplesReader.orderedStream(
+          dataFile.toPath(), decodeExecutor, ParallelAvroSamplesReader.DEFAULT_WORKERS);
+    }
+    return AvroSamplesReader.sampleStream(dataFile.toPath(), fromOffset, toOffset);
+  }
+
+  /** The columnar file of the log if it was stored or converted to that, else the Avro file. */
+  private File dataFile(long id) throws FileNotFoundException {
+    try {
+      return logsSrv.getColumnarFile(id);
+    } catch (FileNotFoundException ex) {
+      return logsSrv.getAvroFile(id);
+    }
+  }
+
+  private LabelPartitions labelPartitions(long id) throws IOException {
+    try {
+      return LabelPartitions.read(logsSrv.getLabelPartitionsDir(id).toPath());
+    } catch (FileNotFoundException ex) {
+      // The log was not stored with label partitions.
+      return null;
+    }
+  }
+
+  /**
+   * Pushes what happens to a log as Server-Sent Events: "status" when the status changes,
+   * "progress" while importing, and "stats" with the newest timeseries bins of running logs. The
+   * current status is sent first.
+   *
+   * @param id The id of the log.
+   * @param sink Where the events are sent.
+   * @param sse Builds the events.
+   */
+  @GET
+  @Path("{id}/events")
+  @Produces(MediaType.SERVER_SENT_EVENTS)
+  public void streamEvents(
+      @PathParam("id") long id, @Context SseEventSink sink, @Context Sse sse) {
+    Log log = logsSrv.get(id);
+    if (log == null) {
+      throw new NotFoundException("Could not find log brief id=" + id);
+    }
+    sendEvent(sink, sse, new LogEvents.StatusEvent(id, log.getStatus()));
+    logEvents.subscribe(
+        id,
+        batch -> {
+          if (sink.isClosed()) {
+            // Throwing unsubscribes this listener.
+            throw new IllegalStateException("Event sink for log id=" + id + " is closed.");
+          }
+          if (batch.isEmpty()) {
+            sink.send(sse.newEventBuilder().comment("keepalive").build());
+          }
+          for (LogEvents.LogEvent event : batch) {
+            sendEvent(sink, sse, event);
+          }
+        });
+  }
+
   @POST
   @Consumes({
     MediaType.APPLICATION_OCTET_STREAM,
@@ -193,38 +354,123 @@ public class LogsResource {
       logsSrv.setLabels(resultLog.getId(), labels);
     }
 
-    REVIEWS_CALC_EXEC.execute(
-        () -> {
-          calculateAllReviewLogs();
-        });
+    reviewMembership.logChanged(resultLog.getId());
 
     return Response.status(Status.CREATED)
         .entity(importSrv.upload(source, resultLog, name, System.currentTimeMillis()))
         .build();
   }
 
+  /**
+   * Creates a log for a test that is still running. Rows can be sent in the body of this request,
+   * and in later requests to {@link #appendLiveLog}, in the same columns as an uploaded JTL or Loady
+   * CSV, either as CSV or as NDJSON. The log stays in the RUNNING status until finished.
+   *
+   * @param source the first rows of the log, may be empty
+   * @param contentType "application/x-ndjson" for NDJSON rows, otherwise CSV rows are expected
+   * @param name the name of the log
+   * @param notes the notes of the log
+   * @param labelsText the labels of the log
+   * @return the running log.
+   */
+  @POST
+  @Path("live")
+  @Consumes({"text/csv", MediaType.TEXT_PLAIN, NDJSON, MediaType.APPLICATION_OCTET_STREAM})
+  @Produces({LognitionMediaType.LOGBRIEF_V1_JSON, MediaType.APPLICATION_JSON})
+  @RunOnVirtualThread
+  public Response createLiveLog(
+      InputStream source,
+      @HeaderParam("Content-Type") String contentType,
+      @QueryParam("name") String name,
+      @QueryParam("notes") String notes,
+      @QueryParam("labels") String labelsText) {
+    if (name == null) {
+      name = "live";
+    }
+    List<Label> labels = toLabelsList(labelsText);
+
+    Log sourceLog = new Log(0L, Log.Status.AWAITING_UPLOAD, null, name, null, notes);
+    Log resultLog = logsSrv.create(sourceLog);
+    if (!labels.isEmpty()) {
+      logsSrv.setLabels(resultLog.getId(), labels);
+    }
+
+    reviewMembership.logChanged(resultLog.getId());
+
+    liveSrv.start(resultLog.getId());
+    appendLive(resultLog.getId(), source, contentType);
+    return Response.status(Status.CREATED).entity(logsSrv.get(resultLog.getId())).build();
+  }
+
+  /**
+   * Appends rows to a running log. A local test can be done by replaying a JTL in chunks, like:
+   *
+   * <pre>
+   * split -l 1000 --filter 'curl -s -H "Content-Type: text/csv" --data-binary @- \
+   *     http://localhost:8080/logs/1/live; sleep 1' test.jtl
+   * </pre>
+   *
+   * @param id the running log
+   * @param source the rows to append
+   * @param contentType "application/x-ndjson" for NDJSON rows, otherwise CSV rows are expected
+   * @return the number of rows appended
+   */
+  @POST
+  @Path("{id}/live")
+  @Consumes({"text/csv", MediaType.TEXT_PLAIN, NDJSON, MediaType.APPLICATION_OCTET_STREAM})
+  @Produces(MediaType.APPLICATION_JSON)
+  @RunOnVirtualThread
+  public Response appendLiveLog(
+      @PathParam("id") long id,
+      InputStream source,
+      @HeaderParam("Content-Type") String contentType) {
+    long rows = appendLive(id, source, contentType);
+    return Response.ok(Map.of("logId", id, "rowsAppended", rows)).build();
+  }
+
+  /**
+   * Stops a running log, and imports it like any other log.
+   *
+   * @param id the running log
+   * @return the finished log
+   */
+  @POST
+  @Path("{id}/live/finish")
+  @Produces({LognitionMediaType.LOGBRIEF_V1_JSON, MediaType.APPLICATION_JSON})
+  @RunOnVirtualThread
+  public Response finishLiveLog(@PathParam("id") long id) {
+    liveSrv.finish(id);
+    return Response.ok(logsSrv.get(id)).build();
+  }
+
   @DELETE
   @Path("{id}")
   public Response deleteLog(@PathParam("id") long id) {
+    liveSrv.discard(id);
     logsSrv.delete(id);
+    sampleQuerySrv.evict(id);
+    reviewMembership.logChanged(id);
     return Response.status(Status.NO_CONTENT).build();
   }
 
-  private void calculateAllReviewLogs() {
-    for (Review review : reviewsSrv.list()) {
-      try {
-        String body = review.getBody();
-        LabelSelectorExpression labelSelector = LabelSelectorParser.parse(body);
-        List<Long> logIds = logsSrv.listIdsBySelector(labelSelector);
-
-        reviewsSrv.setReviewLogs(review.getId(), logIds);
-      } catch (LabelSelectorSyntaxException ex) {
-        LOGGER.error(
-            "Review_id={} has a syntax error with it's label selector. No more logs will be added to the review until fixed.",
-            review.getId());
-      } catch (RuntimeException ex) {
-        LOGGER.error("Exception when using label selector from review_id={}.", ex);
-      }
+  private static void sendEvent(SseEventSink sink, Sse sse, LogEvents.LogEvent event) {
+    sink.send(
+        sse.newEventBuilder()
+            .name(event.type())
+            .mediaType(MediaType.APPLICATION_JSON_TYPE)
+            .data(event)
+            .build());
+  }
+
+  private long appendLive(long id, InputStream source, String contentType) {
+    LiveIngestService.Format format = LiveIngestService.Format.CSV;
+    if (contentType != null && contentType.startsWith(NDJSON)) {
+      format = LiveIngestService.Format.NDJSON;
+    }
+    try {
+      return liveSrv.append(id, source, format);
+    } catch (IOException ex) {
+      throw new AppServerException("Could not read rows for live log id=" + id, ex);
     }
   }
 
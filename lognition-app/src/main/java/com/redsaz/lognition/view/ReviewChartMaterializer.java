@@ -0,0 +1,599 @@
+/*
+ * Copyright 2018 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.view;
+
+import com.github.slugify.Slugify;
+import com.redsaz.lognition.api.ReviewsService;
+import com.redsaz.lognition.api.StatsService;
+import com.redsaz.lognition.api.model.Log;
+import com.redsaz.lognition.api.model.Percentiles;
+import com.redsaz.lognition.api.model.ReviewChart;
+import com.redsaz.lognition.api.model.ReviewCharts;
+import com.redsaz.lognition.api.model.Stats;
+import com.redsaz.lognition.services.ParallelLogLoader;
+import com.redsaz.lognition.stats.PercentileCurves;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Destroyed;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Builds the charts of reviews in the background and stores them, so that viewing a review only
+ * reads the stored charts. Building the charts of a review means reading the stats and percentile
+ * curves of every label of every log in the review, which is far too slow to do on every view of a
+ * review with many logs. The curves are normalized onto the same points when the stats of a log are
+ * calculated, so charting them together only lines them up.
+ *
+ * <p>The store marks the charts of a review as stale whenever its logs, or the stats of its logs,
+ * change. Reviews with stale charts are looked for every few seconds and rebuilt one at a time.
+ * Viewing a review with stale charts shows the stale charts, and asks for them to be rebuilt right
+ * away.
+ *
+ * <p>A log which could not be loaded does not hold back the charts of the rest of its review. The
+ * charts are stored without it, and its series is marked as not loaded. The review is then built
+ * again a few more times, waiting longer each time, in case the log can be loaded later. If it
+ * never can, it is left out until the review or its logs change again.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+@Singleton
+public class ReviewChartMaterializer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReviewChartMaterializer.class);
+  private static final long SWEEP_MILLIS = 5000L;
+  private static final int MAX_RETRIES = 5;
+  private static final String NOT_LOADED_SUFFIX = " (not loaded)";
+
+  private static final Slugify SLG =
+      Slugify.builder().lowerCase(Boolean.TRUE).locale(Locale.US).build();
+
+  private static final ThreadLocal<NumberFormat> PERC_FORMAT =
+      new ThreadLocal<NumberFormat>() {
+        @Override
+        protected NumberFormat initialValue() {
+          return new DecimalFormat("0.00");
+        }
+      };
+
+  private final ReviewsService reviewsSrv;
+  private final StatsService statsSrv;
+  private final ParallelLogLoader logLoader;
+  private final ExecutorService builder;
+  private final ScheduledExecutorService sweeper;
+  // The reviews waiting to be built, so that a review is not waiting more than once.
+  private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+  // How many times in a row each review was built without all of its logs.
+  private final Map<Long, Integer> retries = new ConcurrentHashMap<>();
+
+  @Inject
+  public ReviewChartMaterializer(
+      @Sanitizer ReviewsService reviewsService,
+      StatsService statsService,
+      ParallelLogLoader parallelLogLoader) {
+    reviewsSrv = reviewsService;
+    statsSrv = statsService;
+    logLoader = parallelLogLoader;
+    builder = Executors.newSingleThreadExecutor(r -> daemon(r, "ReviewChartBuilder"));
+    sweeper = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "ReviewChartSweeper"));
+  }
+
+  public void onStart(@Observes @Initialized(ApplicationScoped.class) Object init) {
+    sweeper.scheduleWithFixedDelay(this::sweep, 0L, SWEEP_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  public void onStop(@Observes @Destroyed(ApplicationScoped.class) Object destroy) {
+    sweeper.shutdownNow();
+    builder.shutdownNow();
+  }
+
+  /**
+   * Gets the stored charts of a review. If they are stale, they are still returned, and will be
+   * rebuilt soon.
+   *
+   * @param reviewId the review
+   * @return the stored charts, or null if there is no such review.
+   */
+  public ReviewCharts getCharts(long reviewId) {
+    ReviewCharts charts = reviewsSrv.getCharts(reviewId);
+    if (charts != null && charts.isStale()) {
+      rebuildSoon(reviewId);
+    }
+    return charts;
+  }
+
+  /**
+   * Builds the charts of a review in the background, unless it is already waiting to be built.
+   *
+   * @param reviewId the review
+   */
+  public void rebuildSoon(long reviewId) {
+    rebuildSoon(reviewId, false);
+  }
+
+  private void rebuildSoon(long reviewId, boolean retry) {
+    if (queued.add(reviewId)) {
+      builder.execute(() -> rebuild(reviewId, retry));
+    }
+  }
+
+  private void sweep() {
+    try {
+      for (long reviewId : reviewsSrv.listStaleChartReviewIds()) {
+        rebuildSoon(reviewId);
+      }
+    } catch (RuntimeException ex) {
+      LOGGER.error("Could not look for reviews with stale charts.", ex);
+    }
+  }
+
+  /**
+   * @param reviewId the review
+   * @param retry true if built again because some of its logs could not be loaded last time, in
+   *     which case it is built even though its charts are not stale
+   */
+  private void rebuild(long reviewId, boolean retry) {
+    // Taken off the queue first, so that changes from now on queue it again.
+    queued.remove(reviewId);
+    try {
+      ReviewCharts current = reviewsSrv.getCharts(reviewId);
+      if (current == null || (!current.isStale() && !retry)) {
+        return;
+      }
+      long startMillis = System.currentTimeMillis();
+      List<Log> briefs = reviewsSrv.getReviewLogs(reviewId);
+      // The logs are loaded at the same time. Any which could not be loaded are charted without
+      // any stats, and named as not loaded.
+      List<Long> logIds = briefs.stream().map(Log::getId).toList();
+      List<Map<String, Metrics>> logsMetrics =
+          new ArrayList<>(logLoader.load(logIds, this::getLogMetrics, NOT_LOADED));
+      List<String> seriesNames = new ArrayList<>(briefs.size());
+      int notLoaded = 0;
+      for (int i = 0; i < briefs.size(); ++i) {
+        if (logsMetrics.get(i) == NOT_LOADED) {
+          logsMetrics.set(i, Map.of());
+          seriesNames.add(briefs.get(i).getName() + NOT_LOADED_SUFFIX);
+          ++notLoaded;
+        } else {
+          seriesNames.add(briefs.get(i).getName());
+        }
+      }
+      List<ReviewChart> charts = createReviewCharts(seriesNames, logsMetrics);
+      reviewsSrv.putCharts(reviewId, current.getDataVersion(), charts);
+      retryIfNotLoaded(reviewId, retry, notLoaded);
+      LOGGER.info(
+          "{}ms to build {} charts of review_id={} with {} logs.",
+          System.currentTimeMillis() - startMillis,
+          charts.size(),
+          reviewId,
+          briefs.size());
+    } catch (RuntimeException ex) {
+      LOGGER.error("Could not build the charts of review_id=" + reviewId, ex);
+    }
+  }
+
+  /**
+   * Builds the review again later if any of its logs could not be loaded, waiting twice as long as
+   * the time before, until it has been tried too many times in a row. A change to the review or its
+   * logs starts the count again.
+   */
+  private void retryIfNotLoaded(long reviewId, boolean retry, int notLoaded) {
+    if (notLoaded == 0) {
+      retries.remove(reviewId);
+      return;
+    }
+    int attempt = retry ? retries.getOrDefault(reviewId, 0) + 1 : 1;
+    retries.put(reviewId, attempt);
+    if (attempt > MAX_RETRIES) {
+      retries.remove(reviewId);
+      LOGGER.warn(
+          "Still could not load {} logs of review_id={}, leaving them out of its charts.",
+          notLoaded,
+          reviewId);
+      return;
+    }
+    long delayMillis = SWEEP_MILLIS << (attempt - 1);
+    LOGGER.warn(
+        "Could not load {} logs of review_id={}, will build its charts again in {}ms.",
+        notLoaded,
+        reviewId,
+        delayMillis);
+    sweeper.schedule(() -> rebuildSoon(reviewId, true), delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private static Thread daemon(Runnable r, String name) {
+    Thread t = new Thread(r, name);
+    t.setDaemon(true);
+    return t;
+  }
+
+  private static final Stats EMPTY_STAT =
+      new Stats(0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L);
+  private static final long[] EMPTY_CURVE = null;
+  private static final Metrics EMPTY_METRICS = new Metrics(EMPTY_STAT, EMPTY_CURVE);
+  // Given for a log which could not be loaded. Only ever compared by identity.
+  private static final Map<String, Metrics> NOT_LOADED = new LinkedHashMap<>();
+
+  private static ReviewChart createPercentileChart(
+      String name, String urlName, List<long[]> curves, List<String> seriesNames, int index) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("new Dygraph(document.getElementById(\"graphdiv").append(index).append("\"),\n");
+    String csvRowTail = " +\n";
+
+    sb.append("\"percentile,");
+    // THIS WON'T WORK WITH SERIES NAMES THAT HAVE COMMAS!
+    for (String seriesName : seriesNames) {
+      sb.append(seriesName).append(",");
+    }
+    if (!seriesNames.isEmpty()) {
+      sb.setLength(sb.length() - 1);
+    }
+    sb.append("\\n\"").append(csvRowTail);
+
+    // Every curve has the same points, so each row is the same point of every curve.
+    boolean hasRows = curves.stream().anyMatch(Objects::nonNull);
+    for (int i = 0; hasRows && i < PercentileCurves.size(); ++i) {
+      sb.append("\"").append(PercentileCurves.point(i)).append(",");
+      for (long[] curve : curves) {
+        if (curve != null) {
+          sb.append(curve[i]);
+        }
+        sb.append(",");
+      }
+      sb.setLength(sb.length() - 1);
+      sb.append("\\n\"").append(csvRowTail);
+    }
+    if (hasRows) {
+      sb.setLength(sb.length() - csvRowTail.length());
+    }
+    sb.append(", {\n");
+    sb.append("legend: 'always',\n");
+    sb.append("xlabel: 'Percentile',\n");
+    sb.append("ylabel: 'Response Time (ms)',\n");
+    sb.append("connectSeparatedPoints: true,\n");
+    sb.append("});");
+    return new ReviewChart(name, urlName, sb.toString(), null);
+  }
+
+  private Metrics getMetrics(long logId, long labelId) {
+    Stats stats = statsSrv.getAggregate(logId, labelId);
+    return new Metrics(stats, getPercentileCurve(logId, labelId));
+  }
+
+  /**
+   * Gets the stored percentile curve of a label. Logs imported before curves were stored do not
+   * have one, so it is made from the percentiles and stored the first time it is needed.
+   */
+  private long[] getPercentileCurve(long logId, long labelId) {
+    long[] curve = statsSrv.getPercentileCurve(logId, labelId);
+    if (curve != null && curve.length == PercentileCurves.size()) {
+      return curve;
+    }
+    Percentiles percentiles = statsSrv.getPercentiles(logId, labelId);
+    if (percentiles == null) {
+      return null;
+    }
+    curve = PercentileCurves.normalize(percentiles);
+    if (curve != null) {
+      statsSrv.createOrUpdatePercentileCurve(logId, labelId, curve);
+    }
+    return curve;
+  }
+
+  /**
+   * Gets the metrics of every label of a log, in label order.
+   *
+   * @param logId the log
+   * @return the metrics of each label, by label name.
+   */
+  private Map<String, Metrics> getLogMetrics(long logId) {
+    List<String> labels = statsSrv.getSampleLabels(logId);
+    Map<String, Metrics> logMetrics = new LinkedHashMap<>();
+    for (int iLabel = 0; iLabel < labels.size(); ++iLabel) {
+      logMetrics.put(labels.get(iLabel), getMetrics(logId, iLabel));
+    }
+    return logMetrics;
+  }
+
+  private List<ReviewChart> createReviewCharts(
+      List<String> seriesNames, List<Map<String, Metrics>> logsMetrics) {
+    Map<String, List<Metrics>> metricsMap = new TreeMap<>();
+    int iBrief = 0;
+    for (Map<String, Metrics> logMetrics : logsMetrics) {
+      for (Entry<String, Metrics> labelEntry : logMetrics.entrySet()) {
+        List<Metrics> labelMetrics = metricsMap.get(labelEntry.getKey());
+        if (labelMetrics == null) {
+          labelMetrics = new ArrayList<>(seriesNames.size());
+          metricsMap.put(labelEntry.getKey(), labelMetrics);
+        }
+        // All logs must maintain the same index in each label's list.
+        while (labelMetrics.size() < iBrief) {
+          labelMetrics.add(EMPTY_METRICS);
+        }
+        labelMetrics.add(labelEntry.getValue());
+      }
+      ++iBrief;
+    }
+    // Make sure each list is the same length.
+    for (List<Metrics> labelMetrics : metricsMap.values()) {
+      for (int i = labelMetrics.size(); i < seriesNames.size(); ++i) {
+        labelMetrics.add(EMPTY_METRICS);
+      }
+    }
+
+    // Now, we have a map of key=categoryName, value=ordered list of values per log.
+    // But, what we need is a map of key=logName, value=ordered list of values per category.
+    List<String> categoryNames = new ArrayList<>(metricsMap.size());
+    List<List<Metrics>> seriesCategoriesMetrics = new ArrayList<>(seriesNames.size());
+    for (int i = 0; i < seriesNames.size(); ++i) {
+      List<Metrics> logValues = new ArrayList<>(metricsMap.size());
+      seriesCategoriesMetrics.add(logValues);
+    }
+    for (Entry<String, List<Metrics>> statsEntry : metricsMap.entrySet()) {
+      categoryNames.add(statsEntry.getKey());
+      for (int i = 0; i < seriesNames.size(); ++i) {
+        List<Metrics> logValues = seriesCategoriesMetrics.get(i);
+        logValues.add(statsEntry.getValue().get(i));
+      }
+    }
+
+    List<ReviewChart> charts = new ArrayList<ReviewChart>();
+    charts.add(
+        createStatBarChart(
+            "Average",
+            "avg",
+            categoryNames,
+            seriesNames,
+            seriesCategoriesMetrics,
+            Stats::getAvg,
+            false,
+            0));
+    charts.add(
+        createStatBarChart(
+            "Median",
+            "p50",
+            categoryNames,
+            seriesNames,
+            seriesCategoriesMetrics,
+            Stats::getP50,
+            false,
+            1));
+    charts.add(
+        createStatBarChart(
+            "90th Percentile",
+            "p90",
+            categoryNames,
+            seriesNames,
+            seriesCategoriesMetrics,
+            Stats::getP90,
+            false,
+            2));
+    charts.add(
+        createStatBarChart(
+            "95th Percentile",
+            "p95",
+            categoryNames,
+            seriesNames,
+            seriesCategoriesMetrics,
+            Stats::getP95,
+            false,
+            3));
+    charts.add(
+        createStatBarChart(
+            "99th Percentile",
+            "p99",
+            categoryNames,
+            seriesNames,
+            seriesCategoriesMetrics,
+            Stats::getP99,
+            false,
+            4));
+    charts.add(
+        createStatBarChart(
+            "Error Count",
+            "numErrors",
+            categoryNames,
+            seriesNames,
+            seriesCategoriesMetrics,
+            Stats::getNumErrors,
+            false,
+            5));
+    charts.add(
+        createStatBarChart(
+            "Error %",
+            "percErrors",
+            categoryNames,
+            seriesNames,
+            seriesCategoriesMetrics,
+            (t) -> {
+              if (t == null || t.getNumSamples() == 0) {
+                return "0";
+              }
+              return PERC_FORMAT
+                  .get()
+                  .format(((double) t.getNumErrors() * 100d) / ((double) t.getNumSamples()));
+            },
+            true,
+            6));
+    charts.addAll(
+        createMultiPercentileChart(categoryNames, seriesNames, seriesCategoriesMetrics, 7));
+
+    return charts;
+  }
+
+  private List<ReviewChart> createMultiPercentileChart(
+      List<String> categoryNames,
+      List<String> seriesNames,
+      List<List<Metrics>> seriesCategoriesMetrics,
+      int index) {
+    List<ReviewChart> percentiles = new ArrayList<>(seriesNames.size() * categoryNames.size());
+    for (int chartI = 0; chartI < categoryNames.size(); ++chartI) {
+      List<long[]> seriesCategory = new ArrayList<>();
+      for (List<Metrics> categories : seriesCategoriesMetrics) {
+        seriesCategory.add(categories.get(chartI).percentileCurve());
+      }
+      String categoryName = categoryNames.get(chartI);
+      String name = categoryName + " - Percentiles";
+      String urlName = SLG.slugify(name);
+      ReviewChart chart =
+          createPercentileChart(name, urlName, seriesCategory, seriesNames, index + chartI);
+      percentiles.add(chart);
+    }
+    return percentiles;
+  }
+
+  private ReviewChart createStatBarChart(
+      String name,
+      String urlName,
+      List<String> categoryNames,
+      List<String> seriesNames,
+      List<List<Metrics>> seriesCategoriesMetrics,
+      Function<Stats, ?> statPart,
+      boolean isPercentage,
+      int index) {
+    List<List<?>> results = new ArrayList<>(seriesCategoriesMetrics.size());
+    for (List<Metrics> listMetrics : seriesCategoriesMetrics) {
+      List<Object> category = new ArrayList<>(listMetrics.size());
+      for (Metrics metrics : listMetrics) {
+        category.add(statPart.apply(metrics.stats()));
+      }
+      results.add(category);
+    }
+    return createBarChart(name, urlName, categoryNames, seriesNames, results, isPercentage, index);
+  }
+
+  private static ReviewChart createBarChart(
+      String name,
+      String urlName,
+      List<String> categoryNames,
+      List<String> seriesNames,
+      List<List<?>> seriesCategoriesValues,
+      boolean isPercentage,
+      int index) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("new Chartist.Bar('#graphdiv").append(index).append("', {\n");
+    sb.append("  labels: [");
+    for (String categoryName : categoryNames) {
+      sb.append("'").append(categoryName).append("',");
+    }
+    if (!categoryNames.isEmpty()) {
+      // If we have at least one category listed, then take off the last comma
+      sb.setLength(sb.length() - 1);
+    }
+    sb.append("],\n");
+    sb.append("  series: [\n");
+    for (int i = 0; i < seriesCategoriesValues.size(); ++i) {
+      List<?> categoryValues = seriesCategoriesValues.get(i);
+      String seriesName = seriesNames.get(i);
+      sb.append("    {\"name\": \"").append(seriesName).append("\", \"data\": [");
+      for (int j = 0; j < categoryValues.size(); ++j) {
+        sb.append(categoryValues.get(j)).append(",");
+      }
+      if (!categoryValues.isEmpty()) {
+        // If we have at least one item in the series, then take off the last comma
+        sb.setLength(sb.length() - 1);
+      }
+      sb.append("]},\n");
+    }
+
+    if (!seriesCategoriesValues.isEmpty()) {
+      // If there is at least one series in the map, then remove last comma.
+      sb.setLength(sb.length() - 2);
+      sb.append("\n");
+    }
+
+    sb.append("  ]\n");
+    sb.append("}, {\n");
+    sb.append("  seriesBarDistance: 10,\n");
+    sb.append("  horizontalBars: true,\n");
+    sb.append("  reverseDate: true,\n");
+    sb.append("  axisY: {\n");
+    sb.append("    offset: 70\n");
+    sb.append("  },\n");
+    if (isPercentage) {
+      sb.append("  axisX: {\n");
+      sb.append("    type: Chartist.FixedScaleAxis,\n");
+      sb.append("    ticks: [0, 10, 20, 30, 40, 50, 60, 70, 80, 90, 100],\n");
+      sb.append("    low: 0,\n");
+      sb.append("    high: 100,\n");
+      sb.append("    labelInterpolationFnc: function(value) {\n");
+      sb.append("      return value + '%';\n");
+      sb.append("    },\n");
+      sb.append("  },\n");
+    }
+    sb.append("  plugins: [\n");
+    sb.append("    Chartist.plugins.tooltip({\n");
+    if (isPercentage) {
+      sb.append("    transformTooltipTextFnc: function(value) {\n");
+      sb.append("      return value + '%';\n");
+      sb.append("    },\n");
+    }
+    sb.append("      anchorToPoint: false\n");
+    sb.append("    }),\n");
+    sb.append("    Chartist.plugins.legend({\n");
+    sb.append("      position: 'top'\n");
+    sb.append("    })\n");
+    sb.append("  ]\n");
+    sb.append("});\n");
+
+    // Height calculation is based on number of series * number of categories, rather than
+    // using the ct-square (or other sizes) since that causes the legend to disappear.
+    int height = categoryNames.size() * seriesNames.size();
+    height = Math.max(height, 10);
+    String heightText = height + "em";
+
+    return new ReviewChart(name, urlName, sb.toString(), heightText);
+  }
+
+  private static class Metrics {
+
+    private final Stats stats;
+    private final long[] percentileCurve;
+
+    public Metrics(Stats inStats, long[] inPercentileCurve) {
+      stats = inStats;
+      percentileCurve = inPercentileCurve;
+    }
+
+    public Stats stats() {
+      return stats;
+    }
+
+    public long[] percentileCurve() {
+      return percentileCurve;
+    }
+  }
+}
@@ -16,14 +16,12 @@
 package com.redsaz.lognition.view;
 
 import com.redsaz.lognition.api.LognitionMediaType;
-import com.redsaz.lognition.api.LogsService;
 import com.redsaz.lognition.api.ReviewsService;
-import com.redsaz.lognition.api.labelselector.LabelSelectorExpression;
 import com.redsaz.lognition.api.labelselector.LabelSelectorExpressionFormatter;
-import com.redsaz.lognition.api.labelselector.LabelSelectorSyntaxException;
 import com.redsaz.lognition.api.model.Log;
 import com.redsaz.lognition.api.model.Review;
 import com.redsaz.lognition.services.LabelSelectorParser;
+import com.redsaz.lognition.services.ReviewMembership;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
@@ -55,15 +53,14 @@ public class ReviewsResource {
   private static final Logger LOGGER = LoggerFactory.getLogger(ReviewsResource.class);
 
   private ReviewsService reviewsSrv;
-  private LogsService logsSrv;
+  private ReviewMembership reviewMembership;
 
   public ReviewsResource() {}
 
   @Inject
-  public ReviewsResource(
-      @Sanitizer ReviewsService reviewsService, @Sanitizer LogsService logsService) {
+  public ReviewsResource(@Sanitizer ReviewsService reviewsService, ReviewMembership membership) {
     reviewsSrv = reviewsService;
-    logsSrv = logsService;
+    reviewMembership = membership;
   }
 
   /**
@@ -136,8 +133,7 @@ public class ReviewsResource {
             body);
     Review result = reviewsSrv.create(review);
 
-    // TODO calculation of the logs can be done asynchronously.
-    calculateReviewLogs(result);
+    reviewMembership.reviewChanged(result);
     Response resp =
         Response.created(URI.create("/reviews/" + result.getId())).entity(result).build();
     LOGGER.info("Finished creating review {}", result);
@@ -154,6 +150,7 @@ public class ReviewsResource {
   @Path("{id}")
   public Response deleteReview(@PathParam("id") long id) {
     reviewsSrv.delete(id);
+    reviewMembership.reviewDeleted(id);
     return Response.status(Status.NO_CONTENT).build();
   }
 
@@ -164,18 +161,4 @@ public class ReviewsResource {
     List<Log> logs = reviewsSrv.getReviewLogs(id);
     return Response.ok(logs).build();
   }
-
-  private void calculateReviewLogs(Review review) {
-    try {
-      String body = review.getBody();
-      LabelSelectorExpression labelSelector = LabelSelectorParser.parse(body);
-      List<Long> logIds = logsSrv.listIdsBySelector(labelSelector);
-
-      reviewsSrv.setReviewLogs(review.getId(), logIds);
-    } catch (LabelSelectorSyntaxException ex) {
-      LOGGER.error(
-          "Could not find logs for review due to Syntax error in label selector for review_id={}",
-          review.getId());
-    }
-  }
 }
@@ -30,6 +30,7 @@ module LognitionApp {
   requires jakarta.ws.rs;
   requires jakarta.cdi;
   requires jakarta.inject;
+  requires micrometer.core;
   requires microprofile.config.api;
   requires org.commonmark;
   requires org.hsqldb;
@@ -182,6 +182,193 @@ function selectDefaultContentPanes() {
     selectContentPanesForHash();
 }
 
+/**
+ * Dygraphs which can be updated after the page has loaded, by the id of the div they are drawn in.
+ */
+window.lognitionGraphs = window.lognitionGraphs || {};
+
+/**
+ * Converts a stats bin into a row of a response time graph. The columns are the same as those of
+ * the graphs drawn by the server: the median with the 25th and 75th percentiles as its bars, then
+ * the 25th and the 75th percentiles each as a line of their own.
+ * @param stats the stats bin.
+ * @returns the graph row.
+ */
+function toResponseTimeRow(stats) {
+    return [stats.offsetMillis,
+            [stats.p25, stats.p50, stats.p75],
+            [stats.p25, stats.p25, stats.p25],
+            [stats.p75, stats.p75, stats.p75]];
+}
+
+/**
+ * Converts a stats bin into a row of an error count graph.
+ * @param stats the stats bin.
+ * @returns the graph row.
+ */
+function toErrorCountRow(stats) {
+    return [stats.offsetMillis, stats.numErrors];
+}
+
+/**
+ * Redraws a graph with the given rows, but only if every row has a value for every column of the
+ * graph. Otherwise the graph would be drawn wrong, so it is left as it was.
+ * @param graphId id of the div the graph is drawn in.
+ * @param graph the graph.
+ * @param rows the rows to draw.
+ */
+function setGraphRows(graphId, graph, rows) {
+    const numColumns = graph.getLabels().length;
+    const badRow = rows.find(row => row.length !== numColumns);
+    if (badRow !== undefined) {
+        console.warn("Not redrawing " + graphId + ", it has " + numColumns
+                + " columns but a row has " + badRow.length + ".");
+        return;
+    }
+    graph.updateOptions({file: rows});
+}
+
+/**
+ * Replaces rows of a graph, starting at the given row, keeping the rows before it. Rows past the
+ * end of the graph are added to the end.
+ * @param graphId id of the div the graph is drawn in.
+ * @param fromRow the first row to replace.
+ * @param bins the stats to replace the rows with.
+ * @param toRow converts a stats bin into a graph row.
+ */
+function patchGraph(graphId, fromRow, bins, toRow) {
+    const graph = window.lognitionGraphs[graphId];
+    if (graph === undefined || graph === null) {
+        return;
+    }
+    const rows = [];
+    for (let row = 0; row < graph.numRows(); ++row) {
+        const values = [];
+        for (let col = 0; col < graph.numColumns(); ++col) {
+            values.push(graph.getValue(row, col));
+        }
+        rows.push(values);
+    }
+    bins.forEach((stats, i) => {
+        rows[fromRow + i] = toRow(stats);
+    });
+    // If the page was rendered from older stats, there may be a gap between the old rows and the
+    // new ones. Skip the gap, the rows are still in order.
+    setGraphRows(graphId, graph, rows.filter(row => row !== undefined));
+}
+
+/**
+ * Replaces every row of a graph.
+ * @param graphId id of the div the graph is drawn in.
+ * @param bins the stats to draw.
+ * @param toRow converts a stats bin into a graph row.
+ */
+function replaceGraph(graphId, bins, toRow) {
+    const graph = window.lognitionGraphs[graphId];
+    if (graph === undefined || graph === null || bins.length === 0) {
+        return;
+    }
+    setGraphRows(graphId, graph, bins.map(toRow));
+}
+
+/**
+ * Updates the timeseries graphs with the newest bins of a running log.
+ * @param event the stats event, with the bins for each label.
+ */
+function patchLiveGraphs(event) {
+    event.bins.forEach((labelBins, labelId) => {
+        patchGraph("graphdiv" + labelId, event.fromBin, labelBins, toResponseTimeRow);
+        patchGraph("errorTimeseriesdiv" + labelId, event.fromBin, labelBins, toErrorCountRow);
+    });
+}
+
+/**
+ * Redraws the timeseries graphs of a log with the span and window of time chosen in the timeseries
+ * controls. The graphs are fetched per label, since each graph is of one label (or all of them).
+ * @param event the submit event of the controls.
+ * @param logId id of the log.
+ * @param urlName url name of the log.
+ * @returns false, so the form is not submitted.
+ */
+function showTimeseries(event, logId, urlName) {
+    event.preventDefault();
+    const form = event.target;
+    const status = document.getElementById("timeseries-controls-status");
+    const params = new URLSearchParams();
+    params.set("spanMillis", Math.round(form.spanSeconds.value * 1000));
+    if (form.fromSeconds.value !== "") {
+        params.set("from", Math.round(form.fromSeconds.value * 1000));
+    }
+    if (form.toSeconds.value !== "") {
+        params.set("to", Math.round(form.toSeconds.value * 1000));
+    }
+    status.textContent = "Loading...";
+    const requests = [];
+    for (const div of document.querySelectorAll("#timeseries [data-label]")) {
+        const labelId = div.id.substring("graphdiv".length);
+        const labelParams = new URLSearchParams(params);
+        if (div.dataset.label !== "") {
+            labelParams.append("label", div.dataset.label);
+        }
+        const url = "/logs/" + logId + "/" + (urlName || "log") + "/timeseries?" + labelParams;
+        requests.push(fetch(url, {headers: {"Accept": "application/json"}})
+            .then(response => response.ok ? response.json() : Promise.reject(response.statusText))
+            .then(timeseries => {
+                replaceGraph("graphdiv" + labelId, timeseries.statsList, toResponseTimeRow);
+                replaceGraph("errorTimeseriesdiv" + labelId, timeseries.statsList,
+                        toErrorCountRow);
+            }));
+    }
+    Promise.all(requests)
+        .then(() => status.textContent = "")
+        .catch(error => status.textContent = "Could not get the timeseries: " + error);
+    return false;
+}
+
+function formatProgress(event) {
+    let text = event.rowsParsed + " rows";
+    if (event.totalBytes > 0) {
+        text += ", " + Math.floor(event.bytesConsumed * 100 / event.totalBytes) + "%";
+    }
+    if (event.etaMillis >= 0) {
+        text += ", about " + Math.ceil(event.etaMillis / 1000) + "s left";
+    }
+    return text;
+}
+
+/**
+ * Listens for what happens to a log (status changes, import progress, and live stats) and updates
+ * the page to match. Once the log finishes importing, the page is reloaded to show the stats.
+ * @param logId id of the log to watch.
+ */
+function watchLog(logId) {
+    if (typeof EventSource === "undefined") {
+        return;
+    }
+    const source = new EventSource("/logs/" + logId + "/events");
+    let firstStatus = null;
+    source.addEventListener("status", message => {
+        const event = JSON.parse(message.data);
+        const statusText = document.getElementById("log-status-text");
+        if (statusText !== null) {
+            statusText.textContent = event.status;
+        }
+        if (firstStatus === null) {
+            firstStatus = event.status;
+        } else if (event.status === "COMPLETE" || event.status === "IMPORT_FAILED") {
+            source.close();
+            location.reload();
+        }
+    });
+    source.addEventListener("progress", message => {
+        const progress = document.getElementById("log-progress");
+        if (progress !== null) {
+            progress.textContent = formatProgress(JSON.parse(message.data));
+        }
+    });
+    source.addEventListener("stats", message => patchLiveGraphs(JSON.parse(message.data)));
+}
+
 function load() {
     selectDefaultContentPanes();
 }
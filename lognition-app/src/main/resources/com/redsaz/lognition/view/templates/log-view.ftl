@@ -16,6 +16,10 @@
 <#escape x as x?html>
         <script src="${dist}/js/app.js"></script>
         <h2>${brief.name}</h2>
+        <div id="log-status">
+          Status: <span id="log-status-text">${brief.status}</span>
+          <span id="log-progress"></span>
+        </div>
         <div>
           <#noescape>${notesHtml}</#noescape>
         </div>
@@ -133,11 +137,21 @@
         </div>
 
         <div id="timeseries" class="content-pane">
+          <form id="timeseries-controls" class="pure-form" onsubmit="return showTimeseries(event, ${brief.id?c}, '${brief.uriName!""}')">
+            <label for="timeseries-span">Span (s)</label>
+            <input id="timeseries-span" name="spanSeconds" type="number" min="1" step="1" value="60">
+            <label for="timeseries-from">From (s)</label>
+            <input id="timeseries-from" name="fromSeconds" type="number" min="0" step="1">
+            <label for="timeseries-to">To (s)</label>
+            <input id="timeseries-to" name="toSeconds" type="number" min="0" step="1">
+            <button type="submit" class="pure-button">Show</button>
+            <span id="timeseries-controls-status"></span>
+          </form>
           <#list graphs as graph>
           <div class="row">
             <div class="col-sm-12 col-md-12">
               <div class="graph loggraph">
-                <div id="graphdiv${graph?index}" style="width: 100%"></div>
+                <div id="graphdiv${graph?index}" data-label="<#if graph?index != 0>${sampleLabels[graph?index]}</#if>" style="width: 100%"></div>
               </div>
             </div>
           </div>
@@ -215,4 +229,9 @@
             <#noescape>${eptg}</#noescape>
           </script>
         </#list>
+        <#if brief.status != "COMPLETE" && brief.status != "IMPORT_FAILED" && brief.status != "UPLOAD_FAILED">
+          <script>
+            watchLog(${brief.id?c});
+          </script>
+        </#if>
 </#escape>
@@ -30,6 +30,12 @@
           </#list>
         </div>
 
+        <#if chartsStale>
+        <div style="margin-bottom: 1em">
+          <span style="background: #f0ad4e; color: #fff; border-radius: 0.25em; padding: 0.2em 0.6em"
+                title="The logs of this review or their stats changed. The charts below are from before the change, and will be updated shortly.">stale, recomputing</span>
+        </div>
+        </#if>
         <div class="pure-menu pure-menu-horizontal">
             <ul class="pure-menu-list">
             <#list reviewGraphs as g>
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.bench;
+
+import com.redsaz.lognition.api.model.Sample;
+import com.redsaz.lognition.convert.AvroSamplesReader;
+import com.redsaz.lognition.convert.AvroSamplesWriter;
+import com.redsaz.lognition.convert.CsvSamplesReader;
+import com.redsaz.lognition.convert.Samples;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Writing and reading Avro sample files with each codec and block size. Run {@link AvroCodecMatrix}
+ * to get the file sizes alongside the throughput.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AvroCodecBenchmark {
+
+  @Param({
+    "null",
+    "snappy",
+    "deflate-1",
+    "deflate-6",
+    "deflate-9",
+    "zstandard-1",
+    "zstandard-3",
+    "zstandard-9",
+    "xz-1",
+    "xz-6"
+  })
+  public String codec;
+
+  @Param({"16000", "64000", "1048576"})
+  public int syncInterval;
+
+  @Param({"1000000"})
+  public int rows;
+
+  /** A real JTL to use instead of generated samples, if not blank. */
+  @Param({""})
+  public String jtl;
+
+  private Path dir;
+  private Samples samples;
+  private AvroSamplesWriter writer;
+  private Path avro;
+  private Path avroDest;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    dir = BenchData.tempDir();
+    samples = jtl.isBlank() ? BenchData.samples(rows) : CsvSamplesReader.readSamples(Path.of(jtl));
+    writer = new AvroSamplesWriter(codec, syncInterval);
+    avro = dir.resolve("bench.avro");
+    writer.write(samples, avro.toFile());
+    avroDest = dir.resolve("written.avro");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    BenchData.delete(dir);
+  }
+
+  @Benchmark
+  public String write() throws IOException {
+    return writer.write(samples, avroDest.toFile());
+  }
+
+  @Benchmark
+  public void read(Blackhole bh) throws IOException {
+    try (Stream<Sample> stream = AvroSamplesReader.sampleStream(avro)) {
+      stream.forEach(bh::consume);
+    }
+  }
+}
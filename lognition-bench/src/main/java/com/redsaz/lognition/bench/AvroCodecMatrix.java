@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.bench;
+
+import com.redsaz.lognition.convert.AvroSamplesWriter;
+import com.redsaz.lognition.convert.CsvSamplesReader;
+import com.redsaz.lognition.convert.Samples;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Prints a table of file size, write throughput, and read throughput for each codec and sync
+ * interval of {@link AvroCodecBenchmark}, to help pick the defaults for a deployment. By default
+ * the samples are generated, but a typical JTL can be given instead:
+ *
+ * <pre>
+ * java -cp benchmarks.jar com.redsaz.lognition.bench.AvroCodecMatrix [path/to/typical.jtl]
+ * </pre>
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class AvroCodecMatrix {
+
+  // Do not allow utility classes to be instanciated.
+  private AvroCodecMatrix() {}
+
+  public static void main(String[] args) throws IOException, RunnerException {
+    String jtl = args.length > 0 ? args[0] : "";
+    Samples samples =
+        jtl.isBlank() ? BenchData.samples(1_000_000) : CsvSamplesReader.readSamples(Path.of(jtl));
+    int rows = samples.getSamples().size();
+
+    OptionsBuilder options = new OptionsBuilder();
+    options.include(AvroCodecBenchmark.class.getSimpleName());
+    options.param("rows", Integer.toString(rows));
+    options.param("jtl", jtl);
+
+    // Keyed by codec and sync interval, in the order they were run.
+    Map<String, Row> table = new LinkedHashMap<>();
+    for (RunResult result : new Runner(options.build()).run()) {
+      BenchmarkParams params = result.getParams();
+      String codec = params.getParam("codec");
+      int syncInterval = Integer.parseInt(params.getParam("syncInterval"));
+      Row row = table.computeIfAbsent(codec + "/" + syncInterval, k -> new Row());
+      row.codec = codec;
+      row.syncInterval = syncInterval;
+      if (params.getBenchmark().endsWith(".write")) {
+        row.writeMillis = result.getPrimaryResult().getScore();
+      } else {
+        row.readMillis = result.getPrimaryResult().getScore();
+      }
+    }
+
+    Path dir = BenchData.tempDir();
+    try {
+      long plainBytes = -1L;
+      System.out.printf(
+          "%-12s %8s %14s %7s %14s %14s%n",
+          "codec", "sync", "bytes", "ratio", "write rows/s", "read rows/s");
+      for (Row row : table.values()) {
+        Path avro = dir.resolve("matrix.avro");
+        new AvroSamplesWriter(row.codec, row.syncInterval).write(samples, avro.toFile());
+        long bytes = Files.size(avro);
+        if (plainBytes < 0L) {
+          plainBytes = bytes;
+        }
+        System.out.printf(
+            "%-12s %8d %14d %7.3f %14.0f %14.0f%n",
+            row.codec,
+            row.syncInterval,
+            bytes,
+            (double) bytes / plainBytes,
+            rowsPerSecond(rows, row.writeMillis),
+            rowsPerSecond(rows, row.readMillis));
+      }
+    } finally {
+      BenchData.delete(dir);
+    }
+  }
+
+  private static double rowsPerSecond(int rows, double millis) {
+    if (millis <= 0.0) {
+      return Double.NaN;
+    }
+    return rows / (millis / 1000.0);
+  }
+
+  private static class Row {
+    String codec;
+    int syncInterval;
+    double writeMillis;
+    double readMillis;
+  }
+}
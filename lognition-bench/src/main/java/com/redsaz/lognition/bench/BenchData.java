@@ -0,0 +1,125 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.bench;
+
+import com.redsaz.lognition.convert.AvroSamplesWriter;
+import com.redsaz.lognition.convert.CsvJtlSamplesWriter;
+import com.redsaz.lognition.convert.ListSamples;
+import com.redsaz.lognition.convert.Samples;
+import com.redsaz.lognition.convert.SyntheticSamples;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Makes the inputs for the benchmarks. The same number of rows always gives the same samples, so
+ * that results can be compared between releases without needing any real (private) logs.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class BenchData {
+
+  private static final long SEED = 20260101L;
+
+  // Do not allow utility classes to be instanciated.
+  private BenchData() {}
+
+  /**
+   * Creates samples that look like a test where 50 threads call 20 different labels at 550 calls
+   * per second, with response times that are mostly around 100ms but with a long tail, and about 1%
+   * errors.
+   *
+   * @param rows how many samples to create
+   * @return the samples, in time order.
+   */
+  public static ListSamples samples(int rows) {
+    ListSamples.Builder builder = ListSamples.builder();
+    generator(rows).stream().forEach(builder::add);
+    return builder.build();
+  }
+
+  /**
+   * @param rows how many samples to create
+   * @return the generator of the same samples as {@link #samples(int)}, for writing files too big
+   *     to hold in memory.
+   */
+  public static SyntheticSamples generator(long rows) {
+    return SyntheticSamples.builder().seed(SEED).rows(rows).labels(20).threads(50).build();
+  }
+
+  /**
+   * Writes the samples as a CSV-based JMeter JTL file.
+   *
+   * @param samples what to write
+   * @param dir where to write to
+   * @return the written file.
+   */
+  public static Path jtl(Samples samples, Path dir) {
+    Path dest = dir.resolve("bench-" + samples.getSamples().size() + ".jtl");
+    try {
+      new CsvJtlSamplesWriter().write(samples, dest.toFile());
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    return dest;
+  }
+
+  /**
+   * Writes the samples as an Avro file.
+   *
+   * @param samples what to write
+   * @param dir where to write to
+   * @return the written file.
+   */
+  public static Path avro(Samples samples, Path dir) {
+    Path dest = dir.resolve("bench-" + samples.getSamples().size() + ".avro");
+    try {
+      new AvroSamplesWriter().write(samples, dest.toFile());
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    return dest;
+  }
+
+  /**
+   * @return a new, empty, directory to put benchmark files in.
+   */
+  public static Path tempDir() {
+    try {
+      return Files.createTempDirectory("lognition-bench");
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /**
+   * Deletes the directory and everything in it.
+   *
+   * @param dir the directory to delete.
+   */
+  public static void delete(Path dir) {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(path);
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.bench;
+
+import com.redsaz.lognition.api.model.Sample;
+import com.redsaz.lognition.convert.AvroSamplesReader;
+import com.redsaz.lognition.convert.AvroSamplesWriter;
+import com.redsaz.lognition.convert.Avros;
+import com.redsaz.lognition.convert.CsvSamplesReader;
+import com.redsaz.lognition.convert.Csvs;
+import com.redsaz.lognition.convert.SampleCursor;
+import com.redsaz.lognition.convert.SampleField;
+import com.redsaz.lognition.convert.Samples;
+import com.redsaz.lognition.convert.TabSchema;
+import com.redsaz.lognition.convert.TabStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reading and writing logs: CSV to samples, CSV to records and on to Avro, and samples to and from
+ * Avro.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConvertBenchmark {
+
+  private static final TabSchema.StructS JTL_SCHEMA =
+      TabSchema.StructS.of(
+          """
+          {
+          "type": "record",
+          "name": "JtlRecord",
+          "fields": [
+              {"name": "timeStamp", "type": "long"},
+              {"name": "elapsed", "type": "long"},
+              {"name": "label", "type": "string"},
+              {"name": "responseCode", "type": "string"},
+              {"name": "responseMessage", "type": "string"},
+              {"name": "threadName", "type": "string"},
+              {"name": "success", "type": "boolean"},
+              {"name": "bytes", "type": "long"},
+              {"name": "allThreads", "type": "int"}
+          ]
+          }
+          """);
+
+  @Param({"10000", "100000", "1000000"})
+  public int rows;
+
+  private Path dir;
+  private Samples samples;
+  private Path jtl;
+  private Path avro;
+  private Path avroDest;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    dir = BenchData.tempDir();
+    samples = BenchData.samples(rows);
+    jtl = BenchData.jtl(samples, dir);
+    avro = BenchData.avro(samples, dir);
+    avroDest = dir.resolve("written.avro");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    BenchData.delete(dir);
+  }
+
+  @Benchmark
+  public Samples csvSamplesReaderReadSamples() throws IOException {
+    return CsvSamplesReader.readSamples(jtl);
+  }
+
+  @Benchmark
+  public void csvsRecordsWithSchema(Blackhole bh) throws IOException {
+    try (TabStream records = Csvs.records(jtl, JTL_SCHEMA)) {
+      records.stream().forEach(bh::consume);
+    }
+  }
+
+  @Benchmark
+  public String avrosWriteCsvRecords() throws IOException {
+    try (TabStream records = Csvs.records(jtl, JTL_SCHEMA)) {
+      return Avros.write(avroDest, records.schema(), records.stream());
+    }
+  }
+
+  @Benchmark
+  public String avroSamplesWriterWrite() throws IOException {
+    return new AvroSamplesWriter().write(samples, avroDest.toFile());
+  }
+
+  @Benchmark
+  public void avroSamplesReaderSampleStream(Blackhole bh) throws IOException {
+    try (Stream<Sample> stream = AvroSamplesReader.sampleStream(avro)) {
+      stream.forEach(bh::consume);
+    }
+  }
+
+  @Benchmark
+  public long avroSamplesReaderSampleCursor() throws IOException {
+    long total = 0L;
+    try (SampleCursor cursor = AvroSamplesReader.sampleCursor(avro)) {
+      while (cursor.next()) {
+        total += cursor.duration() + cursor.labelRef() + cursor.codeRef();
+      }
+    }
+    return total;
+  }
+
+  @Benchmark
+  public long avroSamplesReaderProjectedCursor() throws IOException {
+    long total = 0L;
+    Set<SampleField> fields = EnumSet.of(SampleField.DURATION, SampleField.LABEL);
+    try (SampleCursor cursor = AvroSamplesReader.sampleCursor(avro, fields)) {
+      while (cursor.next()) {
+        total += cursor.duration() + cursor.labelRef();
+      }
+    }
+    return total;
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.bench;
+
+import com.redsaz.lognition.api.labelselector.LabelSelectorExpression;
+import com.redsaz.lognition.services.LabelSelectorParser;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing the label selectors of reviews, from the simplest to one with every kind of expression.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LabelSelectorBenchmark {
+
+  @Param({
+    "alpha",
+    "alpha=value, beta!=value2",
+    "alpha, !beta, gamma=1, delta!=2, epsilon in (1, two, 3, 4), zeta notin (5, six, 7, 8)"
+  })
+  public String selector;
+
+  @Benchmark
+  public LabelSelectorExpression parse() {
+    return LabelSelectorParser.parse(selector);
+  }
+}
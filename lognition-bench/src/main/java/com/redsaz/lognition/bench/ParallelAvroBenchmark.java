@@ -0,0 +1,88 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.bench;
+
+import com.redsaz.lognition.api.model.Sample;
+import com.redsaz.lognition.convert.AvroSamplesWriter;
+import com.redsaz.lognition.convert.ParallelAvroSamplesReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Decoding an Avro samples file in order, with more and more workers.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelAvroBenchmark {
+
+  @Param({"1", "2", "4", "8"})
+  public int workers;
+
+  @Param({"null", "zstandard-3"})
+  public String codec;
+
+  @Param({"1000000"})
+  public int rows;
+
+  private Path dir;
+  private Path avro;
+  private ExecutorService executor;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    dir = BenchData.tempDir();
+    avro = dir.resolve("bench.avro");
+    new AvroSamplesWriter(codec, AvroSamplesWriter.DEFAULT_SYNC_INTERVAL)
+        .write(BenchData.samples(rows), avro.toFile());
+    executor = ParallelAvroSamplesReader.newExecutor(workers);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    executor.shutdownNow();
+    BenchData.delete(dir);
+  }
+
+  @Benchmark
+  public void orderedStream(Blackhole bh) throws IOException {
+    try (Stream<Sample> stream = ParallelAvroSamplesReader.orderedStream(avro, executor, workers)) {
+      stream.forEach(bh::consume);
+    }
+  }
+}
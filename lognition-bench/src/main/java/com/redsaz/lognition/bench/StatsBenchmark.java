@@ -0,0 +1,103 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.bench;
+
+import com.redsaz.lognition.api.model.CodeCounts;
+import com.redsaz.lognition.api.model.Sample;
+import com.redsaz.lognition.api.model.Stats;
+import com.redsaz.lognition.api.model.Timeseries;
+import com.redsaz.lognition.stats.StatsBuilder;
+import com.redsaz.lognition.stats.StatsBuilder.StatsItems;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Every StatsBuilder calculation, over the samples of a whole log.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatsBenchmark {
+
+  private static final long SPAN_MILLIS = 60000L;
+
+  @Param({"10000", "100000", "1000000"})
+  public int rows;
+
+  private List<Sample> offsetSorted;
+  private List<Sample> samples;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    offsetSorted = List.copyOf(BenchData.samples(rows).getSamples());
+  }
+
+  // Several of the calculations sort the list they are given, so each one gets a fresh copy in
+  // time order, like they get during an import.
+  @Setup(Level.Invocation)
+  public void resetSamples() {
+    samples = new ArrayList<>(offsetSorted);
+  }
+
+  @Benchmark
+  public CodeCounts calcAggregateCounts() {
+    return StatsBuilder.calcAggregateCounts(samples);
+  }
+
+  @Benchmark
+  public Stats calcAggregateStats() {
+    return StatsBuilder.calcAggregateStats(samples);
+  }
+
+  @Benchmark
+  public StatsItems calcHistogram() {
+    return StatsBuilder.calcHistogram(samples);
+  }
+
+  @Benchmark
+  public CodeCounts calcTimeseriesCounts() {
+    return StatsBuilder.calcTimeseriesCounts(samples, SPAN_MILLIS);
+  }
+
+  @Benchmark
+  public Timeseries calcTimeseriesStats() {
+    return StatsBuilder.calcTimeseriesStats(samples, SPAN_MILLIS);
+  }
+
+  @Benchmark
+  public Map<String, List<Sample>> sortAndSplitByLabel() {
+    return StatsBuilder.sortAndSplitByLabel(samples);
+  }
+}
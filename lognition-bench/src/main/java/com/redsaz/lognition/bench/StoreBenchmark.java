@@ -0,0 +1,128 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.bench;
+
+import com.redsaz.lognition.api.model.CodeCounts;
+import com.redsaz.lognition.api.model.Histogram;
+import com.redsaz.lognition.api.model.Percentiles;
+import com.redsaz.lognition.api.model.Sample;
+import com.redsaz.lognition.api.model.Stats;
+import com.redsaz.lognition.stats.StatsBuilder;
+import com.redsaz.lognition.stats.StatsBuilder.StatsItems;
+import com.redsaz.lognition.store.JooqStatsService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding and decoding the blobs that JooqStatsService keeps the timeseries, histograms,
+ * percentiles, and code counts of a log in. The size of a blob depends on how long the log ran, not
+ * how many rows it has, so the log length is the parameter here.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StoreBenchmark {
+
+  private static final long SPAN_MILLIS = 60000L;
+  private static final int ROWS_PER_MINUTE = 550 * 60;
+
+  /** How many minutes long the log is. */
+  @Param({"10", "60", "600"})
+  public int minutes;
+
+  private List<Stats> timeseries;
+  private Histogram histogram;
+  private Percentiles percentiles;
+  private CodeCounts codeCounts;
+  private byte[] timeseriesBlob;
+  private byte[] histogramBlob;
+  private byte[] percentilesBlob;
+  private byte[] codeCountsBlob;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    List<Sample> samples =
+        new ArrayList<>(BenchData.samples(minutes * ROWS_PER_MINUTE).getSamples());
+    codeCounts = StatsBuilder.calcTimeseriesCounts(samples, SPAN_MILLIS);
+    timeseries = StatsBuilder.calcTimeseriesStats(samples, SPAN_MILLIS).getStatsList();
+    StatsItems histAndPercs = StatsBuilder.calcHistogram(samples);
+    histogram = histAndPercs.getHistogram();
+    percentiles = histAndPercs.getPercentiles();
+
+    timeseriesBlob = JooqStatsService.writeTimeseriesCsv(timeseries);
+    histogramBlob = JooqStatsService.convertToSeriesData(histogram);
+    percentilesBlob = JooqStatsService.convertToSeriesData(percentiles);
+    codeCountsBlob = JooqStatsService.convertToCodeCountData(codeCounts);
+  }
+
+  @Benchmark
+  public byte[] encodeTimeseries() {
+    return JooqStatsService.writeTimeseriesCsv(timeseries);
+  }
+
+  @Benchmark
+  public List<Stats> decodeTimeseries() {
+    return JooqStatsService.readTimeseriesCsv(timeseriesBlob);
+  }
+
+  @Benchmark
+  public byte[] encodeHistogram() {
+    return JooqStatsService.convertToSeriesData(histogram);
+  }
+
+  @Benchmark
+  public Histogram decodeHistogram() {
+    return JooqStatsService.convertToHistogram(histogramBlob);
+  }
+
+  @Benchmark
+  public byte[] encodePercentiles() {
+    return JooqStatsService.convertToSeriesData(percentiles);
+  }
+
+  @Benchmark
+  public Percentiles decodePercentiles() {
+    return JooqStatsService.convertToPercentiles(percentilesBlob);
+  }
+
+  @Benchmark
+  public byte[] encodeCodeCounts() {
+    return JooqStatsService.convertToCodeCountData(codeCounts);
+  }
+
+  @Benchmark
+  public CodeCounts decodeCodeCounts() {
+    return JooqStatsService.convertToCodeCounts(SPAN_MILLIS, codeCountsBlob);
+  }
+}
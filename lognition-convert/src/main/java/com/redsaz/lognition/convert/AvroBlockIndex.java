@@ -0,0 +1,219 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Where the blocks of an Avro samples file are, along with which offsets and labels are in each
+ * block, so that readers can seek straight to the blocks they need. The index is kept next to the
+ * Avro file, with ".idx" added to the name, because the Avro file metadata is written before the
+ * blocks are.
+ *
+ * <p>Offsets in the index are relative to the earliest sample, the same as in the Avro file.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class AvroBlockIndex {
+
+  private static final int MAGIC = 0x4c474958; // "LGIX"
+  private static final int VERSION = 1;
+
+  private final List<Entry> entries;
+
+  /**
+   * One or more Avro blocks, which can be read by seeking to the position and reading the rows.
+   *
+   * @param position the position to seek to, from {@link
+   *     org.apache.avro.file.DataFileWriter#sync()}
+   * @param minOffset the earliest offset of the rows
+   * @param maxOffset the latest offset of the rows
+   * @param rows how many rows there are
+   * @param labelRefs the zero-based refs of the labels in the rows
+   */
+  public record Entry(long position, long minOffset, long maxOffset, int rows, BitSet labelRefs) {
+
+    /**
+     * @param fromOffset the earliest offset wanted, inclusive
+     * @param toOffset the latest offset wanted, exclusive
+     * @return true if some of the rows might be in the range.
+     */
+    public boolean overlaps(long fromOffset, long toOffset) {
+      return maxOffset >= fromOffset && minOffset < toOffset;
+    }
+
+    /**
+     * @param wanted the zero-based refs of the wanted labels, or null for all labels
+     * @return true if some of the rows have one of the labels.
+     */
+    public boolean hasAnyLabel(BitSet wanted) {
+      return wanted == null || labelRefs.intersects(wanted);
+    }
+  }
+
+  private AvroBlockIndex(List<Entry> entries) {
+    this.entries = Collections.unmodifiableList(entries);
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public List<Entry> getEntries() {
+    return entries;
+  }
+
+  /**
+   * @param avroFile the Avro samples file
+   * @return where the index of the Avro file is kept.
+   */
+  public static Path pathFor(Path avroFile) {
+    return avroFile.resolveSibling(avroFile.getFileName() + ".idx");
+  }
+
+  /**
+   * Reads the index of an Avro samples file.
+   *
+   * @param avroFile the Avro samples file, not the index file
+   * @return the index, or null if the file does not have one, like files written before there were
+   *     indexes.
+   * @throws IOException if the index could not be read.
+   */
+  public static AvroBlockIndex read(Path avroFile) throws IOException {
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(pathFor(avroFile))))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException("Not a known index format: " + pathFor(avroFile));
+      }
+      int numEntries = in.readInt();
+      List<Entry> entries = new ArrayList<>(numEntries);
+      for (int i = 0; i < numEntries; ++i) {
+        long position = in.readLong();
+        long minOffset = in.readLong();
+        long maxOffset = in.readLong();
+        int rows = in.readInt();
+        long[] words = new long[in.readInt()];
+        for (int w = 0; w < words.length; ++w) {
+          words[w] = in.readLong();
+        }
+        entries.add(new Entry(position, minOffset, maxOffset, rows, BitSet.valueOf(words)));
+      }
+      return new AvroBlockIndex(entries);
+    } catch (NoSuchFileException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Writes the index next to the Avro samples file.
+   *
+   * @param avroFile the Avro samples file, not the index file
+   * @throws IOException if the index could not be written.
+   */
+  public void write(Path avroFile) throws IOException {
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(pathFor(avroFile))))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(entries.size());
+      for (Entry entry : entries) {
+        out.writeLong(entry.position());
+        out.writeLong(entry.minOffset());
+        out.writeLong(entry.maxOffset());
+        out.writeInt(entry.rows());
+        long[] words = entry.labelRefs().toLongArray();
+        out.writeInt(words.length);
+        for (long word : words) {
+          out.writeLong(word);
+        }
+      }
+    }
+  }
+
+  /** Builds the index as the rows are written. */
+  public static class Builder {
+    private final List<Entry> entries = new ArrayList<>();
+    private long position = -1L;
+    private long minOffset;
+    private long maxOffset;
+    private int rows;
+    private BitSet labelRefs = new BitSet();
+
+    private Builder() {}
+
+    /**
+     * Starts a new entry, finishing the previous one.
+     *
+     * @param blockPosition where the rows added from now on can be read from.
+     */
+    public void startEntry(long blockPosition) {
+      commit();
+      position = blockPosition;
+    }
+
+    /**
+     * @param offset the offset of the row
+     * @param labelRef the zero-based ref of the label of the row, or negative for no label.
+     */
+    public void add(long offset, int labelRef) {
+      if (position < 0L) {
+        throw new IllegalStateException("An entry must be started before adding rows.");
+      }
+      if (rows == 0) {
+        minOffset = offset;
+        maxOffset = offset;
+      } else {
+        minOffset = Math.min(minOffset, offset);
+        maxOffset = Math.max(maxOffset, offset);
+      }
+      ++rows;
+      if (labelRef >= 0) {
+        labelRefs.set(labelRef);
+      }
+    }
+
+    /**
+     * @return how many rows are in the current entry.
+     */
+    public int entryRows() {
+      return rows;
+    }
+
+    public AvroBlockIndex build() {
+      commit();
+      return new AvroBlockIndex(new ArrayList<>(entries));
+    }
+
+    private void commit() {
+      if (rows > 0) {
+        entries.add(new Entry(position, minOffset, maxOffset, rows, labelRefs));
+        labelRefs = new BitSet();
+        rows = 0;
+      }
+    }
+  }
+}
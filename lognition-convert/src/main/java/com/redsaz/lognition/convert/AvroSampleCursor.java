@@ -0,0 +1,251 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+import com.redsaz.lognition.convert.model.HttpSample;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.avro.file.DataFileReader;
+
+/**
+ * A {@link SampleCursor} over an Avro samples file, which decodes every row into the same {@link
+ * HttpSample}. Only the fields asked for are decoded, see {@link ProjectedHttpSampleReader}.
+ *
+ * <p>When only a range of time or only some labels are wanted, and the file has an {@link
+ * AvroBlockIndex}, only the blocks which might have those rows are read. The rows are still checked
+ * one at a time, since a block can have rows outside of the range or with other labels.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+class AvroSampleCursor implements SampleCursor {
+
+  private final DataFileReader<HttpSample> reader;
+  private final AvroSamplesReader.Meta meta;
+  private final EnumSet<SampleField> fields;
+  private final long fromOffset;
+  private final long toOffset;
+  private final boolean filterOffsets;
+  private final BitSet wantedLabels;
+  // The index entries to read, or null to read the whole file.
+  private final List<AvroBlockIndex.Entry> entries;
+  private int entryNum;
+  private int entryRowsLeft;
+  private HttpSample row;
+
+  private AvroSampleCursor(
+      DataFileReader<HttpSample> reader,
+      AvroSamplesReader.Meta meta,
+      EnumSet<SampleField> fields,
+      long fromOffset,
+      long toOffset,
+      BitSet wantedLabels,
+      AvroBlockIndex index) {
+    this.reader = reader;
+    this.meta = meta;
+    this.fields = fields;
+    this.fromOffset = fromOffset;
+    this.toOffset = toOffset;
+    this.wantedLabels = wantedLabels;
+    filterOffsets = fromOffset != Long.MIN_VALUE || toOffset != Long.MAX_VALUE;
+    if (index == null || (!filterOffsets && wantedLabels == null)) {
+      entries = null;
+    } else {
+      entries =
+          index.getEntries().stream()
+              .filter(
+                  entry ->
+                      entry.overlaps(fromOffset, toOffset) && entry.hasAnyLabel(wantedLabels))
+              .toList();
+    }
+  }
+
+  static AvroSampleCursor open(Path avroFile) throws IOException {
+    return open(avroFile, EnumSet.allOf(SampleField.class));
+  }
+
+  static AvroSampleCursor open(Path avroFile, Set<SampleField> wanted) throws IOException {
+    return open(avroFile, wanted, Long.MIN_VALUE, Long.MAX_VALUE, null);
+  }
+
+  static AvroSampleCursor open(
+      Path avroFile,
+      Set<SampleField> wanted,
+      long fromOffset,
+      long toOffset,
+      Collection<String> labels)
+      throws IOException {
+    EnumSet<SampleField> fields = EnumSet.noneOf(SampleField.class);
+    fields.addAll(wanted);
+    // The fields needed to check the rows are read even if they were not asked for.
+    EnumSet<SampleField> decoded = EnumSet.copyOf(fields);
+    boolean filterOffsets = fromOffset != Long.MIN_VALUE || toOffset != Long.MAX_VALUE;
+    if (filterOffsets) {
+      decoded.add(SampleField.OFFSET);
+    }
+    if (labels != null) {
+      decoded.add(SampleField.LABEL);
+    }
+    DataFileReader<HttpSample> reader =
+        new DataFileReader<>(avroFile.toFile(), new ProjectedHttpSampleReader(decoded));
+    try {
+      AvroSamplesReader.Meta meta = AvroSamplesReader.readMeta(reader);
+      BitSet wantedLabels = AvroSamplesReader.labelRefs(meta.labels(), labels);
+      AvroBlockIndex index = filterOffsets || labels != null ? AvroBlockIndex.read(avroFile) : null;
+      return new AvroSampleCursor(reader, meta, fields, fromOffset, toOffset, wantedLabels, index);
+    } catch (IOException | RuntimeException ex) {
+      reader.close();
+      throw ex;
+    }
+  }
+
+  AvroSamplesReader.Meta meta() {
+    return meta;
+  }
+
+  @Override
+  public boolean next() throws IOException {
+    while (nextRow()) {
+      if (isWanted()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean nextRow() throws IOException {
+    if (entries == null) {
+      if (!reader.hasNext()) {
+        return false;
+      }
+    } else {
+      while (entryRowsLeft == 0) {
+        if (entryNum >= entries.size()) {
+          return false;
+        }
+        AvroBlockIndex.Entry entry = entries.get(entryNum++);
+        reader.seek(entry.position());
+        entryRowsLeft = entry.rows();
+      }
+      --entryRowsLeft;
+    }
+    row = reader.next(row);
+    return true;
+  }
+
+  private boolean isWanted() {
+    if (filterOffsets) {
+      long offset = row.getMillisOffset();
+      if (offset < fromOffset || offset >= toOffset) {
+        return false;
+      }
+    }
+    if (wantedLabels != null) {
+      int ref = row.getLabelRef() - 1;
+      return ref >= 0 && wantedLabels.get(ref);
+    }
+    return true;
+  }
+
+  @Override
+  public long earliestMillis() {
+    return meta.earliestMillis();
+  }
+
+  @Override
+  public long offset() {
+    require(SampleField.OFFSET);
+    return row.getMillisOffset();
+  }
+
+  @Override
+  public long duration() {
+    require(SampleField.DURATION);
+    return row.getMillisElapsed();
+  }
+
+  @Override
+  public int labelRef() {
+    require(SampleField.LABEL);
+    // Refs in the file start at 1.
+    return row.getLabelRef() - 1;
+  }
+
+  @Override
+  public int threadNameRef() {
+    require(SampleField.THREAD_NAME);
+    return row.getThreadNameRef() - 1;
+  }
+
+  @Override
+  public int codeRef() {
+    require(SampleField.CODE);
+    return row.getResponseCodeRef();
+  }
+
+  @Override
+  public boolean success() {
+    require(SampleField.SUCCESS);
+    return row.getSuccess();
+  }
+
+  @Override
+  public long responseBytes() {
+    require(SampleField.RESPONSE_BYTES);
+    return row.getResponseBytes();
+  }
+
+  @Override
+  public int totalThreads() {
+    require(SampleField.TOTAL_THREADS);
+    return row.getTotalThreads();
+  }
+
+  @Override
+  public List<String> labels() {
+    return meta.labels();
+  }
+
+  @Override
+  public List<String> threadNames() {
+    return meta.threadNames();
+  }
+
+  @Override
+  public String statusCode(int codeRef) {
+    return meta.codes().getCode(codeRef).toString();
+  }
+
+  @Override
+  public String statusMessage(int codeRef) {
+    return meta.codes().getMessage(codeRef).toString();
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  private void require(SampleField field) {
+    if (!fields.contains(field)) {
+      throw new IllegalStateException("The " + field + " field was not read.");
+    }
+  }
+}
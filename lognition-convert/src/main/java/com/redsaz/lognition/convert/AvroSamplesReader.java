@@ -19,18 +19,19 @@ import com.redsaz.lognition.api.exceptions.AppServerException;
 import com.redsaz.lognition.api.model.Sample;
 import com.redsaz.lognition.convert.model.HttpSample;
 import java.io.ByteArrayInputStream;
-import java.io.Closeable;
 import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
+import org.apache.avro.file.DataFileConstants;
 import org.apache.avro.file.DataFileReader;
 import org.apache.avro.io.BinaryDecoder;
-import org.apache.avro.io.DatumReader;
 import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.reflect.ReflectDatumReader;
 import org.apache.avro.util.Utf8;
@@ -53,30 +54,10 @@ public class AvroSamplesReader {
     long startMillis = System.currentTimeMillis();
     LOGGER.debug("Loading from Avro file {}...", avroFile);
 
-    DatumReader<HttpSample> userDatumReader = new ReflectDatumReader<>(HttpSample.class);
     ListSamples.Builder samples = ListSamples.builder();
-    try (DataFileReader<HttpSample> dataFileReader =
-        new DataFileReader<>(avroFile.toFile(), userDatumReader)) {
-      List<String> labels =
-          readMetaStringArray(dataFileReader, "labels").stream()
-              .map(CharSequence::toString)
-              .toList();
-      List<String> threadNames =
-          readMetaStringArray(dataFileReader, "threadNames").stream()
-              .map(CharSequence::toString)
-              .toList();
-
-      long absoluteStartTimestamp = dataFileReader.getMetaLong("earliest");
-      List<CharSequence> customCodes = readMetaStringArray(dataFileReader, "codes");
-      List<CharSequence> customMessages = readMetaStringArray(dataFileReader, "messages");
-      StatusCodeLookup codes = new StatusCodeLookup(customCodes, customMessages);
-
-      Function<HttpSample, Sample> conv =
-          avroToSample(labels, threadNames, codes, absoluteStartTimestamp);
-      while (dataFileReader.hasNext()) {
-        HttpSample hs = dataFileReader.next();
-        Sample sample = conv.apply(hs);
-        samples.add(sample);
+    try (SampleCursor cursor = sampleCursor(avroFile)) {
+      while (cursor.next()) {
+        samples.add(cursor.toSample());
       }
     } catch (RuntimeException | IOException ex) {
       throw new AppServerException("Unable to convert file.", ex);
@@ -100,26 +81,170 @@ public class AvroSamplesReader {
    * @throws IOException if the file was not found or could not be opened.
    */
   public static Stream<Sample> sampleStream(Path avroFile) throws IOException {
-    DatumReader<HttpSample> userDatumReader = new ReflectDatumReader<>(HttpSample.class);
-    DataFileReader<HttpSample> dataFileReader =
-        new DataFileReader<>(avroFile.toFile(), userDatumReader);
-    List<String> labels =
-        readMetaStringArray(dataFileReader, "labels").stream().map(CharSequence::toString).toList();
-    List<String> threadNames =
-        readMetaStringArray(dataFileReader, "threadNames").stream()
-            .map(CharSequence::toString)
-            .toList();
+    return sampleCursor(avroFile).stream();
+  }
+
+  /**
+   * Opens a cursor over the rows of an avro file, which reads the fields of each row without making
+   * a {@link Sample} for each one.
+   *
+   * @param avroFile the file to read from
+   * @return the cursor, which must be closed when done.
+   * @throws IOException if the file was not found or could not be opened.
+   */
+  public static SampleCursor sampleCursor(Path avroFile) throws IOException {
+    return AvroSampleCursor.open(avroFile);
+  }
+
+  /**
+   * Opens a cursor over only some of the fields of the rows of an avro file. The other fields are
+   * skipped over without being decoded, and reading one of them from the cursor throws an
+   * IllegalStateException, as does {@link SampleCursor#toSample()}.
+   *
+   * <pre>
+   * // Only the durations and labels, to recompute percentiles.
+   * Set&lt;SampleField&gt; fields = EnumSet.of(SampleField.DURATION, SampleField.LABEL);
+   * try (SampleCursor cursor = AvroSamplesReader.sampleCursor(avroFile, fields)) {
+   *   ...
+   * }
+   * </pre>
+   *
+   * @param avroFile the file to read from
+   * @param fields the fields to read
+   * @return the cursor, which must be closed when done.
+   * @throws IOException if the file was not found or could not be opened.
+   */
+  public static SampleCursor sampleCursor(Path avroFile, Set<SampleField> fields)
+      throws IOException {
+    return AvroSampleCursor.open(avroFile, fields);
+  }
+
+  /**
+   * Opens a cursor over only some of the fields of the rows of an avro file which are within a
+   * range of time and have one of the given labels. If the file has an {@link AvroBlockIndex}, only
+   * the blocks which might have those rows are read. The offset and label are read to check each
+   * row when needed, but as with {@link #sampleCursor(Path, Set)}, only the fields asked for can be
+   * read from the cursor.
+   *
+   * @param avroFile the file to read from
+   * @param fields the fields to read
+   * @param fromOffset the earliest offset to read, inclusive, relative to the earliest sample
+   * @param toOffset the latest offset to read, exclusive, relative to the earliest sample
+   * @param labels the labels of the samples to read, or null for all labels
+   * @return the cursor, which must be closed when done.
+   * @throws IOException if the file was not found or could not be opened.
+   */
+  public static SampleCursor sampleCursor(
+      Path avroFile,
+      Set<SampleField> fields,
+      long fromOffset,
+      long toOffset,
+      Collection<String> labels)
+      throws IOException {
+    return AvroSampleCursor.open(avroFile, fields, fromOffset, toOffset, labels);
+  }
+
+  /**
+   * Returns a stream of the {@link Sample}s from an avro file which are within a range of time.
+   *
+   * @apiNote Similar to {@link java.nio.file.Files#lines(Path)}, this should be used within a
+   *     try-with-resources statement or similar to ensure the stream's file is closed promptly.
+   * @param avroFile the file to read from
+   * @param fromOffset the earliest offset to read, inclusive, relative to the earliest sample
+   * @param toOffset the latest offset to read, exclusive, relative to the earliest sample
+   * @return the samples in the range, with offsets that are absolute, same as {@link
+   *     #sampleStream(Path)}.
+   * @throws IOException if the file was not found or could not be opened.
+   */
+  public static Stream<Sample> sampleStream(Path avroFile, long fromOffset, long toOffset)
+      throws IOException {
+    return sampleStream(avroFile, fromOffset, toOffset, null);
+  }
+
+  /**
+   * Returns a stream of the {@link Sample}s from an avro file which are within a range of time and
+   * have one of the given labels. If the file has an {@link AvroBlockIndex}, only the blocks which
+   * might have those samples are read. Otherwise, the whole file is read.
+   *
+   * @apiNote Similar to {@link java.nio.file.Files#lines(Path)}, this should be used within a
+   *     try-with-resources statement or similar to ensure the stream's file is closed promptly.
+   * @param avroFile the file to read from
+   * @param fromOffset the earliest offset to read, inclusive, relative to the earliest sample
+   * @param toOffset the latest offset to read, exclusive, relative to the earliest sample
+   * @param labels the labels of the samples to read, or null for all labels
+   * @return the samples in the range, with offsets that are absolute, same as {@link
+   *     #sampleStream(Path)}.
+   * @throws IOException if the file was not found or could not be opened.
+   */
+  public static Stream<Sample> sampleStream(
+      Path avroFile, long fromOffset, long toOffset, Collection<String> labels)
+      throws IOException {
+    return sampleCursor(avroFile, EnumSet.allOf(SampleField.class), fromOffset, toOffset, labels)
+        .stream();
+  }
+
+  /**
+   * Finds how the blocks of an avro file are compressed.
+   *
+   * @param avroFile the file to look at
+   * @return the codec and level the file was written with, like "zstandard-3". Files written before
+   *     the codec was recorded only have the codec name, without the level.
+   * @throws IOException if the file could not be read.
+   */
+  public static String codec(Path avroFile) throws IOException {
+    try (DataFileReader<HttpSample> dataFileReader = openReader(avroFile)) {
+      String codec = dataFileReader.getMetaString("codec");
+      if (codec == null) {
+        codec = dataFileReader.getMetaString(DataFileConstants.CODEC);
+      }
+      return codec == null ? DataFileConstants.NULL_CODEC : codec;
+    }
+  }
+
+  static DataFileReader<HttpSample> openReader(Path avroFile) throws IOException {
+    return new DataFileReader<>(avroFile.toFile(), new ReflectDatumReader<>(HttpSample.class));
+  }
+
+  /** What is needed from the file metadata to turn the rows into samples. */
+  record Meta(
+      List<String> labels, List<String> threadNames, StatusCodeLookup codes, long earliestMillis) {
+
+    Function<HttpSample, Sample> converter() {
+      return avroToSample(labels, threadNames, codes, earliestMillis);
+    }
+  }
+
+  static Meta readMeta(DataFileReader<HttpSample> dataFileReader) throws IOException {
+    List<String> labels = toStrings(readMetaStringArray(dataFileReader, "labels"));
+    List<String> threadNames = toStrings(readMetaStringArray(dataFileReader, "threadNames"));
 
     long absoluteStartTimestamp = dataFileReader.getMetaLong("earliest");
     List<CharSequence> customCodes = readMetaStringArray(dataFileReader, "codes");
     List<CharSequence> customMessages = readMetaStringArray(dataFileReader, "messages");
     StatusCodeLookup codes = new StatusCodeLookup(customCodes, customMessages);
 
-    Function<HttpSample, Sample> conv =
-        avroToSample(labels, threadNames, codes, absoluteStartTimestamp);
-    return StreamSupport.stream(dataFileReader.spliterator(), false)
-        .map(conv)
-        .onClose(uncheckedCloser(dataFileReader));
+    return new Meta(labels, threadNames, codes, absoluteStartTimestamp);
+  }
+
+  private static List<String> toStrings(List<CharSequence> items) {
+    if (items == null) {
+      return List.of();
+    }
+    return items.stream().map(CharSequence::toString).toList();
+  }
+
+  // The zero-based refs of the wanted labels, or null if all labels are wanted.
+  static BitSet labelRefs(List<String> labels, Collection<String> wantedLabels) {
+    if (wantedLabels == null) {
+      return null;
+    }
+    BitSet refs = new BitSet(labels.size());
+    for (int i = 0; i < labels.size(); ++i) {
+      if (wantedLabels.contains(labels.get(i))) {
+        refs.set(i);
+      }
+    }
+    return refs;
   }
 
   private static Function<HttpSample, Sample> avroToSample(
@@ -162,14 +287,4 @@ public class AvroSamplesReader {
     }
     return items;
   }
-
-  private static Runnable uncheckedCloser(Closeable closeable) {
-    return () -> {
-      try {
-        closeable.close();
-      } catch (IOException ex) {
-        throw new UncheckedIOException(ex);
-      }
-    };
-  }
 }
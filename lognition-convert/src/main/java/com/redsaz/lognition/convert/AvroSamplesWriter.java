@@ -31,6 +31,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileConstants;
 import org.apache.avro.file.DataFileWriter;
 import org.apache.avro.io.DatumWriter;
 import org.apache.avro.io.Encoder;
@@ -41,7 +43,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Writes samples to an Avro file.
+ * Writes samples to an Avro file. The blocks of the file can be compressed with any of the codecs
+ * that Avro has, given as the codec name with an optional level, like "deflate-6", "snappy",
+ * "zstandard-3", or "xz-6". The default is "null", which is no compression. Whichever codec is used
+ * is also written in the file metadata as "codec", level included.
+ *
+ * <p>An {@link AvroBlockIndex} is written next to the file, so that a range of time can be read
+ * without reading the whole file.
  *
  * @author Redsaz <redsaz@gmail.com>
  */
@@ -55,6 +63,89 @@ public class AvroSamplesWriter implements SamplesWriter {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(AvroSamplesWriter.class);
 
+  public static final String DEFAULT_CODEC = DataFileConstants.NULL_CODEC;
+  public static final int DEFAULT_SYNC_INTERVAL = DataFileConstants.DEFAULT_SYNC_INTERVAL;
+
+  // Rows are usually a bit smaller than this once encoded, so the blocks are ended a little before
+  // Avro would end them anyway, which keeps the block index in step with the blocks.
+  private static final int ESTIMATED_ROW_BYTES = 16;
+
+  private final String codec;
+  private final CodecFactory codecFactory;
+  private final int syncInterval;
+
+  public AvroSamplesWriter() {
+    this(DEFAULT_CODEC, DEFAULT_SYNC_INTERVAL);
+  }
+
+  /**
+   * @param codec how to compress each block, like "deflate-6", "snappy", "zstandard-3", "xz-6", or
+   *     "null" for no compression. If the level is left off, the Avro default level is used.
+   * @param syncInterval roughly how many bytes of uncompressed rows go into each block, between 32
+   *     and 2^30. Bigger blocks usually compress better, but smaller blocks are quicker to seek to.
+   * @throws IllegalArgumentException if the codec or sync interval are not valid.
+   */
+  public AvroSamplesWriter(String codec, int syncInterval) {
+    if (syncInterval < 32 || syncInterval > (1 << 30)) {
+      throw new IllegalArgumentException(
+          "Sync interval must be between 32 and 2^30 bytes, but was " + syncInterval);
+    }
+    this.codecFactory = codecFactory(codec);
+    this.codec = codec;
+    this.syncInterval = syncInterval;
+  }
+
+  public String getCodec() {
+    return codec;
+  }
+
+  public int getSyncInterval() {
+    return syncInterval;
+  }
+
+  /**
+   * Finds the Avro codec for a name and optional level.
+   *
+   * @param codec the codec name, optionally followed by a dash and the level, like "deflate-6".
+   * @return the codec.
+   * @throws IllegalArgumentException if the codec or level is not known.
+   */
+  public static CodecFactory codecFactory(String codec) {
+    if (codec == null || codec.isBlank()) {
+      throw new IllegalArgumentException("Codec must be specified.");
+    }
+    int dash = codec.lastIndexOf('-');
+    String name = dash < 0 ? codec : codec.substring(0, dash);
+    Integer level = null;
+    if (dash >= 0) {
+      try {
+        level = Integer.valueOf(codec.substring(dash + 1));
+      } catch (NumberFormatException ex) {
+        throw new IllegalArgumentException("Bad level for codec " + codec, ex);
+      }
+    }
+    return switch (name) {
+      case DataFileConstants.NULL_CODEC -> noLevel(codec, level, CodecFactory.nullCodec());
+      case DataFileConstants.SNAPPY_CODEC -> noLevel(codec, level, CodecFactory.snappyCodec());
+      case DataFileConstants.BZIP2_CODEC -> noLevel(codec, level, CodecFactory.bzip2Codec());
+      case DataFileConstants.DEFLATE_CODEC ->
+          CodecFactory.deflateCodec(level == null ? CodecFactory.DEFAULT_DEFLATE_LEVEL : level);
+      case DataFileConstants.XZ_CODEC ->
+          CodecFactory.xzCodec(level == null ? CodecFactory.DEFAULT_XZ_LEVEL : level);
+      case DataFileConstants.ZSTANDARD_CODEC, "zstd" ->
+          CodecFactory.zstandardCodec(
+              level == null ? CodecFactory.DEFAULT_ZSTANDARD_LEVEL : level);
+      default -> throw new IllegalArgumentException("Unknown codec " + codec);
+    };
+  }
+
+  private static CodecFactory noLevel(String codec, Integer level, CodecFactory factory) {
+    if (level != null) {
+      throw new IllegalArgumentException("Codec " + codec + " does not have levels.");
+    }
+    return factory;
+  }
+
   @Override
   public String write(Samples sourceSamples, File dest) throws IOException {
     String sha256Hash = null;
@@ -66,6 +157,7 @@ public class AvroSamplesWriter implements SamplesWriter {
     Map<CharSequence, Integer> labelLookup = createLookup(labels);
     List<CharSequence> threadNames = createSortedList(sourceSamples.getThreadNames());
     Map<CharSequence, Integer> threadNameLookup = createLookup(threadNames);
+    AvroBlockIndex.Builder index = AvroBlockIndex.builder();
     try (HashingOutputStream hos =
         new HashingOutputStream(
             Hashing.sha256(), new BufferedOutputStream(new FileOutputStream(dest)))) {
@@ -74,6 +166,9 @@ public class AvroSamplesWriter implements SamplesWriter {
         dataFileWriter.setMeta("earliest", sourceSamples.getEarliestMillis());
         dataFileWriter.setMeta("latest", sourceSamples.getLatestMillis());
         dataFileWriter.setMeta("numRows", sourceSamples.getSamples().size());
+        dataFileWriter.setMeta("codec", codec);
+        dataFileWriter.setCodec(codecFactory);
+        dataFileWriter.setSyncInterval(syncInterval);
 
         if (!labels.isEmpty()) {
           writeMetaStringArray(dataFileWriter, "labels", labels);
@@ -92,12 +187,18 @@ public class AvroSamplesWriter implements SamplesWriter {
         }
         dataFileWriter.create(HttpSample.getClassSchema(), hos, SYNC);
 
+        int rowsPerEntry = Math.max(1, syncInterval / ESTIMATED_ROW_BYTES);
+        index.startEntry(dataFileWriter.sync());
         long numRowsWritten = 0;
         long writeStartMs = System.currentTimeMillis();
         for (Sample presample : sourceSamples.getSamples()) {
           HttpSample httpSample =
               convert(presample, labelLookup, threadNameLookup, statusCodeLookup);
+          if (index.entryRows() >= rowsPerEntry) {
+            index.startEntry(dataFileWriter.sync());
+          }
           dataFileWriter.append(httpSample);
+          index.add(httpSample.getMillisOffset(), httpSample.getLabelRef() - 1);
           ++numRowsWritten;
           if (numRowsWritten % 1000000L == 0) {
             LOGGER.debug(
@@ -110,6 +211,7 @@ public class AvroSamplesWriter implements SamplesWriter {
       }
       sha256Hash = hos.hash().toString();
     }
+    index.build().write(dest.toPath());
     return sha256Hash;
   }
 
@@ -18,9 +18,7 @@ import org.apache.avro.Schema;
 import org.apache.avro.SchemaBuilder;
 import org.apache.avro.file.DataFileReader;
 import org.apache.avro.file.DataFileWriter;
-import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericDatumReader;
-import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.avro.util.Utf8;
 
@@ -40,9 +38,36 @@ public class Avros {
    * @throws IOException if the file was not found or could not be opened.
    */
   public static TabStream records(Path tabFile) throws IOException {
-    DataFileReader<GenericRecord> reader =
-        new DataFileReader<>(tabFile.toFile(), new GenericDatumReader<>());
-    TabSchema.StructS schema = TabSchema.StructS.ofAvro(reader.getSchema());
+    return records(tabFile, null);
+  }
+
+  /**
+   * Returns a stream to get only some of the fields of the tabular records from an avro file. The
+   * file is read with a reader schema which has only those fields, so the other fields are skipped
+   * over by Avro schema resolution rather than decoded.
+   *
+   * @apiNote Similar to {@link java.nio.file.Files#lines(Path)}, this should be used within a
+   *     try-with-resources statement or similar to ensure the stream's file is closed promptly.
+   * @param tabFile the file to read tabular data from
+   * @param fieldNames the names of the fields to read, in the order they will be in each record, or
+   *     null to read all of them
+   * @return A TabStream which has the headers of the wanted fields and the stream to read the lines
+   *     from.
+   * @throws IOException if the file was not found or could not be opened.
+   * @throws IllegalArgumentException if the file does not have one of the fields.
+   */
+  public static TabStream records(Path tabFile, List<String> fieldNames) throws IOException {
+    GenericDatumReader<GenericRecord> datumReader = new GenericDatumReader<>();
+    DataFileReader<GenericRecord> reader = new DataFileReader<>(tabFile.toFile(), datumReader);
+    Schema readerSchema;
+    try {
+      readerSchema = project(reader.getSchema(), fieldNames);
+    } catch (RuntimeException ex) {
+      reader.close();
+      throw ex;
+    }
+    datumReader.setExpected(readerSchema);
+    TabSchema.StructS schema = TabSchema.StructS.ofAvro(readerSchema);
 
     Function<GenericRecord, TabRecord> converter =
         genRec -> {
@@ -78,7 +103,8 @@ public class Avros {
   }
 
   /**
-   * Writes a tab schema to an Avro file.
+   * Writes a tab schema to an Avro file. Each record is encoded straight into the Avro block
+   * without making an Avro record for it, see {@link TabRecordDatumWriter}.
    *
    * @param dest The Avro file to write to
    * @param schema The schema for reading and writing
@@ -91,21 +117,23 @@ public class Avros {
     try (HashingOutputStream hos =
         new HashingOutputStream(
             Hashing.sha256(), new BufferedOutputStream(new FileOutputStream(dest.toFile())))) {
-      try (DataFileWriter<GenericRecord> dataFileWriter =
-          new DataFileWriter<>(new GenericDatumWriter<>())) {
-        Schema avroSchema = toAvroSchema(schema);
-
+      Schema avroSchema = toAvroSchema(schema);
+      try (DataFileWriter<TabRecord> dataFileWriter =
+          new DataFileWriter<>(new TabRecordDatumWriter(schema, avroSchema))) {
         dataFileWriter.create(avroSchema, hos);
 
         Consumer<TabRecord> writeRecord =
             tabRec -> {
               try {
-                GenericRecord rec = new GenericData.Record(avroSchema);
-                IntStream.range(0, schema.fields().size())
-                    .forEach(i -> rec.put(i, tabRec.values().get(i)));
-                dataFileWriter.append(rec);
+                dataFileWriter.append(tabRec);
               } catch (IOException ex) {
                 throw new UncheckedIOException(ex);
+              } catch (DataFileWriter.AppendWriteException ex) {
+                // A value which does not fit the schema is reported the same as when reading.
+                if (ex.getCause() instanceof TabException tabEx) {
+                  throw tabEx;
+                }
+                throw ex;
               }
             };
         rows.forEach(writeRecord);
@@ -114,6 +142,30 @@ public class Avros {
     }
   }
 
+  private static Schema project(Schema writerSchema, List<String> fieldNames) {
+    if (fieldNames == null) {
+      return writerSchema;
+    }
+    List<Schema.Field> fields =
+        fieldNames.stream()
+            .map(
+                name -> {
+                  Schema.Field field = writerSchema.getField(name);
+                  if (field == null) {
+                    throw new IllegalArgumentException(
+                        "No field named \"" + name + "\" in " + writerSchema.getFullName());
+                  }
+                  return new Schema.Field(field, field.schema());
+                })
+            .toList();
+    return Schema.createRecord(
+        writerSchema.getName(),
+        writerSchema.getDoc(),
+        writerSchema.getNamespace(),
+        writerSchema.isError(),
+        fields);
+  }
+
   private static Schema toAvroSchema(TabSchema.StructS schema) {
     SchemaBuilder.FieldAssembler<Schema> builder =
         SchemaBuilder.builder().record("TabRecord").fields();
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The encodings used for the columns of a {@link ColumnarSamplesWriter} file.
+ *
+ * <ul>
+ *   <li>Delta-of-delta: for values that go up at a steady rate, like offsets. The first value, the
+ *       first difference, and then each change in the difference, as zigzag varints, so a steady
+ *       rate is mostly single zero bytes.
+ *   <li>Frame of reference: for values in a narrow range, like durations. The minimum as a zigzag
+ *       varint and the bit width, then every value minus the minimum in that many bits.
+ *   <li>Run length: for values that repeat, like refs. Each value as a zigzag varint, followed by
+ *       how many times in a row it repeats.
+ *   <li>Boolean run length: the first value as a byte, then the length of each run, where each run
+ *       is the other value from the run before it.
+ * </ul>
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+final class ColumnEncoding {
+
+  private ColumnEncoding() {
+    // Do not allow utility classes to be instanciated.
+  }
+
+  static void writeVarLong(ByteArrayOutputStream out, long value) {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  static void writeZigZag(ByteArrayOutputStream out, long value) {
+    writeVarLong(out, (value << 1) ^ (value >> 63));
+  }
+
+  static void encodeDeltaOfDelta(long[] values, int count, ByteArrayOutputStream out) {
+    long prev = 0L;
+    long prevDelta = 0L;
+    for (int i = 0; i < count; ++i) {
+      long delta = values[i] - prev;
+      writeZigZag(out, i == 0 ? values[0] : delta - prevDelta);
+      if (i > 0) {
+        prevDelta = delta;
+      }
+      prev = values[i];
+    }
+  }
+
+  static void decodeDeltaOfDelta(Bytes in, long[] dest, int count) throws IOException {
+    long prev = 0L;
+    long prevDelta = 0L;
+    for (int i = 0; i < count; ++i) {
+      long read = in.readZigZag();
+      if (i == 0) {
+        prev = read;
+      } else {
+        prevDelta += read;
+        prev += prevDelta;
+      }
+      dest[i] = prev;
+    }
+  }
+
+  static void encodeFrameOfReference(long[] values, int count, ByteArrayOutputStream out) {
+    long min = Long.MAX_VALUE;
+    long max = Long.MIN_VALUE;
+    for (int i = 0; i < count; ++i) {
+      min = Math.min(min, values[i]);
+      max = Math.max(max, values[i]);
+    }
+    if (count == 0) {
+      min = 0L;
+      max = 0L;
+    }
+    // The range is treated as unsigned, which it always fits in.
+    int width = 64 - Long.numberOfLeadingZeros(max - min);
+    writeZigZag(out, min);
+    out.write(width);
+    int current = 0;
+    int used = 0;
+    for (int i = 0; i < count; ++i) {
+      long value = values[i] - min;
+      for (int shift = 0; shift < width; ) {
+        int take = Math.min(8 - used, width - shift);
+        current |= (int) (((value >>> shift) & ((1L << take) - 1)) << used);
+        used += take;
+        shift += take;
+        if (used == 8) {
+          out.write(current);
+          current = 0;
+          used = 0;
+        }
+      }
+    }
+    if (used > 0) {
+      out.write(current);
+    }
+  }
+
+  static void decodeFrameOfReference(Bytes in, long[] dest, int count) throws IOException {
+    long min = in.readZigZag();
+    int width = in.readByte();
+    int current = 0;
+    int left = 0;
+    for (int i = 0; i < count; ++i) {
+      long value = 0L;
+      for (int shift = 0; shift < width; ) {
+        if (left == 0) {
+          current = in.readByte();
+          left = 8;
+        }
+        int take = Math.min(left, width - shift);
+        value |= ((long) ((current >>> (8 - left)) & ((1 << take) - 1))) << shift;
+        left -= take;
+        shift += take;
+      }
+      dest[i] = min + value;
+    }
+  }
+
+  static void encodeRunLength(int[] values, int count, ByteArrayOutputStream out) {
+    int i = 0;
+    while (i < count) {
+      int value = values[i];
+      int run = 1;
+      while (i + run < count && values[i + run] == value) {
+        ++run;
+      }
+      writeZigZag(out, value);
+      writeVarLong(out, run);
+      i += run;
+    }
+  }
+
+  static void decodeRunLength(Bytes in, int[] dest, int count) throws IOException {
+    int i = 0;
+    while (i < count) {
+      int value = (int) in.readZigZag();
+      int run = (int) in.readVarLong();
+      if (run < 1 || run > count - i) {
+        throw new IOException("Bad run length " + run + " with " + (count - i) + " values left.");
+      }
+      Arrays.fill(dest, i, i + run, value);
+      i += run;
+    }
+  }
+
+  static void encodeBooleanRunLength(boolean[] values, int count, ByteArrayOutputStream out) {
+    if (count == 0) {
+      return;
+    }
+    out.write(values[0] ? 1 : 0);
+    int i = 0;
+    while (i < count) {
+      boolean value = values[i];
+      int run = 1;
+      while (i + run < count && values[i + run] == value) {
+        ++run;
+      }
+      writeVarLong(out, run);
+      i += run;
+    }
+  }
+
+  static void decodeBooleanRunLength(Bytes in, boolean[] dest, int count) throws IOException {
+    if (count == 0) {
+      return;
+    }
+    boolean value = in.readByte() != 0;
+    int i = 0;
+    while (i < count) {
+      int run = (int) in.readVarLong();
+      if (run < 1 || run > count - i) {
+        throw new IOException("Bad run length " + run + " with " + (count - i) + " values left.");
+      }
+      Arrays.fill(dest, i, i + run, value);
+      i += run;
+      value = !value;
+    }
+  }
+
+  /** Reads encoded values out of a byte array. */
+  static class Bytes {
+    private final byte[] buf;
+    private int pos;
+    private final int end;
+
+    Bytes(byte[] buf, int offset, int length) {
+      this.buf = buf;
+      pos = offset;
+      end = offset + length;
+    }
+
+    int readByte() throws IOException {
+      if (pos >= end) {
+        throw new EOFException("Column ended early.");
+      }
+      return buf[pos++] & 0xFF;
+    }
+
+    long readVarLong() throws IOException {
+      long value = 0L;
+      for (int shift = 0; shift < 64; shift += 7) {
+        int b = readByte();
+        value |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IOException("Varint is too long.");
+    }
+
+    long readZigZag() throws IOException {
+      long value = readVarLong();
+      return (value >>> 1) ^ -(value & 1);
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Converts logs that are already stored as Avro into the columnar format, see {@link
+ * ColumnarSamplesWriter}. Each "N.avro" in the logs directory gets an "N.lgc" next to it, which is
+ * read instead of the Avro file from then on.
+ *
+ * <pre>
+ * java -cp ... com.redsaz.lognition.convert.ColumnarConverter ./lognition-data/logs [--replace]
+ * </pre>
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class ColumnarConverter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ColumnarConverter.class);
+
+  private ColumnarConverter() {
+    // Do not allow utility classes to be instanciated.
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1 || args.length > 2 || (args.length == 2 && !"--replace".equals(args[1]))) {
+      System.err.println("Usage: ColumnarConverter <logs directory> [--replace]");
+      System.exit(1);
+    }
+    int converted = convertAll(Path.of(args[0]), new ColumnarSamplesWriter(), args.length == 2);
+    System.out.println("Converted " + converted + " logs.");
+  }
+
+  /**
+   * Converts every Avro log file in the directory which has not already been converted.
+   *
+   * @param logsDir the directory the logs are stored in
+   * @param writer writes the columnar files
+   * @param replace if true, the Avro file and its block index are deleted once converted
+   * @return how many logs were converted.
+   * @throws IOException if a log could not be converted. The logs converted before it stay
+   *     converted.
+   */
+  public static int convertAll(Path logsDir, ColumnarSamplesWriter writer, boolean replace)
+      throws IOException {
+    List<Path> avroFiles;
+    try (Stream<Path> files = Files.list(logsDir)) {
+      avroFiles =
+          files.filter(p -> p.getFileName().toString().matches("\\d+\\.avro")).sorted().toList();
+    }
+    int converted = 0;
+    for (Path avroFile : avroFiles) {
+      Path dest = columnarFileFor(avroFile);
+      if (Files.exists(dest)) {
+        LOGGER.debug("{} is already converted.", avroFile);
+        continue;
+      }
+      convert(avroFile, writer);
+      if (replace) {
+        Files.deleteIfExists(AvroBlockIndex.pathFor(avroFile));
+        Files.delete(avroFile);
+      }
+      ++converted;
+    }
+    return converted;
+  }
+
+  /**
+   * Converts one Avro log file. The columnar file is written to a temporary file first, so that a
+   * half-written file is never mistaken for a converted log.
+   *
+   * @param avroFile the Avro log file, like "12.avro"
+   * @param writer writes the columnar file
+   * @return the columnar file, like "12.lgc".
+   * @throws IOException if the log could not be converted.
+   */
+  public static Path convert(Path avroFile, ColumnarSamplesWriter writer) throws IOException {
+    long startMillis = System.currentTimeMillis();
+    Path dest = columnarFileFor(avroFile);
+    Path temp = dest.resolveSibling(dest.getFileName() + ".tmp");
+    try {
+      writer.convert(avroFile, temp.toFile());
+      Files.move(temp, dest, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    LOGGER.info(
+        "{}ms to convert {} ({} bytes) to {} ({} bytes).",
+        System.currentTimeMillis() - startMillis,
+        avroFile,
+        Files.size(avroFile),
+        dest,
+        Files.size(dest));
+    return dest;
+  }
+
+  /**
+   * @param avroFile an Avro log file, like "12.avro"
+   * @return the columnar file of the same log, like "12.lgc".
+   */
+  public static Path columnarFileFor(Path avroFile) {
+    String name = avroFile.getFileName().toString();
+    int dot = name.lastIndexOf('.');
+    if (dot > 0) {
+      name = name.substring(0, dot);
+    }
+    return avroFile.resolveSibling(name + "." + ColumnarSamplesWriter.EXTENSION);
+  }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+import com.redsaz.lognition.convert.ColumnarSamplesReader.Block;
+import com.redsaz.lognition.convert.ColumnarSamplesReader.Footer;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link SampleCursor} over a columnar samples file, which decodes a block of the wanted columns
+ * at a time into arrays.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+class ColumnarSampleCursor implements SampleCursor {
+
+  private final RandomAccessFile raf;
+  private final Footer footer;
+  private final EnumSet<SampleField> columns;
+  private final List<Block> blocks;
+  private final long fromOffset;
+  private final long toOffset;
+  private final boolean filterOffsets;
+  private final BitSet wantedLabels;
+
+  private int blockNum;
+  private int rows;
+  private int row = -1;
+  private byte[] buf = new byte[0];
+  private long[] offsets = new long[0];
+  private long[] durations = new long[0];
+  private int[] labelRefs = new int[0];
+  private int[] threadNameRefs = new int[0];
+  private int[] codeRefs = new int[0];
+  private boolean[] successes = new boolean[0];
+  private long[] responseBytes = new long[0];
+  private int[] totalThreads = new int[0];
+
+  private ColumnarSampleCursor(
+      RandomAccessFile raf,
+      Footer footer,
+      Set<SampleField> wantedColumns,
+      long fromOffset,
+      long toOffset,
+      Collection<String> labels) {
+    this.raf = raf;
+    this.footer = footer;
+    this.fromOffset = fromOffset;
+    this.toOffset = toOffset;
+    columns = EnumSet.noneOf(SampleField.class);
+    columns.addAll(wantedColumns);
+    filterOffsets = fromOffset != Long.MIN_VALUE || toOffset != Long.MAX_VALUE;
+    if (filterOffsets) {
+      columns.add(SampleField.OFFSET);
+    }
+    if (labels == null) {
+      wantedLabels = null;
+    } else {
+      columns.add(SampleField.LABEL);
+      wantedLabels = new BitSet(footer.labels().size());
+      for (int i = 0; i < footer.labels().size(); ++i) {
+        if (labels.contains(footer.labels().get(i))) {
+          wantedLabels.set(i);
+        }
+      }
+    }
+    blocks = footer.blocks().stream().filter(this::mayHaveRows).toList();
+  }
+
+  static ColumnarSampleCursor open(
+      Path file,
+      Set<SampleField> columns,
+      long fromOffset,
+      long toOffset,
+      Collection<String> labels)
+      throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r");
+    try {
+      Footer footer = ColumnarSamplesReader.readFooter(raf);
+      return new ColumnarSampleCursor(raf, footer, columns, fromOffset, toOffset, labels);
+    } catch (IOException | RuntimeException ex) {
+      raf.close();
+      throw ex;
+    }
+  }
+
+  @Override
+  public boolean next() throws IOException {
+    while (true) {
+      ++row;
+      while (row >= rows) {
+        if (blockNum >= blocks.size()) {
+          row = rows;
+          return false;
+        }
+        readBlock(blocks.get(blockNum++));
+        row = 0;
+      }
+      if (isWanted(row)) {
+        return true;
+      }
+    }
+  }
+
+  @Override
+  public long earliestMillis() {
+    return footer.earliestMillis();
+  }
+
+  @Override
+  public long offset() {
+    require(SampleField.OFFSET);
+    return offsets[row];
+  }
+
+  @Override
+  public long duration() {
+    require(SampleField.DURATION);
+    return durations[row];
+  }
+
+  @Override
+  public int labelRef() {
+    require(SampleField.LABEL);
+    return labelRefs[row];
+  }
+
+  @Override
+  public int threadNameRef() {
+    require(SampleField.THREAD_NAME);
+    return threadNameRefs[row];
+  }
+
+  @Override
+  public int codeRef() {
+    require(SampleField.CODE);
+    return codeRefs[row];
+  }
+
+  @Override
+  public boolean success() {
+    require(SampleField.SUCCESS);
+    return successes[row];
+  }
+
+  @Override
+  public long responseBytes() {
+    require(SampleField.RESPONSE_BYTES);
+    return responseBytes[row];
+  }
+
+  @Override
+  public int totalThreads() {
+    require(SampleField.TOTAL_THREADS);
+    return totalThreads[row];
+  }
+
+  @Override
+  public List<String> labels() {
+    return footer.labels();
+  }
+
+  @Override
+  public List<String> threadNames() {
+    return footer.threadNames();
+  }
+
+  @Override
+  public String statusCode(int codeRef) {
+    return footer.codes().getCode(codeRef).toString();
+  }
+
+  @Override
+  public String statusMessage(int codeRef) {
+    return footer.codes().getMessage(codeRef).toString();
+  }
+
+  @Override
+  public void close() throws IOException {
+    raf.close();
+  }
+
+  private boolean mayHaveRows(Block block) {
+    if (block.maxOffset() < fromOffset || block.minOffset() >= toOffset) {
+      return false;
+    }
+    if (wantedLabels == null) {
+      return true;
+    }
+    int next = wantedLabels.nextSetBit(Math.max(0, block.minLabelRef()));
+    return next >= 0 && next <= block.maxLabelRef();
+  }
+
+  private boolean isWanted(int index) {
+    if (filterOffsets && (offsets[index] < fromOffset || offsets[index] >= toOffset)) {
+      return false;
+    }
+    return wantedLabels == null || (labelRefs[index] >= 0 && wantedLabels.get(labelRefs[index]));
+  }
+
+  private void require(SampleField column) {
+    if (!columns.contains(column)) {
+      throw new IllegalStateException("The " + column + " column was not read.");
+    }
+    if (row < 0 || row >= rows) {
+      throw new IllegalStateException("There is no current row.");
+    }
+  }
+
+  private void readBlock(Block block) throws IOException {
+    rows = block.rows();
+    if (offsets.length < rows) {
+      offsets = new long[rows];
+      durations = new long[rows];
+      labelRefs = new int[rows];
+      threadNameRefs = new int[rows];
+      codeRefs = new int[rows];
+      successes = new boolean[rows];
+      responseBytes = new long[rows];
+      totalThreads = new int[rows];
+    }
+    for (SampleField column : columns) {
+      ColumnEncoding.Bytes in = readColumn(block, column);
+      switch (column) {
+        case OFFSET -> ColumnEncoding.decodeDeltaOfDelta(in, offsets, rows);
+        case DURATION -> ColumnEncoding.decodeFrameOfReference(in, durations, rows);
+        case LABEL -> ColumnEncoding.decodeRunLength(in, labelRefs, rows);
+        case THREAD_NAME -> ColumnEncoding.decodeRunLength(in, threadNameRefs, rows);
+        case CODE -> ColumnEncoding.decodeRunLength(in, codeRefs, rows);
+        case SUCCESS -> ColumnEncoding.decodeBooleanRunLength(in, successes, rows);
+        case RESPONSE_BYTES -> ColumnEncoding.decodeFrameOfReference(in, responseBytes, rows);
+        case TOTAL_THREADS -> ColumnEncoding.decodeRunLength(in, totalThreads, rows);
+      }
+    }
+  }
+
+  private ColumnEncoding.Bytes readColumn(Block block, SampleField column) throws IOException {
+    int length = block.columnLengths()[column.ordinal()];
+    if (buf.length < length) {
+      buf = new byte[length];
+    }
+    raf.seek(block.columnPosition(column));
+    raf.readFully(buf, 0, length);
+    return new ColumnEncoding.Bytes(buf, 0, length);
+  }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+import com.redsaz.lognition.api.model.Sample;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Reads the samples written by {@link ColumnarSamplesWriter}. Each column of a block is stored on
+ * its own, so reading only some of the columns only reads and decodes those columns. The time range
+ * and label range of every block is kept in the footer, so blocks outside of what is asked for are
+ * not read at all.
+ *
+ * <pre>
+ * // The durations of one label, without decoding anything else.
+ * try (SampleCursor cursor =
+ *     ColumnarSamplesReader.sampleCursor(
+ *         file, EnumSet.of(SampleField.DURATION), 0L, Long.MAX_VALUE, List.of("GET home"))) {
+ *   while (cursor.next()) {
+ *     histogram.recordValue(cursor.duration());
+ *   }
+ * }
+ * </pre>
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class ColumnarSamplesReader {
+
+  static final int MAGIC = 0x4c47434c; // "LGCL"
+  static final int VERSION = 1;
+  // The footer position and magic number at the very end of the file.
+  static final int TRAILER_BYTES = Long.BYTES + Integer.BYTES;
+
+  private ColumnarSamplesReader() {
+    // Do not allow utility classes to be instanciated.
+  }
+
+  /**
+   * Where one block is, and the range of its offsets, durations, and labels.
+   *
+   * @param columnLengths how many bytes each column takes, in {@link SampleField} order
+   */
+  record Block(
+      long position,
+      int rows,
+      long minOffset,
+      long maxOffset,
+      long minDuration,
+      long maxDuration,
+      int minLabelRef,
+      int maxLabelRef,
+      int[] columnLengths) {
+
+    long columnPosition(SampleField column) {
+      long position = position();
+      for (int i = 0; i < column.ordinal(); ++i) {
+        position += columnLengths[i];
+      }
+      return position;
+    }
+  }
+
+  /** Everything in the footer of the file. */
+  record Footer(
+      long earliestMillis,
+      long latestMillis,
+      long numRows,
+      List<String> labels,
+      List<String> threadNames,
+      StatusCodeLookup codes,
+      List<Block> blocks) {}
+
+  /**
+   * Reads all of the samples a row at a time.
+   *
+   * @param file the columnar samples file
+   * @return a cursor over every row, with every column.
+   * @throws IOException if the file could not be opened.
+   */
+  public static SampleCursor sampleCursor(Path file) throws IOException {
+    return sampleCursor(
+        file, EnumSet.allOf(SampleField.class), Long.MIN_VALUE, Long.MAX_VALUE, null);
+  }
+
+  /**
+   * Reads some of the columns of the samples within a range of time, a row at a time. Only the
+   * blocks which overlap the range and have the labels are read, and only the columns asked for
+   * are decoded, along with the offset and label columns when they are needed to filter the rows.
+   * Reading a column which was not asked for throws an IllegalStateException.
+   *
+   * @param file the columnar samples file
+   * @param columns the columns to read
+   * @param fromOffset the earliest offset to read, inclusive, relative to the earliest sample
+   * @param toOffset the latest offset to read, exclusive, relative to the earliest sample
+   * @param labels the labels of the samples to read, or null for all labels
+   * @return a cursor over the rows in the range with the labels.
+   * @throws IOException if the file could not be opened.
+   */
+  public static SampleCursor sampleCursor(
+      Path file,
+      Set<SampleField> columns,
+      long fromOffset,
+      long toOffset,
+      Collection<String> labels)
+      throws IOException {
+    return ColumnarSampleCursor.open(file, columns, fromOffset, toOffset, labels);
+  }
+
+  /**
+   * Reads all of the samples from the file.
+   *
+   * @apiNote Similar to {@link java.nio.file.Files#lines(Path)}, this should be used within a
+   *     try-with-resources statement or similar to ensure the stream's file is closed promptly.
+   * @param file the columnar samples file
+   * @return the samples, with offsets that are absolute, same as {@link
+   *     AvroSamplesReader#sampleStream(Path)}.
+   * @throws IOException if the file could not be opened.
+   */
+  public static Stream<Sample> sampleStream(Path file) throws IOException {
+    return sampleCursor(file).stream();
+  }
+
+  /**
+   * Reads the samples within a range of time, and optionally only some labels.
+   *
+   * @apiNote Similar to {@link java.nio.file.Files#lines(Path)}, this should be used within a
+   *     try-with-resources statement or similar to ensure the stream's file is closed promptly.
+   * @param file the columnar samples file
+   * @param fromOffset the earliest offset to read, inclusive, relative to the earliest sample
+   * @param toOffset the latest offset to read, exclusive, relative to the earliest sample
+   * @param labels the labels of the samples to read, or null for all labels
+   * @return the samples, with offsets that are absolute.
+   * @throws IOException if the file could not be opened.
+   */
+  public static Stream<Sample> sampleStream(
+      Path file, long fromOffset, long toOffset, Collection<String> labels) throws IOException {
+    return sampleCursor(file, EnumSet.allOf(SampleField.class), fromOffset, toOffset, labels)
+        .stream();
+  }
+
+  static Footer readFooter(RandomAccessFile raf) throws IOException {
+    long length = raf.length();
+    if (length < 2 * Integer.BYTES + TRAILER_BYTES) {
+      throw new IOException("Too short to be a columnar samples file.");
+    }
+    raf.seek(0L);
+    if (raf.readInt() != MAGIC || raf.readInt() != VERSION) {
+      throw new IOException("Not a known columnar samples format.");
+    }
+    raf.seek(length - TRAILER_BYTES);
+    long footerPosition = raf.readLong();
+    if (raf.readInt() != MAGIC || footerPosition < 0 || footerPosition > length - TRAILER_BYTES) {
+      throw new IOException("The columnar samples file was not finished.");
+    }
+    byte[] buf = new byte[(int) (length - TRAILER_BYTES - footerPosition)];
+    raf.seek(footerPosition);
+    raf.readFully(buf);
+
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(buf));
+    long earliestMillis = in.readLong();
+    long latestMillis = in.readLong();
+    long numRows = in.readLong();
+    List<String> labels = readStrings(in);
+    List<String> threadNames = readStrings(in);
+    int numCodes = in.readInt();
+    List<CharSequence> codes = new ArrayList<>(numCodes);
+    List<CharSequence> messages = new ArrayList<>(numCodes);
+    for (int i = 0; i < numCodes; ++i) {
+      codes.add(in.readUTF());
+      messages.add(in.readUTF());
+    }
+    int numBlocks = in.readInt();
+    List<Block> blocks = new ArrayList<>(numBlocks);
+    for (int i = 0; i < numBlocks; ++i) {
+      long position = in.readLong();
+      int rows = in.readInt();
+      long minOffset = in.readLong();
+      long maxOffset = in.readLong();
+      long minDuration = in.readLong();
+      long maxDuration = in.readLong();
+      int minLabelRef = in.readInt();
+      int maxLabelRef = in.readInt();
+      int[] columnLengths = new int[SampleField.values().length];
+      for (int c = 0; c < columnLengths.length; ++c) {
+        columnLengths[c] = in.readInt();
+      }
+      blocks.add(
+          new Block(
+              position,
+              rows,
+              minOffset,
+              maxOffset,
+              minDuration,
+              maxDuration,
+              minLabelRef,
+              maxLabelRef,
+              columnLengths));
+    }
+    return new Footer(
+        earliestMillis,
+        latestMillis,
+        numRows,
+        labels,
+        threadNames,
+        new StatusCodeLookup(codes, messages),
+        List.copyOf(blocks));
+  }
+
+  private static List<String> readStrings(DataInputStream in) throws IOException {
+    int size = in.readInt();
+    List<String> items = new ArrayList<>(size);
+    for (int i = 0; i < size; ++i) {
+      items.add(in.readUTF());
+    }
+    return List.copyOf(items);
+  }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
+import com.google.common.io.CountingOutputStream;
+import com.redsaz.lognition.api.model.Sample;
+import com.redsaz.lognition.convert.ColumnarSamplesReader.Block;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes samples in a compact columnar format, as an alternative to {@link AvroSamplesWriter}. The
+ * samples are written in blocks of rows, and within a block each column is written on its own with
+ * an encoding that suits it (see {@link ColumnEncoding}): offsets as delta-of-delta, durations and
+ * response bytes as frame of reference, and refs, success, and thread counts as run lengths. The
+ * footer has the labels, thread names, and custom status codes, plus where each block and column is
+ * and the range of offsets, durations, and labels in each block, so that readers can skip what they
+ * do not need. See {@link ColumnarSamplesReader}.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class ColumnarSamplesWriter implements SamplesWriter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ColumnarSamplesWriter.class);
+
+  public static final String EXTENSION = "lgc";
+  public static final int DEFAULT_BLOCK_ROWS = 8192;
+
+  private final int blockRows;
+
+  public ColumnarSamplesWriter() {
+    this(DEFAULT_BLOCK_ROWS);
+  }
+
+  /**
+   * @param blockRows how many rows go in each block. Bigger blocks encode a little smaller, but
+   *     smaller blocks let more of a file be skipped when reading only some of it.
+   */
+  public ColumnarSamplesWriter(int blockRows) {
+    if (blockRows < 1) {
+      throw new IllegalArgumentException("Block rows must be at least 1, but was " + blockRows);
+    }
+    this.blockRows = blockRows;
+  }
+
+  public int getBlockRows() {
+    return blockRows;
+  }
+
+  @Override
+  public String extension() {
+    return EXTENSION;
+  }
+
+  @Override
+  public String write(Samples sourceSamples, File dest) throws IOException {
+    if (dest.exists()) {
+      LOGGER.debug("File \"{}\" already exists. It will be replaced.", dest);
+    }
+    List<String> labels = List.copyOf(new TreeSet<>(sourceSamples.getLabels()));
+    Map<String, Integer> labelLookup = createLookup(labels);
+    List<String> threadNames = List.copyOf(new TreeSet<>(sourceSamples.getThreadNames()));
+    Map<String, Integer> threadNameLookup = createLookup(threadNames);
+    StatusCodeLookup codes = sourceSamples.getStatusCodeLookup();
+    try (Output out = new Output(dest, blockRows)) {
+      for (Sample sample : sourceSamples.getSamples()) {
+        Integer labelRef = labelLookup.get(sample.getLabel());
+        if (labelRef == null) {
+          LOGGER.warn("Bad label={}", sample.getLabel());
+        }
+        out.add(
+            sample.getOffset(),
+            sample.getDuration(),
+            labelRef == null ? -1 : labelRef,
+            threadNameLookup.getOrDefault(sample.getThreadName(), -1),
+            codes.getRef(sample.getStatusCode(), sample.getStatusMessage()),
+            sample.isSuccess(),
+            sample.getResponseBytes(),
+            sample.getTotalThreads());
+      }
+      return out.finish(
+          sourceSamples.getEarliestMillis(),
+          sourceSamples.getLatestMillis(),
+          labels,
+          threadNames,
+          codes);
+    }
+  }
+
+  /**
+   * Converts a log already stored as Avro into the columnar format, a row at a time, without
+   * holding the samples in memory.
+   *
+   * @param avroFile the Avro samples file to convert
+   * @param dest where to write the columnar file
+   * @return the SHA-256 of the columnar file.
+   * @throws IOException if the Avro file could not be read or the columnar file written.
+   */
+  public String convert(Path avroFile, File dest) throws IOException {
+    try (AvroSampleCursor cursor = AvroSampleCursor.open(avroFile);
+        Output out = new Output(dest, blockRows)) {
+      long earliest = cursor.earliestMillis();
+      long latest = earliest;
+      while (cursor.next()) {
+        out.add(
+            cursor.offset(),
+            cursor.duration(),
+            cursor.labelRef(),
+            cursor.threadNameRef(),
+            cursor.codeRef(),
+            cursor.success(),
+            cursor.responseBytes(),
+            cursor.totalThreads());
+        latest = Math.max(latest, earliest + cursor.offset() + cursor.duration());
+      }
+      return out.finish(
+          earliest, latest, cursor.labels(), cursor.threadNames(), cursor.meta().codes());
+    }
+  }
+
+  private static Map<String, Integer> createLookup(List<String> items) {
+    Map<String, Integer> lookup = new HashMap<>();
+    for (int i = 0; i < items.size(); ++i) {
+      lookup.put(items.get(i), i);
+    }
+    return lookup;
+  }
+
+  /** Collects rows into blocks, and writes each block once it is full. */
+  private static class Output implements Closeable {
+    private final CountingOutputStream counter;
+    private final HashingOutputStream hasher;
+    private final DataOutputStream out;
+    private final ByteArrayOutputStream column = new ByteArrayOutputStream();
+    private final List<Block> blocks = new ArrayList<>();
+    private final long[] offsets;
+    private final long[] durations;
+    private final int[] labelRefs;
+    private final int[] threadNameRefs;
+    private final int[] codeRefs;
+    private final boolean[] successes;
+    private final long[] responseBytes;
+    private final int[] totalThreads;
+    private int rows;
+    private long totalRows;
+
+    Output(File dest, int blockRows) throws IOException {
+      counter = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(dest)));
+      hasher = new HashingOutputStream(Hashing.sha256(), counter);
+      out = new DataOutputStream(hasher);
+      offsets = new long[blockRows];
+      durations = new long[blockRows];
+      labelRefs = new int[blockRows];
+      threadNameRefs = new int[blockRows];
+      codeRefs = new int[blockRows];
+      successes = new boolean[blockRows];
+      responseBytes = new long[blockRows];
+      totalThreads = new int[blockRows];
+      out.writeInt(ColumnarSamplesReader.MAGIC);
+      out.writeInt(ColumnarSamplesReader.VERSION);
+    }
+
+    void add(
+        long offset,
+        long duration,
+        int labelRef,
+        int threadNameRef,
+        int codeRef,
+        boolean success,
+        long bytes,
+        int threads)
+        throws IOException {
+      offsets[rows] = offset;
+      durations[rows] = duration;
+      labelRefs[rows] = labelRef;
+      threadNameRefs[rows] = threadNameRef;
+      codeRefs[rows] = codeRef;
+      successes[rows] = success;
+      responseBytes[rows] = bytes;
+      totalThreads[rows] = threads;
+      ++rows;
+      ++totalRows;
+      if (rows == offsets.length) {
+        writeBlock();
+      }
+    }
+
+    String finish(
+        long earliestMillis,
+        long latestMillis,
+        List<String> labels,
+        List<String> threadNames,
+        StatusCodeLookup codes)
+        throws IOException {
+      writeBlock();
+      long footerPosition = counter.getCount();
+      out.writeLong(earliestMillis);
+      out.writeLong(latestMillis);
+      out.writeLong(totalRows);
+      writeStrings(labels);
+      writeStrings(threadNames);
+      List<CharSequence> customCodes = codes.getCustomCodes();
+      List<CharSequence> customMessages = codes.getCustomMessages();
+      out.writeInt(customCodes.size());
+      for (int i = 0; i < customCodes.size(); ++i) {
+        out.writeUTF(customCodes.get(i).toString());
+        out.writeUTF(customMessages.get(i).toString());
+      }
+      out.writeInt(blocks.size());
+      for (Block block : blocks) {
+        out.writeLong(block.position());
+        out.writeInt(block.rows());
+        out.writeLong(block.minOffset());
+        out.writeLong(block.maxOffset());
+        out.writeLong(block.minDuration());
+        out.writeLong(block.maxDuration());
+        out.writeInt(block.minLabelRef());
+        out.writeInt(block.maxLabelRef());
+        for (int length : block.columnLengths()) {
+          out.writeInt(length);
+        }
+      }
+      out.writeLong(footerPosition);
+      out.writeInt(ColumnarSamplesReader.MAGIC);
+      out.flush();
+      return hasher.hash().toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+      out.close();
+    }
+
+    private void writeBlock() throws IOException {
+      if (rows == 0) {
+        return;
+      }
+      long position = counter.getCount();
+      int[] columnLengths = new int[SampleField.values().length];
+      for (SampleField c : SampleField.values()) {
+        column.reset();
+        switch (c) {
+          case OFFSET -> ColumnEncoding.encodeDeltaOfDelta(offsets, rows, column);
+          case DURATION -> ColumnEncoding.encodeFrameOfReference(durations, rows, column);
+          case LABEL -> ColumnEncoding.encodeRunLength(labelRefs, rows, column);
+          case THREAD_NAME -> ColumnEncoding.encodeRunLength(threadNameRefs, rows, column);
+          case CODE -> ColumnEncoding.encodeRunLength(codeRefs, rows, column);
+          case SUCCESS -> ColumnEncoding.encodeBooleanRunLength(successes, rows, column);
+          case RESPONSE_BYTES -> ColumnEncoding.encodeFrameOfReference(responseBytes, rows, column);
+          case TOTAL_THREADS -> ColumnEncoding.encodeRunLength(totalThreads, rows, column);
+        }
+        columnLengths[c.ordinal()] = column.size();
+        column.writeTo(out);
+      }
+      long minOffset = Long.MAX_VALUE;
+      long maxOffset = Long.MIN_VALUE;
+      long minDuration = Long.MAX_VALUE;
+      long maxDuration = Long.MIN_VALUE;
+      int minLabelRef = Integer.MAX_VALUE;
+      int maxLabelRef = Integer.MIN_VALUE;
+      for (int i = 0; i < rows; ++i) {
+        minOffset = Math.min(minOffset, offsets[i]);
+        maxOffset = Math.max(maxOffset, offsets[i]);
+        minDuration = Math.min(minDuration, durations[i]);
+        maxDuration = Math.max(maxDuration, durations[i]);
+        minLabelRef = Math.min(minLabelRef, labelRefs[i]);
+        maxLabelRef = Math.max(maxLabelRef, labelRefs[i]);
+      }
+      blocks.add(
+          new Block(
+              position,
+              rows,
+              minOffset,
+              maxOffset,
+              minDuration,
+              maxDuration,
+              minLabelRef,
+              maxLabelRef,
+              columnLengths));
+      rows = 0;
+    }
+
+    private void writeStrings(List<String> items) throws IOException {
+      out.writeInt(items.size());
+      for (String item : items) {
+        out.writeUTF(item);
+      }
+    }
+  }
+}
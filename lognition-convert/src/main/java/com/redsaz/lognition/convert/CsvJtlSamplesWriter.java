@@ -29,6 +29,8 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -83,6 +85,27 @@ public class CsvJtlSamplesWriter implements SamplesWriter {
     return sha256Hash;
   }
 
+  /**
+   * Writes a stream of {@link Sample}s to a file in CSV JTL (Jmeter) form, one at a time, so that
+   * the samples never need to all be in memory. The offset of each sample is written as its
+   * timestamp as-is.
+   *
+   * @param samples The samples to write.
+   * @param dest The file to write to.
+   * @return the SHA-256 hash of the written file.
+   * @throws IOException if the file could not be written.
+   */
+  public static String writeStream(Stream<Sample> samples, Path dest) throws IOException {
+    try (HashingOutputStream hos =
+        new HashingOutputStream(
+            Hashing.sha256(), new BufferedOutputStream(Files.newOutputStream(dest)))) {
+      writeSamples(samples, hos);
+      return hos.hash().toString();
+    } catch (UncheckedIOException ex) {
+      throw ex.getCause();
+    }
+  }
+
   /**
    * Writes a stream of {@link Sample}s to an {@link OutputStream} in CSV JTL (Jmeter) form.
    *
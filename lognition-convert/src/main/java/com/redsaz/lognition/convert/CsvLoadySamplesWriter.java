@@ -27,7 +27,10 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.function.Function;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -71,6 +74,40 @@ public class CsvLoadySamplesWriter implements SamplesWriter {
     return sha256Hash;
   }
 
+  /**
+   * Writes a stream of {@link Sample}s to a file in Loady CSV form, one at a time, so that the
+   * samples never need to all be in memory. The offset of each sample is taken as the time it
+   * started, so it is written as completed at offset + duration.
+   *
+   * @param samples The samples to write.
+   * @param dest The file to write to.
+   * @return the SHA-256 hash of the written file.
+   * @throws IOException if the file could not be written.
+   */
+  public static String writeStream(Stream<Sample> samples, Path dest) throws IOException {
+    try (HashingOutputStream hos =
+        new HashingOutputStream(
+            Hashing.sha256(), new BufferedOutputStream(Files.newOutputStream(dest)))) {
+      try (BufferedWriter bw =
+          new BufferedWriter(new OutputStreamWriter(hos, StandardCharsets.UTF_8))) {
+        CsvWriter writer = null;
+        try {
+          writer = new CsvWriter(bw, new CsvWriterSettings());
+
+          writer.writeHeaders(
+              "completed_at_ms", "duration_ms", "fail", "status", "bytes_down", "label", "thread");
+          Function<Sample, Object[]> toCsv = sample -> toCsv(0L, sample);
+          samples.map(toCsv).forEach(writer::writeRow);
+        } finally {
+          if (writer != null) {
+            writer.close();
+          }
+        }
+      }
+      return hos.hash().toString();
+    }
+  }
+
   private static Object[] toCsv(long originTimestamp, Sample sample) {
     int fail = 0;
     if (!sample.isSuccess()) {
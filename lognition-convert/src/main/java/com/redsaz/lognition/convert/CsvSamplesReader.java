@@ -1,8 +1,12 @@
 package com.redsaz.lognition.convert;
 
+import com.google.common.io.CountingInputStream;
 import com.redsaz.lognition.api.exceptions.AppServerException;
 import com.redsaz.lognition.api.model.Sample;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -10,6 +14,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,29 +34,113 @@ public class CsvSamplesReader {
   public static Samples readSamples(Path file) throws IOException {
     CsvSamplesReader reader = new CsvSamplesReader();
     try (Stream<Sample> stream = Csvs.recordsUsing(file, reader::pickCsvDeserializer)) {
-      ListSamples.Builder builder = ListSamples.builder();
-      stream.forEach(builder::add);
-
-      // JTL can have a varying total number of threads over time, but Loady is constant.
-      // So for Loady, get count of unique thread names, then adjust allThreads count.
-      if (reader.sourceType == CsvSourceType.LOADY) {
-        int numThreads = builder.getThreadNames().size();
-        builder.forEach(sample -> sample.setTotalThreads(numThreads));
-      }
+      return reader.collect(stream);
+    }
+  }
 
-      return builder.build();
+  /**
+   * Reads the samples from a CSV file, periodically reporting how far along the read is.
+   *
+   * @param file the CSV file to read
+   * @param listener told of the progress every {@link ProgressListener#REPORT_EVERY_ROWS} rows,
+   *     and once more when the file has been read.
+   * @return the samples in the file
+   * @throws IOException if the file could not be read
+   */
+  public static Samples readSamples(Path file, ProgressListener listener) throws IOException {
+    CsvSamplesReader reader = new CsvSamplesReader();
+    return reader.read(file, listener, reader::collect);
+  }
+
+  /**
+   * Reads the samples from a CSV file into off-heap memory, periodically reporting how far along
+   * the read is. If reading fails, the memory used so far is freed.
+   *
+   * @param file the CSV file to read
+   * @param listener told of the progress every {@link ProgressListener#REPORT_EVERY_ROWS} rows,
+   *     and once more when the file has been read.
+   * @param builder where to put the samples
+   * @return the samples in the file, which must be closed to free the memory.
+   * @throws IOException if the file could not be read
+   */
+  public static OffHeapSamples readSamples(
+      Path file, ProgressListener listener, OffHeapSamples.Builder builder) throws IOException {
+    CsvSamplesReader reader = new CsvSamplesReader();
+    try (builder) {
+      return reader.read(file, listener, stream -> reader.collect(stream, builder));
     }
   }
 
+  private <T> T read(Path file, ProgressListener listener, Function<Stream<Sample>, T> collector)
+      throws IOException {
+    CountingInputStream counter = new CountingInputStream(Files.newInputStream(file));
+    try (Stream<Sample> stream =
+        Csvs.recordsUsing(
+            new InputStreamReader(counter, Charset.defaultCharset()), this::pickCsvDeserializer)) {
+      long[] rows = new long[1];
+      T samples =
+          collector.apply(
+              stream.peek(
+                  sample -> {
+                    if (++rows[0] % ProgressListener.REPORT_EVERY_ROWS == 0) {
+                      listener.progress(rows[0], counter.getCount());
+                    }
+                  }));
+      listener.progress(rows[0], counter.getCount());
+      return samples;
+    }
+  }
+
+  private Samples collect(Stream<Sample> stream) {
+    ListSamples.Builder builder = ListSamples.builder();
+    stream.forEach(builder::add);
+
+    // JTL can have a varying total number of threads over time, but Loady is constant.
+    // So for Loady, get count of unique thread names, then adjust allThreads count.
+    if (sourceType == CsvSourceType.LOADY) {
+      int numThreads = builder.getThreadNames().size();
+      builder.forEach(sample -> sample.setTotalThreads(numThreads));
+    }
+
+    return builder.build();
+  }
+
+  private OffHeapSamples collect(Stream<Sample> stream, OffHeapSamples.Builder builder) {
+    stream.forEach(builder::add);
+
+    // Same as above, Loady has a constant number of threads, found once all are read.
+    if (sourceType == CsvSourceType.LOADY) {
+      builder.totalThreads(builder.getThreadNames().size());
+    }
+
+    return builder.build();
+  }
+
+  /**
+   * Finds the type of CSV source which can deserialize rows with the given headers.
+   *
+   * @param headers the column names, in order
+   * @return the first source type that can handle the headers
+   * @throws AppServerException if no source type can handle the headers
+   */
+  public static CsvSourceType sourceTypeFor(List<String> headers) {
+    return Arrays.stream(CsvSourceType.values())
+        .filter(type -> type.identifiedByHeaders(headers))
+        .findFirst()
+        .orElseThrow(
+            () -> new AppServerException("Cannot find Sample deserializer for headers: " + headers));
+  }
+
+  /** Receives how many rows and bytes have been read so far. */
+  @FunctionalInterface
+  public interface ProgressListener {
+    long REPORT_EVERY_ROWS = 10_000L;
+
+    void progress(long rowsRead, long bytesRead);
+  }
+
   private Csvs.Deserializer<Sample> pickCsvDeserializer(List<String> headers) {
-    this.sourceType =
-        Arrays.stream(CsvSourceType.values())
-            .filter(type -> type.identifiedByHeaders(headers))
-            .findFirst()
-            .orElseThrow(
-                () ->
-                    new AppServerException(
-                        "Cannot find Sample deserializer for headers: " + headers));
+    this.sourceType = sourceTypeFor(headers);
 
     return this.sourceType.apply(headers);
   }
@@ -16,6 +16,7 @@ import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
@@ -233,7 +234,20 @@ public class Csvs {
    */
   public static <U> Stream<U> recordsUsing(Path csvFile, DeserializerPlanner<U> planner)
       throws IOException {
-    BufferedReader br = new BufferedReader(new FileReader(csvFile.toFile()));
+    return recordsUsing(new FileReader(csvFile.toFile()), planner);
+  }
+
+  /**
+   * Fetch deserialized records from CSV data, allowing the user to set up a deserializer based on
+   * the headers of the data. The reader is closed when the stream is closed.
+   *
+   * @param csvReader The CSV data to load.
+   * @param planner Receives the headers and returns a deserializer that can deserialize each row.
+   * @return a stream of records, deserialized
+   * @param <U> the type each record is deserialized into
+   */
+  public static <U> Stream<U> recordsUsing(Reader csvReader, DeserializerPlanner<U> planner) {
+    BufferedReader br = new BufferedReader(csvReader);
     CsvParserSettings settings = new CsvParserSettings();
     CsvParser parser = new CsvParser(settings);
     IterableResult<String[], ParsingContext> iterable = parser.iterate(br);
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Writes the full samples file of a log, and then writes the same samples split up by label next
+ * to it, see {@link LabelPartitions}.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class LabelPartitioningWriter implements SamplesWriter {
+
+  private final SamplesWriter logWriter;
+  private final AvroSamplesWriter partitionWriter;
+  private final int minRows;
+
+  /**
+   * @param avroWriter writes the full file and each partition
+   * @param minRows how many samples a label needs to get a partition of its own
+   */
+  public LabelPartitioningWriter(AvroSamplesWriter avroWriter, int minRows) {
+    this(avroWriter, avroWriter, minRows);
+  }
+
+  /**
+   * @param logWriter writes the full file
+   * @param partitionWriter writes each partition
+   * @param minRows how many samples a label needs to get a partition of its own
+   */
+  public LabelPartitioningWriter(
+      SamplesWriter logWriter, AvroSamplesWriter partitionWriter, int minRows) {
+    if (minRows < 1) {
+      throw new IllegalArgumentException("Minimum rows must be at least 1, but was " + minRows);
+    }
+    this.logWriter = logWriter;
+    this.partitionWriter = partitionWriter;
+    this.minRows = minRows;
+  }
+
+  /**
+   * @return the hash given by the log writer. The partitions are not included.
+   */
+  @Override
+  public String write(Samples sourceSamples, File dest) throws IOException {
+    String hash = logWriter.write(sourceSamples, dest);
+    LabelPartitions.write(
+        sourceSamples, LabelPartitions.dirFor(dest.toPath()), partitionWriter, minRows);
+    return hash;
+  }
+
+  @Override
+  public String extension() {
+    return logWriter.extension();
+  }
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+import com.google.common.collect.Iterators;
+import com.redsaz.lognition.api.model.Sample;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The samples of a log split up by label, so that reading the samples of one label only reads the
+ * bytes of that label. Each partition is an Avro samples file with one label, or with several
+ * labels that have few samples, and a manifest lists which labels are in which file. The
+ * partitions are kept in their own directory, alongside the log's full Avro file, which is still
+ * the file that everything else reads.
+ *
+ * <p>So the samples are stored twice, once in time order and once by label. That is on purpose:
+ * stats, time windows, and whole log downloads all read every label in time order, which the full
+ * file gives straight away, but which would need every partition merged back together on every
+ * read. The partitions are only written when asked for, for logs which are often read a few labels
+ * at a time.
+ *
+ * <p>Every partition has the same labels, thread names, and earliest time as the full log, so
+ * that the samples read from a partition are exactly the same as the samples read from the full
+ * log.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class LabelPartitions {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LabelPartitions.class);
+
+  private static final String MANIFEST = "manifest";
+  private static final int MAGIC = 0x4c474c50; // "LGLP"
+  private static final int VERSION = 1;
+
+  private final Path dir;
+  private final List<Partition> partitions;
+
+  /**
+   * One partition file.
+   *
+   * @param fileName the name of the Avro samples file, within the partitions directory
+   * @param labels the labels of the samples in the file
+   * @param rows how many samples are in the file
+   * @param minOffset the earliest offset of the samples, relative to the start of the log
+   * @param maxOffset the latest offset of the samples, relative to the start of the log
+   */
+  public record Partition(
+      String fileName, List<String> labels, long rows, long minOffset, long maxOffset) {}
+
+  private LabelPartitions(Path dir, List<Partition> partitions) {
+    this.dir = dir;
+    this.partitions = Collections.unmodifiableList(partitions);
+  }
+
+  /**
+   * @param avroFile the full samples file of a log, like "12.avro" or "12.lgc"
+   * @return the directory the label partitions of the log are kept in, like "12-labels".
+   */
+  public static Path dirFor(Path avroFile) {
+    String name = avroFile.getFileName().toString();
+    int dot = name.lastIndexOf('.');
+    if (dot > 0) {
+      name = name.substring(0, dot);
+    }
+    return avroFile.resolveSibling(name + "-labels");
+  }
+
+  public List<Partition> getPartitions() {
+    return partitions;
+  }
+
+  /**
+   * @param label the label to look for
+   * @return the partition with the label, or null if no partition has it.
+   */
+  public Partition partitionOf(String label) {
+    return partitions.stream().filter(p -> p.labels().contains(label)).findFirst().orElse(null);
+  }
+
+  /**
+   * Writes the samples split up by label. Labels with at least minRows samples get a file of their
+   * own, and the rest are grouped together, in label order, until each group has at least minRows
+   * samples. Any partitions already in the directory are replaced. The new partitions are written
+   * to a directory next to it first, and then moved into its place, so none of the old partitions
+   * are left behind, even when there were more of them.
+   *
+   * @param samples the samples of the whole log
+   * @param dir the directory to write the partitions to
+   * @param writer writes each partition
+   * @param minRows how many samples a label needs to get a file of its own
+   * @return the partitions which were written.
+   * @throws IOException if the partitions could not be written.
+   */
+  public static LabelPartitions write(
+      Samples samples, Path dir, AvroSamplesWriter writer, int minRows) throws IOException {
+    long startMillis = System.currentTimeMillis();
+    Path temp = dir.resolveSibling(dir.getFileName() + ".tmp");
+    deleteDir(temp);
+    Files.createDirectories(temp);
+
+    // Only the row numbers are grouped, so that the samples do not all need to be on the heap.
+    List<Sample> all = samples.getSamples();
+    IntFunction<String> labelOf = labelLookup(samples);
+    Map<String, IntArrayBuilder> byLabel = new TreeMap<>();
+    for (int row = 0; row < all.size(); ++row) {
+      byLabel.computeIfAbsent(labelOf.apply(row), k -> new IntArrayBuilder()).add(row);
+    }
+
+    List<Partition> partitions = new ArrayList<>();
+    List<String> groupLabels = new ArrayList<>();
+    IntArrayBuilder groupRows = new IntArrayBuilder();
+    for (Map.Entry<String, IntArrayBuilder> entry : byLabel.entrySet()) {
+      groupLabels.add(entry.getKey());
+      groupRows.addAll(entry.getValue());
+      if (groupRows.size() >= minRows) {
+        partitions.add(
+            writePartition(samples, temp, writer, partitions.size(), groupLabels, groupRows));
+        groupLabels.clear();
+        groupRows = new IntArrayBuilder();
+      }
+    }
+    if (!groupLabels.isEmpty()) {
+      partitions.add(
+          writePartition(samples, temp, writer, partitions.size(), groupLabels, groupRows));
+    }
+    new LabelPartitions(temp, partitions).writeManifest();
+    deleteDir(dir);
+    Files.move(temp, dir);
+
+    LabelPartitions result = new LabelPartitions(dir, partitions);
+    LOGGER.debug(
+        "{}ms to write {} labels into {} partitions in {}.",
+        System.currentTimeMillis() - startMillis,
+        byLabel.size(),
+        partitions.size(),
+        dir);
+    return result;
+  }
+
+  /**
+   * Reads the manifest of the partitions.
+   *
+   * @param dir the directory the partitions were written to
+   * @return the partitions, or null if there is no finished set of partitions in the directory.
+   * @throws IOException if the manifest could not be read.
+   */
+  public static LabelPartitions read(Path dir) throws IOException {
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(dir.resolve(MANIFEST))))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException("Not a known manifest format: " + dir.resolve(MANIFEST));
+      }
+      int numPartitions = in.readInt();
+      List<Partition> partitions = new ArrayList<>(numPartitions);
+      for (int i = 0; i < numPartitions; ++i) {
+        String fileName = in.readUTF();
+        long rows = in.readLong();
+        long minOffset = in.readLong();
+        long maxOffset = in.readLong();
+        int numLabels = in.readInt();
+        List<String> labels = new ArrayList<>(numLabels);
+        for (int j = 0; j < numLabels; ++j) {
+          labels.add(in.readUTF());
+        }
+        partitions.add(new Partition(fileName, List.copyOf(labels), rows, minOffset, maxOffset));
+      }
+      return new LabelPartitions(dir, partitions);
+    } catch (NoSuchFileException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns a stream of the samples with the given labels, in time order, reading only the
+   * partitions which have those labels.
+   *
+   * @apiNote Similar to {@link java.nio.file.Files#lines(Path)}, this should be used within a
+   *     try-with-resources statement or similar to ensure the stream's files are closed promptly.
+   * @param labels the labels of the samples to read
+   * @param fromOffset the earliest offset to read, inclusive, relative to the start of the log
+   * @param toOffset the latest offset to read, exclusive, relative to the start of the log
+   * @return the samples, with absolute offsets, same as {@link
+   *     AvroSamplesReader#sampleStream(Path)}.
+   * @throws IOException if a partition could not be opened.
+   */
+  public Stream<Sample> sampleStream(Collection<String> labels, long fromOffset, long toOffset)
+      throws IOException {
+    List<Stream<Sample>> streams = new ArrayList<>();
+    try {
+      for (Partition partition : partitions) {
+        if (partition.maxOffset() >= fromOffset
+            && partition.minOffset() < toOffset
+            && !Collections.disjoint(partition.labels(), labels)) {
+          streams.add(
+              AvroSamplesReader.sampleStream(
+                  dir.resolve(partition.fileName()), fromOffset, toOffset, labels));
+        }
+      }
+    } catch (IOException | RuntimeException ex) {
+      streams.forEach(Stream::close);
+      throw ex;
+    }
+    if (streams.size() == 1) {
+      return streams.getFirst();
+    }
+    // The samples of each partition are in time order, so they only need merged.
+    List<Iterator<Sample>> iterators = streams.stream().map(Stream::iterator).toList();
+    Iterator<Sample> merged =
+        Iterators.mergeSorted(iterators, Comparator.comparingLong(Sample::getOffset));
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false)
+        .onClose(() -> streams.forEach(Stream::close));
+  }
+
+  private void writeManifest() throws IOException {
+    Path manifest = dir.resolve(MANIFEST);
+    Path temp = dir.resolve(MANIFEST + ".tmp");
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(partitions.size());
+      for (Partition partition : partitions) {
+        out.writeUTF(partition.fileName());
+        out.writeLong(partition.rows());
+        out.writeLong(partition.minOffset());
+        out.writeLong(partition.maxOffset());
+        out.writeInt(partition.labels().size());
+        for (String label : partition.labels()) {
+          out.writeUTF(label);
+        }
+      }
+    }
+    Files.move(temp, manifest, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /** Deletes a directory and everything in it, if it exists. */
+  private static void deleteDir(Path dir) throws IOException {
+    if (!Files.exists(dir)) {
+      return;
+    }
+    // Deepest first, so each directory is empty by the time it is deleted.
+    try (Stream<Path> paths = Files.walk(dir)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  private static IntFunction<String> labelLookup(Samples samples) {
+    if (samples instanceof SampleColumns columns) {
+      List<String> labels = columns.labels();
+      return row -> labels.get(columns.labelRef(row));
+    }
+    List<Sample> all = samples.getSamples();
+    return row -> all.get(row).getLabel();
+  }
+
+  private static Partition writePartition(
+      Samples log,
+      Path dir,
+      AvroSamplesWriter writer,
+      int num,
+      List<String> labels,
+      IntArrayBuilder groupRows)
+      throws IOException {
+    int[] rows = groupRows.build();
+    // The rows of each label are in the same order as the full log, so the rows of several labels
+    // only need sorted to be in the same order as the full log too.
+    if (labels.size() > 1) {
+      Arrays.sort(rows);
+    }
+    List<Sample> all = log.getSamples();
+    Samples samples =
+        new SubsetSamples(
+            log,
+            new AbstractList<>() {
+              @Override
+              public Sample get(int index) {
+                return all.get(rows[index]);
+              }
+
+              @Override
+              public int size() {
+                return rows.length;
+              }
+            });
+    String fileName = String.format("part-%04d.avro", num);
+    writer.write(samples, dir.resolve(fileName).toFile());
+    long minOffset = Long.MAX_VALUE;
+    long maxOffset = Long.MIN_VALUE;
+    for (int row : rows) {
+      long offset = all.get(row).getOffset();
+      minOffset = Math.min(minOffset, offset);
+      maxOffset = Math.max(maxOffset, offset);
+    }
+    return new Partition(fileName, List.copyOf(labels), rows.length, minOffset, maxOffset);
+  }
+
+  /** A growable array of ints, so that row numbers are not boxed. */
+  private static class IntArrayBuilder {
+    private int[] items = new int[16];
+    private int size;
+
+    void add(int item) {
+      if (size == items.length) {
+        items = Arrays.copyOf(items, size * 2);
+      }
+      items[size++] = item;
+    }
+
+    void addAll(IntArrayBuilder other) {
+      if (size + other.size > items.length) {
+        items = Arrays.copyOf(items, Math.max(size + other.size, size * 2));
+      }
+      System.arraycopy(other.items, 0, items, size, other.size);
+      size += other.size;
+    }
+
+    int size() {
+      return size;
+    }
+
+    int[] build() {
+      return Arrays.copyOf(items, size);
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+/**
+ * Keeps track of how much off-heap memory is in use, so that imports do not use more than what the
+ * host has to give. Memory is reserved before it is allocated, and released once it is freed.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class OffHeapBudget {
+
+  private final long maxBytes;
+  private long reservedBytes;
+
+  /**
+   * @param maxBytes the most off-heap memory that can be reserved at once.
+   */
+  public OffHeapBudget(long maxBytes) {
+    if (maxBytes < 0L) {
+      throw new IllegalArgumentException("Off-heap budget must not be negative.");
+    }
+    this.maxBytes = maxBytes;
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  public synchronized long getReservedBytes() {
+    return reservedBytes;
+  }
+
+  /**
+   * Reserves memory if there is enough left in the budget.
+   *
+   * @param bytes how much memory to reserve
+   * @return true if it was reserved, false if there was not enough left.
+   */
+  public synchronized boolean tryReserve(long bytes) {
+    if (bytes > maxBytes - reservedBytes) {
+      return false;
+    }
+    reservedBytes += bytes;
+    return true;
+  }
+
+  /**
+   * Gives back memory that was reserved.
+   *
+   * @param bytes how much memory was freed.
+   */
+  public synchronized void release(long bytes) {
+    reservedBytes = Math.max(0L, reservedBytes - bytes);
+    notifyAll();
+  }
+
+  /**
+   * Waits until the given amount of memory can be reserved, then reserves it, so that nothing else
+   * can take it in the meantime. If more is asked for than the whole budget, waits until nothing at
+   * all is reserved, and reserves the whole budget.
+   *
+   * @param bytes how much memory is expected to be needed
+   * @return how much memory was reserved, which must be released once it is no longer needed.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public synchronized long awaitReserve(long bytes) throws InterruptedException {
+    long wanted = Math.min(Math.max(0L, bytes), maxBytes);
+    while (wanted > maxBytes - reservedBytes) {
+      wait();
+    }
+    reservedBytes += wanted;
+    return wanted;
+  }
+}
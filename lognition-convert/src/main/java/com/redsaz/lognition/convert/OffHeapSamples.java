@@ -0,0 +1,708 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+import com.redsaz.lognition.api.exceptions.AppServerException;
+import com.redsaz.lognition.api.model.Sample;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Samples kept outside of the Java heap, so that big logs do not make the garbage collector work
+ * harder. Each sample is a fixed-size row in a chunk of memory, and labels, thread names, and
+ * status codes are stored as references. When the {@link OffHeapBudget} has no room left, more
+ * chunks can be spilled to memory-mapped temporary files instead.
+ *
+ * <p>The memory is freed as soon as the samples are closed, rather than whenever the garbage
+ * collector gets around to it. The samples cannot be read once closed. {@link #getSamples()} makes
+ * a new {@link Sample} for each sample read, so reading through {@link SampleColumns} is preferred.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class OffHeapSamples implements Samples, SampleColumns, AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapSamples.class);
+
+  /** How many bytes each sample takes. */
+  public static final long ROW_BYTES = 48L;
+
+  private static final int CHUNK_SHIFT = 16;
+  private static final int CHUNK_ROWS = 1 << CHUNK_SHIFT;
+  private static final int CHUNK_MASK = CHUNK_ROWS - 1;
+  private static final long CHUNK_BYTES = ROW_BYTES * CHUNK_ROWS;
+
+  // Where each field is within a row. The longs come first to keep everything aligned.
+  private static final long OFFSET_AT = 0L;
+  private static final long DURATION_AT = 8L;
+  private static final long RESPONSE_BYTES_AT = 16L;
+  private static final long LABEL_AT = 24L;
+  private static final long THREAD_AT = 28L;
+  private static final long STATUS_AT = 32L;
+  private static final long TOTAL_THREADS_AT = 36L;
+  private static final long SUCCESS_AT = 40L;
+
+  private final Rows rows;
+  private final List<String> labels;
+  private final List<String> threadNames;
+  private final StatusCodeLookup statusCodeLookup;
+  private final long earliestMillis;
+  private final long latestMillis;
+  private final List<Sample> sampleList = new SampleList();
+
+  private OffHeapSamples(
+      Rows rows,
+      List<String> labels,
+      List<String> threadNames,
+      StatusCodeLookup statusCodeLookup,
+      long earliestMillis,
+      long latestMillis) {
+    this.rows = rows;
+    this.labels = labels;
+    this.threadNames = threadNames;
+    this.statusCodeLookup = statusCodeLookup;
+    this.earliestMillis = earliestMillis;
+    this.latestMillis = latestMillis;
+  }
+
+  /**
+   * @param budget the off-heap memory to use, which is charged for each chunk as it is needed.
+   * @return a builder to add samples to.
+   */
+  public static Builder builder(OffHeapBudget budget) {
+    return new Builder(budget);
+  }
+
+  /**
+   * Estimates how much memory will be needed for samples read from a CSV file, assuming the rows of
+   * the file are at least 64 bytes each, which is less than a typical JTL row.
+   *
+   * @param csvBytes the size of the CSV file
+   * @return about how many bytes of off-heap memory it will take.
+   */
+  public static long estimateBytes(long csvBytes) {
+    return (csvBytes / 64L + 1L) * ROW_BYTES;
+  }
+
+  @Override
+  public long getEarliestMillis() {
+    return rows.size == 0 ? 0L : earliestMillis;
+  }
+
+  @Override
+  public Sample getEarliestSample() {
+    return rows.size == 0 ? null : sampleList.getFirst();
+  }
+
+  @Override
+  public List<String> getLabels() {
+    return labels;
+  }
+
+  @Override
+  public long getLatestMillis() {
+    return rows.size == 0 ? 0L : latestMillis;
+  }
+
+  @Override
+  public Sample getLatestSample() {
+    return rows.size == 0 ? null : sampleList.getLast();
+  }
+
+  @Override
+  public List<Sample> getSamples() {
+    return sampleList;
+  }
+
+  @Override
+  public StatusCodeLookup getStatusCodeLookup() {
+    return statusCodeLookup;
+  }
+
+  @Override
+  public List<String> getThreadNames() {
+    return threadNames;
+  }
+
+  @Override
+  public int size() {
+    return rows.size;
+  }
+
+  @Override
+  public long offset(int row) {
+    return rows.getLong(row, OFFSET_AT);
+  }
+
+  @Override
+  public long duration(int row) {
+    return rows.getLong(row, DURATION_AT);
+  }
+
+  @Override
+  public int labelRef(int row) {
+    return rows.getInt(row, LABEL_AT);
+  }
+
+  @Override
+  public List<String> labels() {
+    return labels;
+  }
+
+  @Override
+  public boolean success(int row) {
+    return rows.getByte(row, SUCCESS_AT) != 0;
+  }
+
+  @Override
+  public long responseBytes(int row) {
+    return rows.getLong(row, RESPONSE_BYTES_AT);
+  }
+
+  @Override
+  public String statusCode(int row) {
+    return statusCodeLookup.getCode(rows.getInt(row, STATUS_AT)).toString();
+  }
+
+  /**
+   * @return how many bytes of off-heap memory, not counting spilled chunks, are reserved, including
+   *     any reserved up front which were not needed.
+   */
+  public long getReservedBytes() {
+    return rows.reservedBytes;
+  }
+
+  /**
+   * @return how many chunks were spilled to files because the budget had no room.
+   */
+  public int getSpilledChunks() {
+    return rows.channels.size();
+  }
+
+  /** Frees the memory, and deletes any spill files. The samples cannot be read after this. */
+  @Override
+  public void close() {
+    rows.close();
+  }
+
+  private String nameOrNull(List<String> names, int ref) {
+    return ref < 0 ? null : names.get(ref);
+  }
+
+  private class SampleList extends AbstractList<Sample> implements RandomAccess {
+    @Override
+    public Sample get(int row) {
+      if (row < 0 || row >= rows.size) {
+        throw new IndexOutOfBoundsException(row);
+      }
+      int statusRef = rows.getInt(row, STATUS_AT);
+      return Sample.of(
+          rows.getLong(row, OFFSET_AT),
+          rows.getLong(row, DURATION_AT),
+          nameOrNull(labels, rows.getInt(row, LABEL_AT)),
+          nameOrNull(threadNames, rows.getInt(row, THREAD_AT)),
+          statusCodeLookup.getCode(statusRef).toString(),
+          statusCodeLookup.getMessage(statusRef).toString(),
+          rows.getByte(row, SUCCESS_AT) != 0,
+          rows.getLong(row, RESPONSE_BYTES_AT),
+          rows.getInt(row, TOTAL_THREADS_AT));
+    }
+
+    @Override
+    public int size() {
+      return rows.size;
+    }
+  }
+
+  /** The memory that the rows are kept in, and what it is charged to. */
+  private static class Rows {
+    private final Arena arena = Arena.ofShared();
+    private final OffHeapBudget budget;
+    private final Path spillDir;
+    private final List<MemorySegment> chunks = new ArrayList<>();
+    private final List<FileChannel> channels = new ArrayList<>();
+    private long reservedBytes;
+    private long unusedBytes;
+    private int size;
+    private boolean closed;
+
+    Rows(OffHeapBudget budget, Path spillDir, long reservedBytes) {
+      this.budget = budget;
+      this.spillDir = spillDir;
+      this.reservedBytes = reservedBytes;
+      this.unusedBytes = reservedBytes;
+    }
+
+    long getLong(int row, long field) {
+      return chunks
+          .get(row >>> CHUNK_SHIFT)
+          .get(ValueLayout.JAVA_LONG, (row & CHUNK_MASK) * ROW_BYTES + field);
+    }
+
+    int getInt(int row, long field) {
+      return chunks
+          .get(row >>> CHUNK_SHIFT)
+          .get(ValueLayout.JAVA_INT, (row & CHUNK_MASK) * ROW_BYTES + field);
+    }
+
+    byte getByte(int row, long field) {
+      return chunks
+          .get(row >>> CHUNK_SHIFT)
+          .get(ValueLayout.JAVA_BYTE, (row & CHUNK_MASK) * ROW_BYTES + field);
+    }
+
+    /**
+     * @return the memory of the next row, which is now counted in the size.
+     */
+    MemorySegment nextRow() {
+      if (size == Integer.MAX_VALUE) {
+        throw new AppServerException("Too many samples, the most is " + Integer.MAX_VALUE);
+      }
+      if ((size & CHUNK_MASK) == 0) {
+        chunks.add(newChunk());
+      }
+      MemorySegment row = row(size);
+      ++size;
+      return row;
+    }
+
+    MemorySegment row(int row) {
+      return chunks
+          .get(row >>> CHUNK_SHIFT)
+          .asSlice((row & CHUNK_MASK) * ROW_BYTES, ROW_BYTES);
+    }
+
+    private MemorySegment newChunk() {
+      if (unusedBytes >= CHUNK_BYTES) {
+        unusedBytes -= CHUNK_BYTES;
+        return arena.allocate(CHUNK_BYTES, Long.BYTES);
+      }
+      if (budget.tryReserve(CHUNK_BYTES)) {
+        reservedBytes += CHUNK_BYTES;
+        return arena.allocate(CHUNK_BYTES, Long.BYTES);
+      }
+      if (spillDir == null) {
+        throw new AppServerException(
+            "Off-heap budget of "
+                + budget.getMaxBytes()
+                + " bytes is used up, and there is nowhere to spill samples to.");
+      }
+      try {
+        Path spillFile = Files.createTempFile(spillDir, "samples-", ".spill");
+        FileChannel channel =
+            FileChannel.open(
+                spillFile,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+        channels.add(channel);
+        LOGGER.debug("Off-heap budget used up, spilling samples to {}", spillFile);
+        return channel.map(FileChannel.MapMode.READ_WRITE, 0L, CHUNK_BYTES, arena);
+      } catch (IOException ex) {
+        throw new UncheckedIOException("Could not spill samples to " + spillDir, ex);
+      }
+    }
+
+    synchronized void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      arena.close();
+      for (FileChannel channel : channels) {
+        try {
+          channel.close();
+        } catch (IOException ex) {
+          LOGGER.warn("Could not close spill file.", ex);
+        }
+      }
+      budget.release(reservedBytes);
+    }
+  }
+
+  /**
+   * Sorts rows in place in the same order as {@link Sample#compareTo(Sample)}, without using the
+   * heap. Introsort: quicksort, falling back to heapsort if the partitions are too uneven, and
+   * insertion sort for small ranges. This is not a stable sort, but rows only compare as equal when
+   * every field is the same, so the order is still the same as sorting a list of samples.
+   */
+  private static class RowSorter {
+    private static final int INSERTION_SORT_MAX = 16;
+    private static final Comparator<String> STR_CMP =
+        Comparator.nullsFirst(Comparator.naturalOrder());
+    private final Rows rows;
+    private final StatusCodeLookup statusCodeLookup;
+    private final MemorySegment temp;
+
+    RowSorter(Rows rows, StatusCodeLookup statusCodeLookup, Arena tempArena) {
+      this.rows = rows;
+      this.statusCodeLookup = statusCodeLookup;
+      this.temp = tempArena.allocate(ROW_BYTES, Long.BYTES);
+    }
+
+    void sort() {
+      if (!isSorted()) {
+        int depth = 2 * (32 - Integer.numberOfLeadingZeros(rows.size));
+        sort(0, rows.size, depth);
+      }
+    }
+
+    private boolean isSorted() {
+      for (int i = 1; i < rows.size; ++i) {
+        if (compare(i - 1, i) > 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private void sort(int lo, int hi, int depth) {
+      while (hi - lo > INSERTION_SORT_MAX) {
+        if (depth-- == 0) {
+          heapSort(lo, hi);
+          return;
+        }
+        int p = partition(lo, hi);
+        // Recurse into the smaller side, and loop on the bigger, to keep the stack shallow.
+        if (p - lo < hi - p) {
+          sort(lo, p, depth);
+          lo = p + 1;
+        } else {
+          sort(p + 1, hi, depth);
+          hi = p;
+        }
+      }
+      insertionSort(lo, hi);
+    }
+
+    private int partition(int lo, int hi) {
+      int last = hi - 1;
+      int mid = lo + (last - lo) / 2;
+      // Median of three, which ends up at the end to be the pivot.
+      if (compare(mid, lo) < 0) {
+        swap(mid, lo);
+      }
+      if (compare(last, lo) < 0) {
+        swap(last, lo);
+      }
+      if (compare(mid, last) < 0) {
+        swap(mid, last);
+      }
+      // The pivot stays put at the end until the rest are partitioned.
+      int store = lo;
+      for (int i = lo; i < last; ++i) {
+        if (compare(i, last) < 0) {
+          swap(i, store++);
+        }
+      }
+      swap(store, last);
+      return store;
+    }
+
+    private void insertionSort(int lo, int hi) {
+      for (int i = lo + 1; i < hi; ++i) {
+        for (int j = i; j > lo && compare(j - 1, j) > 0; --j) {
+          swap(j - 1, j);
+        }
+      }
+    }
+
+    private void heapSort(int lo, int hi) {
+      int n = hi - lo;
+      for (int i = n / 2 - 1; i >= 0; --i) {
+        siftDown(lo, i, n);
+      }
+      for (int end = n - 1; end > 0; --end) {
+        swap(lo, lo + end);
+        siftDown(lo, 0, end);
+      }
+    }
+
+    private void siftDown(int lo, int i, int n) {
+      while (true) {
+        int child = 2 * i + 1;
+        if (child >= n) {
+          return;
+        }
+        if (child + 1 < n && compare(lo + child, lo + child + 1) < 0) {
+          ++child;
+        }
+        if (compare(lo + i, lo + child) >= 0) {
+          return;
+        }
+        swap(lo + i, lo + child);
+        i = child;
+      }
+    }
+
+    private int compare(int a, int b) {
+      int comp = Long.compare(rows.getLong(a, OFFSET_AT), rows.getLong(b, OFFSET_AT));
+      if (comp != 0) {
+        return comp;
+      }
+      comp = Long.compare(rows.getLong(a, DURATION_AT), rows.getLong(b, DURATION_AT));
+      if (comp != 0) {
+        return comp;
+      }
+      // Labels and thread names refer to their place in sorted order, and null is -1, so comparing
+      // the refs is the same as comparing the names.
+      comp = Integer.compare(rows.getInt(a, LABEL_AT), rows.getInt(b, LABEL_AT));
+      if (comp != 0) {
+        return comp;
+      }
+      comp = Integer.compare(rows.getInt(a, THREAD_AT), rows.getInt(b, THREAD_AT));
+      if (comp != 0) {
+        return comp;
+      }
+      comp = Long.compare(rows.getLong(a, RESPONSE_BYTES_AT), rows.getLong(b, RESPONSE_BYTES_AT));
+      if (comp != 0) {
+        return comp;
+      }
+      // Status refs are in the order they were first seen, so the codes and messages themselves
+      // are compared. The same code and message always have the same ref.
+      int statusA = rows.getInt(a, STATUS_AT);
+      int statusB = rows.getInt(b, STATUS_AT);
+      if (statusA != statusB) {
+        comp =
+            STR_CMP.compare(
+                statusCodeLookup.getCode(statusA).toString(),
+                statusCodeLookup.getCode(statusB).toString());
+        if (comp != 0) {
+          return comp;
+        }
+        comp =
+            STR_CMP.compare(
+                statusCodeLookup.getMessage(statusA).toString(),
+                statusCodeLookup.getMessage(statusB).toString());
+        if (comp != 0) {
+          return comp;
+        }
+      }
+      // Successes come before failures.
+      comp = Byte.compare(rows.getByte(b, SUCCESS_AT), rows.getByte(a, SUCCESS_AT));
+      if (comp != 0) {
+        return comp;
+      }
+      return Integer.compare(rows.getInt(a, TOTAL_THREADS_AT), rows.getInt(b, TOTAL_THREADS_AT));
+    }
+
+    private void swap(int a, int b) {
+      if (a == b) {
+        return;
+      }
+      MemorySegment rowA = rows.row(a);
+      MemorySegment rowB = rows.row(b);
+      temp.copyFrom(rowA);
+      rowA.copyFrom(rowB);
+      rowB.copyFrom(temp);
+    }
+  }
+
+  /**
+   * Collects samples into off-heap memory. If the builder is closed without being built, the memory
+   * is freed. Once built, the memory belongs to the built samples.
+   */
+  public static class Builder implements AutoCloseable {
+    private final OffHeapBudget budget;
+    private Path spillDir;
+    private long reservedBytes;
+    private Rows rows;
+    private final Map<String, Integer> labelRefs = new HashMap<>();
+    private final List<String> labelsByRef = new ArrayList<>();
+    private final Map<String, Integer> threadRefs = new HashMap<>();
+    private final List<String> threadsByRef = new ArrayList<>();
+    private final StatusCodeLookup statusCodeLookup = new StatusCodeLookup();
+    private long earliestMillis = Long.MAX_VALUE;
+    private long latestMillis = Long.MIN_VALUE;
+    private Integer totalThreads;
+    private boolean built;
+
+    private Builder(OffHeapBudget budget) {
+      this.budget = budget;
+    }
+
+    /**
+     * @param dir where to put chunks of samples that do not fit in the budget. If not set, adding
+     *     samples past the budget fails instead.
+     * @return this builder.
+     */
+    public Builder spillTo(Path dir) {
+      if (rows != null) {
+        throw new IllegalStateException("Spill directory must be set before adding samples.");
+      }
+      spillDir = dir;
+      return this;
+    }
+
+    /**
+     * @param bytes memory already reserved from the budget, such as by {@link
+     *     OffHeapBudget#awaitReserve(long)}, to use before reserving any more. It is released along
+     *     with the rest once the samples, or this builder if never built, are closed.
+     * @return this builder.
+     */
+    public Builder reserved(long bytes) {
+      if (rows != null) {
+        throw new IllegalStateException("Reserved memory must be given before adding samples.");
+      }
+      reservedBytes = bytes;
+      return this;
+    }
+
+    /**
+     * Adds a sample. The offset of the sample is the time it started, in millis since epoch.
+     *
+     * @param sample the sample to copy into off-heap memory.
+     * @return this builder.
+     */
+    public Builder add(Sample sample) {
+      if (rows == null) {
+        rows = new Rows(budget, spillDir, reservedBytes);
+      }
+      MemorySegment row = rows.nextRow();
+      row.set(ValueLayout.JAVA_LONG, OFFSET_AT, sample.getOffset());
+      row.set(ValueLayout.JAVA_LONG, DURATION_AT, sample.getDuration());
+      row.set(ValueLayout.JAVA_LONG, RESPONSE_BYTES_AT, sample.getResponseBytes());
+      row.set(ValueLayout.JAVA_INT, LABEL_AT, ref(sample.getLabel(), labelRefs, labelsByRef));
+      row.set(
+          ValueLayout.JAVA_INT, THREAD_AT, ref(sample.getThreadName(), threadRefs, threadsByRef));
+      row.set(
+          ValueLayout.JAVA_INT,
+          STATUS_AT,
+          statusCodeLookup.getRef(sample.getStatusCode(), sample.getStatusMessage()));
+      row.set(ValueLayout.JAVA_INT, TOTAL_THREADS_AT, sample.getTotalThreads());
+      row.set(ValueLayout.JAVA_BYTE, SUCCESS_AT, sample.isSuccess() ? (byte) 1 : (byte) 0);
+      earliestMillis = Math.min(earliestMillis, sample.getOffset());
+      latestMillis = Math.max(latestMillis, sample.getOffset() + sample.getDuration());
+      return this;
+    }
+
+    public Set<String> getThreadNames() {
+      return Collections.unmodifiableSet(threadRefs.keySet());
+    }
+
+    /**
+     * @param value the total thread count to give every sample, replacing what they had.
+     * @return this builder.
+     */
+    public Builder totalThreads(int value) {
+      totalThreads = value;
+      return this;
+    }
+
+    /**
+     * Puts the samples in time order, and makes the offsets relative to the earliest sample, like
+     * {@link ListSamples} does. Samples that start at the same time are ordered the same way as
+     * {@link Sample#compareTo(Sample)} orders them.
+     *
+     * @return the samples.
+     */
+    public OffHeapSamples build() {
+      if (rows == null) {
+        rows = new Rows(budget, spillDir, reservedBytes);
+      }
+      built = true;
+      List<String> labels = new ArrayList<>(labelsByRef);
+      Collections.sort(labels);
+      List<String> threadNames = new ArrayList<>(threadsByRef);
+      Collections.sort(threadNames);
+      int[] labelMap = sortedRefs(labelsByRef, labels);
+      int[] threadMap = sortedRefs(threadsByRef, threadNames);
+      long origin = rows.size == 0 ? 0L : earliestMillis;
+      for (int i = 0; i < rows.size; ++i) {
+        MemorySegment row = rows.row(i);
+        long offset = row.get(ValueLayout.JAVA_LONG, OFFSET_AT);
+        row.set(ValueLayout.JAVA_LONG, OFFSET_AT, offset - origin);
+        remap(row, LABEL_AT, labelMap);
+        remap(row, THREAD_AT, threadMap);
+        if (totalThreads != null) {
+          row.set(ValueLayout.JAVA_INT, TOTAL_THREADS_AT, totalThreads);
+        }
+      }
+      try (Arena tempArena = Arena.ofConfined()) {
+        new RowSorter(rows, statusCodeLookup, tempArena).sort();
+      }
+      return new OffHeapSamples(
+          rows,
+          Collections.unmodifiableList(labels),
+          Collections.unmodifiableList(threadNames),
+          statusCodeLookup,
+          origin,
+          rows.size == 0 ? 0L : latestMillis);
+    }
+
+    /** Frees the memory of the added samples, unless they were built. */
+    @Override
+    public void close() {
+      if (built) {
+        return;
+      }
+      if (rows != null) {
+        rows.close();
+      } else {
+        budget.release(reservedBytes);
+        reservedBytes = 0L;
+      }
+    }
+
+    private static int ref(String name, Map<String, Integer> refs, List<String> byRef) {
+      if (name == null) {
+        return -1;
+      }
+      return refs.computeIfAbsent(
+          name,
+          n -> {
+            byRef.add(n);
+            return byRef.size() - 1;
+          });
+    }
+
+    private static int[] sortedRefs(List<String> byRef, List<String> sorted) {
+      Map<String, Integer> sortedRefs = new HashMap<>();
+      for (int i = 0; i < sorted.size(); ++i) {
+        sortedRefs.put(sorted.get(i), i);
+      }
+      int[] map = new int[byRef.size()];
+      for (int i = 0; i < map.length; ++i) {
+        map[i] = sortedRefs.get(byRef.get(i));
+      }
+      return map;
+    }
+
+    private static void remap(MemorySegment row, long field, int[] map) {
+      int ref = row.get(ValueLayout.JAVA_INT, field);
+      if (ref >= 0) {
+        row.set(ValueLayout.JAVA_INT, field, map[ref]);
+      }
+    }
+  }
+}
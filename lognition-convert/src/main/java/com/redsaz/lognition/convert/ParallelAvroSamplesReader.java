@@ -0,0 +1,329 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+import com.redsaz.lognition.api.model.Sample;
+import com.redsaz.lognition.convert.model.HttpSample;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decodes the blocks of an Avro samples file on several threads at once. The blocks are found by
+ * walking the block headers and checking each against the sync marker of the file, without
+ * decoding anything, and then each block is decoded by seeking a reader that is not busy with
+ * another block to it.
+ *
+ * <p>Use {@link #orderedStream(Path, Executor, int)} when the samples must come out in the same
+ * order as {@link AvroSamplesReader#sampleStream(Path)}, like for exports. The threads are not
+ * made here, but come from an executor shared by every stream, such as one made by {@link
+ * #newExecutor(int)}, so that many exports at once do not each start threads of their own.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class ParallelAvroSamplesReader {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ParallelAvroSamplesReader.class);
+
+  public static final int DEFAULT_WORKERS = Runtime.getRuntime().availableProcessors();
+
+  private static final int SYNC_SIZE = 16;
+
+  // How many decoded blocks each worker may get ahead of the reader of an ordered stream.
+  private static final int BLOCKS_AHEAD_PER_WORKER = 2;
+
+  private static final ThreadFactory THREADS =
+      Thread.ofPlatform().name("avro-decode-", 0).daemon().factory();
+
+  // Do not allow utility classes to be instanciated.
+  private ParallelAvroSamplesReader() {}
+
+  /**
+   * A block of an Avro file.
+   *
+   * @param position where the block starts, which can be given to {@link DataFileReader#seek(long)}
+   * @param rows how many rows are in the block
+   */
+  public record Block(long position, long rows) {}
+
+  /**
+   * Finds the blocks of an Avro file, without decoding them.
+   *
+   * @param avroFile the file to look at
+   * @return the blocks, in the order they are in the file.
+   * @throws IOException if the file could not be read, or a block does not end with the sync
+   *     marker.
+   */
+  public static List<Block> blocks(Path avroFile) throws IOException {
+    long firstBlock;
+    try (DataFileReader<HttpSample> reader = AvroSamplesReader.openReader(avroFile)) {
+      firstBlock = reader.previousSync();
+    }
+    List<Block> blocks = new ArrayList<>();
+    try (FileChannel channel = FileChannel.open(avroFile, StandardOpenOption.READ)) {
+      // The header ends with the sync marker, and every block after it does too.
+      byte[] sync = readFully(channel, firstBlock - SYNC_SIZE, SYNC_SIZE).array();
+      ByteBuffer header = ByteBuffer.allocate(20);
+      long size = channel.size();
+      long position = firstBlock;
+      while (position < size) {
+        header.clear();
+        while (header.hasRemaining() && channel.read(header, position + header.position()) > 0) {
+          // Keep reading until the buffer is full or the file ends.
+        }
+        header.flip();
+        long rows = readLong(header);
+        long bytes = readLong(header);
+        long syncAt = position + header.position() + bytes;
+        if (!Arrays.equals(readFully(channel, syncAt, SYNC_SIZE).array(), sync)) {
+          throw new IOException("No sync marker after block at " + position + " in " + avroFile);
+        }
+        blocks.add(new Block(position, rows));
+        position = syncAt + SYNC_SIZE;
+      }
+    }
+    return blocks;
+  }
+
+  /**
+   * Makes an executor to decode blocks with, to be shared by every stream and shut down by its
+   * owner.
+   *
+   * @param threads the most blocks decoded at once, by all of the streams together
+   * @return the executor.
+   */
+  public static ExecutorService newExecutor(int threads) {
+    return Executors.newFixedThreadPool(threads, THREADS);
+  }
+
+  /**
+   * Returns a stream of the {@link Sample}s from an avro file, in the same order as {@link
+   * AvroSamplesReader#sampleStream(Path)}. The blocks are decoded ahead of the stream on the
+   * executor, but only a few blocks ahead per worker. Each block is a task of its own, so no thread
+   * of the executor waits on a slow reader of the stream.
+   *
+   * @apiNote The stream must be closed, usually with try-with-resources, to stop decoding blocks.
+   * @param avroFile the file to read from
+   * @param executor where the blocks are decoded, which is not shut down by the stream
+   * @param workers how far ahead of the stream blocks are decoded, a few blocks per worker
+   * @return the samples, with offsets that are absolute.
+   * @throws IOException if the file was not found or could not be opened.
+   */
+  public static Stream<Sample> orderedStream(Path avroFile, Executor executor, int workers)
+      throws IOException {
+    List<Block> blocks = blocks(avroFile);
+    Function<HttpSample, Sample> conv = converter(avroFile);
+    int maxAhead = numWorkers(workers, blocks) * BLOCKS_AHEAD_PER_WORKER;
+    OrderedDecoder decoder = new OrderedDecoder(avroFile, blocks, conv, executor, maxAhead);
+    decoder.start();
+    return IntStream.range(0, blocks.size())
+        .mapToObj(decoder::take)
+        .flatMap(List::stream)
+        .onClose(decoder::close);
+  }
+
+  private static int numWorkers(int workers, List<Block> blocks) {
+    return Math.max(1, Math.min(workers, blocks.size()));
+  }
+
+  private static Function<HttpSample, Sample> converter(Path avroFile) throws IOException {
+    try (DataFileReader<HttpSample> reader = AvroSamplesReader.openReader(avroFile)) {
+      return AvroSamplesReader.readMeta(reader).converter();
+    }
+  }
+
+  private static DataFileReader<HttpSample> workerReader(Path avroFile) throws IOException {
+    return new DataFileReader<>(avroFile.toFile(), new SpecificDatumReader<>(HttpSample.class));
+  }
+
+  // Gives each row of the block to the consumer, reusing the same HttpSample for each row.
+  private static void decode(
+      DataFileReader<HttpSample> reader, Block block, Consumer<HttpSample> rows)
+      throws IOException {
+    reader.seek(block.position());
+    HttpSample reuse = null;
+    for (long i = 0; i < block.rows(); ++i) {
+      reuse = reader.next(reuse);
+      rows.accept(reuse);
+    }
+  }
+
+  private static ByteBuffer readFully(FileChannel channel, long position, int length)
+      throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(length);
+    while (buf.hasRemaining()) {
+      if (channel.read(buf, position + buf.position()) < 0) {
+        throw new EOFException("File ended at " + (position + buf.position()));
+      }
+    }
+    return buf;
+  }
+
+  // Avro longs are zig-zag encoded variable length ints.
+  private static long readLong(ByteBuffer buf) throws IOException {
+    long raw = 0L;
+    for (int shift = 0; shift < 64; shift += 7) {
+      if (!buf.hasRemaining()) {
+        throw new EOFException("Block header is cut off.");
+      }
+      int b = buf.get() & 0xff;
+      raw |= (long) (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return (raw >>> 1) ^ -(raw & 1L);
+      }
+    }
+    throw new IOException("Block header has a bad number.");
+  }
+
+  // Throws the cause if it is unchecked, otherwise returns it as an IOException to be thrown.
+  private static IOException unwrap(Throwable cause) {
+    if (cause instanceof IOException ioe) {
+      return ioe;
+    } else if (cause instanceof UncheckedIOException uioe) {
+      return uioe.getCause();
+    } else if (cause instanceof RuntimeException re) {
+      throw re;
+    } else if (cause instanceof Error err) {
+      throw err;
+    }
+    return new IOException(cause);
+  }
+
+  /** Decodes blocks ahead of the stream, and hands them out in file order. */
+  private static class OrderedDecoder implements Closeable {
+    private final Path avroFile;
+    private final List<Block> blocks;
+    private final Function<HttpSample, Sample> conv;
+    private final Executor executor;
+    private final int maxAhead;
+    private final AtomicReferenceArray<CompletableFuture<List<Sample>>> results;
+    // Readers not in use by a block right now, so that each block does not open the file again.
+    private final Queue<DataFileReader<HttpSample>> readers = new ConcurrentLinkedQueue<>();
+    private int submitted;
+    private volatile boolean closed;
+
+    OrderedDecoder(
+        Path avroFile,
+        List<Block> blocks,
+        Function<HttpSample, Sample> conv,
+        Executor executor,
+        int maxAhead) {
+      this.avroFile = avroFile;
+      this.blocks = blocks;
+      this.conv = conv;
+      this.executor = executor;
+      this.maxAhead = maxAhead;
+      results = new AtomicReferenceArray<>(blocks.size());
+    }
+
+    void start() {
+      submitUpTo(maxAhead);
+    }
+
+    List<Sample> take(int index) {
+      // Keep the same number of blocks decoding ahead of the one being read.
+      submitUpTo(index + 1 + maxAhead);
+      try {
+        List<Sample> samples = results.get(index).join();
+        // Let the decoded block be collected once it has been read.
+        results.set(index, null);
+        return samples;
+      } catch (CompletionException ex) {
+        throw new UncheckedIOException(unwrap(ex.getCause()));
+      }
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+      // Blocks still waiting for a thread are skipped once cancelled.
+      for (int i = 0; i < results.length(); ++i) {
+        CompletableFuture<List<Sample>> result = results.get(i);
+        if (result != null) {
+          result.cancel(false);
+        }
+      }
+      closeReaders();
+    }
+
+    // Only called by the reader of the stream, so submitted needs no locking.
+    private void submitUpTo(int limit) {
+      int end = Math.min(limit, blocks.size());
+      while (submitted < end && !closed) {
+        int i = submitted++;
+        results.set(i, CompletableFuture.supplyAsync(() -> decodeBlock(i), executor));
+      }
+    }
+
+    private List<Sample> decodeBlock(int index) {
+      try {
+        DataFileReader<HttpSample> reader = readers.poll();
+        if (reader == null) {
+          reader = workerReader(avroFile);
+        }
+        try {
+          Block block = blocks.get(index);
+          List<Sample> samples = new ArrayList<>((int) block.rows());
+          decode(reader, block, hs -> samples.add(conv.apply(hs)));
+          return samples;
+        } finally {
+          readers.add(reader);
+          if (closed) {
+            closeReaders();
+          }
+        }
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+
+    private void closeReaders() {
+      DataFileReader<HttpSample> reader;
+      while ((reader = readers.poll()) != null) {
+        try {
+          reader.close();
+        } catch (IOException ex) {
+          LOGGER.debug("Could not close reader of {}.", avroFile, ex);
+        }
+      }
+    }
+  }
+}
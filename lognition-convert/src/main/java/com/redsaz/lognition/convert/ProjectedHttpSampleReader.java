@@ -0,0 +1,99 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+import com.redsaz.lognition.convert.model.HttpSample;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.apache.avro.Schema;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.ResolvingDecoder;
+
+/**
+ * Reads only some of the fields of each {@link HttpSample}. The file is read with a reader schema
+ * that has only those fields, so Avro schema resolution skips over the rest of each row without
+ * decoding them. The fields that were not read are left as they were in the reused row.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+class ProjectedHttpSampleReader implements DatumReader<HttpSample> {
+
+  private final Schema projection;
+  // The sample field of each field in the projection, by position.
+  private final SampleField[] fields;
+  private ResolvingDecoder resolver;
+
+  ProjectedHttpSampleReader(Set<SampleField> wanted) {
+    projection = projection(wanted);
+    fields = new SampleField[projection.getFields().size()];
+    int pos = 0;
+    for (SampleField field : SampleField.values()) {
+      if (wanted.contains(field)) {
+        fields[pos++] = field;
+      }
+    }
+  }
+
+  /**
+   * @param wanted the fields to keep
+   * @return the {@link HttpSample} schema with only the wanted fields, in schema order.
+   */
+  static Schema projection(Set<SampleField> wanted) {
+    Schema full = HttpSample.getClassSchema();
+    List<Schema.Field> kept = new ArrayList<>(wanted.size());
+    for (SampleField field : SampleField.values()) {
+      if (wanted.contains(field)) {
+        Schema.Field f = full.getField(field.avroName());
+        kept.add(new Schema.Field(f, f.schema()));
+      }
+    }
+    return Schema.createRecord(full.getName(), full.getDoc(), full.getNamespace(), false, kept);
+  }
+
+  @Override
+  public void setSchema(Schema writerSchema) {
+    try {
+      resolver = DecoderFactory.get().resolvingDecoder(writerSchema, projection, null);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  @Override
+  public HttpSample read(HttpSample reuse, Decoder in) throws IOException {
+    HttpSample row = reuse == null ? new HttpSample() : reuse;
+    resolver.configure(in);
+    for (Schema.Field f : resolver.readFieldOrder()) {
+      switch (fields[f.pos()]) {
+        case OFFSET -> row.setMillisOffset(resolver.readLong());
+        case DURATION -> row.setMillisElapsed(resolver.readLong());
+        case LABEL -> row.setLabelRef(resolver.readInt());
+        case THREAD_NAME -> row.setThreadNameRef(resolver.readInt());
+        case CODE -> row.setResponseCodeRef(resolver.readInt());
+        case SUCCESS -> row.setSuccess(resolver.readBoolean());
+        case RESPONSE_BYTES -> row.setResponseBytes(resolver.readLong());
+        case TOTAL_THREADS -> row.setTotalThreads(resolver.readInt());
+      }
+    }
+    resolver.drain();
+    return row;
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+import java.util.List;
+
+/**
+ * Reads the fields of samples by row number, as primitives, without needing a {@link
+ * com.redsaz.lognition.api.model.Sample} object for each one. The rows are in time order.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public interface SampleColumns {
+
+  /**
+   * @return how many rows there are.
+   */
+  int size();
+
+  /**
+   * @param row the row number
+   * @return when the sample started, in millis, where 0 is the start of the earliest sample.
+   */
+  long offset(int row);
+
+  long duration(int row);
+
+  /**
+   * @param row the row number
+   * @return the index of the label of the sample in {@link #labels()}.
+   */
+  int labelRef(int row);
+
+  /**
+   * @return the labels, which every {@link #labelRef(int)} refers to.
+   */
+  List<String> labels();
+
+  boolean success(int row);
+
+  long responseBytes(int row);
+
+  String statusCode(int row);
+}
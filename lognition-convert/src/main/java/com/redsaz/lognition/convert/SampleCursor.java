@@ -0,0 +1,153 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+import com.redsaz.lognition.api.model.Sample;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads stored samples one row at a time, without making a {@link Sample} for each row. The
+ * fields of the current row are read as primitives, and the label, thread name, and status code
+ * are read as refs into the dictionaries of the file. Once {@link #next()} is called, the fields of
+ * the previous row are gone.
+ *
+ * <pre>
+ * try (SampleCursor cursor = AvroSamplesReader.sampleCursor(avroFile)) {
+ *   while (cursor.next()) {
+ *     total += cursor.duration();
+ *   }
+ * }
+ * </pre>
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public interface SampleCursor extends Closeable {
+
+  /**
+   * Moves to the next row.
+   *
+   * @return true if there is another row, false if all rows have been read.
+   * @throws IOException if the row could not be read.
+   */
+  boolean next() throws IOException;
+
+  /**
+   * @return The time, in millis since Unix epoch, that the earliest-starting sample started.
+   */
+  long earliestMillis();
+
+  /**
+   * @return when the sample started, in millis, where 0 is the start of the earliest sample.
+   */
+  long offset();
+
+  long duration();
+
+  /**
+   * @return the index of the label of the sample in {@link #labels()}.
+   */
+  int labelRef();
+
+  /**
+   * @return the index of the thread name of the sample in {@link #threadNames()}.
+   */
+  int threadNameRef();
+
+  /**
+   * @return the ref of the status code and message of the sample, which can be given to {@link
+   *     #statusCode(int)} and {@link #statusMessage(int)}. The same code and message always have
+   *     the same ref within a file.
+   */
+  int codeRef();
+
+  boolean success();
+
+  long responseBytes();
+
+  int totalThreads();
+
+  /**
+   * @return the labels, which every {@link #labelRef()} refers to.
+   */
+  List<String> labels();
+
+  /**
+   * @return the thread names, which every {@link #threadNameRef()} refers to.
+   */
+  List<String> threadNames();
+
+  String statusCode(int codeRef);
+
+  String statusMessage(int codeRef);
+
+  /**
+   * @return a new Sample of the current row, with an absolute offset.
+   */
+  default Sample toSample() {
+    Sample s = new Sample();
+    s.setDuration(duration());
+    s.setLabel(labels().get(labelRef()));
+    s.setOffset(offset() + earliestMillis());
+    s.setResponseBytes(responseBytes());
+    s.setStatusCode(statusCode(codeRef()));
+    s.setStatusMessage(statusMessage(codeRef()));
+    s.setSuccess(success());
+    s.setThreadName(threadNames().get(threadNameRef()));
+    s.setTotalThreads(totalThreads());
+    return s;
+  }
+
+  /**
+   * Reads the rest of the rows as {@link Sample}s. Closing the stream closes the cursor.
+   *
+   * @return the samples, with absolute offsets.
+   */
+  default Stream<Sample> stream() {
+    Spliterator<Sample> rows =
+        new Spliterators.AbstractSpliterator<>(
+            Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+          @Override
+          public boolean tryAdvance(Consumer<? super Sample> action) {
+            try {
+              if (!next()) {
+                return false;
+              }
+            } catch (IOException ex) {
+              throw new UncheckedIOException(ex);
+            }
+            action.accept(toSample());
+            return true;
+          }
+        };
+    return StreamSupport.stream(rows, false)
+        .onClose(
+            () -> {
+              try {
+                close();
+              } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+              }
+            });
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+/**
+ * The fields of a stored sample, for reading only some of them. The order is the order of the
+ * columns in {@link ColumnarSamplesReader} files, so it must not change.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public enum SampleField {
+  OFFSET("millisOffset"),
+  DURATION("millisElapsed"),
+  LABEL("labelRef"),
+  THREAD_NAME("threadNameRef"),
+  CODE("responseCodeRef"),
+  SUCCESS("success"),
+  RESPONSE_BYTES("responseBytes"),
+  TOTAL_THREADS("totalThreads");
+
+  private final String avroName;
+
+  SampleField(String avroName) {
+    this.avroName = avroName;
+  }
+
+  /**
+   * @return the name of the field in the Avro schema of the samples.
+   */
+  public String avroName() {
+    return avroName;
+  }
+}
@@ -33,4 +33,11 @@ public interface SamplesWriter {
    * @return SHA256 of the resulting Avro file.
    */
   String write(Samples sourceSamples, File dest) throws IOException;
+
+  /**
+   * @return the file extension, without the dot, of the files this writes.
+   */
+  default String extension() {
+    return "avro";
+  }
 }
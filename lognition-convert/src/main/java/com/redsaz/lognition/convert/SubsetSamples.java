@@ -0,0 +1,79 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+import com.redsaz.lognition.api.model.Sample;
+import java.util.List;
+
+/**
+ * Some of the samples of a log, with the dictionaries and time range of the whole log, so that the
+ * samples have the same offsets and refs as they do in the whole log.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+class SubsetSamples implements Samples {
+  private final Samples log;
+  private final List<Sample> samples;
+
+  /**
+   * @param log the whole log
+   * @param samples some of the samples of the log, in time order
+   */
+  SubsetSamples(Samples log, List<Sample> samples) {
+    this.log = log;
+    this.samples = samples;
+  }
+
+  @Override
+  public long getEarliestMillis() {
+    return log.getEarliestMillis();
+  }
+
+  @Override
+  public Sample getEarliestSample() {
+    return samples.getFirst();
+  }
+
+  @Override
+  public List<String> getLabels() {
+    return log.getLabels();
+  }
+
+  @Override
+  public long getLatestMillis() {
+    return log.getLatestMillis();
+  }
+
+  @Override
+  public Sample getLatestSample() {
+    return samples.getLast();
+  }
+
+  @Override
+  public List<Sample> getSamples() {
+    return samples;
+  }
+
+  @Override
+  public StatusCodeLookup getStatusCodeLookup() {
+    return log.getStatusCodeLookup();
+  }
+
+  @Override
+  public List<String> getThreadNames() {
+    return log.getThreadNames();
+  }
+}
@@ -0,0 +1,398 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+import com.redsaz.lognition.api.model.Sample;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Makes up samples that look like they came from a real load test, for testing how well things
+ * scale. The same settings and seed always make the same samples, and the samples are made one at a
+ * time as they are streamed, so logs of any size can be made without holding them in memory.
+ *
+ * <p>Example, writing a 10 million row JTL file:
+ *
+ * <pre>
+ * SyntheticSamples.builder()
+ *     .seed(42L)
+ *     .rows(10_000_000L)
+ *     .labels(50)
+ *     .latency(SyntheticSamples.Latency.BIMODAL)
+ *     .build()
+ *     .writeJtl(Path.of("big.jtl"));
+ * </pre>
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class SyntheticSamples {
+
+  /** How the response times are spread out. */
+  public enum Latency {
+    /** Mostly near the median, with a long tail of slower responses. */
+    LOGNORMAL,
+    /** Like LOGNORMAL, but a portion of the responses are much slower, like cache misses. */
+    BIMODAL,
+    /** Like LOGNORMAL, but every so often everything stalls for a while, like a GC pause. */
+    STALLS
+  }
+
+  private static final Map<String, String> STATUS_MESSAGES =
+      Map.of(
+          "200", "OK",
+          "201", "Created",
+          "204", "No Content",
+          "302", "Found",
+          "400", "Bad Request",
+          "404", "Not Found",
+          "500", "Internal Server Error",
+          "502", "Bad Gateway",
+          "503", "Service Unavailable",
+          "504", "Gateway Timeout");
+
+  private final long seed;
+  private final long rows;
+  private final int numLabels;
+  private final int numThreads;
+  private final long startMillis;
+  private final double callsPerSecond;
+  private final long outOfOrderMillis;
+  private final Latency latency;
+  private final long medianMillis;
+  private final double sigma;
+  private final double slowPercent;
+  private final double slowFactor;
+  private final long stallEveryMillis;
+  private final long stallMillis;
+  private final String[] codes;
+  private final double[] codeWeights;
+
+  private SyntheticSamples(Builder b) {
+    seed = b.seed;
+    rows = b.rows;
+    numLabels = b.labels;
+    numThreads = b.threads;
+    startMillis = b.startMillis;
+    callsPerSecond = b.callsPerSecond;
+    outOfOrderMillis = b.outOfOrderMillis;
+    latency = b.latency;
+    medianMillis = b.medianMillis;
+    sigma = b.sigma;
+    slowPercent = b.slowPercent;
+    slowFactor = b.slowFactor;
+    stallEveryMillis = b.stallEveryMillis;
+    stallMillis = b.stallMillis;
+    codes = b.statusCodes.keySet().toArray(new String[0]);
+    codeWeights = new double[codes.length];
+    double total = b.statusCodes.values().stream().mapToDouble(Double::doubleValue).sum();
+    double cumulative = 0.0;
+    for (int i = 0; i < codes.length; ++i) {
+      cumulative += b.statusCodes.get(codes[i]) / total;
+      codeWeights[i] = cumulative;
+    }
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Makes the samples. The offset of each sample is the time it started, in epoch millis, like the
+   * timestamp of a JTL row. When out-of-order timestamps are enabled, a sample may start a little
+   * before the one before it, like in a JTL where samples are written as they finish.
+   *
+   * @return a stream of the samples, made as they are needed.
+   */
+  public Stream<Sample> stream() {
+    return StreamSupport.stream(
+        Spliterators.spliterator(
+            new SampleIterator(), rows, Spliterator.ORDERED | Spliterator.NONNULL),
+        false);
+  }
+
+  /**
+   * Writes the samples as a CSV-based JMeter JTL file.
+   *
+   * @param dest where to write the samples
+   * @return the SHA-256 hash of the written file.
+   * @throws IOException if the file could not be written.
+   */
+  public String writeJtl(Path dest) throws IOException {
+    try (Stream<Sample> samples = stream()) {
+      return CsvJtlSamplesWriter.writeStream(samples, dest);
+    }
+  }
+
+  /**
+   * Writes the samples as a Loady CSV file.
+   *
+   * @param dest where to write the samples
+   * @return the SHA-256 hash of the written file.
+   * @throws IOException if the file could not be written.
+   */
+  public String writeLoady(Path dest) throws IOException {
+    try (Stream<Sample> samples = stream()) {
+      return CsvLoadySamplesWriter.writeStream(samples, dest);
+    }
+  }
+
+  private class SampleIterator implements Iterator<Sample> {
+    private final SplittableRandom random = new SplittableRandom(seed);
+    private final List<String> labelNames = new ArrayList<>(numLabels);
+    private final List<String> threadNames = new ArrayList<>(numThreads);
+    private final double millisPerCall = 1000.0 / callsPerSecond;
+    private long index;
+
+    SampleIterator() {
+      for (int i = 1; i <= numLabels; ++i) {
+        labelNames.add(String.format("Label %04d", i));
+      }
+      for (int i = 1; i <= numThreads; ++i) {
+        threadNames.add("Thread Group 1-" + i);
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return index < rows;
+    }
+
+    @Override
+    public Sample next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      long offset = startMillis + (long) (index * millisPerCall);
+      ++index;
+      if (outOfOrderMillis > 0L) {
+        offset -= random.nextLong(outOfOrderMillis + 1L);
+      }
+      // Some labels are called more than others, the first ones the most.
+      int labelIndex = (int) (numLabels * StrictMath.pow(random.nextDouble(), 2.0));
+      String code = pickCode(random.nextDouble());
+      boolean success = code.charAt(0) == '2' || code.charAt(0) == '3';
+      return Sample.of(
+          offset,
+          duration(offset, labelIndex),
+          labelNames.get(labelIndex),
+          threadNames.get(random.nextInt(numThreads)),
+          code,
+          STATUS_MESSAGES.getOrDefault(code, "Status " + code),
+          success,
+          500L + random.nextLong(20_000L),
+          numThreads);
+    }
+
+    private long duration(long offset, int labelIndex) {
+      // Each label has its own typical response time, between half and twice the median.
+      double spread = (Math.floorMod(labelIndex * 7919L, 201L) - 100L) / 100.0;
+      double labelMedian = medianMillis * StrictMath.pow(2.0, spread);
+      double millis = labelMedian * StrictMath.exp(sigma * gaussian());
+      switch (latency) {
+        case BIMODAL -> {
+          if (random.nextDouble() * 100.0 < slowPercent) {
+            millis *= slowFactor;
+          }
+        }
+        case STALLS -> {
+          // Anything started during a stall has to wait until the stall is over.
+          long intoStall = Math.floorMod(offset - startMillis, stallEveryMillis);
+          if (intoStall < stallMillis) {
+            millis += stallMillis - intoStall;
+          }
+        }
+        case LOGNORMAL -> {}
+      }
+      return Math.max(1L, Math.round(millis));
+    }
+
+    private String pickCode(double value) {
+      for (int i = 0; i < codeWeights.length - 1; ++i) {
+        if (value < codeWeights[i]) {
+          return codes[i];
+        }
+      }
+      return codes[codes.length - 1];
+    }
+
+    // Box-Muller, using StrictMath like the rest of the iterator so that the same seed gives the
+    // same samples on every JVM.
+    private double gaussian() {
+      double u1 = 1.0 - random.nextDouble();
+      double u2 = random.nextDouble();
+      return StrictMath.sqrt(-2.0 * StrictMath.log(u1)) * StrictMath.cos(2.0 * Math.PI * u2);
+    }
+  }
+
+  public static class Builder {
+    private long seed = 1L;
+    private long rows = 1_000_000L;
+    private int labels = 10;
+    private int threads = 50;
+    private long startMillis = 1767225600000L; // 2026-01-01T00:00:00Z
+    private double callsPerSecond = 550.0;
+    private long outOfOrderMillis = 0L;
+    private Latency latency = Latency.LOGNORMAL;
+    private long medianMillis = 100L;
+    private double sigma = 0.5;
+    private double slowPercent = 10.0;
+    private double slowFactor = 20.0;
+    private long stallEveryMillis = 300_000L;
+    private long stallMillis = 5_000L;
+    private Map<String, Double> statusCodes = new TreeMap<>(Map.of("200", 99.0, "500", 1.0));
+
+    private Builder() {}
+
+    public SyntheticSamples build() {
+      return new SyntheticSamples(this);
+    }
+
+    public Builder seed(long value) {
+      seed = value;
+      return this;
+    }
+
+    public Builder rows(long value) {
+      rows = requireNotNegative("rows", value);
+      return this;
+    }
+
+    public Builder labels(int value) {
+      labels = (int) requirePositive("labels", value);
+      return this;
+    }
+
+    public Builder threads(int value) {
+      threads = (int) requirePositive("threads", value);
+      return this;
+    }
+
+    /**
+     * @param value the timestamp of the first sample, in epoch millis.
+     * @return this builder.
+     */
+    public Builder startMillis(long value) {
+      startMillis = value;
+      return this;
+    }
+
+    public Builder callsPerSecond(double value) {
+      if (!(value > 0.0)) {
+        throw new IllegalArgumentException("callsPerSecond must be more than 0.");
+      }
+      callsPerSecond = value;
+      return this;
+    }
+
+    /**
+     * @param value how far back, at most, a sample can start before the one before it. 0 keeps the
+     *     samples in order.
+     * @return this builder.
+     */
+    public Builder outOfOrderMillis(long value) {
+      outOfOrderMillis = requireNotNegative("outOfOrderMillis", value);
+      return this;
+    }
+
+    public Builder latency(Latency value) {
+      latency = value;
+      return this;
+    }
+
+    /**
+     * @param value the typical response time, before any slow responses or stalls.
+     * @return this builder.
+     */
+    public Builder medianMillis(long value) {
+      medianMillis = requirePositive("medianMillis", value);
+      return this;
+    }
+
+    /**
+     * @param value how spread out the response times are, where 0 means they are all the median.
+     * @return this builder.
+     */
+    public Builder sigma(double value) {
+      sigma = value;
+      return this;
+    }
+
+    /**
+     * For {@link Latency#BIMODAL}, how many responses are slow, and how much slower they are.
+     *
+     * @param percent how many responses are slow, from 0 to 100
+     * @param factor how many times slower than the others they are
+     * @return this builder.
+     */
+    public Builder slow(double percent, double factor) {
+      slowPercent = percent;
+      slowFactor = factor;
+      return this;
+    }
+
+    /**
+     * For {@link Latency#STALLS}, how often everything stalls and for how long.
+     *
+     * @param everyMillis the time from the start of one stall to the start of the next
+     * @param millis how long each stall is
+     * @return this builder.
+     */
+    public Builder stalls(long everyMillis, long millis) {
+      stallEveryMillis = requirePositive("stall every millis", everyMillis);
+      stallMillis = requireNotNegative("stall millis", millis);
+      return this;
+    }
+
+    /**
+     * @param weights the status codes to use and how often each is used, relative to the others.
+     *     Codes starting with 2 or 3 are successes, the rest are errors.
+     * @return this builder.
+     */
+    public Builder statusCodes(Map<String, Double> weights) {
+      if (weights.isEmpty()) {
+        throw new IllegalArgumentException("At least one status code is needed.");
+      }
+      // Sorted, so that the codes are picked the same way no matter what order the map is in.
+      statusCodes = new TreeMap<>(weights);
+      return this;
+    }
+
+    private static long requirePositive(String name, long value) {
+      if (value < 1L) {
+        throw new IllegalArgumentException(name + " must be at least 1.");
+      }
+      return value;
+    }
+
+    private static long requireNotNegative(String name, long value) {
+      if (value < 0L) {
+        throw new IllegalArgumentException(name + " must not be negative.");
+      }
+      return value;
+    }
+  }
+}
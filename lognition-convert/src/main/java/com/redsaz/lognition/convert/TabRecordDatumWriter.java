@@ -0,0 +1,131 @@
+package com.redsaz.lognition.convert;
+
+import java.io.IOException;
+import java.util.List;
+import org.apache.avro.Schema;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.Encoder;
+
+/**
+ * Writes {@link TabRecord}s straight to an Avro {@link Encoder}, without making a GenericRecord for
+ * each row. How to write each field is worked out once, from the schema, into a plan of one writer
+ * per field, so writing a row is only a loop over the plan.
+ */
+class TabRecordDatumWriter implements DatumWriter<TabRecord> {
+
+  /** Writes one value of a field. */
+  @FunctionalInterface
+  private interface ValueWriter {
+    void write(Object value, Encoder out) throws IOException;
+  }
+
+  private final ValueWriter[] plan;
+
+  /**
+   * @param schema the tabular schema of the records
+   * @param avroSchema the Avro schema made from the tabular schema, with the fields in the same
+   *     order
+   */
+  TabRecordDatumWriter(TabSchema.StructS schema, Schema avroSchema) {
+    List<? extends TabSchema<?>> fields = schema.fields();
+    plan = new ValueWriter[fields.size()];
+    for (int i = 0; i < plan.length; ++i) {
+      plan[i] = fieldWriter(fields.get(i), avroSchema.getFields().get(i).schema());
+    }
+  }
+
+  @Override
+  public void setSchema(Schema schema) {
+    // The plan was already made from the schema.
+  }
+
+  @Override
+  public void write(TabRecord datum, Encoder out) throws IOException {
+    List<?> values = datum.values();
+    for (int i = 0; i < plan.length; ++i) {
+      plan[i].write(values.get(i), out);
+    }
+  }
+
+  private static ValueWriter fieldWriter(TabSchema<?> field, Schema fieldSchema) {
+    if (fieldSchema.getType() == Schema.Type.UNION) {
+      return unionWriter(field, fieldSchema.getTypes());
+    }
+    ValueWriter writer = primitiveWriter(field, fieldSchema.getType());
+    return (value, out) -> {
+      if (value == null) {
+        throw new TabValueRequiredException(field);
+      }
+      writer.write(value, out);
+    };
+  }
+
+  // Picks the branch by the class of the value, same as Avro does for generic data.
+  private static ValueWriter unionWriter(TabSchema<?> field, List<Schema> branches) {
+    int nullIndex = -1;
+    Class<?>[] classes = new Class<?>[branches.size()];
+    ValueWriter[] writers = new ValueWriter[branches.size()];
+    for (int i = 0; i < branches.size(); ++i) {
+      Schema.Type type = branches.get(i).getType();
+      if (type == Schema.Type.NULL) {
+        nullIndex = i;
+      } else {
+        classes[i] = javaClass(field, type);
+        writers[i] = primitiveWriter(field, type);
+      }
+    }
+    int nullBranch = nullIndex;
+    return (value, out) -> {
+      if (value == null) {
+        if (nullBranch < 0) {
+          throw new TabValueRequiredException(field);
+        }
+        out.writeIndex(nullBranch);
+        out.writeNull();
+        return;
+      }
+      for (int i = 0; i < classes.length; ++i) {
+        if (classes[i] != null && classes[i].isInstance(value)) {
+          out.writeIndex(i);
+          writers[i].write(value, out);
+          return;
+        }
+      }
+      throw new TabValueMistypedException(field, value);
+    };
+  }
+
+  private static ValueWriter primitiveWriter(TabSchema<?> field, Schema.Type type) {
+    return switch (type) {
+      case STRING -> (value, out) -> out.writeString(cast(field, CharSequence.class, value));
+      case INT -> (value, out) -> out.writeInt(cast(field, Number.class, value).intValue());
+      case LONG -> (value, out) -> out.writeLong(cast(field, Number.class, value).longValue());
+      case FLOAT -> (value, out) -> out.writeFloat(cast(field, Number.class, value).floatValue());
+      case DOUBLE ->
+          (value, out) -> out.writeDouble(cast(field, Number.class, value).doubleValue());
+      case BOOLEAN -> (value, out) -> out.writeBoolean(cast(field, Boolean.class, value));
+      default ->
+          throw new TabValueException("Cannot write this type in tabular data: " + type, field);
+    };
+  }
+
+  private static Class<?> javaClass(TabSchema<?> field, Schema.Type type) {
+    return switch (type) {
+      case STRING -> CharSequence.class;
+      case INT -> Integer.class;
+      case LONG -> Long.class;
+      case FLOAT -> Float.class;
+      case DOUBLE -> Double.class;
+      case BOOLEAN -> Boolean.class;
+      default ->
+          throw new TabValueException("Cannot write this type in tabular data: " + type, field);
+    };
+  }
+
+  private static <T> T cast(TabSchema<?> field, Class<T> type, Object value) {
+    if (!type.isInstance(value)) {
+      throw new TabValueMistypedException(field, value);
+    }
+    return type.cast(value);
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import com.redsaz.lognition.api.model.Sample;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import org.testng.annotations.Test;
+
+/**
+ * Test reading Avro sample files a row at a time.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class AvroSampleCursorTest {
+
+  @Test
+  public void testFields() throws IOException {
+    // Given samples with a custom status code,
+    Samples samples =
+        ListSamples.builder()
+            .add(Sample.of(1254L, 10L, "GET example/{id}", "1", "200", "OK", true, 123L, 2))
+            .add(
+                Sample.of(
+                    1367L,
+                    12L,
+                    "GET fail/{id}",
+                    "1",
+                    "NonHttpStatusCode",
+                    "Connection Refused",
+                    false,
+                    456L,
+                    2))
+            .add(Sample.of(1607L, 20L, "GET example/{id}", "2", "200", "OK", true, 789L, 2))
+            .build();
+    try (TempContent temp = TempContent.withName("cursor", ".avro")) {
+      new AvroSamplesWriter().write(samples, temp.file());
+
+      // When read with a cursor,
+      try (SampleCursor cursor = AvroSamplesReader.sampleCursor(temp.path())) {
+        // Then the dictionaries are available up front,
+        assertEquals(cursor.earliestMillis(), 1254L);
+        assertEquals(cursor.labels(), List.of("GET example/{id}", "GET fail/{id}"));
+        assertEquals(cursor.threadNames(), List.of("1", "2"));
+
+        // and each row has its fields, with refs into the dictionaries,
+        assertTrue(cursor.next());
+        assertEquals(cursor.offset(), 0L);
+        assertEquals(cursor.duration(), 10L);
+        assertEquals(cursor.labelRef(), 0);
+        assertEquals(cursor.threadNameRef(), 0);
+        int okRef = cursor.codeRef();
+        assertEquals(cursor.statusCode(okRef), "200");
+        assertEquals(cursor.statusMessage(okRef), "OK");
+
+        assertTrue(cursor.next());
+        assertEquals(cursor.offset(), 113L);
+        assertEquals(cursor.labelRef(), 1);
+        assertFalse(cursor.success());
+        assertEquals(cursor.responseBytes(), 456L);
+        assertEquals(cursor.statusCode(cursor.codeRef()), "NonHttpStatusCode");
+        assertEquals(cursor.statusMessage(cursor.codeRef()), "Connection Refused");
+        assertEquals(cursor.totalThreads(), 2);
+
+        assertTrue(cursor.next());
+        assertEquals(cursor.threadNameRef(), 1);
+        // and the same code and message has the same ref,
+        assertEquals(cursor.codeRef(), okRef);
+        assertEquals(
+            cursor.toSample(),
+            Sample.of(1607L, 20L, "GET example/{id}", "2", "200", "OK", true, 789L, 2));
+
+        // until there are no more rows.
+        assertFalse(cursor.next());
+      }
+    }
+  }
+
+  @Test
+  public void testSameAsWritten() throws IOException {
+    // Given many samples,
+    ListSamples.Builder builder = ListSamples.builder();
+    SyntheticSamples.builder().seed(4L).rows(5000).labels(6).build().stream().forEach(builder::add);
+    Samples samples = builder.build();
+    try (TempContent temp = TempContent.withName("cursor", ".avro")) {
+      new AvroSamplesWriter().write(samples, temp.file());
+
+      // When read with a cursor, turning each row into a sample,
+      ListSamples.Builder actuals = ListSamples.builder();
+      try (SampleCursor cursor = AvroSamplesReader.sampleCursor(temp.path())) {
+        while (cursor.next()) {
+          actuals.add(cursor.toSample());
+        }
+      }
+
+      // Then they are the same as the samples that were written.
+      assertEquals(actuals.build(), samples);
+    }
+  }
+
+  @Test
+  public void testSomeFields() throws IOException {
+    // Given many samples,
+    ListSamples.Builder builder = ListSamples.builder();
+    SyntheticSamples.builder().seed(5L).rows(2000).labels(6).build().stream().forEach(builder::add);
+    Samples samples = builder.build();
+    try (TempContent temp = TempContent.withName("cursor", ".avro")) {
+      new AvroSamplesWriter().write(samples, temp.file());
+
+      // When only the durations and labels are read,
+      List<Long> durations = new ArrayList<>();
+      List<String> labels = new ArrayList<>();
+      EnumSet<SampleField> fields = EnumSet.of(SampleField.DURATION, SampleField.LABEL);
+      try (SampleCursor cursor = AvroSamplesReader.sampleCursor(temp.path(), fields)) {
+        while (cursor.next()) {
+          durations.add(cursor.duration());
+          labels.add(cursor.labels().get(cursor.labelRef()));
+          // Then the other fields cannot be read,
+          assertThrows(IllegalStateException.class, cursor::offset);
+          assertThrows(IllegalStateException.class, cursor::toSample);
+        }
+      }
+
+      // and the fields that were read are the same as the samples that were written.
+      assertEquals(durations, samples.getSamples().stream().map(Sample::getDuration).toList());
+      assertEquals(labels, samples.getSamples().stream().map(Sample::getLabel).toList());
+    }
+  }
+
+  @Test
+  public void testRangeAndLabels() throws IOException {
+    // Given many samples, over many blocks,
+    ListSamples.Builder builder = ListSamples.builder();
+    SyntheticSamples.builder().seed(6L).rows(9000).labels(8).build().stream().forEach(builder::add);
+    Samples samples = builder.build();
+    try (TempContent temp = TempContent.withName("cursor", ".avro")) {
+      new AvroSamplesWriter().write(samples, temp.file());
+      long earliest = samples.getEarliestMillis();
+      long fromOffset = 5_000L;
+      long toOffset = 12_000L;
+      List<String> labels = List.of(samples.getLabels().get(1), samples.getLabels().get(5));
+
+      // When only a range of time and some labels are read, without reading the offsets or labels,
+      List<Long> durations = new ArrayList<>();
+      EnumSet<SampleField> fields = EnumSet.of(SampleField.DURATION);
+      try (SampleCursor cursor =
+          AvroSamplesReader.sampleCursor(temp.path(), fields, fromOffset, toOffset, labels)) {
+        while (cursor.next()) {
+          durations.add(cursor.duration());
+          // Then the offsets and labels still cannot be read from the cursor,
+          assertThrows(IllegalStateException.class, cursor::offset);
+          assertThrows(IllegalStateException.class, cursor::labelRef);
+        }
+      }
+
+      // and only the rows in the range with the labels were read.
+      List<Long> expected =
+          samples.getSamples().stream()
+              .filter(s -> s.getOffset() - earliest >= fromOffset)
+              .filter(s -> s.getOffset() - earliest < toOffset)
+              .filter(s -> labels.contains(s.getLabel()))
+              .map(Sample::getDuration)
+              .toList();
+      assertFalse(expected.isEmpty());
+      assertEquals(durations, expected);
+    }
+  }
+}
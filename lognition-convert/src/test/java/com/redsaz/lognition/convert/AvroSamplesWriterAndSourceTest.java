@@ -1,9 +1,17 @@
 package com.redsaz.lognition.convert;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
 
 import com.redsaz.lognition.api.model.Sample;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Stream;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 public class AvroSamplesWriterAndSourceTest {
@@ -105,4 +113,191 @@ public class AvroSamplesWriterAndSourceTest {
       assertEquals(result, samples);
     }
   }
+
+  @DataProvider(name = "codecsDp")
+  public Object[][] codecsDp() {
+    return new Object[][] {
+      {"null"}, {"deflate-1"}, {"deflate-9"}, {"snappy"}, {"zstandard-3"}, {"xz-6"}, {"bzip2"}
+    };
+  }
+
+  @Test(dataProvider = "codecsDp")
+  public void testCodecs(String codec) throws IOException {
+    // Given samples,
+    Samples samples = synthetic(2000);
+    try (TempContent first = TempContent.withName("first", ".avro");
+        TempContent second = TempContent.withName("second", ".avro")) {
+      // When they are written twice with the codec, with small blocks,
+      AvroSamplesWriter writer = new AvroSamplesWriter(codec, 4096);
+      String firstHash = writer.write(samples, first.file());
+      String secondHash = writer.write(samples, second.file());
+
+      // Then the files are the same each time,
+      assertEquals(secondHash, firstHash);
+      // and the codec is recorded in the file,
+      assertEquals(AvroSamplesReader.codec(first.path()), codec);
+      // and the samples read back are the same.
+      assertEquals(AvroSamplesReader.readSamples(first.path()), samples);
+    }
+  }
+
+  @Test
+  public void testCompresses() throws IOException {
+    // Given samples,
+    Samples samples = synthetic(2000);
+    try (TempContent plain = TempContent.withName("plain", ".avro");
+        TempContent compressed = TempContent.withName("compressed", ".avro")) {
+      // When written with and without compression,
+      String plainHash = new AvroSamplesWriter().write(samples, plain.file());
+      String compressedHash =
+          new AvroSamplesWriter("deflate-6", AvroSamplesWriter.DEFAULT_SYNC_INTERVAL)
+              .write(samples, compressed.file());
+
+      // Then the compressed file is smaller.
+      assertNotEquals(compressedHash, plainHash);
+      assertTrue(Files.size(compressed.path()) < Files.size(plain.path()));
+      assertEquals(AvroSamplesReader.codec(plain.path()), "null");
+    }
+  }
+
+  @Test
+  public void testBadCodec() {
+    assertThrows(IllegalArgumentException.class, () -> new AvroSamplesWriter("lzma", 64000));
+    assertThrows(IllegalArgumentException.class, () -> new AvroSamplesWriter("snappy-3", 64000));
+    assertThrows(IllegalArgumentException.class, () -> new AvroSamplesWriter("deflate-x", 64000));
+    assertThrows(IllegalArgumentException.class, () -> new AvroSamplesWriter("null", 16));
+  }
+
+  @Test
+  public void testTimeRange() throws IOException {
+    // Given samples written with small blocks,
+    Samples samples = synthetic(20000);
+    long earliest = samples.getEarliestMillis();
+    long span = samples.getLatestMillis() - earliest;
+    long from = span / 3;
+    long to = span / 2;
+    try (TempContent temp = TempContent.withName("range", ".avro")) {
+      new AvroSamplesWriter(AvroSamplesWriter.DEFAULT_CODEC, 1024).write(samples, temp.file());
+      AvroBlockIndex index = AvroBlockIndex.read(temp.path());
+      assertTrue(index.getEntries().size() > 10);
+
+      // When a window of time is read,
+      List<Sample> actuals;
+      try (Stream<Sample> stream = AvroSamplesReader.sampleStream(temp.path(), from, to)) {
+        actuals = stream.toList();
+      }
+
+      // Then only the samples in that window are read, same as filtering all of them.
+      List<Sample> expecteds;
+      try (Stream<Sample> stream = AvroSamplesReader.sampleStream(temp.path())) {
+        expecteds =
+            stream
+                .filter(s -> s.getOffset() - earliest >= from && s.getOffset() - earliest < to)
+                .toList();
+      }
+      assertFalse(expecteds.isEmpty());
+      assertEquals(actuals, expecteds);
+    }
+  }
+
+  @Test
+  public void testTimeRangeAndLabels() throws IOException {
+    // Given samples written with small blocks,
+    Samples samples = synthetic(20000);
+    String label = samples.getLabels().get(1);
+    try (TempContent temp = TempContent.withName("range", ".avro")) {
+      new AvroSamplesWriter(AvroSamplesWriter.DEFAULT_CODEC, 1024).write(samples, temp.file());
+
+      // When a window of time is read for only one label,
+      List<Sample> actuals;
+      try (Stream<Sample> stream =
+          AvroSamplesReader.sampleStream(temp.path(), 0L, Long.MAX_VALUE, List.of(label))) {
+        actuals = stream.toList();
+      }
+
+      // Then only the samples with that label are read,
+      List<Sample> expecteds;
+      try (Stream<Sample> stream = AvroSamplesReader.sampleStream(temp.path())) {
+        expecteds = stream.filter(s -> s.getLabel().equals(label)).toList();
+      }
+      assertFalse(expecteds.isEmpty());
+      assertEquals(actuals, expecteds);
+
+      // and labels which are not in the log have no samples.
+      try (Stream<Sample> stream =
+          AvroSamplesReader.sampleStream(temp.path(), 0L, Long.MAX_VALUE, List.of("nope"))) {
+        assertEquals(stream.count(), 0L);
+      }
+    }
+  }
+
+  @Test
+  public void testLabelsWithUnlabeledSample() throws IOException {
+    // Given a log with a sample that has no label, which is written without a label ref,
+    Samples samples =
+        ListSamples.builder()
+            .add(Sample.of(1254L, 10L, "GET example/{id}", "1", "200", "OK", true, 123L, 2))
+            .add(Sample.of(1367L, 12L, null, "1", "200", "OK", true, 123L, 2))
+            .add(Sample.of(1607L, 20L, "GET example/{id}", "2", "200", "OK", true, 123L, 2))
+            .build();
+    try (TempContent temp = TempContent.withName("unlabeled", ".avro")) {
+      new AvroSamplesWriter().write(samples, temp.file());
+
+      // When only one label is read,
+      List<Sample> actuals;
+      try (Stream<Sample> stream =
+          AvroSamplesReader.sampleStream(
+              temp.path(), 0L, Long.MAX_VALUE, List.of("GET example/{id}"))) {
+        actuals = stream.toList();
+      }
+
+      // Then the unlabeled sample is skipped instead of failing the read.
+      assertEquals(actuals.stream().map(Sample::getDuration).toList(), List.of(10L, 20L));
+    }
+  }
+
+  @Test
+  public void testTimeRangeWithoutIndex() throws IOException {
+    // Given a file without a block index, like those written before there were indexes,
+    Samples samples = synthetic(2000);
+    long earliest = samples.getEarliestMillis();
+    try (TempContent temp = TempContent.withName("noindex", ".avro")) {
+      new AvroSamplesWriter().write(samples, temp.file());
+      Files.delete(AvroBlockIndex.pathFor(temp.path()));
+
+      // When a window of time is read,
+      List<Sample> actuals;
+      try (Stream<Sample> stream = AvroSamplesReader.sampleStream(temp.path(), 1000L, 5000L)) {
+        actuals = stream.toList();
+      }
+
+      // Then the whole file is read and the samples in the window are still found.
+      List<Sample> expecteds =
+          samples.getSamples().stream()
+              .filter(s -> s.getOffset() >= 1000L && s.getOffset() < 5000L)
+              .map(s -> withOffset(s, s.getOffset() + earliest))
+              .toList();
+      assertFalse(expecteds.isEmpty());
+      assertEquals(actuals, expecteds);
+    }
+  }
+
+  private static Sample withOffset(Sample sample, long offset) {
+    return Sample.of(
+        offset,
+        sample.getDuration(),
+        sample.getLabel(),
+        sample.getThreadName(),
+        sample.getStatusCode(),
+        sample.getStatusMessage(),
+        sample.isSuccess(),
+        sample.getResponseBytes(),
+        sample.getTotalThreads());
+  }
+
+  private static Samples synthetic(int rows) {
+    ListSamples.Builder builder = ListSamples.builder();
+    SyntheticSamples.builder().seed(1L).rows(rows).labels(4).build().stream().forEach(builder::add);
+    return builder.build();
+  }
 }
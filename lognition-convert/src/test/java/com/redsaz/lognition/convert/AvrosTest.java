@@ -2,9 +2,11 @@ package com.redsaz.lognition.convert;
 
 import static com.redsaz.lognition.convert.TestUtil.assertContentEquals;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.stream.Stream;
 import org.testng.annotations.Test;
 
 public class AvrosTest {
@@ -184,4 +186,84 @@ public class AvrosTest {
       //      );
     }
   }
+
+  @Test
+  public void testReadSomeFields() throws IOException {
+    // Given an avro file with several fields,
+    String content =
+        """
+        exampleLong,exampleInt,exampleString,exampleBoolean
+        1766362285195,104,GET /logs/test,true
+        1766362285191,111,PUT /logs/test,false
+        """;
+    TabSchema.StructS schema =
+        TabSchema.StructS.of(
+            "exampleRecord",
+            TabSchema.LongS.required("exampleLong"),
+            TabSchema.IntS.required("exampleInt"),
+            TabSchema.StrS.required("exampleString"),
+            TabSchema.BooleanS.required("exampleBoolean"));
+    try (TempContent sourceFile = TempContent.of(content);
+        TabStream csv = Csvs.records(sourceFile.path(), schema);
+        TempContent destAvroFile = TempContent.withName("converted", ".avro")) {
+      Avros.write(destAvroFile.path(), csv.schema(), csv.stream());
+
+      // When only some of the fields are read, in a different order,
+      try (TabStream avro =
+          Avros.records(destAvroFile.path(), List.of("exampleString", "exampleInt"))) {
+        // Then only those fields are in the schema,
+        assertEquals(
+            avro.schema().fields().stream().map(TabSchema::name).toList(),
+            List.of("exampleString", "exampleInt"));
+        // and in the records, in the order asked for.
+        assertEquals(
+            avro.stream().toList(),
+            List.of(TabRecord.of("GET /logs/test", 104), TabRecord.of("PUT /logs/test", 111)));
+      }
+
+      // and fields which are not in the file cannot be read.
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> Avros.records(destAvroFile.path(), List.of("exampleMissing")));
+    }
+  }
+
+  @Test
+  public void testWriteNullsAndMistyped() throws IOException {
+    // Given a schema with optional, defaulted, and required fields,
+    TabSchema.StructS schema =
+        TabSchema.StructS.of(
+            "exampleRecord",
+            TabSchema.StrS.optional("exampleString"),
+            TabSchema.IntS.optional("exampleInt", 7),
+            TabSchema.UnionS.optional("exampleUnion", Long.class, String.class),
+            TabSchema.LongS.required("exampleLong"));
+    try (TempContent destAvroFile = TempContent.withName("converted", ".avro")) {
+      // When records with nulls in the optional fields are written,
+      List<TabRecord> rows =
+          List.of(
+              TabRecord.of(null, null, null, 1L),
+              TabRecord.of("a", 2, 3L, 4L),
+              TabRecord.of("b", 5, "c", 6L));
+      Avros.write(destAvroFile.path(), schema, rows.stream());
+
+      // Then they are read back the same,
+      try (TabStream avro = Avros.records(destAvroFile.path())) {
+        assertEquals(avro.stream().toList(), rows);
+      }
+
+      // but a null in a required field cannot be written,
+      assertThrows(
+          TabValueRequiredException.class,
+          () ->
+              Avros.write(
+                  destAvroFile.path(), schema, Stream.of(TabRecord.of("a", 2, 3L, null))));
+      // and neither can a value of the wrong type.
+      assertThrows(
+          TabValueMistypedException.class,
+          () ->
+              Avros.write(
+                  destAvroFile.path(), schema, Stream.of(TabRecord.of("a", 2, 3.5f, 4L))));
+    }
+  }
 }
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import com.redsaz.lognition.api.model.Sample;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Stream;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Test writing and reading samples in the columnar format, and the encodings of its columns.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class ColumnarSamplesTest {
+
+  private Path dir;
+
+  @BeforeMethod
+  public void createDir() throws IOException {
+    dir = Files.createTempDirectory("columnar");
+  }
+
+  @AfterMethod
+  public void deleteDir() throws IOException {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    // Given samples,
+    Samples samples = synthetic(11L, 20_000);
+    Path lgc = dir.resolve("1.lgc");
+
+    // When written in the columnar format, in more than one block,
+    new ColumnarSamplesWriter(1000).write(samples, lgc.toFile());
+
+    // Then the same samples are read back.
+    assertEquals(read(ColumnarSamplesReader.sampleStream(lgc)), absolute(samples));
+  }
+
+  @Test
+  public void testCustomStatusCodes() throws IOException {
+    // Given samples with status codes that are not HTTP status codes,
+    Samples samples =
+        ListSamples.builder()
+            .add(Sample.of(1000L, 10L, "a", "1", "200", "OK", true, 10L, 1))
+            .add(Sample.of(1100L, 20L, "a", "1", "Non HTTP response code", "Broken", false, 0L, 1))
+            .add(Sample.of(1200L, 30L, "b", "1", "299", "Custom", true, 10L, 1))
+            .build();
+    Path lgc = dir.resolve("1.lgc");
+
+    // When written in the columnar format,
+    new ColumnarSamplesWriter().write(samples, lgc.toFile());
+
+    // Then the codes and messages are read back as they were.
+    assertEquals(read(ColumnarSamplesReader.sampleStream(lgc)), absolute(samples));
+  }
+
+  @Test
+  public void testRangeAndLabels() throws IOException {
+    // Given samples written as both Avro and columnar,
+    Samples samples = synthetic(13L, 20_000);
+    Path avro = dir.resolve("1.avro");
+    Path lgc = dir.resolve("1.lgc");
+    new AvroSamplesWriter().write(samples, avro.toFile());
+    new ColumnarSamplesWriter(500).write(samples, lgc.toFile());
+    List<String> labels = List.of("Label 0002", "Label 0005");
+
+    // When a range of time with some labels is read from both,
+    List<Sample> expected = read(AvroSamplesReader.sampleStream(avro, 5000L, 15_000L, labels));
+    List<Sample> actual = read(ColumnarSamplesReader.sampleStream(lgc, 5000L, 15_000L, labels));
+
+    // Then they have the same samples.
+    assertFalse(expected.isEmpty());
+    assertEquals(actual, expected);
+  }
+
+  @Test
+  public void testOnlySomeColumns() throws IOException {
+    // Given samples written in the columnar format,
+    Samples samples = synthetic(17L, 5000);
+    Path lgc = dir.resolve("1.lgc");
+    new ColumnarSamplesWriter(256).write(samples, lgc.toFile());
+
+    // When only the durations of one label are read,
+    List<Long> durations = new ArrayList<>();
+    EnumSet<SampleField> columns = EnumSet.of(SampleField.DURATION);
+    try (SampleCursor cursor =
+        ColumnarSamplesReader.sampleCursor(
+            lgc, columns, Long.MIN_VALUE, Long.MAX_VALUE, List.of("Label 0001"))) {
+      while (cursor.next()) {
+        durations.add(cursor.duration());
+        // Then the columns not asked for cannot be read,
+        assertThrows(IllegalStateException.class, cursor::responseBytes);
+      }
+    }
+
+    // and the durations are the ones of that label.
+    List<Long> expected =
+        samples.getSamples().stream()
+            .filter(s -> s.getLabel().equals("Label 0001"))
+            .map(Sample::getDuration)
+            .toList();
+    assertFalse(expected.isEmpty());
+    assertEquals(durations, expected);
+  }
+
+  @Test
+  public void testConvertAll() throws IOException {
+    // Given logs stored as Avro,
+    Samples first = synthetic(19L, 3000);
+    Samples second = synthetic(23L, 4000);
+    new AvroSamplesWriter().write(first, dir.resolve("1.avro").toFile());
+    new AvroSamplesWriter().write(second, dir.resolve("2.avro").toFile());
+    List<Sample> expectedFirst = read(AvroSamplesReader.sampleStream(dir.resolve("1.avro")));
+    List<Sample> expectedSecond = read(AvroSamplesReader.sampleStream(dir.resolve("2.avro")));
+
+    // When converted to the columnar format, replacing the Avro files,
+    int converted = ColumnarConverter.convertAll(dir, new ColumnarSamplesWriter(), true);
+
+    // Then each log has the same samples as before,
+    assertEquals(converted, 2);
+    assertEquals(read(ColumnarSamplesReader.sampleStream(dir.resolve("1.lgc"))), expectedFirst);
+    assertEquals(read(ColumnarSamplesReader.sampleStream(dir.resolve("2.lgc"))), expectedSecond);
+    // and the Avro files are gone,
+    assertFalse(Files.exists(dir.resolve("1.avro")));
+    assertFalse(Files.exists(dir.resolve("2.avro")));
+    // and converting again does nothing.
+    assertEquals(ColumnarConverter.convertAll(dir, new ColumnarSamplesWriter(), true), 0);
+  }
+
+  @Test
+  public void testSmallerThanAvro() throws IOException {
+    // Given samples,
+    Samples samples = synthetic(29L, 50_000);
+    Path avro = dir.resolve("1.avro");
+    Path lgc = dir.resolve("1.lgc");
+
+    // When written as both Avro and columnar,
+    new AvroSamplesWriter().write(samples, avro.toFile());
+    new ColumnarSamplesWriter().write(samples, lgc.toFile());
+
+    // Then the columnar file is the smaller one.
+    assertTrue(
+        Files.size(lgc) < Files.size(avro),
+        "Columnar " + Files.size(lgc) + " bytes, Avro " + Files.size(avro) + " bytes");
+  }
+
+  @Test
+  public void testEncodings() throws IOException {
+    // Given values at the edges of what can be stored,
+    long[] longs = {0L, -1L, 1L, Long.MIN_VALUE, Long.MAX_VALUE, 42L, 42L, -7L};
+    int[] ints = {-1, -1, 0, 0, 0, Integer.MIN_VALUE, Integer.MAX_VALUE, 3};
+    boolean[] bools = {true, true, false, true, false, false, false, true};
+
+    // When encoded and decoded,
+    // Then they are the same values.
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ColumnEncoding.encodeDeltaOfDelta(longs, longs.length, out);
+    long[] actualLongs = new long[longs.length];
+    ColumnEncoding.decodeDeltaOfDelta(bytes(out), actualLongs, longs.length);
+    assertEquals(actualLongs, longs);
+
+    out.reset();
+    ColumnEncoding.encodeFrameOfReference(longs, longs.length, out);
+    actualLongs = new long[longs.length];
+    ColumnEncoding.decodeFrameOfReference(bytes(out), actualLongs, longs.length);
+    assertEquals(actualLongs, longs);
+
+    out.reset();
+    ColumnEncoding.encodeRunLength(ints, ints.length, out);
+    int[] actualInts = new int[ints.length];
+    ColumnEncoding.decodeRunLength(bytes(out), actualInts, ints.length);
+    assertEquals(actualInts, ints);
+
+    out.reset();
+    ColumnEncoding.encodeBooleanRunLength(bools, bools.length, out);
+    boolean[] actualBools = new boolean[bools.length];
+    ColumnEncoding.decodeBooleanRunLength(bytes(out), actualBools, bools.length);
+    assertEquals(actualBools, bools);
+
+    // and a run of the same value takes only a few bytes.
+    out.reset();
+    ColumnEncoding.encodeFrameOfReference(new long[] {5L, 5L, 5L, 5L}, 4, out);
+    assertTrue(out.size() <= 2, "Took " + out.size() + " bytes");
+  }
+
+  private static ColumnEncoding.Bytes bytes(ByteArrayOutputStream out) {
+    byte[] buf = out.toByteArray();
+    return new ColumnEncoding.Bytes(buf, 0, buf.length);
+  }
+
+  /** The samples with absolute offsets, as the readers return them. */
+  private static List<Sample> absolute(Samples samples) {
+    long earliest = samples.getEarliestMillis();
+    return samples.getSamples().stream()
+        .map(
+            s ->
+                Sample.of(
+                    earliest + s.getOffset(),
+                    s.getDuration(),
+                    s.getLabel(),
+                    s.getThreadName(),
+                    s.getStatusCode(),
+                    s.getStatusMessage(),
+                    s.isSuccess(),
+                    s.getResponseBytes(),
+                    s.getTotalThreads()))
+        .toList();
+  }
+
+  private static Samples synthetic(long seed, int rows) {
+    ListSamples.Builder builder = ListSamples.builder();
+    SyntheticSamples.builder().seed(seed).rows(rows).labels(8).build().stream()
+        .forEach(builder::add);
+    return builder.build();
+  }
+
+  private static List<Sample> read(Stream<Sample> samples) {
+    try (samples) {
+      return samples.toList();
+    }
+  }
+}
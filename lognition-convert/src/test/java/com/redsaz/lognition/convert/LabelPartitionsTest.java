@@ -0,0 +1,178 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import com.redsaz.lognition.api.model.Sample;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Test writing the samples of a log split up by label, and reading them back.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class LabelPartitionsTest {
+
+  private Path dir;
+
+  @BeforeMethod
+  public void createDir() throws IOException {
+    dir = Files.createTempDirectory("labelpartitions");
+  }
+
+  @AfterMethod
+  public void deleteDir() throws IOException {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Test
+  public void testSameAsFullLog() throws IOException {
+    // Given a log with several labels,
+    Samples samples = synthetic(5L, 6);
+    Path avro = dir.resolve("1.avro");
+
+    // When it is written with label partitions,
+    new LabelPartitioningWriter(new AvroSamplesWriter(), 1).write(samples, avro.toFile());
+    LabelPartitions partitions = LabelPartitions.read(LabelPartitions.dirFor(avro));
+
+    // Then each label has its own partition,
+    assertEquals(partitions.getPartitions().size(), samples.getLabels().size());
+    // and the samples of each label are the same as the samples of the full log with that label.
+    for (String label : samples.getLabels()) {
+      assertEquals(
+          partitions.getPartitions().stream()
+              .filter(p -> p.labels().equals(List.of(label)))
+              .count(),
+          1L);
+      assertEquals(
+          read(partitions.sampleStream(List.of(label), 0L, Long.MAX_VALUE)),
+          read(AvroSamplesReader.sampleStream(avro).filter(s -> s.getLabel().equals(label))));
+    }
+  }
+
+  @Test
+  public void testSeveralLabelsInTimeOrder() throws IOException {
+    // Given a log written with label partitions,
+    Samples samples = synthetic(6L, 4);
+    Path avro = dir.resolve("2.avro");
+    new LabelPartitioningWriter(new AvroSamplesWriter(), 1).write(samples, avro.toFile());
+    LabelPartitions partitions = LabelPartitions.read(LabelPartitions.dirFor(avro));
+    Set<String> wanted = Set.of(samples.getLabels().get(0), samples.getLabels().get(2));
+
+    // When the samples of several labels are read within a time range,
+    List<Sample> actual = read(partitions.sampleStream(wanted, 1000L, 3000L));
+
+    // Then they are the same samples, in the same order, as the full log has.
+    List<Sample> expected =
+        read(
+            AvroSamplesReader.sampleStream(avro, 1000L, 3000L)
+                .filter(s -> wanted.contains(s.getLabel())));
+    assertEquals(actual.size(), expected.size());
+    for (int i = 0; i < actual.size(); ++i) {
+      assertEquals(actual.get(i).getOffset(), expected.get(i).getOffset());
+      assertEquals(actual.get(i).getLabel(), expected.get(i).getLabel());
+    }
+  }
+
+  @Test
+  public void testSmallLabelsGrouped() throws IOException {
+    // Given a log with one busy label and two quiet labels,
+    ListSamples.Builder builder = ListSamples.builder();
+    for (int i = 0; i < 10; ++i) {
+      builder.add(Sample.of(1000L + i * 10, 5L, "busy", "1", "200", "OK", true, 10L, 1));
+    }
+    builder.add(Sample.of(1005L, 5L, "quiet-a", "1", "200", "OK", true, 10L, 1));
+    builder.add(Sample.of(1015L, 5L, "quiet-b", "1", "200", "OK", true, 10L, 1));
+    Samples samples = builder.build();
+    Path avro = dir.resolve("3.avro");
+
+    // When written with label partitions that need at least 5 samples each,
+    new LabelPartitioningWriter(new AvroSamplesWriter(), 5).write(samples, avro.toFile());
+    LabelPartitions partitions = LabelPartitions.read(LabelPartitions.dirFor(avro));
+
+    // Then the busy label has its own partition, and the quiet labels share one.
+    assertEquals(partitions.getPartitions().size(), 2);
+    assertEquals(partitions.partitionOf("busy").labels(), List.of("busy"));
+    assertEquals(partitions.partitionOf("quiet-a").labels(), List.of("quiet-a", "quiet-b"));
+    assertEquals(partitions.partitionOf("quiet-b").rows(), 2L);
+    assertEquals(partitions.partitionOf("quiet-b").minOffset(), 5L);
+    assertEquals(partitions.partitionOf("quiet-b").maxOffset(), 15L);
+    // and only the asked for label is read from the shared partition.
+    assertEquals(
+        read(partitions.sampleStream(List.of("quiet-b"), 0L, Long.MAX_VALUE)),
+        List.of(Sample.of(1015L, 5L, "quiet-b", "1", "200", "OK", true, 10L, 1)));
+  }
+
+  @Test
+  public void testWrite_replacesPartitions() throws IOException {
+    // Given a log written with a partition for each of 6 labels,
+    Path avro = dir.resolve("4.avro");
+    Path partitionsDir = LabelPartitions.dirFor(avro);
+    new LabelPartitioningWriter(new AvroSamplesWriter(), 1).write(synthetic(5L, 6), avro.toFile());
+
+    // When it is written again with only 2 labels,
+    Samples samples = synthetic(7L, 2);
+    new LabelPartitioningWriter(new AvroSamplesWriter(), 1).write(samples, avro.toFile());
+
+    // Then only the partitions of the new labels, and the manifest, are left.
+    LabelPartitions partitions = LabelPartitions.read(partitionsDir);
+    assertEquals(partitions.getPartitions().size(), 2);
+    try (Stream<Path> files = Files.list(partitionsDir)) {
+      assertEquals(
+          files.map(file -> file.getFileName().toString()).sorted().toList(),
+          List.of("manifest", "part-0000.avro", "part-0001.avro"));
+    }
+    assertEquals(
+        partitions.getPartitions().stream().mapToLong(LabelPartitions.Partition::rows).sum(),
+        (long) samples.getSamples().size());
+  }
+
+  @Test
+  public void testNoManifest() throws IOException {
+    // Given a directory without any partitions,
+    // When the partitions are read,
+    // Then there are none.
+    assertNull(LabelPartitions.read(dir));
+  }
+
+  private static Samples synthetic(long seed, int labels) {
+    ListSamples.Builder builder = ListSamples.builder();
+    SyntheticSamples.builder().seed(seed).rows(5000).labels(labels).build().stream()
+        .forEach(builder::add);
+    return builder.build();
+  }
+
+  private static List<Sample> read(Stream<Sample> samples) {
+    try (samples) {
+      return samples.toList();
+    }
+  }
+}
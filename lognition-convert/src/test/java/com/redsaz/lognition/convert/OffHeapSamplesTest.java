@@ -0,0 +1,251 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import com.redsaz.lognition.api.exceptions.AppServerException;
+import com.redsaz.lognition.api.model.Sample;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.testng.annotations.Test;
+
+/**
+ * Test the off-heap samples.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class OffHeapSamplesTest {
+
+  @Test
+  public void testBuild() {
+    // Given samples that are out of order,
+    OffHeapBudget budget = new OffHeapBudget(1L << 30);
+    OffHeapSamples.Builder builder =
+        OffHeapSamples.builder(budget)
+            .add(Sample.of(1607L, 20L, "GET example/{id}", "2", "200", "OK", true, 123L, 2))
+            .add(Sample.of(1254L, 10L, "GET example/{id}", "1", "200", "OK", true, 123L, 2))
+            .add(
+                Sample.of(
+                    1367L,
+                    12L,
+                    "GET fail/{id}",
+                    "1",
+                    "NonHttpStatusCode",
+                    "Connection Refused",
+                    false,
+                    456L,
+                    2));
+
+    // When they are built into off-heap samples,
+    try (OffHeapSamples samples = builder.build()) {
+      // Then they are in order by offset, relative to the earliest sample, same as ListSamples,
+      List<Sample> expecteds =
+          List.of(
+              Sample.of(0L, 10L, "GET example/{id}", "1", "200", "OK", true, 123L, 2),
+              Sample.of(
+                  113L,
+                  12L,
+                  "GET fail/{id}",
+                  "1",
+                  "NonHttpStatusCode",
+                  "Connection Refused",
+                  false,
+                  456L,
+                  2),
+              Sample.of(353L, 20L, "GET example/{id}", "2", "200", "OK", true, 123L, 2));
+      assertEquals(samples.getSamples(), expecteds);
+      assertEquals(samples.getEarliestSample(), expecteds.getFirst());
+      assertEquals(samples.getLatestSample(), expecteds.getLast());
+      assertEquals(samples.getLabels(), List.of("GET example/{id}", "GET fail/{id}"));
+      assertEquals(samples.getThreadNames(), List.of("1", "2"));
+      assertEquals(samples.getEarliestMillis(), 1254L);
+      assertEquals(samples.getLatestMillis(), 1627L);
+
+      // and the columns can be read without making samples.
+      assertEquals(samples.size(), 3);
+      assertEquals(samples.offset(1), 113L);
+      assertEquals(samples.duration(1), 12L);
+      assertEquals(samples.labels().get(samples.labelRef(1)), "GET fail/{id}");
+      assertFalse(samples.success(1));
+      assertEquals(samples.responseBytes(1), 456L);
+      assertEquals(samples.statusCode(1), "NonHttpStatusCode");
+      assertTrue(budget.getReservedBytes() > 0L);
+    }
+  }
+
+  @Test
+  public void testSameAsListSamples() {
+    // Given more samples than fit in one chunk, some of them out of order,
+    SyntheticSamples generator =
+        SyntheticSamples.builder().seed(3L).rows(150_000).labels(9).outOfOrderMillis(200).build();
+    ListSamples.Builder listBuilder = ListSamples.builder();
+    generator.stream().forEach(listBuilder::add);
+    ListSamples listSamples = listBuilder.build();
+
+    // When they are built into off-heap samples,
+    OffHeapSamples.Builder builder = OffHeapSamples.builder(new OffHeapBudget(1L << 30));
+    generator.stream().forEach(builder::add);
+    try (OffHeapSamples samples = builder.build()) {
+      // Then they are in time order,
+      for (int i = 1; i < samples.size(); ++i) {
+        assertTrue(samples.offset(i - 1) <= samples.offset(i), "Out of order at " + i);
+      }
+      // and have the same samples as ListSamples, in the same order.
+      assertEquals(new ArrayList<>(samples.getSamples()), listSamples.getSamples());
+      assertEquals(samples.getLabels(), listSamples.getLabels());
+      assertEquals(samples.getThreadNames(), listSamples.getThreadNames());
+      assertEquals(samples.getEarliestMillis(), listSamples.getEarliestMillis());
+      assertEquals(samples.getLatestMillis(), listSamples.getLatestMillis());
+    }
+  }
+
+  @Test
+  public void testBuild_sameStartAndDuration() {
+    // Given samples which all start at the same time and take as long, and differ in every other
+    // field,
+    List<Sample> expected =
+        List.of(
+            Sample.of(0L, 10L, null, "1", "200", "OK", true, 1L, 1),
+            Sample.of(0L, 10L, "a", "1", "200", "OK", true, 1L, 1),
+            Sample.of(0L, 10L, "a", "2", "200", "OK", true, 1L, 1),
+            Sample.of(0L, 10L, "a", "2", "200", "OK", true, 2L, 1),
+            Sample.of(0L, 10L, "a", "2", "404", "Nope", true, 2L, 1),
+            Sample.of(0L, 10L, "a", "2", "404", "Not Found", true, 2L, 1),
+            Sample.of(0L, 10L, "a", "2", "404", "Not Found", false, 2L, 1),
+            Sample.of(0L, 10L, "a", "2", "404", "Not Found", false, 2L, 3));
+    List<Sample> shuffled = new ArrayList<>(expected);
+    Collections.shuffle(shuffled, new Random(7L));
+    OffHeapSamples.Builder builder = OffHeapSamples.builder(new OffHeapBudget(1L << 30));
+    shuffled.forEach(builder::add);
+
+    // When they are built,
+    try (OffHeapSamples samples = builder.build()) {
+      // Then they are in the same order as the samples themselves sort in.
+      List<Sample> sorted = new ArrayList<>(shuffled);
+      Collections.sort(sorted);
+      assertEquals(sorted, expected);
+      List<Sample> actuals = new ArrayList<>(samples.getSamples());
+      assertEquals(actuals, expected);
+      assertEquals(actuals.getFirst().getLabel(), null);
+      assertEquals(actuals.getLast().getTotalThreads(), 3);
+    }
+  }
+
+  @Test
+  public void testSpill() throws IOException {
+    // Given a budget with no room at all,
+    OffHeapBudget budget = new OffHeapBudget(0L);
+    Path spillDir = Files.createTempDirectory("spill");
+    try {
+      // When samples are added with somewhere to spill to,
+      OffHeapSamples.Builder builder = OffHeapSamples.builder(budget).spillTo(spillDir);
+      SyntheticSamples.builder().seed(5L).rows(1000).build().stream().forEach(builder::add);
+      try (OffHeapSamples samples = builder.build()) {
+        // Then they are spilled to files, and can still be read.
+        assertEquals(samples.getSpilledChunks(), 1);
+        assertEquals(samples.getReservedBytes(), 0L);
+        assertEquals(samples.getSamples().size(), 1000);
+        assertEquals(samples.offset(0), 0L);
+      }
+      // And the spill files are deleted once closed.
+      try (Stream<Path> files = Files.list(spillDir)) {
+        assertEquals(files.count(), 0L);
+      }
+    } finally {
+      Files.deleteIfExists(spillDir);
+    }
+  }
+
+  @Test
+  public void testBudgetUsedUp() {
+    // Given a budget with no room at all, and nowhere to spill to,
+    OffHeapBudget budget = new OffHeapBudget(0L);
+    try (OffHeapSamples.Builder builder = OffHeapSamples.builder(budget)) {
+      // When a sample is added,
+      // Then it fails.
+      assertThrows(
+          AppServerException.class,
+          () -> builder.add(Sample.of(1L, 1L, "a", "1", "200", "OK", true, 1L, 1)));
+    }
+  }
+
+  @Test
+  public void testCloseReleasesBudget() {
+    // Given off-heap samples,
+    OffHeapBudget budget = new OffHeapBudget(1L << 30);
+    OffHeapSamples samples =
+        OffHeapSamples.builder(budget)
+            .add(Sample.of(1L, 1L, "a", "1", "200", "OK", true, 1L, 1))
+            .build();
+    assertTrue(budget.getReservedBytes() > 0L);
+
+    // When they are closed, even more than once,
+    samples.close();
+    samples.close();
+
+    // Then the budget is given back, and the samples can no longer be read.
+    assertEquals(budget.getReservedBytes(), 0L);
+    assertThrows(IllegalStateException.class, () -> samples.duration(0));
+  }
+
+  @Test
+  public void testReserved() throws InterruptedException {
+    // Given memory reserved up front, more than is needed,
+    OffHeapBudget budget = new OffHeapBudget(1L << 30);
+    long reserved = budget.awaitReserve(1L << 24);
+    assertEquals(budget.getReservedBytes(), 1L << 24);
+
+    // When samples are built using it,
+    OffHeapSamples samples =
+        OffHeapSamples.builder(budget)
+            .reserved(reserved)
+            .add(Sample.of(1L, 1L, "a", "1", "200", "OK", true, 1L, 1))
+            .build();
+
+    // Then no more is reserved for them,
+    assertEquals(budget.getReservedBytes(), 1L << 24);
+    assertEquals(samples.getReservedBytes(), 1L << 24);
+
+    // and all of it is given back once they are closed.
+    samples.close();
+    assertEquals(budget.getReservedBytes(), 0L);
+  }
+
+  @Test
+  public void testReserved_neverBuilt() throws InterruptedException {
+    // Given memory reserved up front for a builder,
+    OffHeapBudget budget = new OffHeapBudget(1L << 20);
+    // (More than the whole budget was asked for, so all of it is reserved.)
+    long reserved = budget.awaitReserve(1L << 30);
+    assertEquals(reserved, 1L << 20);
+
+    // When the builder is closed without adding or building anything,
+    OffHeapSamples.builder(budget).reserved(reserved).close();
+
+    // Then the memory is given back.
+    assertEquals(budget.getReservedBytes(), 0L);
+  }
+}
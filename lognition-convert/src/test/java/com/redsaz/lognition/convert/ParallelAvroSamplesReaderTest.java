@@ -0,0 +1,171 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import com.redsaz.lognition.api.model.Sample;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Test decoding Avro sample files with several workers.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class ParallelAvroSamplesReaderTest {
+
+  private ExecutorService executor;
+
+  @BeforeClass
+  public void setUp() {
+    executor = ParallelAvroSamplesReader.newExecutor(4);
+  }
+
+  @AfterClass
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @DataProvider(name = "codecsDp", parallel = true)
+  public Object[][] codecsDp() {
+    return new Object[][] {{"null"}, {"deflate-6"}, {"zstandard-3"}};
+  }
+
+  @Test(dataProvider = "codecsDp")
+  public void testBlocks(String codec) throws IOException {
+    // Given samples written with small blocks,
+    try (TempContent temp = TempContent.withName("blocks", ".avro")) {
+      new AvroSamplesWriter(codec, 1024).write(synthetic(20000), temp.file());
+
+      // When the blocks are found,
+      List<ParallelAvroSamplesReader.Block> blocks = ParallelAvroSamplesReader.blocks(temp.path());
+
+      // Then there are many of them, and all of the rows are in them.
+      assertTrue(blocks.size() > 10);
+      assertEquals(blocks.stream().mapToLong(ParallelAvroSamplesReader.Block::rows).sum(), 20000L);
+    }
+  }
+
+  @Test(dataProvider = "codecsDp")
+  public void testOrderedSameAsSequential(String codec) throws IOException {
+    // Given samples written with small blocks,
+    try (TempContent temp = TempContent.withName("ordered", ".avro")) {
+      new AvroSamplesWriter(codec, 1024).write(synthetic(20000), temp.file());
+
+      // When they are read with several workers, keeping the order,
+      List<Sample> actuals;
+      try (Stream<Sample> stream =
+          ParallelAvroSamplesReader.orderedStream(temp.path(), executor, 4)) {
+        actuals = stream.toList();
+      }
+
+      // Then they are the same, in the same order, as reading them one at a time.
+      List<Sample> expecteds;
+      try (Stream<Sample> stream = AvroSamplesReader.sampleStream(temp.path())) {
+        expecteds = stream.toList();
+      }
+      assertEquals(actuals, expecteds);
+    }
+  }
+
+  @Test
+  public void testStreamsShareExecutor() throws IOException {
+    // Given samples written with small blocks, and an executor with only one thread,
+    ExecutorService single = ParallelAvroSamplesReader.newExecutor(1);
+    try (TempContent temp = TempContent.withName("shared", ".avro")) {
+      new AvroSamplesWriter(AvroSamplesWriter.DEFAULT_CODEC, 1024)
+          .write(synthetic(20000), temp.file());
+
+      // When two streams are read a bit at a time each, on the same thread,
+      List<Sample> firsts = new ArrayList<>();
+      List<Sample> seconds = new ArrayList<>();
+      try (Stream<Sample> first = ParallelAvroSamplesReader.orderedStream(temp.path(), single, 4);
+          Stream<Sample> second =
+              ParallelAvroSamplesReader.orderedStream(temp.path(), single, 4)) {
+        Iterator<Sample> firstIter = first.iterator();
+        Iterator<Sample> secondIter = second.iterator();
+        while (firstIter.hasNext() || secondIter.hasNext()) {
+          for (int i = 0; i < 100 && firstIter.hasNext(); ++i) {
+            firsts.add(firstIter.next());
+          }
+          for (int i = 0; i < 100 && secondIter.hasNext(); ++i) {
+            seconds.add(secondIter.next());
+          }
+        }
+      }
+
+      // Then neither stream holds up the other, and both have every sample in order.
+      List<Sample> expecteds;
+      try (Stream<Sample> stream = AvroSamplesReader.sampleStream(temp.path())) {
+        expecteds = stream.toList();
+      }
+      assertEquals(firsts, expecteds);
+      assertEquals(seconds, expecteds);
+    } finally {
+      single.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testCloseEarly() throws IOException {
+    // Given samples written with small blocks,
+    try (TempContent temp = TempContent.withName("early", ".avro")) {
+      new AvroSamplesWriter(AvroSamplesWriter.DEFAULT_CODEC, 1024)
+          .write(synthetic(20000), temp.file());
+
+      // When only some of them are read before the stream is closed,
+      try (Stream<Sample> stream =
+          ParallelAvroSamplesReader.orderedStream(temp.path(), executor, 4)) {
+        // Then the first ones are read and closing does not wait for the rest.
+        assertEquals(stream.limit(10).count(), 10L);
+      }
+    }
+  }
+
+  @Test
+  public void testCorruptBlock() throws IOException {
+    // Given a file where the end of the last block was cut off,
+    try (TempContent temp = TempContent.withName("corrupt", ".avro")) {
+      new AvroSamplesWriter().write(synthetic(2000), temp.file());
+      try (var channel = Files.newByteChannel(temp.path(), StandardOpenOption.WRITE)) {
+        channel.truncate(channel.size() - 4);
+      }
+
+      // When the blocks are found,
+      // Then the missing sync marker is noticed.
+      assertThrows(IOException.class, () -> ParallelAvroSamplesReader.blocks(temp.path()));
+    }
+  }
+
+  private static Samples synthetic(int rows) {
+    ListSamples.Builder builder = ListSamples.builder();
+    SyntheticSamples.builder().seed(2L).rows(rows).labels(5).build().stream().forEach(builder::add);
+    return builder.build();
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.convert;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+import com.redsaz.lognition.api.model.Sample;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.testng.annotations.Test;
+
+/**
+ * Test the synthetic samples generator.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class SyntheticSamplesTest {
+
+  @Test
+  public void testSameSeedSameFile() throws IOException {
+    // Given two generators with the same settings and seed, and one with a different seed,
+    SyntheticSamples.Builder builder =
+        SyntheticSamples.builder()
+            .rows(5000)
+            .labels(7)
+            .latency(SyntheticSamples.Latency.BIMODAL)
+            .outOfOrderMillis(50);
+    SyntheticSamples first = builder.seed(42L).build();
+    SyntheticSamples second = builder.seed(42L).build();
+    SyntheticSamples other = builder.seed(43L).build();
+
+    try (TempContent firstFile = TempContent.withName("first", ".jtl");
+        TempContent secondFile = TempContent.withName("second", ".jtl");
+        TempContent otherFile = TempContent.withName("other", ".jtl")) {
+      // When they are written,
+      String firstHash = first.writeJtl(firstFile.path());
+      String secondHash = second.writeJtl(secondFile.path());
+      String otherHash = other.writeJtl(otherFile.path());
+
+      // Then the same seed makes the same file, and a different seed makes a different one.
+      assertEquals(secondHash, firstHash);
+      assertNotEquals(otherHash, firstHash);
+    }
+  }
+
+  @Test
+  public void testJtlRoundTrip() throws IOException {
+    // Given a generator with a mix of status codes,
+    SyntheticSamples generator =
+        SyntheticSamples.builder()
+            .seed(7L)
+            .rows(2000)
+            .labels(5)
+            .threads(8)
+            .statusCodes(Map.of("200", 90.0, "404", 5.0, "503", 5.0))
+            .build();
+
+    try (TempContent jtl = TempContent.withName("synthetic", ".jtl")) {
+      // When it is written as a JTL and read back in,
+      generator.writeJtl(jtl.path());
+      Samples samples = CsvSamplesReader.readSamples(jtl.path());
+
+      // Then every row, label, and thread is there,
+      List<Sample> expected = generator.stream().toList();
+      assertEquals(samples.getSamples().size(), 2000);
+      assertEquals(samples.getLabels().size(), 5);
+      assertTrue(samples.getThreadNames().size() <= 8);
+      // and errors are the failed status codes.
+      long expectedErrors = expected.stream().filter(s -> !s.isSuccess()).count();
+      long actualErrors = samples.getSamples().stream().filter(s -> !s.isSuccess()).count();
+      assertEquals(actualErrors, expectedErrors);
+      assertTrue(expectedErrors > 0L, "Some samples should be errors.");
+      expected.stream()
+          .filter(s -> !s.isSuccess())
+          .map(Sample::getStatusCode)
+          .forEach(code -> assertTrue(code.equals("404") || code.equals("503"), code));
+    }
+  }
+
+  @Test
+  public void testLoadyRoundTrip() throws IOException {
+    // Given a generator with stalls,
+    SyntheticSamples generator =
+        SyntheticSamples.builder()
+            .seed(11L)
+            .rows(3000)
+            .callsPerSecond(10.0)
+            .latency(SyntheticSamples.Latency.STALLS)
+            .stalls(60_000L, 2_000L)
+            .build();
+
+    try (TempContent loady = TempContent.withName("synthetic", ".log")) {
+      // When it is written as a Loady log and read back in,
+      generator.writeLoady(loady.path());
+      Samples samples = CsvSamplesReader.readSamples(loady.path());
+
+      // Then every row is there, with the same durations,
+      assertEquals(samples.getSamples().size(), 3000);
+      long expectedTotal = generator.stream().mapToLong(Sample::getDuration).sum();
+      long actualTotal = samples.getSamples().stream().mapToLong(Sample::getDuration).sum();
+      assertEquals(actualTotal, expectedTotal);
+      // and samples started at the beginning of a stall wait for it to end.
+      Sample firstStarted = generator.stream().findFirst().orElseThrow();
+      assertTrue(firstStarted.getDuration() >= 2_000L);
+    }
+  }
+}
@@ -82,6 +82,8 @@ public class TempContent implements AutoCloseable {
   public void close() throws UncheckedIOException {
     try {
       Files.deleteIfExists(file);
+      // Avro sample files have their block index written next to them.
+      Files.deleteIfExists(AvroBlockIndex.pathFor(file));
     } catch (IOException ex) {
       throw new UncheckedIOException(ex);
     }
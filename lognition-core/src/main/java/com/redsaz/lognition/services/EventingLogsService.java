@@ -0,0 +1,136 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.services;
+
+import com.redsaz.lognition.api.LogsService;
+import com.redsaz.lognition.api.labelselector.LabelSelectorExpression;
+import com.redsaz.lognition.api.model.Attachment;
+import com.redsaz.lognition.api.model.Label;
+import com.redsaz.lognition.api.model.Log;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Does not directly store logs, but tells {@link LogEvents} listeners about status changes of logs
+ * once they are stored.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class EventingLogsService implements LogsService {
+
+  private final LogsService srv;
+  private final LogEvents events;
+
+  public EventingLogsService(LogsService logsService, LogEvents logEvents) {
+    srv = logsService;
+    events = logEvents;
+  }
+
+  @Override
+  public Log create(Log source) {
+    return srv.create(source);
+  }
+
+  @Override
+  public InputStream getCsvContent(long id) throws IOException {
+    return srv.getCsvContent(id);
+  }
+
+  @Override
+  public File getAvroFile(long id) throws FileNotFoundException {
+    return srv.getAvroFile(id);
+  }
+
+  @Override
+  public File getColumnarFile(long id) throws FileNotFoundException {
+    return srv.getColumnarFile(id);
+  }
+
+  @Override
+  public File getLabelPartitionsDir(long id) throws FileNotFoundException {
+    return srv.getLabelPartitionsDir(id);
+  }
+
+  @Override
+  public Log get(long id) {
+    return srv.get(id);
+  }
+
+  @Override
+  public List<Log> list() {
+    return srv.list();
+  }
+
+  @Override
+  public List<Long> listIdsBySelector(LabelSelectorExpression labelSelector) {
+    return srv.listIdsBySelector(labelSelector);
+  }
+
+  @Override
+  public Log update(Log source) {
+    return srv.update(source);
+  }
+
+  @Override
+  public void updateStatus(long id, Log.Status newStatus) {
+    srv.updateStatus(id, newStatus);
+    events.statusChanged(id, newStatus);
+  }
+
+  @Override
+  public void delete(long id) {
+    srv.delete(id);
+  }
+
+  @Override
+  public List<Label> setLabels(long logId, Collection<Label> labels) {
+    return srv.setLabels(logId, labels);
+  }
+
+  @Override
+  public List<Label> getLabels(long logId) {
+    return srv.getLabels(logId);
+  }
+
+  @Override
+  public Attachment putAttachment(long logId, Attachment source, InputStream data) {
+    return srv.putAttachment(logId, source, data);
+  }
+
+  @Override
+  public Attachment updateAttachment(long logId, Attachment source) {
+    return srv.updateAttachment(logId, source);
+  }
+
+  @Override
+  public List<Attachment> listAttachments(long logId) {
+    return srv.listAttachments(logId);
+  }
+
+  @Override
+  public InputStream getAttachmentData(long logId, String attachmentPath) {
+    return srv.getAttachmentData(logId, attachmentPath);
+  }
+
+  @Override
+  public void deleteAttachment(long logId, String attachmentPath) {
+    srv.deleteAttachment(logId, attachmentPath);
+  }
+}
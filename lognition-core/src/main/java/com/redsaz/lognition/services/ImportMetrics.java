@@ -0,0 +1,84 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.services;
+
+import java.util.Collection;
+
+/**
+ * Receives measurements of how imports are going, so that they can be published somewhere. Every
+ * method does nothing by default, so implementations only need to override what they care about.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public interface ImportMetrics {
+
+  /** Does not record anything. */
+  ImportMetrics NONE = new ImportMetrics() {};
+
+  /** The parts of an import that are timed separately. */
+  enum Phase {
+    /** Receiving the uploaded file and storing it. */
+    UPLOAD,
+    /** Reading the stored CSV into samples, including putting them in time order. */
+    PARSE,
+    /** Grouping the samples by label so that the stats of each label can be calculated. */
+    SORT,
+    /** Writing the samples to the Avro file. */
+    AVRO_WRITE,
+    /** Calculating the stats of one label, or of Overall. */
+    STATS,
+    /** Storing the stats of one label, or of Overall, in the database. */
+    PERSIST
+  }
+
+  /**
+   * Called once with the queue of imports waiting for their turn, so that its size can be watched.
+   *
+   * @param queue the queue, which will keep changing size
+   */
+  default void watchQueue(Collection<?> queue) {}
+
+  /**
+   * @param waitNanos how long an import waited in the queue before it started.
+   */
+  default void queueWait(long waitNanos) {}
+
+  /**
+   * @param phase which part of the import
+   * @param nanos how long that part took.
+   */
+  default void phase(Phase phase, long nanos) {}
+
+  /**
+   * Called when the samples of an import have been read and written.
+   *
+   * @param rows how many samples were read
+   * @param bytes how big the imported file was
+   * @param nanos how long it took to read and write them.
+   */
+  default void imported(long rows, long bytes, long nanos) {}
+
+  /**
+   * @param bytes the most heap that was used at any point during one import.
+   */
+  default void heapHighWater(long bytes) {}
+
+  /**
+   * @param phase the part of the import that failed
+   * @param cause why it failed.
+   */
+  default void failed(Phase phase, Throwable cause) {}
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.services;
+
+import com.redsaz.lognition.api.labelselector.LabelSelectorExpression;
+import com.redsaz.lognition.api.labelselector.LabelSelectorExpressionListener;
+import com.redsaz.lognition.api.model.Label;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A label selector compiled into a test of a single log, so that one log can be checked against a
+ * selector without asking the logs service for every log the selector matches. A log matches the
+ * same way as it does for {@link com.redsaz.lognition.api.LogsService#listIdsBySelector}: every
+ * term must match, the "id" label is the id of the log, and a selector without any terms matches
+ * nothing.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+class LabelSelectorPredicate {
+
+  /** Tests one term of the selector. */
+  @FunctionalInterface
+  private interface Term {
+    boolean test(long logId, Map<String, String> labels);
+  }
+
+  private final List<Term> terms;
+
+  private LabelSelectorPredicate(List<Term> terms) {
+    this.terms = terms;
+  }
+
+  /**
+   * @param selector the selector to compile
+   * @return a predicate matching the same logs as the selector.
+   */
+  static LabelSelectorPredicate compile(LabelSelectorExpression selector) {
+    Compiler compiler = new Compiler();
+    selector.consume(compiler);
+    return new LabelSelectorPredicate(List.copyOf(compiler.terms));
+  }
+
+  /**
+   * @param logId the log
+   * @param labels every label of the log
+   * @return true if the log matches the selector.
+   */
+  boolean test(long logId, Collection<Label> labels) {
+    Map<String, String> byKey = new HashMap<>();
+    for (Label label : labels) {
+      byKey.put(label.getKey(), label.getValue());
+    }
+    return test(logId, byKey);
+  }
+
+  /**
+   * @param logId the log
+   * @param labels every label value of the log, by key
+   * @return true if the log matches the selector.
+   */
+  boolean test(long logId, Map<String, String> labels) {
+    if (terms.isEmpty()) {
+      return false;
+    }
+    for (Term term : terms) {
+      if (!term.test(logId, labels)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static class Compiler implements LabelSelectorExpressionListener {
+
+    private final List<Term> terms = new ArrayList<>();
+
+    @Override
+    public void in(String labelName, List<String> labelValues) {
+      Set<String> values = new HashSet<>(labelValues);
+      if ("id".equals(labelName)) {
+        terms.add((logId, labels) -> values.contains(Long.toString(logId)));
+      } else {
+        terms.add((logId, labels) -> values.contains(labels.get(labelName)));
+      }
+    }
+
+    @Override
+    public void notIn(String labelName, List<String> labelValues) {
+      Set<String> values = new HashSet<>(labelValues);
+      if ("id".equals(labelName)) {
+        terms.add((logId, labels) -> !values.contains(Long.toString(logId)));
+      } else {
+        // Only the logs which have the label, but with another value.
+        terms.add(
+            (logId, labels) -> {
+              String value = labels.get(labelName);
+              return value != null && !values.contains(value);
+            });
+      }
+    }
+
+    @Override
+    public void exists(String labelName) {
+      if ("id".equals(labelName)) {
+        // All logs have ids, so this does not narrow anything.
+        return;
+      }
+      terms.add((logId, labels) -> labels.containsKey(labelName));
+    }
+
+    @Override
+    public void notExists(String labelName) {
+      if ("id".equals(labelName)) {
+        return;
+      }
+      terms.add((logId, labels) -> !labels.containsKey(labelName));
+    }
+
+    @Override
+    public void equals(String labelName, String labelValue) {
+      in(labelName, List.of(labelValue));
+    }
+
+    @Override
+    public void notEquals(String labelName, String labelValue) {
+      notIn(labelName, List.of(labelValue));
+    }
+  }
+}
@@ -0,0 +1,525 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redsaz.lognition.api.LogsService;
+import com.redsaz.lognition.api.StatsService;
+import com.redsaz.lognition.api.exceptions.AppClientException;
+import com.redsaz.lognition.api.exceptions.AppServerException;
+import com.redsaz.lognition.api.exceptions.NotFoundException;
+import com.redsaz.lognition.api.model.Log;
+import com.redsaz.lognition.api.model.Sample;
+import com.redsaz.lognition.convert.AvroBlockIndex;
+import com.redsaz.lognition.convert.AvroSamplesWriter;
+import com.redsaz.lognition.convert.CsvSamplesReader;
+import com.redsaz.lognition.convert.CsvSamplesReader.CsvSourceType;
+import com.redsaz.lognition.convert.Csvs;
+import com.redsaz.lognition.convert.ListSamples;
+import com.redsaz.lognition.stats.LiveStats;
+import com.univocity.parsers.csv.CsvParser;
+import com.univocity.parsers.csv.CsvParserSettings;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Takes samples of a test while it is still running. The rows are in the same column layout that
+ * {@link CsvSamplesReader} accepts, either as CSV (with a header row) or as NDJSON objects whose
+ * keys are the column names. The log is kept in the {@link Log.Status#RUNNING} status until it is
+ * finished, at which point it is queued with the {@link ProcessorImportService} and imported like
+ * any other log.
+ *
+ * <p>While running, rows are written into rolling Avro segment files so that they are not all held
+ * in memory, and are folded into {@link LiveStats} which are written into the stats tables on a
+ * fixed cadence.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class LiveIngestService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LiveIngestService.class);
+  static final long DEFAULT_FLUSH_MILLIS = 5000L;
+  static final int DEFAULT_SEGMENT_MAX_ROWS = 500_000;
+  static final long DEFAULT_SEGMENT_MAX_MILLIS = 60000L;
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final LogsService logsSrv;
+  private final StatsService statsSrv;
+  private final ProcessorImportService importSrv;
+  private final String convertedDir;
+  private final int segmentMaxRows;
+  private final long segmentMaxMillis;
+  private final AvroSamplesWriter avroWriter;
+  private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService flusher;
+
+  /** The format of the rows streamed in. */
+  public enum Format {
+    /** Comma separated values, where the first row of the first chunk is the header row. */
+    CSV,
+    /** Newline delimited JSON objects, one row per object, keyed by column name. */
+    NDJSON
+  }
+
+  public LiveIngestService(
+      LogsService logsService,
+      StatsService statsService,
+      ProcessorImportService importService,
+      String convertedDirectory) {
+    this(
+        logsService,
+        statsService,
+        importService,
+        convertedDirectory,
+        DEFAULT_FLUSH_MILLIS,
+        DEFAULT_SEGMENT_MAX_ROWS,
+        DEFAULT_SEGMENT_MAX_MILLIS);
+  }
+
+  public LiveIngestService(
+      LogsService logsService,
+      StatsService statsService,
+      ProcessorImportService importService,
+      String convertedDirectory,
+      long flushMillis,
+      int segmentRows,
+      long segmentMillis) {
+    this(
+        logsService,
+        statsService,
+        importService,
+        convertedDirectory,
+        flushMillis,
+        segmentRows,
+        segmentMillis,
+        new AvroSamplesWriter());
+  }
+
+  /**
+   * @param importService imports the segments of finished logs, writing the log's data file.
+   * @param avroSamplesWriter writes the rolling segments while the log is running.
+   */
+  public LiveIngestService(
+      LogsService logsService,
+      StatsService statsService,
+      ProcessorImportService importService,
+      String convertedDirectory,
+      long flushMillis,
+      int segmentRows,
+      long segmentMillis,
+      AvroSamplesWriter avroSamplesWriter) {
+    logsSrv = logsService;
+    statsSrv = statsService;
+    importSrv = importService;
+    convertedDir = convertedDirectory;
+    segmentMaxRows = segmentRows;
+    segmentMaxMillis = segmentMillis;
+    avroWriter = avroSamplesWriter;
+    flusher =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread t = new Thread(r, "LiveStatsFlusher-" + System.identityHashCode(this));
+              t.setDaemon(true);
+              return t;
+            });
+    flusher.scheduleWithFixedDelay(this::flushAll, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Puts the log into the running status, ready to receive rows.
+   *
+   * @param logId the log to receive rows for
+   */
+  public void start(long logId) {
+    logsSrv.updateStatus(logId, Log.Status.RUNNING);
+    sessions.computeIfAbsent(logId, this::createSession);
+    LOGGER.info("Started live log id={}.", logId);
+  }
+
+  /**
+   * Appends rows to a running log. The CSV header row only needs to be sent in the first chunk, but
+   * if it is repeated at the start of later chunks it is skipped.
+   *
+   * @param logId the running log
+   * @param body the rows
+   * @param format how the rows are formatted
+   * @return the number of rows that were appended.
+   * @throws IOException if the body could not be read
+   */
+  public long append(long logId, InputStream body, Format format) throws IOException {
+    Session session = session(logId);
+    BufferedReader reader =
+        new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+    return switch (format) {
+      case CSV -> session.appendCsv(reader);
+      case NDJSON -> session.appendNdjson(reader);
+    };
+  }
+
+  /**
+   * @param logId the log to check
+   * @return true if the log has a live session in this service.
+   */
+  public boolean isRunning(long logId) {
+    return sessions.containsKey(logId);
+  }
+
+  /**
+   * @param logId the running log
+   * @return the in-memory stats of the running log, or null if the log is not running.
+   */
+  public LiveStats getLiveStats(long logId) {
+    Session session = sessions.get(logId);
+    if (session == null) {
+      return null;
+    }
+    return session.stats;
+  }
+
+  /**
+   * Stops accepting rows for the log, and queues its segments to be combined into the log's data
+   * file, with the full stats calculated the same as an uploaded log. The segments are deleted once
+   * they are imported.
+   *
+   * @param logId the running log
+   */
+  public void finish(long logId) {
+    Session session = session(logId);
+    sessions.remove(logId);
+    synchronized (session) {
+      // Keep the flusher from writing live stats over the full stats.
+      session.finished = true;
+      List<Path> segments;
+      try {
+        session.rollSegment();
+        segments = session.listSegments();
+      } catch (IOException | RuntimeException ex) {
+        logsSrv.updateStatus(logId, Log.Status.IMPORT_FAILED);
+        LOGGER.error("Could not finish live log id=" + logId, ex);
+        return;
+      }
+      // The live labels are numbered in the order they were seen, but the imported labels are
+      // sorted, so creating the imported labels removes the live labels and all of their stats,
+      // the per-second timeseries included, before the full stats are stored.
+      importSrv.importLive(
+          logId,
+          segments,
+          session.stats.getNumSamples(),
+          session.sourceType == CsvSourceType.LOADY,
+          () -> {
+            try {
+              session.deleteSegments();
+            } catch (IOException ex) {
+              LOGGER.error("Could not delete live segments of log id=" + logId, ex);
+            }
+          });
+      LOGGER.info("...queued finished live log id={} for import.", logId);
+    }
+  }
+
+  /**
+   * Stops accepting rows for the log and deletes its segments, without importing them. Used when a
+   * log is deleted while it is still running. Does nothing if the log is not running.
+   *
+   * @param logId the log to discard
+   */
+  public void discard(long logId) {
+    Session session = sessions.remove(logId);
+    if (session == null) {
+      // The log may have been running before a restart, and only have its segments left.
+      Path segmentDir = segmentDir(logId);
+      if (!Files.isDirectory(segmentDir)) {
+        return;
+      }
+      session = new Session(logId, segmentDir);
+    }
+    synchronized (session) {
+      session.finished = true;
+      session.segment = null;
+      try {
+        session.deleteSegments();
+        LOGGER.info("Discarded live log id={}.", logId);
+      } catch (IOException ex) {
+        LOGGER.error("Could not delete live segments of log id=" + logId, ex);
+      }
+    }
+  }
+
+  /**
+   * Stops the periodic stats updates and writes any rows still in memory to segments. The logs are
+   * left as running, so that rows can continue to be appended after a restart.
+   */
+  public void shutdown() {
+    flusher.shutdown();
+    for (Session session : sessions.values()) {
+      synchronized (session) {
+        try {
+          session.rollSegment();
+        } catch (IOException ex) {
+          LOGGER.error("Could not write live segment for log id=" + session.logId, ex);
+        }
+      }
+    }
+  }
+
+  private Session session(long logId) {
+    Session session = sessions.get(logId);
+    if (session != null) {
+      return session;
+    }
+    Log log = logsSrv.get(logId);
+    if (log == null) {
+      throw new NotFoundException("Could not find logId=" + logId);
+    } else if (log.getStatus() != Log.Status.RUNNING) {
+      throw new AppClientException("Log id=" + logId + " is not running.");
+    }
+    // The log was running before a restart. Its segments are still there, so keep going.
+    return sessions.computeIfAbsent(logId, this::createSession);
+  }
+
+  private Session createSession(long logId) {
+    Path segmentDir = segmentDir(logId);
+    try {
+      Files.createDirectories(segmentDir);
+    } catch (IOException ex) {
+      throw new AppServerException("Could not create directories for " + segmentDir + "!", ex);
+    }
+    return new Session(logId, segmentDir);
+  }
+
+  private Path segmentDir(long logId) {
+    return Path.of(convertedDir, String.format("%d-live", logId));
+  }
+
+  /** Writes the newest stats of every running log, and rolls any segments that are old enough. */
+  void flushAll() {
+    for (Session session : sessions.values()) {
+      try {
+        synchronized (session) {
+          if (session.finished) {
+            continue;
+          }
+          session.flushStats();
+          if (session.segmentAgeMillis() >= segmentMaxMillis) {
+            session.rollSegment();
+          }
+        }
+      } catch (Exception ex) {
+        LOGGER.error("Could not update live stats for log id=" + session.logId, ex);
+      }
+    }
+  }
+
+  private class Session {
+    private final long logId;
+    private final Path segmentDir;
+    private final LiveStats stats = new LiveStats();
+    private final Set<String> threadNames = new HashSet<>();
+    private List<String> headers;
+    private CsvSourceType sourceType;
+    private Csvs.Deserializer<Sample> deserializer;
+    private ListSamples.Builder segment;
+    private int segmentRows;
+    private long segmentStartedMillis;
+    private int segmentNum;
+    private long flushedVersion;
+    private int flushedLabels;
+    private boolean finished;
+
+    Session(long id, Path dir) {
+      logId = id;
+      segmentDir = dir;
+      segmentNum = listSegments().size();
+    }
+
+    synchronized long appendCsv(BufferedReader reader) throws IOException {
+      CsvParser parser = new CsvParser(new CsvParserSettings());
+      parser.beginParsing(reader);
+      try {
+        long count = 0;
+        String[] row = parser.parseNext();
+        if (row == null) {
+          return 0;
+        }
+        if (headers == null) {
+          useHeaders(Arrays.asList(row));
+        } else if (!Arrays.asList(row).equals(headers)) {
+          count += appendRow(row);
+        }
+        while ((row = parser.parseNext()) != null) {
+          count += appendRow(row);
+        }
+        return count;
+      } finally {
+        parser.stopParsing();
+      }
+    }
+
+    synchronized long appendNdjson(BufferedReader reader) throws IOException {
+      long count = 0;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isBlank()) {
+          continue;
+        }
+        JsonNode node = MAPPER.readTree(line);
+        if (!node.isObject()) {
+          LOGGER.debug("Skipping row, not a JSON object: {}", line);
+          continue;
+        }
+        if (headers == null) {
+          List<String> names = new ArrayList<>();
+          Iterator<String> fieldNames = node.fieldNames();
+          fieldNames.forEachRemaining(names::add);
+          useHeaders(names);
+        }
+        String[] row = new String[headers.size()];
+        for (int i = 0; i < row.length; ++i) {
+          JsonNode value = node.get(headers.get(i));
+          row[i] = value == null || value.isNull() ? null : value.asText();
+        }
+        count += appendRow(row);
+      }
+      return count;
+    }
+
+    private void useHeaders(List<String> newHeaders) {
+      headers = List.copyOf(newHeaders);
+      sourceType = CsvSamplesReader.sourceTypeFor(headers);
+      deserializer = sourceType.apply(headers);
+    }
+
+    private int appendRow(String[] row) throws IOException {
+      try (Stream<Sample> samples = deserializer.apply(row)) {
+        Iterator<Sample> iter = samples.iterator();
+        int count = 0;
+        while (iter.hasNext()) {
+          append(iter.next());
+          ++count;
+        }
+        return count;
+      }
+    }
+
+    private void append(Sample sample) throws IOException {
+      if (finished) {
+        throw new AppClientException("Log id=" + logId + " is no longer running.");
+      }
+      if (sourceType == CsvSourceType.LOADY) {
+        // Loady has a constant number of threads, so use the count of the threads seen so far.
+        // The count is corrected when the log is finished.
+        threadNames.add(sample.getThreadName());
+        sample.setTotalThreads(threadNames.size());
+      }
+      // The stats must see the sample before the segment does, because the segment rebases the
+      // offset of the sample.
+      stats.add(sample);
+      if (segment == null) {
+        segment = ListSamples.builder();
+        segmentStartedMillis = System.currentTimeMillis();
+      }
+      segment.add(sample);
+      ++segmentRows;
+      if (segmentRows >= segmentMaxRows) {
+        rollSegment();
+      }
+    }
+
+    long segmentAgeMillis() {
+      if (segment == null) {
+        return 0L;
+      }
+      return System.currentTimeMillis() - segmentStartedMillis;
+    }
+
+    void rollSegment() throws IOException {
+      if (segment == null) {
+        return;
+      }
+      ++segmentNum;
+      File segmentFile =
+          segmentDir.resolve(String.format("segment-%06d.avro", segmentNum)).toFile();
+      avroWriter.write(segment.build(), segmentFile);
+      LOGGER.debug("Wrote {} rows to live segment {}.", segmentRows, segmentFile);
+      segment = null;
+      segmentRows = 0;
+    }
+
+    void flushStats() {
+      long version = stats.getVersion();
+      if (version == flushedVersion) {
+        return;
+      }
+      List<String> labels = stats.getLabels();
+      // Labels are only ever added to the end, so the ids of the labels already stored stay the
+      // same. Creating the labels removes the stats stored so far, which are all written again.
+      if (labels.size() != flushedLabels) {
+        statsSrv.createSampleLabels(logId, labels);
+        flushedLabels = labels.size();
+      }
+      for (int labelId = 0; labelId < labels.size(); ++labelId) {
+        statsSrv.createOrUpdateAggregate(logId, labelId, stats.getAggregate(labelId));
+        statsSrv.createOrUpdateTimeseries(
+            logId, labelId, stats.getTimeseries(labelId, LiveStats.MINUTE_SPAN_MILLIS));
+        statsSrv.createOrUpdateTimeseries(
+            logId, labelId, stats.getTimeseries(labelId, LiveStats.SECOND_SPAN_MILLIS));
+      }
+      statsSrv.statsChanged(logId);
+      flushedVersion = version;
+    }
+
+    void deleteSegments() throws IOException {
+      for (Path segmentFile : listSegments()) {
+        Files.deleteIfExists(segmentFile);
+        Files.deleteIfExists(AvroBlockIndex.pathFor(segmentFile));
+      }
+      Files.deleteIfExists(segmentDir);
+    }
+
+    private List<Path> listSegments() {
+      try (Stream<Path> files = Files.list(segmentDir)) {
+        return files
+            .filter(p -> p.getFileName().toString().startsWith("segment-"))
+            .filter(p -> p.getFileName().toString().endsWith(".avro"))
+            .sorted()
+            .toList();
+      } catch (IOException ex) {
+        throw new AppServerException("Could not list live segments in " + segmentDir, ex);
+      }
+    }
+  }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.services;
+
+import com.redsaz.lognition.api.model.Log;
+import com.redsaz.lognition.api.model.Stats;
+import com.redsaz.lognition.stats.LiveStats;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pushes what is happening to a log (status changes, import progress, and the newest live stats)
+ * to anyone watching it.
+ *
+ * <p>Events are not sent the moment they happen. Instead, they are gathered per log and sent as one
+ * batch per tick to every listener of that log, so that many viewers and many rapid changes do not
+ * each cost their own work. Status changes are all kept, since each transition matters, but only
+ * the latest progress is kept. Live stats are read from memory, and only when they have changed.
+ * Each listener is sent the bins it has not been sent yet, so someone who starts watching a running
+ * log part way through is sent every bin so far. Events for logs that nobody is watching are
+ * dropped.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class LogEvents {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LogEvents.class);
+  private static final long DEFAULT_TICK_MILLIS = 1000L;
+  // How many ticks without any events before listeners are sent an empty batch, which lets them
+  // find out if whoever they are sending to has gone away.
+  private static final int KEEPALIVE_TICKS = 15;
+
+  private final long tickMillis;
+  private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+  private volatile LongFunction<LiveStats> liveStatsSource = logId -> null;
+  private ScheduledExecutorService ticker;
+
+  /** Something that happened to a log. */
+  public sealed interface LogEvent permits StatusEvent, ProgressEvent, StatsEvent {
+    /**
+     * @return the name of the kind of event.
+     */
+    String type();
+
+    long logId();
+  }
+
+  /** The log changed status. */
+  public record StatusEvent(long logId, Log.Status status) implements LogEvent {
+    @Override
+    public String type() {
+      return "status";
+    }
+  }
+
+  /**
+   * How far along an import is.
+   *
+   * @param logId the log being imported
+   * @param rowsParsed rows read so far
+   * @param bytesConsumed bytes read so far
+   * @param totalBytes bytes to read in total
+   * @param etaMillis estimated time remaining to read everything, or -1 if unknown.
+   */
+  public record ProgressEvent(
+      long logId, long rowsParsed, long bytesConsumed, long totalBytes, long etaMillis)
+      implements LogEvent {
+    @Override
+    public String type() {
+      return "progress";
+    }
+  }
+
+  /**
+   * The newest bins of the timeseries of a running log. The bins replace any bins already seen at
+   * the same positions, since the newest bin will usually still be filling up.
+   *
+   * @param logId the running log
+   * @param spanMillis the span of each bin
+   * @param fromBin the position of the first bin in the lists
+   * @param labels the labels of the log, where index 0 is "Overall"
+   * @param bins for each label, the bins from fromBin onward
+   */
+  public record StatsEvent(
+      long logId, long spanMillis, int fromBin, List<String> labels, List<List<Stats>> bins)
+      implements LogEvent {
+    @Override
+    public String type() {
+      return "stats";
+    }
+  }
+
+  /** Stops a listener from receiving any more events. */
+  @FunctionalInterface
+  public interface Subscription extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  public LogEvents() {
+    this(DEFAULT_TICK_MILLIS);
+  }
+
+  public LogEvents(long tickMillis) {
+    this.tickMillis = tickMillis;
+  }
+
+  /**
+   * Sets where the in-memory stats of running logs come from.
+   *
+   * @param source gives the live stats for a log id, or null if the log is not running.
+   */
+  public void setLiveStatsSource(LongFunction<LiveStats> source) {
+    liveStatsSource = source;
+  }
+
+  /**
+   * Listens for the events of a log. The listener receives each batch of events on the tick thread,
+   * so it should not block for long. If it throws, it is unsubscribed. When nothing has happened
+   * for a while, the listener receives an empty batch.
+   *
+   * @param logId the log to listen to
+   * @param listener receives batches of events, in the order they happened
+   * @return the subscription, close it to stop listening.
+   */
+  public Subscription subscribe(long logId, Consumer<List<LogEvent>> listener) {
+    startTicking();
+    Channel channel = channels.computeIfAbsent(logId, Channel::new);
+    Listener subscriber = new Listener(listener);
+    channel.listeners.add(subscriber);
+    return () -> unsubscribe(logId, subscriber);
+  }
+
+  public void statusChanged(long logId, Log.Status status) {
+    Channel channel = channels.get(logId);
+    if (channel != null) {
+      channel.addStatus(new StatusEvent(logId, status));
+    }
+  }
+
+  public void progress(long logId, long rowsParsed, long bytesConsumed, long totalBytes, long eta) {
+    Channel channel = channels.get(logId);
+    if (channel != null) {
+      channel.setProgress(new ProgressEvent(logId, rowsParsed, bytesConsumed, totalBytes, eta));
+    }
+  }
+
+  public void shutdown() {
+    synchronized (this) {
+      if (ticker != null) {
+        ticker.shutdown();
+      }
+    }
+    channels.clear();
+  }
+
+  private synchronized void startTicking() {
+    if (ticker != null) {
+      return;
+    }
+    ticker =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread t = new Thread(r, "LogEvents-" + System.identityHashCode(this));
+              t.setDaemon(true);
+              return t;
+            });
+    ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private void unsubscribe(long logId, Listener listener) {
+    channels.computeIfPresent(
+        logId,
+        (id, channel) -> {
+          channel.listeners.remove(listener);
+          return channel.listeners.isEmpty() ? null : channel;
+        });
+  }
+
+  private void tick() {
+    for (Channel channel : channels.values()) {
+      try {
+        List<LogEvent> events = channel.drain();
+        LiveStats liveStats = liveStatsSource.apply(channel.logId);
+        // Any listener which subscribes after this is sent its events on the next tick.
+        List<Listener> listeners = List.copyOf(channel.listeners);
+        // Listeners which subscribed later have been sent fewer bins, but most listeners will have
+        // been sent the same bins, so the stats from each starting bin are only read once.
+        Map<Integer, StatsEvent> statsFromBin = new HashMap<>();
+        List<List<LogEvent>> batches = new ArrayList<>(listeners.size());
+        boolean idle = true;
+        for (Listener listener : listeners) {
+          List<LogEvent> batch = new ArrayList<>(events.size() + 1);
+          batch.addAll(events);
+          if (liveStats != null && liveStats.getVersion() != listener.statsVersion) {
+            batch.add(listener.newestStats(liveStats, statsFromBin, channel.logId));
+          }
+          idle &= batch.isEmpty();
+          batches.add(batch);
+        }
+        if (idle && ++channel.idleTicks < KEEPALIVE_TICKS) {
+          continue;
+        }
+        channel.idleTicks = 0;
+        for (int i = 0; i < listeners.size(); ++i) {
+          Listener listener = listeners.get(i);
+          List<LogEvent> batch = batches.get(i);
+          if (batch.isEmpty() && !idle) {
+            continue;
+          }
+          try {
+            listener.consumer.accept(batch);
+          } catch (RuntimeException ex) {
+            LOGGER.debug("Unsubscribing listener of log id={} because: {}", channel.logId, ex);
+            unsubscribe(channel.logId, listener);
+          }
+        }
+      } catch (RuntimeException ex) {
+        LOGGER.error("Could not send events for log id=" + channel.logId, ex);
+      }
+    }
+  }
+
+  private static class Channel {
+    private final long logId;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final List<StatusEvent> statuses = new ArrayList<>();
+    private ProgressEvent progress;
+    private int idleTicks;
+
+    Channel(long id) {
+      logId = id;
+    }
+
+    synchronized void addStatus(StatusEvent event) {
+      statuses.add(event);
+    }
+
+    synchronized void setProgress(ProgressEvent event) {
+      progress = event;
+    }
+
+    synchronized List<LogEvent> drain() {
+      List<LogEvent> batch = new ArrayList<>(statuses.size() + 1);
+      batch.addAll(statuses);
+      statuses.clear();
+      if (progress != null) {
+        batch.add(progress);
+        progress = null;
+      }
+      return batch;
+    }
+  }
+
+  /** A listener, and how much of the live stats it has been sent. Only used by the tick thread. */
+  private static class Listener {
+    private final Consumer<List<LogEvent>> consumer;
+    private long statsVersion = -1L;
+    private int sentBins;
+
+    Listener(Consumer<List<LogEvent>> listenerConsumer) {
+      consumer = listenerConsumer;
+    }
+
+    StatsEvent newestStats(LiveStats liveStats, Map<Integer, StatsEvent> statsFromBin, long id) {
+      statsVersion = liveStats.getVersion();
+      // The last bin sent may have filled up some more since then, so send it again. A listener
+      // that has not been sent anything yet is sent every bin.
+      int fromBin = Math.max(0, sentBins - 1);
+      StatsEvent event =
+          statsFromBin.computeIfAbsent(fromBin, bin -> statsFrom(liveStats, bin, id));
+      // Overall has every bin, so it tells how many bins have been sent.
+      sentBins = fromBin + event.bins().get(0).size();
+      return event;
+    }
+
+    private static StatsEvent statsFrom(LiveStats liveStats, int fromBin, long logId) {
+      List<String> labels = liveStats.getLabels();
+      List<List<Stats>> bins = new ArrayList<>(labels.size());
+      for (int labelId = 0; labelId < labels.size(); ++labelId) {
+        bins.add(
+            liveStats
+                .getTimeseries(labelId, LiveStats.MINUTE_SPAN_MILLIS, fromBin)
+                .getStatsList());
+      }
+      return new StatsEvent(logId, LiveStats.MINUTE_SPAN_MILLIS, fromBin, labels, bins);
+    }
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads something for each of many logs at the same time, such as the stats of every log in a
+ * review. Each log is loaded on its own virtual thread, since loading is mostly waiting on the
+ * database, but only so many are loaded at once so that they do not take every database connection
+ * away from everything else.
+ *
+ * <p>A log which fails to load, or takes too long, does not fail the rest. It gets the fallback
+ * instead, so that the other logs can still be shown. Each log has the same time to load, counted
+ * from when it starts loading rather than from when it was asked for, so that the logs at the end
+ * of a long list are not left out only for having waited their turn.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class ParallelLogLoader {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ParallelLogLoader.class);
+  public static final long DEFAULT_TIMEOUT_MILLIS = 30_000L;
+
+  private final int maxConcurrent;
+  private final Semaphore permits;
+  private final long timeoutMillis;
+
+  /**
+   * @param maxConcurrent the most logs to load at once
+   * @param timeoutMillis how long to wait for each log to load, once it has started loading, after
+   *     which it gets the fallback
+   */
+  public ParallelLogLoader(int maxConcurrent, long timeoutMillis) {
+    if (maxConcurrent < 1) {
+      throw new IllegalArgumentException("Must be able to load at least one log at a time.");
+    }
+    this.maxConcurrent = maxConcurrent;
+    permits = new Semaphore(maxConcurrent);
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * Loads each log, at the same time as the others.
+   *
+   * @param <T> what is loaded for a log
+   * @param logIds the logs to load
+   * @param loader loads one log
+   * @param fallback used for any log which could not be loaded in time
+   * @return what was loaded for each log, in the same order as the logs.
+   */
+  public <T> List<T> load(List<Long> logIds, LongFunction<T> loader, T fallback) {
+    List<T> results = new ArrayList<>(logIds.size());
+    ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    try {
+      List<Load<T>> loads = new ArrayList<>(logIds.size());
+      for (long logId : logIds) {
+        Load<T> load = new Load<>(logId);
+        load.future = executor.submit(() -> loadOne(load, loader));
+        loads.add(load);
+      }
+      // Waiting to start is only as long as every log ahead of it taking its full time. It is
+      // bounded anyway, in case a log which took too long does not stop when told to.
+      long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+      long maxWaitNanos = timeoutNanos * (logIds.size() / maxConcurrent + 1);
+      long waitDeadlineNanos = System.nanoTime() + maxWaitNanos;
+      for (Load<T> load : loads) {
+        results.add(await(load, waitDeadlineNanos, timeoutNanos, fallback));
+      }
+    } finally {
+      // Not close(), which would wait for any log that took too long to finally finish.
+      executor.shutdownNow();
+    }
+    return results;
+  }
+
+  private <T> T loadOne(Load<T> load, LongFunction<T> loader) throws InterruptedException {
+    try {
+      permits.acquire();
+    } finally {
+      load.startNanos = System.nanoTime();
+      load.started.countDown();
+    }
+    try {
+      return loader.apply(load.logId);
+    } finally {
+      permits.release();
+    }
+  }
+
+  private static <T> T await(Load<T> load, long waitDeadlineNanos, long timeoutNanos, T fallback) {
+    try {
+      long waitNanos = Math.max(0L, waitDeadlineNanos - System.nanoTime());
+      if (!load.started.await(waitNanos, TimeUnit.NANOSECONDS)) {
+        throw new TimeoutException();
+      }
+      long loadNanos = Math.max(0L, load.startNanos + timeoutNanos - System.nanoTime());
+      return load.future.get(loadNanos, TimeUnit.NANOSECONDS);
+    } catch (TimeoutException ex) {
+      load.future.cancel(true);
+      LOGGER.warn("Took too long to load log_id={}, leaving it out.", load.logId);
+    } catch (ExecutionException ex) {
+      LOGGER.error("Could not load log_id=" + load.logId + ", leaving it out.", ex.getCause());
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      load.future.cancel(true);
+    }
+    return fallback;
+  }
+
+  /** The loading of one log. */
+  private static class Load<T> {
+    private final long logId;
+    private final CountDownLatch started = new CountDownLatch(1);
+    // Set before started counts down, so is seen by anything which waited for it.
+    private long startNanos;
+    private Future<T> future;
+
+    Load(long logId) {
+      this.logId = logId;
+    }
+  }
+}
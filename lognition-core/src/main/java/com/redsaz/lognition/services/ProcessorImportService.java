@@ -19,28 +19,41 @@ import com.redsaz.lognition.api.ImportService;
 import com.redsaz.lognition.api.LogsService;
 import com.redsaz.lognition.api.StatsService;
 import com.redsaz.lognition.api.model.CodeCounts;
+import com.redsaz.lognition.api.model.EncodedHistograms;
 import com.redsaz.lognition.api.model.ImportInfo;
 import com.redsaz.lognition.api.model.Log;
+import com.redsaz.lognition.api.model.Percentiles;
 import com.redsaz.lognition.api.model.Sample;
 import com.redsaz.lognition.api.model.Stats;
 import com.redsaz.lognition.api.model.Timeseries;
+import com.redsaz.lognition.convert.AvroSamplesReader;
 import com.redsaz.lognition.convert.AvroSamplesWriter;
 import com.redsaz.lognition.convert.CsvSamplesReader;
+import com.redsaz.lognition.convert.ListSamples;
+import com.redsaz.lognition.convert.OffHeapBudget;
+import com.redsaz.lognition.convert.OffHeapSamples;
+import com.redsaz.lognition.convert.SampleColumns;
 import com.redsaz.lognition.convert.Samples;
 import com.redsaz.lognition.convert.SamplesWriter;
-import com.redsaz.lognition.stats.StatsBuilder;
+import com.redsaz.lognition.stats.MergeableStats;
+import com.redsaz.lognition.stats.PercentileCurves;
 import com.redsaz.lognition.stats.StatsBuilder.StatsItems;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,11 +72,16 @@ public class ProcessorImportService implements ImportService {
   private static final Logger LOGGER = LoggerFactory.getLogger(ProcessorImportService.class);
   private static final long OVERALL_LABEL_ID = 0; // label ID for "Overall" category.
   private static final long DEFAULT_SPAN_MILLIS = 60000L;
+  // The moving stats are of the last five minutes, every ten seconds.
+  private static final long MOVING_STEP_MILLIS = 10000L;
+  private static final long MOVING_WINDOW_MILLIS = 300000L;
 
   private final ImportService srv;
   private final LogsService logsSrv;
   private final StatsService statsSrv;
   private final String convertedDir;
+  private final ImportMetrics metrics;
+  private final Path spillDir;
   private final Importer importer;
   private final Thread importerThread;
 
@@ -72,11 +90,78 @@ public class ProcessorImportService implements ImportService {
       LogsService logsService,
       StatsService statsService,
       String convertedDirectory) {
+    this(importService, logsService, statsService, convertedDirectory, new LogEvents());
+  }
+
+  public ProcessorImportService(
+      ImportService importService,
+      LogsService logsService,
+      StatsService statsService,
+      String convertedDirectory,
+      LogEvents logEvents) {
+    this(
+        importService,
+        logsService,
+        statsService,
+        convertedDirectory,
+        logEvents,
+        ImportMetrics.NONE);
+  }
+
+  public ProcessorImportService(
+      ImportService importService,
+      LogsService logsService,
+      StatsService statsService,
+      String convertedDirectory,
+      LogEvents logEvents,
+      ImportMetrics importMetrics) {
+    this(
+        importService,
+        logsService,
+        statsService,
+        convertedDirectory,
+        logEvents,
+        importMetrics,
+        new AvroSamplesWriter(),
+        null,
+        null);
+  }
+
+  /**
+   * @param samplesWriter writes the imported samples, with whichever codec and layout it was
+   *     configured with.
+   * @param offHeapBudget if not null, imported samples are held off-heap, and an import does not
+   *     start until about as much memory as it needs is free in the budget.
+   * @param offHeapSpillDirectory if not null, where samples that do not fit in the off-heap budget
+   *     are spilled to. If null, imports that do not fit fail.
+   */
+  public ProcessorImportService(
+      ImportService importService,
+      LogsService logsService,
+      StatsService statsService,
+      String convertedDirectory,
+      LogEvents logEvents,
+      ImportMetrics importMetrics,
+      SamplesWriter samplesWriter,
+      OffHeapBudget offHeapBudget,
+      Path offHeapSpillDirectory) {
     srv = importService;
     logsSrv = logsService;
     statsSrv = statsService;
     convertedDir = convertedDirectory;
-    importer = new Importer(srv, logsSrv, statsSrv, convertedDir);
+    metrics = importMetrics;
+    spillDir = offHeapSpillDirectory;
+    importer =
+        new Importer(
+            srv,
+            logsSrv,
+            statsSrv,
+            convertedDir,
+            logEvents,
+            metrics,
+            samplesWriter,
+            offHeapBudget,
+            spillDir);
     importerThread = new Thread(importer, "LogImporter-" + System.identityHashCode(importer));
     init();
   }
@@ -101,11 +186,14 @@ public class ProcessorImportService implements ImportService {
       InputStream raw, Log log, String importedFilename, long uploadedUtcMillis) {
     logsSrv.updateStatus(log.getId(), Log.Status.UPLOADING);
     try {
+      long startNanos = System.nanoTime();
       ImportInfo result = srv.upload(raw, log, importedFilename, uploadedUtcMillis);
+      metrics.phase(ImportMetrics.Phase.UPLOAD, System.nanoTime() - startNanos);
       importer.addJob(result);
       return result;
     } catch (Exception ex) {
       logsSrv.updateStatus(log.getId(), Log.Status.UPLOAD_FAILED);
+      metrics.failed(ImportMetrics.Phase.UPLOAD, ex);
       throw ex;
     }
   }
@@ -117,6 +205,24 @@ public class ProcessorImportService implements ImportService {
     return result;
   }
 
+  /**
+   * Queues a finished live log to be imported from its segments, the same way as an uploaded log:
+   * one import at a time, held off-heap if there is a budget, and marked as failed if it could not
+   * be imported. The live labels and their stats are replaced by the full stats once imported.
+   *
+   * @param logId the finished live log
+   * @param segments the Avro segment files of the log, in the order they were written
+   * @param rows about how many samples are in the segments, to reserve off-heap memory for
+   * @param constantThreads if true, every sample gets the count of thread names as its total
+   *     threads, for sources like Loady where the thread count does not vary over the test
+   * @param whenImported called once the log is imported, such as to delete the segments. It is not
+   *     called if the import failed, so that the segments are kept.
+   */
+  public void importLive(
+      long logId, List<Path> segments, long rows, boolean constantThreads, Runnable whenImported) {
+    importer.addJob(new LiveImport(logId, segments, rows, constantThreads, whenImported));
+  }
+
   public void shutdown() {
     importer.shutdown();
   }
@@ -124,45 +230,265 @@ public class ProcessorImportService implements ImportService {
   private void init() {
     try {
       Files.createDirectories(new File(convertedDir).toPath());
+      if (spillDir != null) {
+        Files.createDirectories(spillDir);
+      }
     } catch (IOException ex) {
-      String msg = "Could not create directories for " + convertedDir + "!";
+      String msg = "Could not create directories for " + convertedDir + " or " + spillDir + "!";
       LOGGER.error(msg, ex);
       throw new RuntimeException(msg, ex);
     }
     importerThread.start();
   }
 
+  /**
+   * Calculates and stores all of the stats for the samples of a log, for overall and for each
+   * label. Used for uploaded logs as well as for live logs once they have finished.
+   */
+  static void eagerCalculateStats(
+      StatsService statsSrv, long logId, Samples sourceSamples, ImportMetrics metrics) {
+    // label, samples, average, median, p90, p95, p99, min, max, error %, throughput,
+    try {
+      long startNanos = System.nanoTime();
+      Map<String, MergeableStats> labelsStats = new HashMap<>();
+      for (Sample sample : sourceSamples.getSamples()) {
+        labelsStats
+            .computeIfAbsent(sample.getLabel(), label -> newLabelStats())
+            .add(
+                sample.getOffset(),
+                sample.getDuration(),
+                sample.isSuccess(),
+                sample.getResponseBytes(),
+                sample.getStatusCode());
+      }
+      lap(metrics, ImportMetrics.Phase.SORT, startNanos);
+
+      storeStats(statsSrv, logId, sourceSamples.getLabels(), labelsStats, List.of(), metrics);
+    } catch (Exception ex) {
+      metrics.failed(ImportMetrics.Phase.STATS, ex);
+      LOGGER.error(
+          "Hit exception while calculating stats for log id={}. No more stats will be eagerly processed for this log.",
+          logId,
+          ex);
+    }
+  }
+
+  /**
+   * Same as {@link #eagerCalculateStats(StatsService, long, Samples, ImportMetrics)}, but reads the
+   * samples through columns, so they are never reordered or copied onto the heap.
+   */
+  static void eagerCalculateStats(
+      StatsService statsSrv, long logId, SampleColumns sourceSamples, ImportMetrics metrics) {
+    try {
+      long startNanos = System.nanoTime();
+      List<String> sampleLabels = sourceSamples.labels();
+      MergeableStats[] statsByRef = new MergeableStats[sampleLabels.size()];
+      // Samples without a label are still part of the overall stats.
+      MergeableStats unlabeled = newLabelStats();
+      for (int i = 0; i < sourceSamples.size(); ++i) {
+        int ref = sourceSamples.labelRef(i);
+        MergeableStats stats = unlabeled;
+        if (ref >= 0) {
+          if (statsByRef[ref] == null) {
+            statsByRef[ref] = newLabelStats();
+          }
+          stats = statsByRef[ref];
+        }
+        stats.add(
+            sourceSamples.offset(i),
+            sourceSamples.duration(i),
+            sourceSamples.success(i),
+            sourceSamples.responseBytes(i),
+            sourceSamples.statusCode(i));
+      }
+      Map<String, MergeableStats> labelsStats = new HashMap<>();
+      for (int ref = 0; ref < statsByRef.length; ++ref) {
+        if (statsByRef[ref] != null) {
+          labelsStats.put(sampleLabels.get(ref), statsByRef[ref]);
+        }
+      }
+      lap(metrics, ImportMetrics.Phase.SORT, startNanos);
+
+      storeStats(statsSrv, logId, sampleLabels, labelsStats, List.of(unlabeled), metrics);
+    } catch (Exception ex) {
+      metrics.failed(ImportMetrics.Phase.STATS, ex);
+      LOGGER.error(
+          "Hit exception while calculating stats for log id={}. No more stats will be eagerly processed for this log.",
+          logId,
+          ex);
+    }
+  }
+
+  private static MergeableStats newLabelStats() {
+    return new MergeableStats(DEFAULT_SPAN_MILLIS, MOVING_STEP_MILLIS, MOVING_WINDOW_MILLIS);
+  }
+
+  /**
+   * Stores the stats of each label, and of the overall label. The overall stats are merged from the
+   * stats of the labels rather than calculated from all of the samples again.
+   *
+   * @param sampleLabels the labels of the samples, in label id order starting at 1
+   * @param labelsStats the stats of each label which has samples
+   * @param unlabeled the stats of any samples without a label, which are only part of the overall
+   */
+  private static void storeStats(
+      StatsService statsSrv,
+      long logId,
+      List<String> sampleLabels,
+      Map<String, MergeableStats> labelsStats,
+      List<MergeableStats> unlabeled,
+      ImportMetrics metrics) {
+    long startNanos = System.nanoTime();
+    List<MergeableStats> groups = new ArrayList<>(labelsStats.size() + unlabeled.size());
+    groups.addAll(labelsStats.values());
+    groups.addAll(unlabeled);
+    MergeableStats overall = MergeableStats.merge(DEFAULT_SPAN_MILLIS, groups);
+    startNanos = lap(metrics, ImportMetrics.Phase.STATS, startNanos);
+
+    List<String> labels = new ArrayList<>(sampleLabels.size() + 1);
+    labels.add("Overall"); // Overall is always labelId=0
+    labels.addAll(sampleLabels);
+    try {
+      statsSrv.createSampleLabels(logId, labels);
+      startNanos = storeLabelStats(statsSrv, logId, OVERALL_LABEL_ID, overall, metrics, startNanos);
+
+      for (int labelId = 1; labelId < labels.size(); ++labelId) {
+        MergeableStats labelStats = labelsStats.get(labels.get(labelId));
+        if (labelStats == null) {
+          LOGGER.warn("logId={} labelId={} has no samples, skipping its stats.", logId, labelId);
+          continue;
+        }
+        startNanos = storeLabelStats(statsSrv, logId, labelId, labelStats, metrics, startNanos);
+      }
+    } finally {
+      // Even if only some of the stats were stored, the old ones were replaced.
+      statsSrv.statsChanged(logId);
+    }
+  }
+
+  /** Derives and stores all of the stats of one label, and returns the time now. */
+  private static long storeLabelStats(
+      StatsService statsSrv,
+      long logId,
+      long labelId,
+      MergeableStats stats,
+      ImportMetrics metrics,
+      long startNanos) {
+    CodeCounts codeCounts = stats.aggregateCounts();
+    CodeCounts codeCountsTimeseries = stats.timeseriesCounts();
+    Timeseries timeseries = stats.timeseries();
+    Stats aggregate = stats.aggregate();
+    StatsItems histAndPercs = stats.histogram();
+    EncodedHistograms hdr = stats.hdrHistogram();
+    EncodedHistograms hdrTimeseries = stats.timeseriesHdrHistograms();
+    Timeseries movingTimeseries = stats.movingTimeseries();
+    startNanos = lap(metrics, ImportMetrics.Phase.STATS, startNanos);
+
+    statsSrv.createOrUpdateCodeCounts(logId, labelId, codeCounts);
+    statsSrv.createOrUpdateCodeCounts(logId, labelId, codeCountsTimeseries);
+    statsSrv.createOrUpdateTimeseries(logId, labelId, timeseries);
+    statsSrv.createOrUpdateAggregate(logId, labelId, aggregate);
+    statsSrv.createOrUpdateHistogram(logId, labelId, histAndPercs.getHistogram());
+    statsSrv.createOrUpdateHdrHistograms(logId, labelId, hdr);
+    statsSrv.createOrUpdateHdrHistograms(logId, labelId, hdrTimeseries);
+    if (movingTimeseries != null) {
+      statsSrv.createOrUpdateMovingTimeseries(
+          logId, labelId, MOVING_WINDOW_MILLIS, movingTimeseries);
+    }
+    storePercentiles(statsSrv, logId, labelId, histAndPercs.getPercentiles());
+    return lap(metrics, ImportMetrics.Phase.PERSIST, startNanos);
+  }
+
+  /**
+   * Stores the percentiles of a label, along with the percentiles normalized onto the fixed points
+   * of {@link PercentileCurves}, so that charting many logs together does not need to normalize
+   * them again each time.
+   */
+  private static void storePercentiles(
+      StatsService statsSrv, long logId, long labelId, Percentiles percentiles) {
+    statsSrv.createOrUpdatePercentiles(logId, labelId, percentiles);
+    long[] curve = PercentileCurves.normalize(percentiles);
+    if (curve != null) {
+      statsSrv.createOrUpdatePercentileCurve(logId, labelId, curve);
+    }
+  }
+
+  /** Records the time since startNanos as the given phase, and returns the time now. */
+  private static long lap(ImportMetrics metrics, ImportMetrics.Phase phase, long startNanos) {
+    long now = System.nanoTime();
+    metrics.phase(phase, now - startNanos);
+    return now;
+  }
+
+  /** An uploaded log, or else a finished live log, waiting to be imported. */
+  private record Job(ImportInfo info, LiveImport live, long queuedNanos) {}
+
+  private record LiveImport(
+      long logId, List<Path> segments, long rows, boolean constantThreads, Runnable whenImported) {}
+
+  /** Reads the samples of a log being imported, given the size of its files. */
+  @FunctionalInterface
+  private interface SampleSource {
+    Samples read(long totalBytes) throws IOException, InterruptedException;
+  }
+
   private static class Importer implements Runnable {
 
     private final ImportService importSrv;
     private final LogsService logsSrv;
     private final StatsService statsSrv;
     private final String convertedDir;
-    private final BlockingQueue<ImportInfo> awaitingImport = new LinkedBlockingQueue<>();
+    private final LogEvents events;
+    private final ImportMetrics metrics;
+    private final SamplesWriter writer;
+    private final OffHeapBudget offHeapBudget;
+    private final Path spillDir;
+    private final BlockingQueue<Job> awaitingImport = new LinkedBlockingQueue<>();
     private final AtomicBoolean shutdown = new AtomicBoolean();
 
     public Importer(
         ImportService importService,
         LogsService logsService,
         StatsService statsService,
-        String convertedDirectory) {
+        String convertedDirectory,
+        LogEvents logEvents,
+        ImportMetrics importMetrics,
+        SamplesWriter samplesWriter,
+        OffHeapBudget budget,
+        Path offHeapSpillDir) {
       importSrv = importService;
       logsSrv = logsService;
       statsSrv = statsService;
       convertedDir = convertedDirectory;
+      events = logEvents;
+      metrics = importMetrics;
+      writer = samplesWriter;
+      offHeapBudget = budget;
+      spillDir = offHeapSpillDir;
+      metrics.watchQueue(awaitingImport);
     }
 
     public void addJob(ImportInfo info) {
       logsSrv.updateStatus(info.getId(), Log.Status.QUEUED);
-      awaitingImport.add(info);
+      awaitingImport.add(new Job(info, null, System.nanoTime()));
+    }
+
+    public void addJob(LiveImport live) {
+      logsSrv.updateStatus(live.logId(), Log.Status.QUEUED);
+      awaitingImport.add(new Job(null, live, System.nanoTime()));
     }
 
     @Override
     public void run() {
       while (!Thread.interrupted() && !shutdown.get()) {
         try {
-          ImportInfo source = awaitingImport.take();
-          processImport(source);
+          Job job = awaitingImport.take();
+          metrics.queueWait(System.nanoTime() - job.queuedNanos());
+          if (job.live() != null) {
+            processLive(job.live());
+          } else {
+            processImport(job.info());
+          }
         } catch (InterruptedException ex) {
           LOGGER.info("Interrupted while importing file. Closing thread.");
           Thread.currentThread().interrupt();
@@ -172,94 +498,180 @@ public class ProcessorImportService implements ImportService {
       }
     }
 
-    private void processImport(ImportInfo source) {
-      Samples sourceSamples;
+    private void processImport(ImportInfo source) throws InterruptedException {
+      long logId = source.getId();
+      Path importedFile = Path.of(source.getImportedFilename());
+      process(
+          logId,
+          List.of(importedFile),
+          totalBytes -> {
+            long startMillis = System.currentTimeMillis();
+            return readSamples(
+                importedFile,
+                totalBytes,
+                (rows, bytes) ->
+                    events.progress(
+                        logId,
+                        rows,
+                        bytes,
+                        totalBytes,
+                        estimateRemainingMillis(startMillis, bytes, totalBytes)));
+          },
+          () -> importSrv.delete(logId));
+    }
+
+    private void processLive(LiveImport live) throws InterruptedException {
+      process(live.logId(), live.segments(), totalBytes -> readSegments(live), live.whenImported());
+    }
+
+    private void process(long logId, List<Path> files, SampleSource source, Runnable whenImported)
+        throws InterruptedException {
+      Samples sourceSamples = null;
+      try {
+        sourceSamples = importSamples(logId, files, source);
+        if (sourceSamples == null) {
+          return;
+        }
+
+        logsSrv.updateStatus(logId, Log.Status.COMPLETE);
+        LOGGER.info("...imported log id={}.", logId);
+
+        whenImported.run();
+
+        if (sourceSamples.getSamples().isEmpty()) {
+          LOGGER.info("log id={} has no samples, will not eagerly calculate stats.", logId);
+        } else if (sourceSamples instanceof SampleColumns columns) {
+          eagerCalculateStats(statsSrv, logId, columns, metrics);
+        } else {
+          eagerCalculateStats(statsSrv, logId, sourceSamples, metrics);
+        }
+        metrics.heapHighWater(heapHighWater());
+      } finally {
+        // Off-heap samples are freed as soon as the job is done, rather than waiting on the GC.
+        if (sourceSamples instanceof OffHeapSamples offHeap) {
+          offHeap.close();
+        }
+      }
+    }
+
+    /**
+     * Reads the samples of the log's files, and writes them as the log's data file.
+     *
+     * @return the samples, or null if the import failed.
+     */
+    private Samples importSamples(long logId, List<Path> files, SampleSource source)
+        throws InterruptedException {
+      Samples sourceSamples = null;
+      ImportMetrics.Phase phase = ImportMetrics.Phase.PARSE;
+      resetHeapHighWater();
       try {
         LOGGER.info("...importing...");
-        logsSrv.updateStatus(source.getId(), Log.Status.IMPORTING);
-        sourceSamples = CsvSamplesReader.readSamples(Path.of(source.getImportedFilename()));
-        SamplesWriter writer = new AvroSamplesWriter();
+        logsSrv.updateStatus(logId, Log.Status.IMPORTING);
+        long totalBytes = 0L;
+        for (Path file : files) {
+          totalBytes += Files.size(file);
+        }
+        long importStartNanos = System.nanoTime();
+        sourceSamples = source.read(totalBytes);
+        long writeStartNanos = lap(metrics, phase, importStartNanos);
+        phase = ImportMetrics.Phase.AVRO_WRITE;
 
-        File avro = new File(convertedDir, String.format("%d.avro", source.getId()));
-        String hash = writer.write(sourceSamples, avro);
+        File dest = new File(convertedDir, String.format("%d.%s", logId, writer.extension()));
+        String hash = writer.write(sourceSamples, dest);
+        long endNanos = lap(metrics, phase, writeStartNanos);
+        metrics.imported(
+            sourceSamples.getSamples().size(), totalBytes, endNanos - importStartNanos);
         LOGGER.info("...SHA-256: {}...", hash);
-      } catch (IOException ex) {
-        logsSrv.updateStatus(source.getId(), Log.Status.IMPORT_FAILED);
-        LOGGER.error("Could not import " + source.getImportedFilename(), ex);
-
-        return;
+        return sourceSamples;
+      } catch (IOException | RuntimeException ex) {
+        logsSrv.updateStatus(logId, Log.Status.IMPORT_FAILED);
+        metrics.failed(phase, ex);
+        metrics.heapHighWater(heapHighWater());
+        LOGGER.error("Could not import log id=" + logId + " from " + files, ex);
+        if (sourceSamples instanceof OffHeapSamples offHeap) {
+          offHeap.close();
+        }
+        return null;
       }
+    }
 
-      logsSrv.updateStatus(source.getId(), Log.Status.COMPLETE);
-      LOGGER.info("...imported log id={}.", source.getId());
+    /** Combines the segments of a finished live log, which are each in time order already. */
+    private Samples readSegments(LiveImport live) throws IOException, InterruptedException {
+      if (offHeapBudget == null) {
+        ListSamples.Builder builder = ListSamples.builder();
+        for (Path segment : live.segments()) {
+          try (Stream<Sample> samples = AvroSamplesReader.sampleStream(segment)) {
+            samples.forEach(builder::add);
+          }
+        }
+        if (live.constantThreads()) {
+          int numThreads = builder.getThreadNames().size();
+          builder.forEach(sample -> sample.setTotalThreads(numThreads));
+        }
+        return builder.build();
+      }
+      long reservedBytes = offHeapBudget.awaitReserve(live.rows() * OffHeapSamples.ROW_BYTES);
+      try (OffHeapSamples.Builder builder =
+          OffHeapSamples.builder(offHeapBudget).spillTo(spillDir).reserved(reservedBytes)) {
+        for (Path segment : live.segments()) {
+          try (Stream<Sample> samples = AvroSamplesReader.sampleStream(segment)) {
+            samples.forEach(builder::add);
+          }
+        }
+        if (live.constantThreads()) {
+          builder.totalThreads(builder.getThreadNames().size());
+        }
+        return builder.build();
+      }
+    }
 
-      importSrv.delete(source.getId());
+    private Samples readSamples(
+        Path importedFile, long totalBytes, CsvSamplesReader.ProgressListener listener)
+        throws IOException, InterruptedException {
+      if (offHeapBudget == null) {
+        return CsvSamplesReader.readSamples(importedFile, listener);
+      }
+      // Uploaded logs and finished live logs are all imported one at a time on this thread, and
+      // each import frees its samples before the next one starts, so the budget is only held by
+      // the import being read. The estimate is reserved up front, and anything past it is
+      // reserved as the samples are added, or spilled once the budget runs out.
+      long estimatedBytes = OffHeapSamples.estimateBytes(totalBytes);
+      LOGGER.debug("Waiting for {} bytes of off-heap budget.", estimatedBytes);
+      long reservedBytes = offHeapBudget.awaitReserve(estimatedBytes);
+      return CsvSamplesReader.readSamples(
+          importedFile,
+          listener,
+          OffHeapSamples.builder(offHeapBudget).spillTo(spillDir).reserved(reservedBytes));
+    }
 
-      if (!sourceSamples.getSamples().isEmpty()) {
-        eagerCalculateStats(source, sourceSamples);
-      } else {
-        LOGGER.info("log id={} has no samples, will not eagerly calculate stats.", source.getId());
+    private static void resetHeapHighWater() {
+      for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+        if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+          pool.resetPeakUsage();
+        }
       }
     }
 
-    private void eagerCalculateStats(ImportInfo source, Samples sourceSamples) {
-      // label, samples, average, median, p90, p95, p99, min, max, error %, throughput,
-      try {
-        long logId = source.getId();
-        CodeCounts overallCodeCounts = StatsBuilder.calcAggregateCounts(sourceSamples.getSamples());
-        CodeCounts overallCodeCountsTimeseries =
-            StatsBuilder.calcTimeseriesCounts(sourceSamples.getSamples(), DEFAULT_SPAN_MILLIS);
-        Timeseries overall =
-            StatsBuilder.calcTimeseriesStats(sourceSamples.getSamples(), DEFAULT_SPAN_MILLIS);
-        Stats overallAggregate = StatsBuilder.calcAggregateStats(sourceSamples.getSamples());
-        StatsItems histAndPercs = StatsBuilder.calcHistogram(sourceSamples.getSamples());
-
-        Map<String, List<Sample>> labelsSamples =
-            StatsBuilder.sortAndSplitByLabel(sourceSamples.getSamples());
-
-        List<String> labels = new ArrayList<>(labelsSamples.size() + 1);
-        labels.add("Overall"); // Overall is always labelId=0
-        labels.addAll(sourceSamples.getLabels());
-        statsSrv.createSampleLabels(logId, labels);
-
-        statsSrv.createOrUpdateCodeCounts(logId, OVERALL_LABEL_ID, overallCodeCounts);
-        statsSrv.createOrUpdateCodeCounts(logId, OVERALL_LABEL_ID, overallCodeCountsTimeseries);
-        statsSrv.createOrUpdateTimeseries(logId, OVERALL_LABEL_ID, overall);
-        statsSrv.createOrUpdateAggregate(logId, OVERALL_LABEL_ID, overallAggregate);
-        statsSrv.createOrUpdateHistogram(logId, OVERALL_LABEL_ID, histAndPercs.getHistogram());
-        statsSrv.createOrUpdatePercentiles(logId, OVERALL_LABEL_ID, histAndPercs.getPercentiles());
-
-        for (int labelId = 1; labelId < labels.size(); ++labelId) {
-          String label = labels.get(labelId);
-          List<Sample> labelSamples = labelsSamples.get(label);
-          if (labelSamples == null) {
-            LOGGER.warn(
-                "Encountered null logId={} labelId={} while eagerly calculating stats, which shouldn't happen! Skipping.",
-                logId,
-                labelId);
-            continue;
-          }
-          CodeCounts labelCodeCounts = StatsBuilder.calcAggregateCounts(labelSamples);
-          CodeCounts labelCodeCountsTimeseries =
-              StatsBuilder.calcTimeseriesCounts(labelSamples, DEFAULT_SPAN_MILLIS);
-          Timeseries labelTimeseries =
-              StatsBuilder.calcTimeseriesStats(labelSamples, DEFAULT_SPAN_MILLIS);
-          Stats labelAggregate = StatsBuilder.calcAggregateStats(labelSamples);
-          histAndPercs = StatsBuilder.calcHistogram(labelSamples);
-
-          statsSrv.createOrUpdateCodeCounts(logId, labelId, labelCodeCounts);
-          statsSrv.createOrUpdateCodeCounts(logId, labelId, labelCodeCountsTimeseries);
-          statsSrv.createOrUpdateTimeseries(logId, labelId, labelTimeseries);
-          statsSrv.createOrUpdateAggregate(logId, labelId, labelAggregate);
-          statsSrv.createOrUpdateHistogram(logId, labelId, histAndPercs.getHistogram());
-          statsSrv.createOrUpdatePercentiles(logId, labelId, histAndPercs.getPercentiles());
+    // The peaks of each heap pool may not have happened at the same moment, so this can be a bit
+    // higher than the most heap ever in use at once. It is never lower, which is what matters when
+    // sizing hosts.
+    private static long heapHighWater() {
+      long peak = 0L;
+      for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+        if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+          peak += pool.getPeakUsage().getUsed();
         }
-      } catch (Exception ex) {
-        LOGGER.error(
-            "Hit exception while calculating stats for log id={}. No more stats will be eagerly processed for this log.",
-            source.getId(),
-            ex);
       }
+      return peak;
+    }
+
+    // Assumes the rest of the file will be read at the same rate as what has been read so far.
+    private static long estimateRemainingMillis(long startMillis, long bytes, long totalBytes) {
+      if (bytes <= 0L) {
+        return -1L;
+      }
+      long elapsed = System.currentTimeMillis() - startMillis;
+      return Math.max(0L, (long) (elapsed * ((double) (totalBytes - bytes) / bytes)));
     }
 
     /**
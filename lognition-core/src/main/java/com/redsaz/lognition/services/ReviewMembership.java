@@ -0,0 +1,209 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.services;
+
+import com.redsaz.lognition.api.LogsService;
+import com.redsaz.lognition.api.ReviewsService;
+import com.redsaz.lognition.api.exceptions.AppServerException;
+import com.redsaz.lognition.api.labelselector.LabelSelectorExpression;
+import com.redsaz.lognition.api.labelselector.LabelSelectorSyntaxException;
+import com.redsaz.lognition.api.model.Label;
+import com.redsaz.lognition.api.model.Log;
+import com.redsaz.lognition.api.model.Review;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps track of which logs belong to which reviews. The label selector of every review is kept
+ * compiled in memory, along with the logs it matched, so that when a log is added, relabeled, or
+ * deleted only that one log is tested against each selector, and only the reviews which gained or
+ * lost the log are written to the reviews service.
+ *
+ * <p>Changed logs are not checked the moment they change. They are gathered for a short while and
+ * then checked together, so that a burst of uploads costs one pass instead of one per upload. All
+ * of the work is done on a single thread, one task at a time, so the in-memory membership never
+ * needs locking.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class ReviewMembership {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReviewMembership.class);
+  public static final long DEFAULT_COALESCE_MILLIS = 250L;
+
+  private final LogsService logsSrv;
+  private final ReviewsService reviewsSrv;
+  private final long coalesceMillis;
+  private final ScheduledExecutorService worker;
+  // Only used by the worker thread.
+  private final Map<Long, Member> members = new HashMap<>();
+  // Guarded by itself.
+  private final Set<Long> changedLogs = new LinkedHashSet<>();
+  private boolean checkScheduled;
+
+  /** The compiled selector of a review, and the logs it matches. */
+  private record Member(long reviewId, LabelSelectorPredicate selector, Set<Long> logIds) {}
+
+  /**
+   * Starts keeping track of review membership. The logs of every review are calculated once in the
+   * background to begin with.
+   *
+   * @param logsService the logs and their labels
+   * @param reviewsService the reviews, and where their logs are written
+   * @param coalesceMillis how long to gather changed logs before checking them
+   */
+  public ReviewMembership(
+      LogsService logsService, ReviewsService reviewsService, long coalesceMillis) {
+    logsSrv = logsService;
+    reviewsSrv = reviewsService;
+    this.coalesceMillis = coalesceMillis;
+    worker =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread t = new Thread(r, "ReviewMembership-" + System.identityHashCode(this));
+              t.setDaemon(true);
+              return t;
+            });
+    worker.execute(this::calculateAll);
+  }
+
+  /**
+   * The labels of a log were set, or the log was created or deleted. The log will be added to or
+   * removed from reviews shortly, along with any other logs that change in the meantime.
+   *
+   * @param logId the changed log
+   */
+  public void logChanged(long logId) {
+    synchronized (changedLogs) {
+      changedLogs.add(logId);
+      if (checkScheduled) {
+        return;
+      }
+      checkScheduled = true;
+    }
+    worker.schedule(this::checkChangedLogs, coalesceMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * A review was created, or its selector may have changed. All of the logs of the review are found
+   * again before this returns, so that the review can be shown with its logs right away.
+   *
+   * @param review the created or updated review
+   */
+  public void reviewChanged(Review review) {
+    await(worker.submit(() -> calculate(review)));
+  }
+
+  /**
+   * A review was deleted, so its logs no longer need to be tracked.
+   *
+   * @param reviewId the deleted review
+   */
+  public void reviewDeleted(long reviewId) {
+    await(worker.submit(() -> members.remove(reviewId)));
+  }
+
+  /** Stops checking for changes. Changed logs not yet checked are found again on the next start. */
+  public void shutdown() {
+    worker.shutdown();
+  }
+
+  private void calculateAll() {
+    long startMillis = System.currentTimeMillis();
+    List<Review> reviews = reviewsSrv.list();
+    for (Review review : reviews) {
+      calculate(review);
+    }
+    LOGGER.info(
+        "{}ms to find the logs of {} reviews.",
+        System.currentTimeMillis() - startMillis,
+        reviews.size());
+  }
+
+  private void calculate(Review review) {
+    members.remove(review.getId());
+    try {
+      LabelSelectorExpression labelSelector = LabelSelectorParser.parse(review.getBody());
+      List<Long> logIds = logsSrv.listIdsBySelector(labelSelector);
+      reviewsSrv.setReviewLogs(review.getId(), logIds);
+      LabelSelectorPredicate selector = LabelSelectorPredicate.compile(labelSelector);
+      members.put(review.getId(), new Member(review.getId(), selector, new HashSet<>(logIds)));
+    } catch (LabelSelectorSyntaxException ex) {
+      LOGGER.error(
+          "Review_id={} has a syntax error with its label selector. No more logs will be added to"
+              + " the review until fixed.",
+          review.getId());
+    } catch (RuntimeException ex) {
+      LOGGER.error("Exception when using label selector from review_id=" + review.getId(), ex);
+    }
+  }
+
+  private void checkChangedLogs() {
+    List<Long> logIds;
+    synchronized (changedLogs) {
+      logIds = List.copyOf(changedLogs);
+      changedLogs.clear();
+      checkScheduled = false;
+    }
+    Set<Long> changedReviewIds = new LinkedHashSet<>();
+    for (long logId : logIds) {
+      try {
+        Log log = logsSrv.get(logId);
+        List<Label> labels = log == null ? null : logsSrv.getLabels(logId);
+        for (Member member : members.values()) {
+          boolean matches = labels != null && member.selector().test(logId, labels);
+          boolean changed = matches ? member.logIds().add(logId) : member.logIds().remove(logId);
+          if (changed) {
+            changedReviewIds.add(member.reviewId());
+          }
+        }
+      } catch (RuntimeException ex) {
+        LOGGER.error("Exception when finding the reviews of log_id=" + logId, ex);
+      }
+    }
+    for (long reviewId : changedReviewIds) {
+      try {
+        reviewsSrv.setReviewLogs(reviewId, Set.copyOf(members.get(reviewId).logIds()));
+      } catch (RuntimeException ex) {
+        LOGGER.error("Exception when setting the logs of review_id=" + reviewId, ex);
+      }
+    }
+    LOGGER.debug(
+        "Checked {} changed logs, {} reviews changed.", logIds.size(), changedReviewIds.size());
+  }
+
+  private static void await(Future<?> task) {
+    try {
+      task.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new AppServerException("Interrupted while finding the logs of a review.", ex);
+    } catch (ExecutionException ex) {
+      throw new AppServerException("Could not find the logs of a review.", ex.getCause());
+    }
+  }
+}
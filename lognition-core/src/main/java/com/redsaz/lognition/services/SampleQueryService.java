@@ -0,0 +1,669 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.services;
+
+import com.redsaz.lognition.api.LogsService;
+import com.redsaz.lognition.api.StatsService;
+import com.redsaz.lognition.api.exceptions.AppClientException;
+import com.redsaz.lognition.api.exceptions.AppServerException;
+import com.redsaz.lognition.api.exceptions.NotFoundException;
+import com.redsaz.lognition.api.model.EncodedHistograms;
+import com.redsaz.lognition.api.model.FilteredStats;
+import com.redsaz.lognition.api.model.Log;
+import com.redsaz.lognition.api.model.SampleFilter;
+import com.redsaz.lognition.api.model.Stats;
+import com.redsaz.lognition.api.model.Timeseries;
+import com.redsaz.lognition.convert.AvroSamplesReader;
+import com.redsaz.lognition.convert.ColumnarSamplesReader;
+import com.redsaz.lognition.convert.ColumnarSamplesWriter;
+import com.redsaz.lognition.convert.SampleCursor;
+import com.redsaz.lognition.convert.SampleField;
+import com.redsaz.lognition.stats.MergeableHistograms;
+import com.redsaz.lognition.stats.MergeableStats;
+import com.redsaz.lognition.stats.StatsBuilder.StatsItems;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import org.HdrHistogram.AbstractHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Calculates the stats of only the samples of a log selected by a {@link SampleFilter}, by reading
+ * the stored samples, so that a new filter does not need the log to be imported again.
+ *
+ * <p>The filter is turned into tests of the dictionary refs of the stored samples before any rows
+ * are read. The labels are given to the cursor as refs, so blocks without any of the labels or
+ * outside of the range of time are skipped without being decoded. The thread names are checked
+ * once each against the pattern, and the status codes once per ref, so each row is only checked
+ * with array lookups and comparisons.
+ *
+ * <p>Timeseries of any span, range of time, and labels can be asked for on their own. When the span
+ * is a multiple of the span of the stats stored for the log at import, they are combined from the
+ * stored bins and their histograms instead, without reading any samples.
+ *
+ * <p>The results of finished logs are cached, by log and by what was asked for. The cache is
+ * limited by the estimated size of the results rather than by how many there are, since a
+ * timeseries of a small span can be many times larger than another, and the least recently used
+ * are dropped once they take up too much.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class SampleQueryService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SampleQueryService.class);
+  public static final long DEFAULT_SPAN_MILLIS = 60_000L;
+  // Small spans over long logs would make too many bins to keep in memory.
+  public static final long MIN_SPAN_MILLIS = 1_000L;
+  public static final long DEFAULT_MAX_CACHED_BYTES = 64L * 1024L * 1024L;
+  // Rough sizes of the parts of a result, for limiting the size of the cache.
+  private static final long STATS_BYTES = 160L;
+  private static final long VALUE_BYTES = 24L;
+  private static final Set<SampleField> STATS_FIELDS =
+      EnumSet.of(
+          SampleField.OFFSET,
+          SampleField.DURATION,
+          SampleField.CODE,
+          SampleField.SUCCESS,
+          SampleField.RESPONSE_BYTES);
+  private static final Set<SampleField> TIMESERIES_FIELDS =
+      EnumSet.of(
+          SampleField.OFFSET,
+          SampleField.DURATION,
+          SampleField.SUCCESS,
+          SampleField.RESPONSE_BYTES);
+
+  private final LogsService logsSrv;
+  private final StatsService statsSrv;
+  private final long maxCachedBytes;
+  private final LinkedHashMap<Key, Cached> cache = new LinkedHashMap<>(16, 0.75f, true);
+  private long cachedBytes;
+
+  private sealed interface Key permits StatsKey, TimeseriesKey {
+    long logId();
+  }
+
+  private record StatsKey(long logId, SampleFilter filter, long spanMillis) implements Key {}
+
+  private record TimeseriesKey(
+      long logId, SortedSet<String> labels, long fromOffset, long toOffset, long spanMillis)
+      implements Key {}
+
+  private record Cached(Object result, long bytes) {}
+
+  /**
+   * @param logsService finds the stored samples of the logs
+   * @param statsService finds the stats stored for the logs at import
+   * @param maxCachedBytes about how many bytes of results to keep cached
+   */
+  public SampleQueryService(
+      LogsService logsService, StatsService statsService, long maxCachedBytes) {
+    logsSrv = logsService;
+    statsSrv = statsService;
+    this.maxCachedBytes = maxCachedBytes;
+  }
+
+  /**
+   * Calculates the stats of the samples of a log selected by the filter, or gets them from the
+   * cache if they were calculated before.
+   *
+   * @param logId the log
+   * @param filter which samples to calculate the stats of
+   * @param spanMillis the time that each bin of the timeseries spans
+   * @return the stats of the selected samples.
+   * @throws NotFoundException if the log or its samples could not be found.
+   * @throws AppClientException if the span is too small.
+   */
+  public FilteredStats query(long logId, SampleFilter filter, long spanMillis) {
+    checkSpan(spanMillis);
+    Log log = getLog(logId);
+    StatsKey key = new StatsKey(logId, filter, spanMillis);
+    FilteredStats cached = (FilteredStats) cached(key);
+    if (cached != null) {
+      return cached;
+    }
+    FilteredStats result;
+    try {
+      long startMillis = System.currentTimeMillis();
+      result = calculate(dataFile(logId).toPath(), filter, spanMillis);
+      LOGGER.debug(
+          "Calculated stats of log_id={} with filter=[{}] in {}ms.",
+          logId,
+          filter,
+          System.currentTimeMillis() - startMillis);
+    } catch (FileNotFoundException ex) {
+      throw new NotFoundException("Could not find the samples of log id=" + logId, ex);
+    } catch (IOException ex) {
+      throw new AppServerException("Could not read the samples of log id=" + logId, ex);
+    }
+    cache(log, key, result, estimateBytes(result));
+    return result;
+  }
+
+  /**
+   * Calculates the timeseries of some of the labels of a log, within a range of time, or gets it
+   * from the cache if it was calculated before. Only the bins which overlap the range are given.
+   *
+   * @param logId the log
+   * @param labels the labels to include the samples of, or empty for every sample
+   * @param fromOffset the earliest offset, inclusive, or Long.MIN_VALUE for no earliest
+   * @param toOffset the latest offset, exclusive, or Long.MAX_VALUE for no latest
+   * @param spanMillis the time that each bin of the timeseries spans
+   * @return the timeseries of the samples.
+   * @throws NotFoundException if the log or its samples could not be found.
+   * @throws AppClientException if the span is too small, or if the range of time is empty.
+   */
+  public Timeseries timeseries(
+      long logId, Collection<String> labels, long fromOffset, long toOffset, long spanMillis) {
+    checkSpan(spanMillis);
+    if (fromOffset >= toOffset) {
+      throw new AppClientException(
+          "From must be before to, but was from " + fromOffset + " to " + toOffset + ".");
+    }
+    Log log = getLog(logId);
+    SortedSet<String> labelSet =
+        Collections.unmodifiableSortedSet(labels == null ? new TreeSet<>() : new TreeSet<>(labels));
+    TimeseriesKey key = new TimeseriesKey(logId, labelSet, fromOffset, toOffset, spanMillis);
+    Timeseries cached = (Timeseries) cached(key);
+    if (cached != null) {
+      return cached;
+    }
+    long startMillis = System.currentTimeMillis();
+    // The stored stats of a log which has not finished may not have every sample yet.
+    Timeseries result =
+        log.getStatus() == Log.Status.COMPLETE
+            ? fromStored(logId, labelSet, fromOffset, toOffset, spanMillis)
+            : null;
+    String source = "stored stats";
+    if (result == null) {
+      source = "samples";
+      try {
+        result =
+            scanTimeseries(
+                dataFile(logId).toPath(),
+                labelSet.isEmpty() ? null : labelSet,
+                fromOffset,
+                toOffset,
+                spanMillis);
+      } catch (FileNotFoundException ex) {
+        throw new NotFoundException("Could not find the samples of log id=" + logId, ex);
+      } catch (IOException ex) {
+        throw new AppServerException("Could not read the samples of log id=" + logId, ex);
+      }
+    }
+    LOGGER.debug(
+        "Calculated timeseries of log_id={} span={}ms from the {} in {}ms.",
+        logId,
+        spanMillis,
+        source,
+        System.currentTimeMillis() - startMillis);
+    cache(log, key, result, estimateBytes(result));
+    return result;
+  }
+
+  /**
+   * Forgets the cached results of a log, such as when it is deleted.
+   *
+   * @param logId the log
+   */
+  public synchronized void evict(long logId) {
+    Iterator<Map.Entry<Key, Cached>> entries = cache.entrySet().iterator();
+    while (entries.hasNext()) {
+      Map.Entry<Key, Cached> entry = entries.next();
+      if (entry.getKey().logId() == logId) {
+        cachedBytes -= entry.getValue().bytes();
+        entries.remove();
+      }
+    }
+  }
+
+  /**
+   * Reads the samples selected by the filter from a stored samples file, and calculates their
+   * stats.
+   *
+   * @param dataFile the Avro or columnar samples file
+   * @param filter which samples to calculate the stats of
+   * @param spanMillis the time that each bin of the timeseries spans
+   * @return the stats of the selected samples.
+   * @throws IOException if the samples could not be read.
+   */
+  static FilteredStats calculate(Path dataFile, SampleFilter filter, long spanMillis)
+      throws IOException {
+    boolean columnar =
+        dataFile.getFileName().toString().endsWith("." + ColumnarSamplesWriter.EXTENSION);
+    List<String> fileLabels;
+    // Only the dictionaries are needed, which are read when the cursor is opened.
+    try (SampleCursor header =
+        open(
+            columnar,
+            dataFile,
+            EnumSet.noneOf(SampleField.class),
+            Long.MIN_VALUE,
+            Long.MAX_VALUE,
+            null)) {
+      fileLabels = header.labels();
+    }
+    Collection<String> labels = matchingLabels(fileLabels, filter);
+
+    Set<SampleField> fields = EnumSet.copyOf(STATS_FIELDS);
+    if (filter.getThreadPattern() != null) {
+      fields.add(SampleField.THREAD_NAME);
+    }
+    MergeableStats stats = new MergeableStats(spanMillis);
+    try (SampleCursor cursor =
+        open(columnar, dataFile, fields, filter.getFromOffset(), filter.getToOffset(), labels)) {
+      RowFilter rows = new RowFilter(filter, cursor);
+      while (cursor.next()) {
+        if (rows.test(cursor)) {
+          stats.add(
+              cursor.offset(),
+              cursor.duration(),
+              cursor.success(),
+              cursor.responseBytes(),
+              rows.statusCode(cursor, cursor.codeRef()));
+        }
+      }
+    }
+    StatsItems histAndPercs = stats.histogram();
+    return new FilteredStats(
+        filter.getTerms(),
+        stats.aggregate(),
+        stats.timeseries(),
+        stats.aggregateCounts(),
+        histAndPercs.getHistogram(),
+        histAndPercs.getPercentiles());
+  }
+
+  /**
+   * Reads the samples of some of the labels within a range of time from a stored samples file, and
+   * calculates their timeseries. Only the columns the timeseries needs are read.
+   *
+   * @param dataFile the Avro or columnar samples file
+   * @param labels the labels to include the samples of, or null for every sample
+   * @param fromOffset the earliest offset, inclusive
+   * @param toOffset the latest offset, exclusive
+   * @param spanMillis the time that each bin of the timeseries spans
+   * @return the bins of the timeseries which overlap the range of time.
+   * @throws IOException if the samples could not be read.
+   */
+  static Timeseries scanTimeseries(
+      Path dataFile, Collection<String> labels, long fromOffset, long toOffset, long spanMillis)
+      throws IOException {
+    boolean columnar =
+        dataFile.getFileName().toString().endsWith("." + ColumnarSamplesWriter.EXTENSION);
+    MergeableStats stats = new MergeableStats(spanMillis);
+    try (SampleCursor cursor =
+        open(columnar, dataFile, TIMESERIES_FIELDS, fromOffset, toOffset, labels)) {
+      while (cursor.next()) {
+        // The status codes are not part of the timeseries, so are not read.
+        stats.add(cursor.offset(), cursor.duration(), cursor.success(), cursor.responseBytes(), "");
+      }
+    }
+    Timeseries timeseries = stats.timeseries();
+    return new Timeseries(spanMillis, trim(timeseries.getStatsList(), fromOffset, spanMillis));
+  }
+
+  /**
+   * Combines the timeseries stored for the labels at import into bins of a larger span, or gives
+   * null if they cannot be, such as when the span is not a multiple of the stored span, or the
+   * range of time would split a stored bin.
+   */
+  private Timeseries fromStored(
+      long logId, SortedSet<String> labels, long fromOffset, long toOffset, long spanMillis) {
+    List<Long> labelIds = new ArrayList<>();
+    if (labels.isEmpty()) {
+      labelIds.add(0L);
+    } else {
+      List<String> sampleLabels = statsSrv.getSampleLabels(logId);
+      if (sampleLabels == null || sampleLabels.isEmpty()) {
+        return null;
+      }
+      // Label 0 is the overall label, the rest are the labels of the samples.
+      for (int i = 1; i < sampleLabels.size(); ++i) {
+        if (labels.contains(sampleLabels.get(i))) {
+          labelIds.add((long) i);
+        }
+      }
+    }
+    List<Timeseries> series = new ArrayList<>(labelIds.size());
+    List<List<AbstractHistogram>> histograms = new ArrayList<>(labelIds.size());
+    for (long labelId : labelIds) {
+      Timeseries stored = statsSrv.getTimeseries(logId, labelId);
+      if (stored == null || stored.getStatsList() == null) {
+        return null;
+      }
+      if (stored.getStatsList().isEmpty()) {
+        // A label without samples has nothing to add.
+        continue;
+      }
+      long storedSpan = stored.getSpanMillis();
+      if (storedSpan < 1L
+          || spanMillis % storedSpan != 0L
+          || !onBinStart(fromOffset, storedSpan)
+          || !onBinStart(toOffset, storedSpan)) {
+        return null;
+      }
+      EncodedHistograms encoded = statsSrv.getHdrHistograms(logId, labelId, storedSpan);
+      if (encoded == null || encoded.size() != stored.getStatsList().size()) {
+        return null;
+      }
+      series.add(stored);
+      histograms.add(MergeableHistograms.decode(encoded));
+    }
+    return combine(series, histograms, fromOffset, toOffset, spanMillis);
+  }
+
+  /**
+   * Combines stored timeseries, and the histograms of each of their bins, into one timeseries of a
+   * span which is a multiple of theirs. The counts and totals are exact, as are the min and max.
+   * The percentiles come from the merged histograms, so are only as precise as they are, and the
+   * averages come from the averages of the stored bins, so may be off by up to a millisecond.
+   *
+   * @param series the stored timeseries, which must all have the same span
+   * @param histograms the histogram of each bin of each of the stored timeseries
+   * @param fromOffset the earliest offset, inclusive, on the start of a stored bin
+   * @param toOffset the latest offset, exclusive, on the start of a stored bin
+   * @param spanMillis the span of the combined bins
+   * @return the bins of the combined timeseries which overlap the range of time.
+   */
+  static Timeseries combine(
+      List<Timeseries> series,
+      List<List<AbstractHistogram>> histograms,
+      long fromOffset,
+      long toOffset,
+      long spanMillis) {
+    List<Combined> bins = new ArrayList<>();
+    for (int s = 0; s < series.size(); ++s) {
+      List<Stats> storedBins = series.get(s).getStatsList();
+      for (int i = 0; i < storedBins.size(); ++i) {
+        Stats stored = storedBins.get(i);
+        if (stored.getNumSamples() == 0L
+            || stored.getOffsetMillis() < fromOffset
+            || stored.getOffsetMillis() >= toOffset) {
+          continue;
+        }
+        int index = (int) (stored.getOffsetMillis() / spanMillis);
+        while (bins.size() <= index) {
+          bins.add(null);
+        }
+        Combined bin = bins.get(index);
+        if (bin == null) {
+          bin = new Combined();
+          bins.set(index, bin);
+        }
+        bin.add(stored, histograms.get(s).get(i));
+      }
+    }
+    List<Stats> statsList = new ArrayList<>(bins.size());
+    for (int i = 0; i < bins.size(); ++i) {
+      Combined bin = bins.get(i);
+      statsList.add(bin == null ? emptyStats(i * spanMillis) : bin.toStats(i * spanMillis));
+    }
+    return new Timeseries(spanMillis, trim(statsList, fromOffset, spanMillis));
+  }
+
+  /**
+   * @return the bins which end after the earliest offset.
+   */
+  private static List<Stats> trim(List<Stats> statsList, long fromOffset, long spanMillis) {
+    int first = 0;
+    while (first < statsList.size()
+        && statsList.get(first).getOffsetMillis() + spanMillis <= fromOffset) {
+      ++first;
+    }
+    return statsList.subList(first, statsList.size());
+  }
+
+  private static boolean onBinStart(long offset, long spanMillis) {
+    return offset == Long.MIN_VALUE || offset == Long.MAX_VALUE || offset % spanMillis == 0L;
+  }
+
+  private static Stats emptyStats(long offsetMillis) {
+    return new Stats(
+        offsetMillis, null, null, null, null, null, null, null, null, null, 0L, 0L, 0L);
+  }
+
+  static long estimateBytes(Timeseries timeseries) {
+    return STATS_BYTES * (timeseries.getStatsList().size() + 1L);
+  }
+
+  static long estimateBytes(FilteredStats stats) {
+    long values = stats.getFilter().size();
+    for (List<Integer> counts : stats.getCodeCounts().getCounts()) {
+      values += counts.size();
+    }
+    values += 2L * stats.getHistogram().size() + 3L * stats.getPercentiles().size();
+    return estimateBytes(stats.getTimeseries()) + STATS_BYTES + VALUE_BYTES * values;
+  }
+
+  private static void checkSpan(long spanMillis) {
+    if (spanMillis < MIN_SPAN_MILLIS) {
+      throw new AppClientException(
+          "Span must be at least " + MIN_SPAN_MILLIS + "ms, but was " + spanMillis + "ms.");
+    }
+  }
+
+  private Log getLog(long logId) {
+    Log log = logsSrv.get(logId);
+    if (log == null) {
+      throw new NotFoundException("Could not find log id=" + logId);
+    }
+    return log;
+  }
+
+  private synchronized Object cached(Key key) {
+    Cached cached = cache.get(key);
+    return cached == null ? null : cached.result();
+  }
+
+  /**
+   * Caches the result if the log has finished, since the samples of a log which has not may still
+   * change, then drops the least recently used results until the cache is small enough again. A
+   * result too big for the cache is not kept at all.
+   */
+  private synchronized void cache(Log log, Key key, Object result, long bytes) {
+    if (log.getStatus() != Log.Status.COMPLETE || bytes > maxCachedBytes) {
+      return;
+    }
+    Cached replaced = cache.put(key, new Cached(result, bytes));
+    if (replaced != null) {
+      cachedBytes -= replaced.bytes();
+    }
+    cachedBytes += bytes;
+    Iterator<Cached> eldest = cache.values().iterator();
+    while (cachedBytes > maxCachedBytes && eldest.hasNext()) {
+      cachedBytes -= eldest.next().bytes();
+      eldest.remove();
+    }
+  }
+
+  /** The columnar file of the log if it was stored or converted to that, else the Avro file. */
+  private File dataFile(long logId) throws FileNotFoundException {
+    try {
+      return logsSrv.getColumnarFile(logId);
+    } catch (FileNotFoundException ex) {
+      return logsSrv.getAvroFile(logId);
+    }
+  }
+
+  private static SampleCursor open(
+      boolean columnar,
+      Path dataFile,
+      Set<SampleField> fields,
+      long fromOffset,
+      long toOffset,
+      Collection<String> labels)
+      throws IOException {
+    if (columnar) {
+      return ColumnarSamplesReader.sampleCursor(dataFile, fields, fromOffset, toOffset, labels);
+    }
+    return AvroSamplesReader.sampleCursor(dataFile, fields, fromOffset, toOffset, labels);
+  }
+
+  /**
+   * @return the labels of the file selected by the filter, or null if the filter selects every
+   *     label.
+   */
+  private static Collection<String> matchingLabels(List<String> fileLabels, SampleFilter filter) {
+    if (filter.getLabels().isEmpty() && filter.getLabelPattern() == null) {
+      return null;
+    }
+    Pattern pattern =
+        filter.getLabelPattern() == null ? null : Pattern.compile(filter.getLabelPattern());
+    Set<String> matching = new HashSet<>();
+    for (String label : fileLabels) {
+      if ((filter.getLabels().isEmpty() || filter.getLabels().contains(label))
+          && (pattern == null || pattern.matcher(label).matches())) {
+        matching.add(label);
+      }
+    }
+    return matching;
+  }
+
+  /** The stored bins which make up one bin of a larger span. */
+  private static class Combined {
+
+    private final AbstractHistogram histogram = MergeableHistograms.create();
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    private long numSamples;
+    private long totalDuration;
+    private long totalResponseBytes;
+    private long numErrors;
+
+    void add(Stats stored, AbstractHistogram storedHistogram) {
+      histogram.add(storedHistogram);
+      min = Math.min(min, stored.getMin());
+      max = Math.max(max, stored.getMax());
+      numSamples += stored.getNumSamples();
+      totalDuration += stored.getAvg() * stored.getNumSamples();
+      totalResponseBytes += stored.getTotalResponseBytes();
+      numErrors += stored.getNumErrors();
+    }
+
+    Stats toStats(long offsetMillis) {
+      return new Stats(
+          offsetMillis,
+          min,
+          percentile(25.0),
+          percentile(50.0),
+          percentile(75.0),
+          percentile(90.0),
+          percentile(95.0),
+          percentile(99.0),
+          max,
+          totalDuration / numSamples,
+          numSamples,
+          totalResponseBytes,
+          numErrors);
+    }
+
+    /** Within the min and max, which are exact, unlike the values of the histogram. */
+    private long percentile(double percentile) {
+      return Math.clamp(histogram.getValueAtPercentile(percentile), min, max);
+    }
+  }
+
+  /**
+   * The parts of a filter which the cursor does not already check, as tests of the refs of a row.
+   * The labels and offsets are checked by the cursor.
+   */
+  private static class RowFilter {
+
+    private static final byte UNKNOWN = 0;
+    private static final byte MATCH = 1;
+    private static final byte NO_MATCH = 2;
+
+    private final Boolean success;
+    private final Set<String> codes;
+    // By thread name ref, or null if every thread matches.
+    private final boolean[] threads;
+    // By code index, see codeIndex. Filled in as refs are seen, since the refs are not known ahead.
+    private byte[] codeMatches = new byte[0];
+    private String[] codeNames = new String[0];
+
+    RowFilter(SampleFilter filter, SampleCursor cursor) {
+      success = filter.getSuccess();
+      codes = filter.getStatusCodes();
+      if (filter.getThreadPattern() == null) {
+        threads = null;
+      } else {
+        Pattern pattern = Pattern.compile(filter.getThreadPattern());
+        List<String> threadNames = cursor.threadNames();
+        threads = new boolean[threadNames.size()];
+        for (int i = 0; i < threads.length; ++i) {
+          threads[i] = pattern.matcher(threadNames.get(i)).matches();
+        }
+      }
+    }
+
+    boolean test(SampleCursor cursor) {
+      if (success != null && cursor.success() != success) {
+        return false;
+      }
+      if (threads != null) {
+        int ref = cursor.threadNameRef();
+        if (ref < 0 || ref >= threads.length || !threads[ref]) {
+          return false;
+        }
+      }
+      if (!codes.isEmpty()) {
+        int index = codeIndex(cursor, cursor.codeRef());
+        if (codeMatches[index] == UNKNOWN) {
+          codeMatches[index] = codes.contains(codeNames[index]) ? MATCH : NO_MATCH;
+        }
+        return codeMatches[index] == MATCH;
+      }
+      return true;
+    }
+
+    String statusCode(SampleCursor cursor, int codeRef) {
+      return codeNames[codeIndex(cursor, codeRef)];
+    }
+
+    /**
+     * Refs of custom codes are negative, so they are interleaved with the others to make an index.
+     * Makes room for the index, and looks up its code, the first time it is seen.
+     */
+    private int codeIndex(SampleCursor cursor, int codeRef) {
+      int index = codeRef >= 0 ? codeRef * 2 : -codeRef * 2 - 1;
+      if (index >= codeNames.length) {
+        int length = Math.max(index + 1, codeNames.length * 2);
+        codeNames = Arrays.copyOf(codeNames, length);
+        codeMatches = Arrays.copyOf(codeMatches, length);
+      }
+      if (codeNames[index] == null) {
+        codeNames[index] = cursor.statusCode(codeRef);
+      }
+      return index;
+    }
+  }
+}
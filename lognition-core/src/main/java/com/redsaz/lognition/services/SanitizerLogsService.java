@@ -91,6 +91,16 @@ public class SanitizerLogsService implements LogsService {
     return srv.getAvroFile(id);
   }
 
+  @Override
+  public File getColumnarFile(long id) throws FileNotFoundException {
+    return srv.getColumnarFile(id);
+  }
+
+  @Override
+  public File getLabelPartitionsDir(long id) throws FileNotFoundException {
+    return srv.getLabelPartitionsDir(id);
+  }
+
   @Override
   public InputStream getCsvContent(long id) throws IOException {
     return srv.getCsvContent(id);
@@ -20,6 +20,8 @@ import com.redsaz.lognition.api.ReviewsService;
 import com.redsaz.lognition.api.model.Attachment;
 import com.redsaz.lognition.api.model.Log;
 import com.redsaz.lognition.api.model.Review;
+import com.redsaz.lognition.api.model.ReviewChart;
+import com.redsaz.lognition.api.model.ReviewCharts;
 import java.io.InputStream;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
@@ -106,6 +108,21 @@ public class SanitizerReviewsService implements ReviewsService {
     return srv.getReviewLogs(reviewId);
   }
 
+  @Override
+  public ReviewCharts getCharts(long reviewId) {
+    return srv.getCharts(reviewId);
+  }
+
+  @Override
+  public void putCharts(long reviewId, long dataVersion, List<ReviewChart> charts) {
+    srv.putCharts(reviewId, dataVersion, charts);
+  }
+
+  @Override
+  public List<Long> listStaleChartReviewIds() {
+    return srv.listStaleChartReviewIds();
+  }
+
   @Override
   public Attachment putAttachment(long reviewId, Attachment source, InputStream data) {
     return srv.putAttachment(reviewId, source, data);
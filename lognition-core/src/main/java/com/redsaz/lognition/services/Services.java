@@ -21,6 +21,12 @@ import com.redsaz.lognition.api.LogsService;
 import com.redsaz.lognition.api.ReviewsService;
 import com.redsaz.lognition.api.StatsService;
 import com.redsaz.lognition.api.exceptions.AppServerException;
+import com.redsaz.lognition.convert.AvroSamplesWriter;
+import com.redsaz.lognition.convert.ColumnarSamplesWriter;
+import com.redsaz.lognition.convert.LabelPartitioningWriter;
+import com.redsaz.lognition.convert.OffHeapBudget;
+import com.redsaz.lognition.convert.ParallelAvroSamplesReader;
+import com.redsaz.lognition.convert.SamplesWriter;
 import com.redsaz.lognition.store.ConnectionPool;
 import com.redsaz.lognition.store.HsqldbConnectionPool;
 import com.redsaz.lognition.store.JooqAttachmentsService;
@@ -33,6 +39,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.SQLException;
+import java.util.concurrent.ExecutorService;
 import org.jooq.SQLDialect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,8 +63,41 @@ public class Services implements AutoCloseable {
   private final ImportService importService;
   private final StatsService statsService;
   private final ProcessorImportService processorImportService;
+  private final LiveIngestService liveIngestService;
+  private final LogEvents logEvents;
+  private final ReviewMembership reviewMembership;
+  private final ParallelLogLoader parallelLogLoader;
+  private final SampleQueryService sampleQueryService;
+  private final ExecutorService decodeExecutor;
 
   public Services(String embeddedDbPath, boolean autoinit) {
+    this(embeddedDbPath, autoinit, ImportMetrics.NONE);
+  }
+
+  public Services(String embeddedDbPath, boolean autoinit, ImportMetrics importMetrics) {
+    this(embeddedDbPath, autoinit, importMetrics, new AvroSamplesWriter(), false, 0, 0L, null);
+  }
+
+  /**
+   * @param avroWriter writes the samples of imported and live logs, and any label partitions.
+   * @param columnar if true, the samples of imported and live logs are written in the columnar
+   *     format instead of Avro.
+   * @param labelPartitionMinRows if more than 0, the samples of each log are also written split up
+   *     by label, where each label with at least this many samples gets a file of its own.
+   * @param offHeapBudgetBytes the most off-heap memory that imports may hold samples in at once, or
+   *     0 to keep imported samples on the heap.
+   * @param offHeapSpillPath where samples that do not fit in the off-heap budget are spilled to, or
+   *     null to fail imports that do not fit.
+   */
+  public Services(
+      String embeddedDbPath,
+      boolean autoinit,
+      ImportMetrics importMetrics,
+      AvroSamplesWriter avroWriter,
+      boolean columnar,
+      int labelPartitionMinRows,
+      long offHeapBudgetBytes,
+      String offHeapSpillPath) {
     try {
       LOG.info("Loading DB at embeddedDbPath={}", embeddedDbPath);
       this.connectionPool = hsqldbPool(Paths.get(embeddedDbPath), autoinit);
@@ -68,10 +108,13 @@ public class Services implements AutoCloseable {
     this.attachmentsService =
         new SanitizerAttachmentsService(
             new JooqAttachmentsService(this.connectionPool, SQLDialect.HSQLDB, ATTACHMENTS_DIR));
+    this.logEvents = new LogEvents();
     this.logsService =
-        new SanitizerLogsService(
-            new JooqLogsService(
-                this.connectionPool, SQLDialect.HSQLDB, LOGS_DIR, this.attachmentsService));
+        new EventingLogsService(
+            new SanitizerLogsService(
+                new JooqLogsService(
+                    this.connectionPool, SQLDialect.HSQLDB, LOGS_DIR, this.attachmentsService)),
+            this.logEvents);
     this.reviewsService =
         new SanitizerReviewsService(
             new JooqReviewsService(
@@ -79,8 +122,45 @@ public class Services implements AutoCloseable {
     this.importService =
         new SanitizerImportService(new JooqImportService(this.connectionPool, SQLDialect.HSQLDB));
     this.statsService = new JooqStatsService(this.connectionPool, SQLDialect.HSQLDB);
+    SamplesWriter logWriter = columnar ? new ColumnarSamplesWriter() : avroWriter;
+    if (labelPartitionMinRows > 0) {
+      logWriter = new LabelPartitioningWriter(logWriter, avroWriter, labelPartitionMinRows);
+    }
     this.processorImportService =
-        new ProcessorImportService(importService, logsService, statsService, LOGS_DIR);
+        new ProcessorImportService(
+            importService,
+            logsService,
+            statsService,
+            LOGS_DIR,
+            logEvents,
+            importMetrics,
+            logWriter,
+            offHeapBudgetBytes > 0L ? new OffHeapBudget(offHeapBudgetBytes) : null,
+            offHeapBudgetBytes > 0L && offHeapSpillPath != null ? Path.of(offHeapSpillPath) : null);
+    this.liveIngestService =
+        new LiveIngestService(
+            logsService,
+            statsService,
+            processorImportService,
+            LOGS_DIR,
+            LiveIngestService.DEFAULT_FLUSH_MILLIS,
+            LiveIngestService.DEFAULT_SEGMENT_MAX_ROWS,
+            LiveIngestService.DEFAULT_SEGMENT_MAX_MILLIS,
+            avroWriter);
+    this.logEvents.setLiveStatsSource(liveIngestService::getLiveStats);
+    this.reviewMembership =
+        new ReviewMembership(logsService, reviewsService, ReviewMembership.DEFAULT_COALESCE_MILLIS);
+    // Half of the connections, so that imports and viewing logs can still get at the database.
+    this.parallelLogLoader =
+        new ParallelLogLoader(
+            Math.max(1, connectionPool.maxConnections() / 2),
+            ParallelLogLoader.DEFAULT_TIMEOUT_MILLIS);
+    this.sampleQueryService =
+        new SampleQueryService(
+            logsService, statsService, SampleQueryService.DEFAULT_MAX_CACHED_BYTES);
+    // Shared by every export, so that many at once do not each start threads of their own.
+    this.decodeExecutor =
+        ParallelAvroSamplesReader.newExecutor(ParallelAvroSamplesReader.DEFAULT_WORKERS);
     LOG.info("Started Lognition Services.");
   }
 
@@ -100,10 +180,42 @@ public class Services implements AutoCloseable {
     return statsService;
   }
 
+  public LiveIngestService liveIngestService() {
+    return liveIngestService;
+  }
+
+  public LogEvents logEvents() {
+    return logEvents;
+  }
+
+  public ReviewMembership reviewMembership() {
+    return reviewMembership;
+  }
+
+  public ParallelLogLoader parallelLogLoader() {
+    return parallelLogLoader;
+  }
+
+  public SampleQueryService sampleQueryService() {
+    return sampleQueryService;
+  }
+
+  /**
+   * @return the executor that the blocks of log data files are decoded on, for {@link
+   *     ParallelAvroSamplesReader#orderedStream}.
+   */
+  public ExecutorService decodeExecutor() {
+    return decodeExecutor;
+  }
+
   @Override
   public void close() throws Exception {
     LOG.info("Closing Lognition services.");
     processorImportService.shutdown();
+    liveIngestService.shutdown();
+    logEvents.shutdown();
+    reviewMembership.shutdown();
+    decodeExecutor.shutdownNow();
     try {
       connectionPool.close();
     } catch (SQLException ex) {
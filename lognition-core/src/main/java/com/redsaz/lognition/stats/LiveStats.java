@@ -0,0 +1,254 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.stats;
+
+import com.redsaz.lognition.api.model.Sample;
+import com.redsaz.lognition.api.model.Stats;
+import com.redsaz.lognition.api.model.Timeseries;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.HdrHistogram.IntCountsHistogram;
+
+/**
+ * Folds samples, one at a time and in any order, into per-second and per-minute bins for each
+ * label, so that statistics of a still-running test can be viewed without re-reading all of the
+ * samples. The percentiles are approximations from a histogram, and the per-second bins only keep
+ * counts, min, max, and average to keep memory use down. Once the test is complete the exact stats
+ * are calculated by {@link StatsBuilder} like any other import.
+ *
+ * <p>Label ID 0 is always "Overall", and the other labels are numbered in the order they were first
+ * seen. Instances are safe to use from multiple threads.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class LiveStats {
+
+  public static final long SECOND_SPAN_MILLIS = 1000L;
+  public static final long MINUTE_SPAN_MILLIS = 60000L;
+
+  private static final String OVERALL_LABEL = "Overall";
+  private static final int SIGNIFICANT_DIGITS = 2;
+
+  private final List<String> labels = new ArrayList<>();
+  private final Map<String, Integer> labelIds = new HashMap<>();
+  private final List<LabelStats> labelStats = new ArrayList<>();
+  private long startMillis;
+  private long numSamples;
+  private long version;
+
+  public LiveStats() {
+    labelId(OVERALL_LABEL);
+  }
+
+  /**
+   * Folds the sample into the stats.
+   *
+   * @param sample the sample, where the offset is the absolute (epoch) start time in milliseconds.
+   */
+  public synchronized void add(Sample sample) {
+    if (numSamples == 0) {
+      startMillis = sample.getOffset();
+    }
+    // Samples which arrive earlier than the first sample seen are counted in the first bin, the
+    // same as if the clock had been a little off.
+    long relativeOffset = Math.max(0L, sample.getOffset() - startMillis);
+    labelStats.get(0).add(sample, relativeOffset);
+    String label = sample.getLabel() == null ? "" : sample.getLabel();
+    labelStats.get(labelId(label)).add(sample, relativeOffset);
+    ++numSamples;
+    ++version;
+  }
+
+  /**
+   * @return the labels seen so far, where index 0 is always "Overall".
+   */
+  public synchronized List<String> getLabels() {
+    return List.copyOf(labels);
+  }
+
+  /**
+   * @return the absolute (epoch) time in millis that offset 0 corresponds to.
+   */
+  public synchronized long getStartMillis() {
+    return startMillis;
+  }
+
+  public synchronized long getNumSamples() {
+    return numSamples;
+  }
+
+  /**
+   * @return a number which changes every time a sample is added, useful for skipping work when
+   *     nothing has changed.
+   */
+  public synchronized long getVersion() {
+    return version;
+  }
+
+  public synchronized Stats getAggregate(int labelId) {
+    return labelStats.get(labelId).aggregate.toStats(0L);
+  }
+
+  /**
+   * Gets the timeseries for a label.
+   *
+   * @param labelId the label to get the timeseries for
+   * @param spanMillis either {@link #SECOND_SPAN_MILLIS} or {@link #MINUTE_SPAN_MILLIS}
+   * @return the timeseries of the label for the span
+   */
+  public synchronized Timeseries getTimeseries(int labelId, long spanMillis) {
+    return getTimeseries(labelId, spanMillis, 0);
+  }
+
+  /**
+   * Gets the newest part of a timeseries for a label.
+   *
+   * @param labelId the label to get the timeseries for
+   * @param spanMillis either {@link #SECOND_SPAN_MILLIS} or {@link #MINUTE_SPAN_MILLIS}
+   * @param fromBin the first bin to include, bins before it are left out.
+   * @return the timeseries of the label for the span, starting at fromBin
+   */
+  public synchronized Timeseries getTimeseries(int labelId, long spanMillis, int fromBin) {
+    LabelStats stats = labelStats.get(labelId);
+    Bins bins;
+    if (spanMillis == SECOND_SPAN_MILLIS) {
+      bins = stats.seconds;
+    } else if (spanMillis == MINUTE_SPAN_MILLIS) {
+      bins = stats.minutes;
+    } else {
+      throw new IllegalArgumentException("Live stats are not kept for spanMillis=" + spanMillis);
+    }
+    return bins.toTimeseries(fromBin);
+  }
+
+  private int labelId(String label) {
+    Integer id = labelIds.get(label);
+    if (id == null) {
+      id = labels.size();
+      labels.add(label);
+      labelIds.put(label, id);
+      labelStats.add(new LabelStats());
+    }
+    return id;
+  }
+
+  private static class LabelStats {
+    private final Bin aggregate = new Bin(true);
+    private final Bins seconds = new Bins(SECOND_SPAN_MILLIS, false);
+    private final Bins minutes = new Bins(MINUTE_SPAN_MILLIS, true);
+
+    void add(Sample sample, long relativeOffset) {
+      aggregate.add(sample);
+      seconds.add(sample, relativeOffset);
+      minutes.add(sample, relativeOffset);
+    }
+  }
+
+  private static class Bins {
+    private final long spanMillis;
+    private final boolean withPercentiles;
+    private final ArrayList<Bin> bins = new ArrayList<>();
+
+    Bins(long span, boolean percentiles) {
+      spanMillis = span;
+      withPercentiles = percentiles;
+    }
+
+    void add(Sample sample, long relativeOffset) {
+      int index = (int) (relativeOffset / spanMillis);
+      while (bins.size() <= index) {
+        bins.add(new Bin(withPercentiles));
+      }
+      bins.get(index).add(sample);
+    }
+
+    Timeseries toTimeseries(int fromBin) {
+      if (fromBin >= bins.size()) {
+        return new Timeseries(spanMillis, Collections.emptyList());
+      }
+      List<Stats> statsList = new ArrayList<>(bins.size() - fromBin);
+      for (int i = Math.max(0, fromBin); i < bins.size(); ++i) {
+        statsList.add(bins.get(i).toStats(i * spanMillis));
+      }
+      return new Timeseries(spanMillis, statsList);
+    }
+  }
+
+  private static class Bin {
+    private final IntCountsHistogram histogram;
+    private long numSamples;
+    private long totalDuration;
+    private long totalResponseBytes;
+    private long numErrors;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    Bin(boolean withPercentiles) {
+      if (withPercentiles) {
+        histogram = new IntCountsHistogram(SIGNIFICANT_DIGITS);
+      } else {
+        histogram = null;
+      }
+    }
+
+    void add(Sample sample) {
+      long duration = Math.max(0L, sample.getDuration());
+      ++numSamples;
+      totalDuration += duration;
+      totalResponseBytes += sample.getResponseBytes();
+      if (!sample.isSuccess()) {
+        ++numErrors;
+      }
+      min = Math.min(min, duration);
+      max = Math.max(max, duration);
+      if (histogram != null) {
+        histogram.recordValue(duration);
+      }
+    }
+
+    Stats toStats(long offsetMillis) {
+      if (numSamples == 0) {
+        return new Stats(
+            offsetMillis, null, null, null, null, null, null, null, null, null, 0L, 0L, 0L);
+      }
+      return new Stats(
+          offsetMillis,
+          min,
+          percentile(25D),
+          percentile(50D),
+          percentile(75D),
+          percentile(90D),
+          percentile(95D),
+          percentile(99D),
+          max,
+          totalDuration / numSamples,
+          numSamples,
+          totalResponseBytes,
+          numErrors);
+    }
+
+    private Long percentile(double percentile) {
+      if (histogram == null) {
+        return null;
+      }
+      // The histogram reports the highest equivalent value, so keep it within the real max.
+      return Math.min(max, histogram.getValueAtPercentile(percentile));
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.stats;
+
+import com.redsaz.lognition.api.exceptions.AppServerException;
+import com.redsaz.lognition.api.model.EncodedHistograms;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.PackedHistogram;
+
+/**
+ * Histograms of durations which can be stored and merged. Every one of them has the same range and
+ * precision, no matter which log, label, or bin it is for, so merging any of them together gives
+ * the same histogram as if all of their samples had been recorded into one.
+ *
+ * <p>The histograms are packed, so only the values actually recorded take up memory, and are stored
+ * in HdrHistogram's compressed form.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public final class MergeableHistograms {
+
+  public static final long LOWEST_DISCERNIBLE_MILLIS = 1L;
+  /** Durations longer than this are recorded as this. */
+  public static final long HIGHEST_TRACKABLE_MILLIS = TimeUnit.HOURS.toMillis(24L);
+  /** Values are kept within 0.1% of what was recorded. */
+  public static final int SIGNIFICANT_DIGITS = 3;
+
+  private MergeableHistograms() {
+    // Do not allow utility classes to be instanciated.
+  }
+
+  /**
+   * @return an empty histogram, with the same range and precision as all of the others.
+   */
+  public static AbstractHistogram create() {
+    return new PackedHistogram(
+        LOWEST_DISCERNIBLE_MILLIS, HIGHEST_TRACKABLE_MILLIS, SIGNIFICANT_DIGITS);
+  }
+
+  /**
+   * Records a duration, limited to the range of the histogram.
+   *
+   * @param histogram the histogram to record to
+   * @param durationMillis the duration of a sample
+   */
+  public static void record(AbstractHistogram histogram, long durationMillis) {
+    histogram.recordValue(Math.clamp(durationMillis, 0L, HIGHEST_TRACKABLE_MILLIS));
+  }
+
+  /**
+   * Records a duration many times over, limited to the range of the histogram.
+   *
+   * @param histogram the histogram to record to
+   * @param durationMillis the duration shared by the samples
+   * @param count how many samples had the duration
+   */
+  public static void record(AbstractHistogram histogram, long durationMillis, long count) {
+    histogram.recordValueWithCount(Math.clamp(durationMillis, 0L, HIGHEST_TRACKABLE_MILLIS), count);
+  }
+
+  /**
+   * @param histogram the histogram to encode
+   * @return the histogram in compressed form.
+   */
+  public static byte[] encode(AbstractHistogram histogram) {
+    ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+    int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+    return Arrays.copyOf(buffer.array(), length);
+  }
+
+  /**
+   * @param encoded a histogram in compressed form
+   * @return the histogram.
+   */
+  public static AbstractHistogram decode(byte[] encoded) {
+    try {
+      return PackedHistogram.decodeFromCompressedByteBuffer(
+          ByteBuffer.wrap(encoded), HIGHEST_TRACKABLE_MILLIS);
+    } catch (DataFormatException ex) {
+      throw new AppServerException("Could not decode histogram.", ex);
+    }
+  }
+
+  /**
+   * @param histograms the histograms, in compressed form
+   * @return each histogram, in the same order.
+   */
+  public static List<AbstractHistogram> decode(EncodedHistograms histograms) {
+    List<AbstractHistogram> decoded = new ArrayList<>(histograms.size());
+    for (byte[] encoded : histograms.getHistograms()) {
+      decoded.add(decode(encoded));
+    }
+    return decoded;
+  }
+
+  /**
+   * @param histograms the histograms to merge
+   * @return a new histogram with every value of every histogram.
+   */
+  public static AbstractHistogram merge(Collection<? extends AbstractHistogram> histograms) {
+    AbstractHistogram merged = create();
+    for (AbstractHistogram histogram : histograms) {
+      merged.add(histogram);
+    }
+    return merged;
+  }
+}
@@ -0,0 +1,424 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.stats;
+
+import com.redsaz.lognition.api.model.CodeCounts;
+import com.redsaz.lognition.api.model.EncodedHistograms;
+import com.redsaz.lognition.api.model.Stats;
+import com.redsaz.lognition.api.model.Timeseries;
+import com.redsaz.lognition.stats.StatsBuilder.StatsItems;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.IntCountsHistogram;
+
+/**
+ * Collects the stats of a group of samples, such as those of one label, in a form that can be
+ * merged with the stats of other groups. The samples are gathered into bins of the span as they are
+ * added, in any order, and once completed the durations of each bin are sorted in place. Merging
+ * groups together only adds up the totals, and refers to the sorted durations of every group
+ * without copying them, so the stats of the overall label can be made from the stats of every other
+ * label instead of sorting all of the samples again. Each duration is kept in the bin of the group
+ * it was added to, and the sorted durations are only merged into one array, once, when the
+ * percentiles of merged stats are read.
+ *
+ * <p>Because every duration is kept, the merged stats are exactly the same as the stats {@link
+ * StatsBuilder} calculates from all of the samples at once, bins and percentiles included.
+ *
+ * <p>This is not thread safe.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class MergeableStats {
+
+  private final long spanMillis;
+  private final List<Bin> bins;
+  private long count;
+  private long lastOffset = Long.MIN_VALUE;
+  private boolean completed;
+  // Only set if the moving stats are collected too.
+  private MovingStats moving;
+
+  /**
+   * @param spanMillis The time that each bin spans
+   */
+  public MergeableStats(long spanMillis) {
+    this(spanMillis, new ArrayList<>());
+  }
+
+  /**
+   * Also collects the moving stats of the samples, see {@link MovingStats}.
+   *
+   * @param spanMillis The time that each bin spans
+   * @param movingStepMillis The time between each window of the moving stats
+   * @param movingWindowMillis The time that each window of the moving stats spans
+   */
+  public MergeableStats(long spanMillis, long movingStepMillis, long movingWindowMillis) {
+    this(spanMillis, new ArrayList<>());
+    moving = new MovingStats(movingStepMillis, movingWindowMillis);
+  }
+
+  private MergeableStats(long spanMillis, List<Bin> bins) {
+    if (spanMillis < 1L) {
+      throw new IllegalArgumentException("Span must be at least 1 millisecond.");
+    }
+    this.spanMillis = spanMillis;
+    this.bins = bins;
+  }
+
+  /**
+   * Adds a sample to the stats. The samples do not need to be added in the order they occurred.
+   *
+   * @param offsetMillis when the sample occurred, with 0 being the start of the test
+   * @param durationMillis how long the sample took
+   * @param success whether the sample succeeded
+   * @param responseBytes how many bytes were in the response
+   * @param statusCode the status code of the sample
+   */
+  public void add(
+      long offsetMillis,
+      long durationMillis,
+      boolean success,
+      long responseBytes,
+      String statusCode) {
+    if (completed) {
+      throw new IllegalStateException("Cannot add samples once the stats are completed.");
+    }
+    // Samples before the start go into the first bin, same as when reading samples in order.
+    int index = (int) (Math.max(0L, offsetMillis) / spanMillis);
+    while (bins.size() <= index) {
+      bins.add(null);
+    }
+    Bin bin = bins.get(index);
+    if (bin == null) {
+      bin = new Bin();
+      bins.set(index, bin);
+    }
+    bin.add(durationMillis, success, responseBytes, statusCode);
+    if (moving != null) {
+      moving.add(offsetMillis, durationMillis, success, responseBytes);
+    }
+    lastOffset = Math.max(lastOffset, offsetMillis);
+    ++count;
+  }
+
+  /**
+   * Merges the stats of several groups of samples, as though every sample of every group had been
+   * added to one. The groups are completed if they were not already, and are not changed otherwise.
+   * The moving stats are only merged if every group collected them, with the same step and window.
+   *
+   * @param spanMillis The time that each bin spans, which must be the same as that of every group
+   * @param groups the stats of each group
+   * @return the completed stats of all of the groups.
+   */
+  public static MergeableStats merge(long spanMillis, Collection<MergeableStats> groups) {
+    int numBins = 0;
+    for (MergeableStats group : groups) {
+      if (group.spanMillis != spanMillis) {
+        throw new IllegalArgumentException(
+            "Cannot merge stats with a span of "
+                + group.spanMillis
+                + "ms into stats with a span of "
+                + spanMillis
+                + "ms.");
+      }
+      group.complete();
+      numBins = Math.max(numBins, group.bins.size());
+    }
+
+    List<Bin> mergedBins = new ArrayList<>(numBins);
+    for (int i = 0; i < numBins; ++i) {
+      List<Bin> groupBins = new ArrayList<>(groups.size());
+      for (MergeableStats group : groups) {
+        if (i < group.bins.size() && group.bins.get(i) != null) {
+          groupBins.add(group.bins.get(i));
+        }
+      }
+      mergedBins.add(groupBins.isEmpty() ? null : Bin.merge(groupBins));
+    }
+
+    MergeableStats merged = new MergeableStats(spanMillis, mergedBins);
+    for (MergeableStats group : groups) {
+      merged.count += group.count;
+      merged.lastOffset = Math.max(merged.lastOffset, group.lastOffset);
+    }
+    merged.completed = true;
+
+    List<MovingStats> groupMoving = new ArrayList<>(groups.size());
+    for (MergeableStats group : groups) {
+      if (group.moving != null) {
+        groupMoving.add(group.moving);
+      }
+    }
+    if (!groupMoving.isEmpty() && groupMoving.size() == groups.size()) {
+      MovingStats first = groupMoving.getFirst();
+      merged.moving =
+          MovingStats.merge(first.getStepMillis(), first.getWindowMillis(), groupMoving);
+    }
+    return merged;
+  }
+
+  /**
+   * Sorts the durations of each bin, after which no more samples can be added. Called by any of the
+   * stats getters, so it only needs to be called directly to choose when the sorting happens.
+   */
+  public void complete() {
+    if (completed) {
+      return;
+    }
+    for (Bin bin : bins) {
+      if (bin != null) {
+        bin.sort();
+      }
+    }
+    completed = true;
+  }
+
+  /**
+   * @return how many samples were added.
+   */
+  public long size() {
+    return count;
+  }
+
+  /**
+   * @return the same as {@link StatsBuilder#calcAggregateCounts(java.util.List)}.
+   */
+  public CodeCounts aggregateCounts() {
+    Map<String, Integer> total = new HashMap<>();
+    for (Bin bin : bins) {
+      if (bin != null) {
+        bin.codes.forEach((code, codeCount) -> total.merge(code, codeCount, Integer::sum));
+      }
+    }
+    return toCodeCounts(0L, List.of(total));
+  }
+
+  /**
+   * @return the same as {@link StatsBuilder#calcTimeseriesCounts(java.util.List, long)}.
+   */
+  public CodeCounts timeseriesCounts() {
+    if (count == 0L) {
+      return new CodeCounts(0, List.of(), List.of());
+    }
+    int numBins = numBins();
+    List<Map<String, Integer>> binCodes = new ArrayList<>(numBins);
+    for (int i = 0; i < numBins; ++i) {
+      Bin bin = bin(i);
+      binCodes.add(bin == null ? Map.of() : bin.codes);
+    }
+    return toCodeCounts(spanMillis, binCodes);
+  }
+
+  /**
+   * @return the same as {@link StatsBuilder#calcTimeseriesStats(java.util.List, long)}.
+   */
+  public Timeseries timeseries() {
+    complete();
+    if (count == 0L) {
+      return new Timeseries(0, List.of());
+    }
+    int numBins = numBins();
+    List<Stats> statsList = new ArrayList<>(numBins);
+    for (int i = 0; i < numBins; ++i) {
+      Bin bin = bin(i);
+      if (bin == null) {
+        statsList.add(StatsBuilder.createStats(i * spanMillis, new SortedDurations(), 0L, 0L, 0L));
+      } else {
+        statsList.add(
+            StatsBuilder.createStats(
+                i * spanMillis,
+                bin.durations,
+                bin.totalDuration,
+                bin.totalResponseBytes,
+                bin.errors));
+      }
+    }
+    return new Timeseries(spanMillis, statsList);
+  }
+
+  /**
+   * @return the moving stats of the samples, or null if they were not collected.
+   */
+  public Timeseries movingTimeseries() {
+    return moving == null ? null : moving.timeseries();
+  }
+
+  /**
+   * @return the same as {@link StatsBuilder#calcAggregateStats(java.util.List)}.
+   */
+  public Stats aggregate() {
+    complete();
+    long totalDuration = 0L;
+    long totalResponseBytes = 0L;
+    long errors = 0L;
+    for (Bin bin : bins) {
+      if (bin != null) {
+        totalDuration += bin.totalDuration;
+        totalResponseBytes += bin.totalResponseBytes;
+        errors += bin.errors;
+      }
+    }
+    return StatsBuilder.createStats(0L, durations(), totalDuration, totalResponseBytes, errors);
+  }
+
+  /**
+   * @return the same as {@link StatsBuilder#calcHistogram(java.util.List)}.
+   */
+  public StatsItems histogram() {
+    complete();
+    SortedDurations durations = durations();
+    // Minimum is 2 for HdrHistogram.
+    long maxDuration = Math.max(2L, durations.max());
+    AbstractHistogram hist = new IntCountsHistogram(maxDuration, 5);
+    durations.forEachRun(hist::recordValueWithCount);
+    return StatsBuilder.toStatsItems(hist);
+  }
+
+  /**
+   * @return the same as {@link StatsBuilder#calcHdrHistogram(java.util.List)}.
+   */
+  public EncodedHistograms hdrHistogram() {
+    complete();
+    AbstractHistogram hist = MergeableHistograms.create();
+    durations()
+        .forEachRun((duration, runCount) -> MergeableHistograms.record(hist, duration, runCount));
+    return new EncodedHistograms(0L, List.of(MergeableHistograms.encode(hist)));
+  }
+
+  /**
+   * @return the same as {@link StatsBuilder#calcTimeseriesHdrHistograms(java.util.List, long)}.
+   */
+  public EncodedHistograms timeseriesHdrHistograms() {
+    complete();
+    if (count == 0L) {
+      return new EncodedHistograms(spanMillis, List.of());
+    }
+    int numBins = numBins();
+    List<byte[]> encoded = new ArrayList<>(numBins);
+    AbstractHistogram hist = MergeableHistograms.create();
+    for (int i = 0; i < numBins; ++i) {
+      Bin bin = bin(i);
+      hist.reset();
+      if (bin != null) {
+        bin.durations.forEachRun(
+            (duration, runCount) -> MergeableHistograms.record(hist, duration, runCount));
+      }
+      encoded.add(MergeableHistograms.encode(hist));
+    }
+    return new EncodedHistograms(spanMillis, encoded);
+  }
+
+  /**
+   * The bins stop at the offset of the last sample, and a last sample which lands exactly on the
+   * start of a bin is left out of the timeseries, the same as {@link StatsBuilder} does.
+   */
+  private int numBins() {
+    return (int) Math.ceil((double) lastOffset / spanMillis);
+  }
+
+  private Bin bin(int index) {
+    return index < bins.size() ? bins.get(index) : null;
+  }
+
+  /**
+   * @return the durations of every bin, read as one, without copying them.
+   */
+  private SortedDurations durations() {
+    complete();
+    SortedDurations all = new SortedDurations();
+    for (Bin bin : bins) {
+      if (bin != null) {
+        all.addAll(bin.durations);
+      }
+    }
+    return all;
+  }
+
+  private static CodeCounts toCodeCounts(long spanMillis, List<Map<String, Integer>> binCodes) {
+    TreeSet<String> codeSet = new TreeSet<>();
+    for (Map<String, Integer> codes : binCodes) {
+      codeSet.addAll(codes.keySet());
+    }
+    List<String> codes = new ArrayList<>(codeSet);
+    List<List<Integer>> counts = new ArrayList<>(binCodes.size());
+    for (Map<String, Integer> bin : binCodes) {
+      List<Integer> binCounts = new ArrayList<>(Collections.nCopies(codes.size(), 0));
+      for (int i = 0; i < codes.size(); ++i) {
+        binCounts.set(i, bin.getOrDefault(codes.get(i), 0));
+      }
+      counts.add(binCounts);
+    }
+    return new CodeCounts(spanMillis, codes, counts);
+  }
+
+  /** The samples of one span of time. */
+  private static class Bin {
+
+    // Until sorted, only the first size elements are durations. Sorted in place, not copied.
+    private long[] values = new long[16];
+    private int size;
+    // Set once sorted, or once merged from the bins of other groups.
+    private SortedDurations durations;
+    private long totalDuration;
+    private long totalResponseBytes;
+    private long errors;
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    void add(long durationMillis, boolean success, long responseBytes, String statusCode) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = durationMillis;
+      totalDuration += durationMillis;
+      totalResponseBytes += responseBytes;
+      if (!success) {
+        ++errors;
+      }
+      codes.merge(statusCode, 1, Integer::sum);
+    }
+
+    void sort() {
+      if (durations != null) {
+        return;
+      }
+      Arrays.sort(values, 0, size);
+      durations = new SortedDurations();
+      durations.add(values, size);
+    }
+
+    static Bin merge(List<Bin> bins) {
+      Bin merged = new Bin();
+      merged.values = null;
+      merged.durations = new SortedDurations();
+      for (Bin bin : bins) {
+        merged.durations.addAll(bin.durations);
+        merged.size += bin.size;
+        merged.totalDuration += bin.totalDuration;
+        merged.totalResponseBytes += bin.totalResponseBytes;
+        merged.errors += bin.errors;
+        bin.codes.forEach((code, codeCount) -> merged.codes.merge(code, codeCount, Integer::sum));
+      }
+      return merged;
+    }
+  }
+}
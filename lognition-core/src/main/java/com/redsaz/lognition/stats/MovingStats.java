@@ -0,0 +1,267 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.stats;
+
+import com.redsaz.lognition.api.model.Stats;
+import com.redsaz.lognition.api.model.Timeseries;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+
+/**
+ * Collects the stats of a group of samples over a window of time which moves along in steps, such
+ * as the last five minutes every ten seconds. Unlike the bins of a timeseries, the windows overlap,
+ * so a short spike is not split across the edge of two bins or hidden by a bin of its own.
+ *
+ * <p>The samples are recorded into a histogram for each step as they are added, in any order, and
+ * the durations themselves are not kept. The window is then moved along one step at a time: the
+ * histogram of the step coming into the window is added to that of the window, and the histogram of
+ * the step going out of it is subtracted, so the time taken does not depend on how long the window
+ * is or how many samples are in it.
+ *
+ * <p>The counts, totals, and averages are exact. The min, max, and percentiles come from the
+ * histogram, so are as precise as {@link MergeableHistograms}, which is exact for durations of up
+ * to two seconds.
+ *
+ * <p>This is not thread safe.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class MovingStats {
+
+  private static final double[] PERCENTS = {0.25D, 0.50D, 0.75D, 0.90D, 0.95D, 0.99D};
+
+  private final long stepMillis;
+  private final long windowMillis;
+  // The steps of each group of samples. There is only more than one group once merged.
+  private final List<List<Step>> groups;
+
+  /**
+   * @param stepMillis The time between each window
+   * @param windowMillis The time that each window spans, which must be a multiple of the step
+   */
+  public MovingStats(long stepMillis, long windowMillis) {
+    this(stepMillis, windowMillis, List.of(new ArrayList<>()));
+  }
+
+  private MovingStats(long stepMillis, long windowMillis, List<List<Step>> groups) {
+    if (stepMillis < 1L) {
+      throw new IllegalArgumentException("Step must be at least 1 millisecond.");
+    } else if (windowMillis < stepMillis || windowMillis % stepMillis != 0L) {
+      throw new IllegalArgumentException(
+          "Window must be a multiple of the step of "
+              + stepMillis
+              + "ms, but was "
+              + windowMillis
+              + "ms.");
+    }
+    this.stepMillis = stepMillis;
+    this.windowMillis = windowMillis;
+    this.groups = groups;
+  }
+
+  /**
+   * Adds a sample to the stats. The samples do not need to be added in the order they occurred.
+   *
+   * @param offsetMillis when the sample occurred, with 0 being the start of the test
+   * @param durationMillis how long the sample took
+   * @param success whether the sample succeeded
+   * @param responseBytes how many bytes were in the response
+   */
+  public void add(long offsetMillis, long durationMillis, boolean success, long responseBytes) {
+    if (groups.size() != 1) {
+      throw new IllegalStateException("Cannot add samples to merged stats.");
+    }
+    List<Step> steps = groups.getFirst();
+    // Samples before the start go into the first step, same as the bins of a timeseries.
+    int index = (int) (Math.max(0L, offsetMillis) / stepMillis);
+    while (steps.size() <= index) {
+      steps.add(null);
+    }
+    Step step = steps.get(index);
+    if (step == null) {
+      step = new Step();
+      steps.set(index, step);
+    }
+    step.add(durationMillis, success, responseBytes);
+  }
+
+  /**
+   * Merges the stats of several groups of samples, as though every sample of every group had been
+   * added to one. The samples of the groups are shared rather than copied, so no more samples
+   * should be added to the groups afterward.
+   *
+   * @param stepMillis The time between each window, which must be the same as that of every group
+   * @param windowMillis The time that each window spans, which must also be the same
+   * @param groups the stats of each group
+   * @return the stats of all of the groups, which no more samples can be added to.
+   */
+  public static MovingStats merge(
+      long stepMillis, long windowMillis, Collection<MovingStats> groups) {
+    List<List<Step>> merged = new ArrayList<>();
+    for (MovingStats group : groups) {
+      if (group.stepMillis != stepMillis || group.windowMillis != windowMillis) {
+        throw new IllegalArgumentException(
+            "Cannot merge stats with a step of "
+                + group.stepMillis
+                + "ms and window of "
+                + group.windowMillis
+                + "ms into stats with a step of "
+                + stepMillis
+                + "ms and window of "
+                + windowMillis
+                + "ms.");
+      }
+      merged.addAll(group.groups);
+    }
+    return new MovingStats(stepMillis, windowMillis, merged);
+  }
+
+  public long getStepMillis() {
+    return stepMillis;
+  }
+
+  public long getWindowMillis() {
+    return windowMillis;
+  }
+
+  /**
+   * @return the stats of the window ending at the end of each step, from the first step to the
+   *     step of the last sample. The offset of each is the end of its window, and the windows of
+   *     the steps before the first full window only span the time up to them.
+   */
+  public Timeseries timeseries() {
+    int numSteps = 0;
+    for (List<Step> steps : groups) {
+      numSteps = Math.max(numSteps, steps.size());
+    }
+    int windowSteps = (int) (windowMillis / stepMillis);
+    Window window = new Window();
+    List<Stats> statsList = new ArrayList<>(numSteps);
+    for (int i = 0; i < numSteps; ++i) {
+      for (List<Step> steps : groups) {
+        window.add(step(steps, i));
+        window.remove(step(steps, i - windowSteps));
+      }
+      statsList.add(window.toStats((i + 1L) * stepMillis));
+    }
+    return new Timeseries(stepMillis, statsList);
+  }
+
+  private static Step step(List<Step> steps, int index) {
+    return index >= 0 && index < steps.size() ? steps.get(index) : null;
+  }
+
+  /** The samples of one step. */
+  private static class Step {
+
+    private final AbstractHistogram histogram = MergeableHistograms.create();
+    private long count;
+    private long totalDuration;
+    private long totalResponseBytes;
+    private long errors;
+
+    void add(long durationMillis, boolean success, long responseBytes) {
+      MergeableHistograms.record(histogram, durationMillis);
+      ++count;
+      totalDuration += durationMillis;
+      totalResponseBytes += responseBytes;
+      if (!success) {
+        ++errors;
+      }
+    }
+  }
+
+  /** The samples within the window as it moves along. */
+  private static class Window {
+
+    // Not packed, since steps are added to and subtracted from it, and it is read once per step.
+    private final AbstractHistogram histogram =
+        new Histogram(
+            MergeableHistograms.LOWEST_DISCERNIBLE_MILLIS,
+            MergeableHistograms.HIGHEST_TRACKABLE_MILLIS,
+            MergeableHistograms.SIGNIFICANT_DIGITS);
+    private long count;
+    private long totalDuration;
+    private long totalResponseBytes;
+    private long errors;
+
+    void add(Step step) {
+      if (step == null) {
+        return;
+      }
+      histogram.add(step.histogram);
+      count += step.count;
+      totalDuration += step.totalDuration;
+      totalResponseBytes += step.totalResponseBytes;
+      errors += step.errors;
+    }
+
+    void remove(Step step) {
+      if (step == null) {
+        return;
+      }
+      histogram.subtract(step.histogram);
+      count -= step.count;
+      totalDuration -= step.totalDuration;
+      totalResponseBytes -= step.totalResponseBytes;
+      errors -= step.errors;
+    }
+
+    /**
+     * Reads the min, max, and every percentile in one pass over the recorded values. The
+     * percentiles are picked the same way as {@link StatsBuilder} picks them from sorted durations.
+     */
+    Stats toStats(long offsetMillis) {
+      if (count == 0L) {
+        return new Stats(
+            offsetMillis, null, null, null, null, null, null, null, null, null, 0L, 0L, 0L);
+      }
+      long[] percentiles = new long[PERCENTS.length];
+      long min = -1L;
+      long max = 0L;
+      int next = 0;
+      for (HistogramIterationValue value : histogram.recordedValues()) {
+        long valueMillis = value.getValueIteratedTo();
+        if (min < 0L) {
+          min = histogram.lowestEquivalentValue(valueMillis);
+        }
+        while (next < PERCENTS.length
+            && value.getTotalCountToThisValue() > (long) Math.ceil((count - 1L) * PERCENTS[next])) {
+          percentiles[next++] = valueMillis;
+        }
+        max = valueMillis;
+      }
+      return new Stats(
+          offsetMillis,
+          min,
+          percentiles[0],
+          percentiles[1],
+          percentiles[2],
+          percentiles[3],
+          percentiles[4],
+          percentiles[5],
+          max,
+          totalDuration / count,
+          count,
+          totalResponseBytes,
+          errors);
+    }
+  }
+}
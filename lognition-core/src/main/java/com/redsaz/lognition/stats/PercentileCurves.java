@@ -0,0 +1,149 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.stats;
+
+import com.redsaz.lognition.api.model.Percentiles;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.math3.analysis.UnivariateFunction;
+import org.apache.commons.math3.analysis.interpolation.LinearInterpolator;
+import org.apache.commons.math3.analysis.interpolation.UnivariateInterpolator;
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+
+/**
+ * Normalizes percentiles onto the same fixed percentile points, so that the percentiles of
+ * different logs, which each have their own percentiles, can be compared point for point. Every
+ * whole percentile is a point, and the tail past 97 has more points, since that is where the
+ * interesting things usually happen.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public final class PercentileCurves {
+
+  private static final UnivariateInterpolator INTERP = new ConstantOrLinearInterpolator();
+
+  private static final double[] POINTS =
+      new double[] {
+        0d, 1d, 2d, 3d, 4d, 5d, 6d, 7d, 8d, 9d, 10d, 11d, 12d, 13d, 14d, 15d, 16d, 17d, 18d, 19d,
+        20d, 21d, 22d, 23d, 24d, 25d, 26d, 27d, 28d, 29d, 30d, 31d, 32d, 33d, 34d, 35d, 36d, 37d,
+        38d, 39d, 40d, 41d, 42d, 43d, 44d, 45d, 46d, 47d, 48d, 49d, 50d, 51d, 52d, 53d, 54d, 55d,
+        56d, 57d, 58d, 59d, 60d, 61d, 62d, 63d, 64d, 65d, 66d, 67d, 68d, 69d, 70d, 71d, 72d, 73d,
+        74d, 75d, 76d, 77d, 78d, 79d, 80d, 81d, 82d, 83d, 84d, 85d, 86d, 87d, 88d, 89d, 90d, 91d,
+        92d, 93d, 94d, 95d, 96d, 97d, 97.5d, 98d, 98.25d, 98.5d, 98.75d, 99d, 99.125d, 99.25d,
+        99.375d, 99.5d, 99.625d, 99.75d, 99.875d, 99.9d, 99.99d, 99.999, 99.9999d, 100d
+      };
+
+  private PercentileCurves() {
+    // Do not allow utility classes to be instanciated.
+  }
+
+  /**
+   * @return the number of points of every curve.
+   */
+  public static int size() {
+    return POINTS.length;
+  }
+
+  /**
+   * @param index which point
+   * @return the percentile at the point.
+   */
+  public static double point(int index) {
+    return POINTS[index];
+  }
+
+  /**
+   * Interpolates the value at each of the fixed points from the given percentiles. The first
+   * percentile is left out, as are repeated percentiles. Points before the first remaining
+   * percentile or after the last take its value, and each value is rounded to the nearest whole
+   * number.
+   *
+   * @param percentiles the percentiles of a label
+   * @return the value at each point, or null if there are not enough percentiles to make a curve.
+   */
+  public static long[] normalize(Percentiles percentiles) {
+    List<Double> originalPercs = percentiles.getPercentiles();
+    List<Long> originalMillis = percentiles.getValues();
+    List<Double> savedPercs = new ArrayList<>();
+    List<Long> savedMillis = new ArrayList<>();
+    Double prevPerc = null;
+    for (int j = 1; j < originalPercs.size(); ++j) {
+      Double perc = originalPercs.get(j);
+      if (!perc.equals(prevPerc)) {
+        savedPercs.add(perc);
+        savedMillis.add(originalMillis.get(j));
+      }
+      prevPerc = perc;
+    }
+    if (savedPercs.isEmpty()) {
+      return null;
+    }
+    double[] xvals = new double[savedPercs.size()];
+    double[] yvals = new double[savedMillis.size()];
+    for (int j = 0; j < savedPercs.size(); ++j) {
+      xvals[j] = savedPercs.get(j);
+      yvals[j] = savedMillis.get(j);
+    }
+    UnivariateFunction interp = INTERP.interpolate(xvals, yvals);
+    double minX = xvals[0];
+    double maxX = xvals[xvals.length - 1];
+    long[] curve = new long[POINTS.length];
+    for (int j = 0; j < POINTS.length; ++j) {
+      double x = POINTS[j];
+      double y;
+      if (x < minX) {
+        y = yvals[0];
+      } else if (x > maxX) {
+        y = yvals[yvals.length - 1];
+      } else {
+        y = interp.value(x);
+      }
+      curve[j] = Math.round(y);
+    }
+    return curve;
+  }
+
+  private static class ConstantOrLinearInterpolator implements UnivariateInterpolator {
+
+    private static final UnivariateInterpolator LINEINTERP = new LinearInterpolator();
+
+    @Override
+    public UnivariateFunction interpolate(double[] xvals, double[] yvals)
+        throws MathIllegalArgumentException, DimensionMismatchException {
+      if (xvals.length == 1 && yvals.length == 1) {
+        // If we only have one value, then return it along the entire x-axis.
+        return new ConstantFunction(yvals[0]);
+      } else {
+        return LINEINTERP.interpolate(xvals, yvals);
+      }
+    }
+  }
+
+  private static class ConstantFunction implements UnivariateFunction {
+
+    private final double yval;
+
+    public ConstantFunction(double inYval) {
+      yval = inYval;
+    }
+
+    @Override
+    public double value(double d) {
+      return yval;
+    }
+  }
+}
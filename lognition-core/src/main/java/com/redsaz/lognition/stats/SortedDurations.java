@@ -0,0 +1,134 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.stats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Durations kept in several sorted arrays, such as those of every bin of a label, or those of every
+ * label in a bin, which are read as though they were one sorted array. Going through every
+ * duration, as for histograms, reads each array as it is. The arrays are only merged into one the
+ * first time a duration is read by its index, as for percentiles, and every read after that is
+ * only a lookup.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+final class SortedDurations {
+
+  private final List<Part> parts = new ArrayList<>();
+  private int size;
+
+  /** The first size durations of the values are sorted, and the rest are unused. */
+  private record Part(long[] values, int size) {}
+
+  /** Called with each distinct duration of an array, and how many times it is in that array. */
+  @FunctionalInterface
+  interface RunConsumer {
+    void accept(long duration, int count);
+  }
+
+  /**
+   * Adds an array of durations. The array is kept rather than copied, so it must not be changed.
+   *
+   * @param sorted the durations, from shortest to longest
+   * @param length how many of the durations in the array to use
+   */
+  void add(long[] sorted, int length) {
+    if (length > 0) {
+      size = Math.addExact(size, length);
+      parts.add(new Part(sorted, length));
+    }
+  }
+
+  /**
+   * Adds every array of other durations, without copying them.
+   *
+   * @param other the durations to add
+   */
+  void addAll(SortedDurations other) {
+    size = Math.addExact(size, other.size);
+    parts.addAll(other.parts);
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * @param index where the duration would be if every array were merged into one
+   * @return the duration.
+   */
+  long get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    if (parts.size() > 1) {
+      merge();
+    }
+    return parts.getFirst().values[index];
+  }
+
+  /**
+   * @return the longest duration, without merging the arrays, or 0 if there are none.
+   */
+  long max() {
+    long max = 0L;
+    for (Part part : parts) {
+      max = Math.max(max, part.values[part.size - 1]);
+    }
+    return max;
+  }
+
+  /**
+   * Goes through each array, a run of the same duration at a time, which is enough to record every
+   * duration in a histogram.
+   *
+   * @param consumer called with each run
+   */
+  void forEachRun(RunConsumer consumer) {
+    for (Part part : parts) {
+      int start = 0;
+      while (start < part.size) {
+        int end = start + 1;
+        while (end < part.size && part.values[end] == part.values[start]) {
+          ++end;
+        }
+        consumer.accept(part.values[start], end - start);
+        start = end;
+      }
+    }
+  }
+
+  /**
+   * Merges every array into one, so that reading durations by index after this is only a lookup.
+   * The arrays added so far are no longer referred to by this, though they are still kept by
+   * whoever added them.
+   */
+  private void merge() {
+    long[] merged = new long[size];
+    int at = 0;
+    for (Part part : parts) {
+      System.arraycopy(part.values, 0, merged, at, part.size);
+      at += part.size;
+    }
+    // Each array was already sorted, and the sort takes advantage of runs that are in order.
+    Arrays.sort(merged);
+    parts.clear();
+    parts.add(new Part(merged, size));
+  }
+}
@@ -18,6 +18,7 @@ package com.redsaz.lognition.stats;
 import com.google.common.hash.Hashing;
 import com.google.common.hash.HashingOutputStream;
 import com.redsaz.lognition.api.model.CodeCounts;
+import com.redsaz.lognition.api.model.EncodedHistograms;
 import com.redsaz.lognition.api.model.Histogram;
 import com.redsaz.lognition.api.model.Percentiles;
 import com.redsaz.lognition.api.model.Sample;
@@ -120,6 +121,64 @@ public class StatsBuilder {
     for (Sample sample : samples) {
       hist.recordValue(sample.getDuration());
     }
+    return toStatsItems(hist);
+  }
+
+  /**
+   * Records the durations of all of the samples into a {@link MergeableHistograms} histogram.
+   *
+   * @param samples the samples
+   * @return a single encoded histogram spanning the entire log.
+   */
+  public static EncodedHistograms calcHdrHistogram(List<Sample> samples) {
+    AbstractHistogram hist = MergeableHistograms.create();
+    for (Sample sample : samples) {
+      MergeableHistograms.record(hist, sample.getDuration());
+    }
+    return new EncodedHistograms(0L, List.of(MergeableHistograms.encode(hist)));
+  }
+
+  /**
+   * Records the durations of the samples of each bin into a {@link MergeableHistograms} histogram,
+   * using the same bins as {@link #calcTimeseriesStats(List, long)}.
+   *
+   * @param offsetSortedSamples list of samples, sorted in the order that they occurred
+   * @param spanMillis The time that each bucket spans
+   * @return an encoded histogram for each bin.
+   */
+  public static EncodedHistograms calcTimeseriesHdrHistograms(
+      List<Sample> offsetSortedSamples, long spanMillis) {
+    if (offsetSortedSamples.isEmpty()) {
+      return new EncodedHistograms(spanMillis, List.of());
+    }
+    double lastOffset = offsetSortedSamples.get(offsetSortedSamples.size() - 1).getOffset();
+    int numBins = (int) Math.ceil((double) lastOffset / spanMillis);
+    List<byte[]> bins = new ArrayList<>(numBins);
+    // One histogram reused for every bin, so that its encoding buffer is only made once.
+    AbstractHistogram hist = MergeableHistograms.create();
+    int samplesToSkip = 0;
+    for (int i = 0; i < numBins; ++i) {
+      long endOffset = spanMillis * (i + 1);
+      List<Sample> binSamples =
+          getSamplesWithinOffsets(offsetSortedSamples, samplesToSkip, endOffset);
+      samplesToSkip += binSamples.size();
+      hist.reset();
+      for (Sample sample : binSamples) {
+        MergeableHistograms.record(hist, sample.getDuration());
+      }
+      bins.add(MergeableHistograms.encode(hist));
+    }
+    return new EncodedHistograms(spanMillis, bins);
+  }
+
+  /**
+   * Derives the display histogram and percentiles from a histogram, such as one merged from stored
+   * {@link MergeableHistograms}.
+   *
+   * @param hist the histogram
+   * @return the histogram buckets and percentiles.
+   */
+  public static StatsItems toStatsItems(AbstractHistogram hist) {
     //        Note: It seems "From" is exclusive and "To" is inclusive
     LogarithmicBucketValues buckets = hist.logarithmicBucketValues(1, 1.1d);
     List<Long> counts = new ArrayList<>();
@@ -137,9 +196,6 @@ public class StatsBuilder {
       }
       counts.add(count);
       bucketMaxiumums.add(to);
-      //            System.out.printf("%4d: %8d - %8d: %10d (%3.3f)\n", counts.size(), from, to,
-      // count,
-      //                    ((double) count / (double) samples.size() * 100d));
       previousTo = to;
     }
     Histogram histogram = new Histogram(counts, bucketMaxiumums);
@@ -578,9 +634,50 @@ public class StatsBuilder {
         cumulativeErrors);
   }
 
+  /**
+   * Creates stats from durations which are already sorted, along with the totals of the samples
+   * they came from, such as those merged together by {@link MergeableStats}.
+   *
+   * @param offsetMillis The point in time, with 0 being the start of the test, that these stats
+   *     start at
+   * @param durations the durations of every sample, from shortest to longest
+   * @param cumulativeDuration the total of the durations
+   * @param cumulativeResponseBytes the total response bytes of the samples
+   * @param cumulativeErrors how many of the samples failed
+   */
+  static Stats createStats(
+      long offsetMillis,
+      SortedDurations durations,
+      long cumulativeDuration,
+      long cumulativeResponseBytes,
+      long cumulativeErrors) {
+    int size = durations.size();
+    if (size == 0) {
+      return new Stats(
+          offsetMillis, null, null, null, null, null, null, null, null, null, 0L, 0L, 0L);
+    }
+    return new Stats(
+        offsetMillis,
+        durations.get(0),
+        durations.get(percentileIndex(size, 0.25D)),
+        durations.get(percentileIndex(size, 0.50D)),
+        durations.get(percentileIndex(size, 0.75D)),
+        durations.get(percentileIndex(size, 0.90D)),
+        durations.get(percentileIndex(size, 0.95D)),
+        durations.get(percentileIndex(size, 0.99D)),
+        durations.get(size - 1),
+        cumulativeDuration / size,
+        (long) size,
+        cumulativeResponseBytes,
+        cumulativeErrors);
+  }
+
   private static <T> T getElement(List<T> items, double percent) {
-    int index = (int) Math.ceil(((double) (items.size() - 1)) * percent);
-    return items.get(index);
+    return items.get(percentileIndex(items.size(), percent));
+  }
+
+  private static int percentileIndex(int size, double percent) {
+    return (int) Math.ceil(((double) (size - 1)) * percent);
   }
 
   public static class StatsItems {
@@ -19,8 +19,11 @@ module LognitionCore {
   requires LognitionConvert;
   requires LognitionStoreJooq;
   requires HdrHistogram;
+  requires com.fasterxml.jackson.databind;
+  requires java.management;
   requires java.sql;
   requires com.google.common;
+  requires commons.math3;
   requires org.slf4j;
   requires org.apache.tika.core;
   requires org.apache.commons.io;
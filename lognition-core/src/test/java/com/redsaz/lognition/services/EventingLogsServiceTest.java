@@ -0,0 +1,87 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.services;
+
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import com.redsaz.lognition.api.LogsService;
+import com.redsaz.lognition.api.exceptions.NotFoundException;
+import com.redsaz.lognition.api.model.Log;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+public class EventingLogsServiceTest {
+
+  private LogsService logsSvc;
+  private LogEvents events;
+  private EventingLogsService unit;
+
+  @Before
+  public void setUp() {
+    logsSvc = mock(LogsService.class);
+    events = mock(LogEvents.class);
+    unit = new EventingLogsService(logsSvc, events);
+  }
+
+  @Test
+  public void testUpdateStatus() {
+    // Given a log,
+    // When its status is updated,
+    unit.updateStatus(1L, Log.Status.COMPLETE);
+
+    // Then the status is stored before the listeners are told about it.
+    InOrder order = inOrder(logsSvc, events);
+    order.verify(logsSvc).updateStatus(1L, Log.Status.COMPLETE);
+    order.verify(events).statusChanged(1L, Log.Status.COMPLETE);
+  }
+
+  @Test
+  public void testUpdateStatus_notStored() {
+    // Given a log which does not exist,
+    doThrow(new NotFoundException("Log 1 not found."))
+        .when(logsSvc)
+        .updateStatus(1L, Log.Status.COMPLETE);
+
+    // When its status is updated,
+    try {
+      unit.updateStatus(1L, Log.Status.COMPLETE);
+      fail("Expected NotFoundException.");
+    } catch (NotFoundException ex) {
+      // Then the status is not stored, and the listeners are not told about it.
+      verifyNoInteractions(events);
+    }
+  }
+
+  @Test
+  public void testDelete() {
+    // Given a log,
+    // When it is deleted,
+    unit.delete(1L);
+
+    // Then it is deleted, and no status is sent for it.
+    verify(logsSvc).delete(1L);
+    verify(events, never()).statusChanged(anyLong(), any());
+  }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.services;
+
+import static com.redsaz.lognition.services.LiveIngestService.Format.CSV;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.redsaz.lognition.api.ImportService;
+import com.redsaz.lognition.api.LogsService;
+import com.redsaz.lognition.api.StatsService;
+import com.redsaz.lognition.api.exceptions.NotFoundException;
+import com.redsaz.lognition.api.model.Log;
+import com.redsaz.lognition.api.model.Sample;
+import com.redsaz.lognition.convert.AvroSamplesReader;
+import com.redsaz.lognition.stats.LiveStats;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.InOrder;
+
+public class LiveIngestServiceTest {
+
+  private static final long LOG_ID = 1L;
+  private static final String HEADER =
+      "timeStamp,elapsed,label,responseCode,responseMessage,threadName,dataType,success,"
+          + "failureMessage,bytes,sentBytes,grpThreads,allThreads,URL,Latency,IdleTime,Connect\n";
+
+  @Rule public TemporaryFolder convertedDir = new TemporaryFolder();
+
+  private LogsService logsSvc;
+  private StatsService statsSvc;
+  private ProcessorImportService importSvc;
+  private LiveIngestService unit;
+
+  @Before
+  public void setUp() {
+    logsSvc = mock(LogsService.class);
+    statsSvc = mock(StatsService.class);
+    importSvc =
+        new ProcessorImportService(
+            mock(ImportService.class), logsSvc, statsSvc, convertedDir.getRoot().toString());
+    // The stats are flushed by the tests rather than on a schedule, and segments roll every 2 rows.
+    unit =
+        new LiveIngestService(
+            logsSvc,
+            statsSvc,
+            importSvc,
+            convertedDir.getRoot().toString(),
+            TimeUnit.DAYS.toMillis(1L),
+            2,
+            LiveIngestService.DEFAULT_SEGMENT_MAX_MILLIS);
+  }
+
+  @After
+  public void tearDown() {
+    unit.shutdown();
+    importSvc.shutdown();
+  }
+
+  @Test
+  public void testAppend() throws IOException {
+    // Given a running log,
+    unit.start(LOG_ID);
+
+    // When rows are appended in two chunks, where the second repeats the header,
+    long first = unit.append(LOG_ID, csv(row(1_000L, 10L, "b"), row(2_000L, 20L, "a")), CSV);
+    long second = unit.append(LOG_ID, csv(row(3_000L, 30L, "b")), CSV);
+
+    // Then every row is appended, and the header is not taken as a row,
+    assertEquals(2L, first);
+    assertEquals(1L, second);
+    assertTrue(unit.isRunning(LOG_ID));
+    verify(logsSvc).updateStatus(LOG_ID, Log.Status.RUNNING);
+    // and the live labels are in the order they were first seen, after Overall,
+    LiveStats liveStats = unit.getLiveStats(LOG_ID);
+    assertEquals(List.of("Overall", "b", "a"), liveStats.getLabels());
+    assertEquals(3L, liveStats.getNumSamples());
+    assertEquals(Long.valueOf(20L), liveStats.getAggregate(0).getAvg());
+  }
+
+  @Test
+  public void testFlush_labelsOnlyCreatedWhenAdded() throws IOException {
+    // Given a running log with two labels,
+    unit.start(LOG_ID);
+    unit.append(LOG_ID, csv(row(1_000L, 10L, "b"), row(2_000L, 20L, "a")), CSV);
+
+    // When the live stats are flushed, and flushed again after more rows of the same labels,
+    unit.flushAll();
+    unit.append(LOG_ID, csv(row(3_000L, 30L, "b")), CSV);
+    unit.flushAll();
+
+    // Then the labels are only created the first time, in the order they were seen,
+    verify(statsSvc, times(1)).createSampleLabels(eq(LOG_ID), any());
+    verify(statsSvc).createSampleLabels(LOG_ID, List.of("Overall", "b", "a"));
+    // and the stats of every label are written each time,
+    for (long labelId = 0L; labelId < 3L; ++labelId) {
+      verify(statsSvc, times(2)).createOrUpdateAggregate(eq(LOG_ID), eq(labelId), any());
+      verify(statsSvc, times(4)).createOrUpdateTimeseries(eq(LOG_ID), eq(labelId), any());
+    }
+    // with the change told once per flush rather than once per stat.
+    verify(statsSvc, times(2)).statsChanged(LOG_ID);
+  }
+
+  @Test
+  public void testFinish() throws IOException {
+    // Given a running log whose live stats have been flushed, with labels not in sorted order,
+    unit.start(LOG_ID);
+    unit.append(
+        LOG_ID, csv(row(1_000L, 10L, "b"), row(2_000L, 20L, "a"), row(3_000L, 30L, "b")), CSV);
+    unit.flushAll();
+
+    // When the log is finished, and the import queue has stored its full stats,
+    unit.finish(LOG_ID);
+    verify(statsSvc, timeout(5000L).times(2)).statsChanged(LOG_ID);
+
+    // Then the log was imported like an uploaded log, and is complete and no longer running,
+    InOrder statuses = inOrder(logsSvc);
+    statuses.verify(logsSvc).updateStatus(LOG_ID, Log.Status.QUEUED);
+    statuses.verify(logsSvc).updateStatus(LOG_ID, Log.Status.IMPORTING);
+    statuses.verify(logsSvc).updateStatus(LOG_ID, Log.Status.COMPLETE);
+    assertFalse(unit.isRunning(LOG_ID));
+    // and every row is in the log's data file, and the segments are gone,
+    Path dataFile = convertedDir.getRoot().toPath().resolve(LOG_ID + ".avro");
+    List<Sample> samples = AvroSamplesReader.readSamples(dataFile).getSamples();
+    assertEquals(3, samples.size());
+    assertFalse(Files.exists(convertedDir.getRoot().toPath().resolve(LOG_ID + "-live")));
+    // and the live labels are replaced by the sorted labels before the full stats are stored, so
+    // no live stats are left attached to the wrong label ids.
+    InOrder order = inOrder(statsSvc);
+    order.verify(statsSvc).createSampleLabels(LOG_ID, List.of("Overall", "b", "a"));
+    order.verify(statsSvc).createSampleLabels(LOG_ID, List.of("Overall", "a", "b"));
+    order.verify(statsSvc).createOrUpdateAggregate(eq(LOG_ID), eq(2L), any());
+  }
+
+  @Test
+  public void testFinish_importFailed() throws IOException {
+    // Given a running log whose segment cannot be read,
+    unit.start(LOG_ID);
+    unit.append(LOG_ID, csv(row(1_000L, 10L, "b"), row(2_000L, 20L, "a")), CSV);
+    Path segmentDir = convertedDir.getRoot().toPath().resolve(LOG_ID + "-live");
+    try (Stream<Path> segments = Files.list(segmentDir)) {
+      for (Path segment : segments.toList()) {
+        Files.writeString(segment, "not avro");
+      }
+    }
+
+    // When the log is finished,
+    unit.finish(LOG_ID);
+
+    // Then the import fails instead of leaving the log complete without stats,
+    verify(logsSvc, timeout(5000L)).updateStatus(LOG_ID, Log.Status.IMPORT_FAILED);
+    verify(logsSvc, never()).updateStatus(LOG_ID, Log.Status.COMPLETE);
+    // and the segments are kept.
+    assertTrue(Files.isDirectory(segmentDir));
+  }
+
+  @Test(expected = NotFoundException.class)
+  public void testDiscard() throws IOException {
+    // Given a running log with rows written to segments,
+    unit.start(LOG_ID);
+    unit.append(LOG_ID, csv(row(1_000L, 10L, "b"), row(2_000L, 20L, "a")), CSV);
+    Path segmentDir = convertedDir.getRoot().toPath().resolve(LOG_ID + "-live");
+    assertTrue(Files.isDirectory(segmentDir));
+
+    // When the log is discarded, as when it is deleted,
+    unit.discard(LOG_ID);
+
+    // Then it is no longer running, nothing was imported, and the segments are gone,
+    assertFalse(unit.isRunning(LOG_ID));
+    assertFalse(Files.exists(segmentDir));
+    verify(logsSvc, times(0)).updateStatus(anyLong(), eq(Log.Status.COMPLETE));
+    // and no more rows are taken for it. (Checked by test harness, the deleted log is not found.)
+    unit.append(LOG_ID, csv(row(3_000L, 30L, "b")), CSV);
+  }
+
+  private static InputStream csv(String... rows) {
+    return new ByteArrayInputStream(
+        (HEADER + String.join("", rows)).getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String row(long offset, long duration, String label) {
+    return (1595126270000L + offset)
+        + ","
+        + duration
+        + ","
+        + label
+        + ",200,OK,Thread Group 1-1,text,true,,100,100,1,1,http://localhost/,"
+        + duration
+        + ",0,0\n";
+  }
+}
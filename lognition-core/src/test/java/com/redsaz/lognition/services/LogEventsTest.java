@@ -0,0 +1,151 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import com.redsaz.lognition.api.model.Log;
+import com.redsaz.lognition.api.model.Sample;
+import com.redsaz.lognition.services.LogEvents.LogEvent;
+import com.redsaz.lognition.services.LogEvents.StatsEvent;
+import com.redsaz.lognition.services.LogEvents.StatusEvent;
+import com.redsaz.lognition.stats.LiveStats;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LogEventsTest {
+
+  private static final long LOG_ID = 1L;
+  private static final long START = 1595126270000L;
+
+  private LogEvents unit;
+
+  @Before
+  public void setUp() {
+    unit = new LogEvents(10L);
+  }
+
+  @After
+  public void tearDown() {
+    unit.shutdown();
+  }
+
+  @Test
+  public void testStatusChanged() {
+    // Given a listener of a log,
+    BlockingQueue<List<LogEvent>> received = new LinkedBlockingQueue<>();
+    unit.subscribe(LOG_ID, received::add);
+
+    // When the log and another log nobody is listening to change status,
+    unit.statusChanged(2L, Log.Status.IMPORTING);
+    unit.statusChanged(LOG_ID, Log.Status.IMPORTING);
+    unit.statusChanged(LOG_ID, Log.Status.COMPLETE);
+
+    // Then the listener is sent every status of its log, in order, and nothing else.
+    List<LogEvent> events = new ArrayList<>();
+    while (events.size() < 2) {
+      events.addAll(next(received));
+    }
+    assertEquals(
+        List.of(
+            new StatusEvent(LOG_ID, Log.Status.IMPORTING),
+            new StatusEvent(LOG_ID, Log.Status.COMPLETE)),
+        events);
+  }
+
+  @Test
+  public void testLiveStats_laterListenerSentEveryBin() {
+    // Given a running log with three minutes of samples, and a listener that has been sent them,
+    LiveStats liveStats = new LiveStats();
+    for (int minute = 0; minute < 3; ++minute) {
+      liveStats.add(sample(minute * 60_000L));
+    }
+    unit.setLiveStatsSource(logId -> logId == LOG_ID ? liveStats : null);
+    BlockingQueue<List<LogEvent>> first = new LinkedBlockingQueue<>();
+    unit.subscribe(LOG_ID, first::add);
+    StatsEvent firstStats = nextStats(first);
+    assertEquals(0, firstStats.fromBin());
+    assertEquals(3, firstStats.bins().get(0).size());
+
+    // When a sample lands in the fourth minute, and then another listener starts listening,
+    liveStats.add(sample(3 * 60_000L));
+    BlockingQueue<List<LogEvent>> second = new LinkedBlockingQueue<>();
+    unit.subscribe(LOG_ID, second::add);
+
+    // Then the first listener is only sent the newest bins, starting again at its last bin,
+    StatsEvent firstNewest = nextStats(first);
+    assertEquals(2, firstNewest.fromBin());
+    assertEquals(2, firstNewest.bins().get(0).size());
+    // and the later listener is sent every bin, not only the newest.
+    StatsEvent secondStats = nextStats(second);
+    assertEquals(0, secondStats.fromBin());
+    assertEquals(4, secondStats.bins().get(0).size());
+    assertEquals(List.of("Overall", "a"), secondStats.labels());
+  }
+
+  @Test
+  public void testSubscription_close() throws InterruptedException {
+    // Given a listener that has stopped listening,
+    BlockingQueue<List<LogEvent>> received = new LinkedBlockingQueue<>();
+    unit.subscribe(LOG_ID, received::add).close();
+
+    // When the log changes status,
+    unit.statusChanged(LOG_ID, Log.Status.COMPLETE);
+
+    // Then the listener is not sent it.
+    assertNull(received.poll(100L, TimeUnit.MILLISECONDS));
+  }
+
+  private static Sample sample(long offset) {
+    return Sample.of(START + offset, 100L, "a", "t1", "200", "OK", true, 10L, 1);
+  }
+
+  /** Skips any empty batches sent to keep the connection alive. */
+  private static List<LogEvent> next(BlockingQueue<List<LogEvent>> received) {
+    try {
+      while (true) {
+        List<LogEvent> batch = received.poll(10L, TimeUnit.SECONDS);
+        assertNotNull("No events were sent.", batch);
+        if (!batch.isEmpty()) {
+          return batch;
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      fail("Test interrupted.");
+      return null;
+    }
+  }
+
+  private static StatsEvent nextStats(BlockingQueue<List<LogEvent>> received) {
+    while (true) {
+      for (LogEvent event : next(received)) {
+        if (event instanceof StatsEvent stats) {
+          return stats;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import org.junit.Test;
+
+public class ParallelLogLoaderTest {
+
+  @Test
+  public void testLoad() {
+    // Given a loader which loads at most 3 logs at once,
+    ParallelLogLoader unit = new ParallelLogLoader(3, 10_000L);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger mostRunning = new AtomicInteger();
+
+    // When many logs are loaded, which finish in no particular order,
+    List<Long> logIds = LongStream.rangeClosed(1L, 20L).boxed().toList();
+    List<String> actual =
+        unit.load(
+            logIds,
+            logId -> {
+              mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+              sleep((logId * 7L) % 5L);
+              running.decrementAndGet();
+              return "log" + logId;
+            },
+            "none");
+
+    // Then each result is in the same place as its log,
+    assertEquals(logIds.stream().map(id -> "log" + id).toList(), actual);
+    // and no more than 3 were loaded at once.
+    assertTrue("Most loaded at once was " + mostRunning.get(), mostRunning.get() <= 3);
+  }
+
+  @Test
+  public void testLoad_failedAndSlow() {
+    // Given a loader which waits only a short while,
+    ParallelLogLoader unit = new ParallelLogLoader(4, 200L);
+    CountDownLatch never = new CountDownLatch(1);
+
+    // When one log fails to load and another never finishes,
+    List<String> actual =
+        unit.load(
+            List.of(1L, 2L, 3L),
+            logId -> {
+              if (logId == 1L) {
+                throw new IllegalStateException("Bad log.");
+              } else if (logId == 2L) {
+                await(never);
+              }
+              return "log" + logId;
+            },
+            "none");
+
+    // Then those logs get the fallback, and the rest still load.
+    assertEquals(List.of("none", "none", "log3"), actual);
+  }
+
+  @Test
+  public void testLoad_waitingDoesNotCount() {
+    // Given a loader which loads one log at a time, and gives each a short while to load,
+    ParallelLogLoader unit = new ParallelLogLoader(1, 500L);
+
+    // When more logs are loaded than could all load within that while, but each loads in time,
+    List<Long> logIds = LongStream.rangeClosed(1L, 6L).boxed().toList();
+    List<String> actual =
+        unit.load(
+            logIds,
+            logId -> {
+              sleep(150L);
+              return "log" + logId;
+            },
+            "none");
+
+    // Then every log is loaded, even those that waited for the others.
+    assertEquals(logIds.stream().map(id -> "log" + id).toList(), actual);
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(1L, TimeUnit.MINUTES);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -16,6 +16,7 @@
 package com.redsaz.lognition.services;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
@@ -35,20 +36,27 @@ import com.redsaz.lognition.api.StatsService;
 import com.redsaz.lognition.api.model.ImportInfo;
 import com.redsaz.lognition.api.model.Log;
 import com.redsaz.lognition.api.model.Sample;
+import com.redsaz.lognition.api.model.Stats;
+import com.redsaz.lognition.api.model.Timeseries;
 import com.redsaz.lognition.convert.AvroSamplesReader;
 import com.redsaz.lognition.convert.Samples;
+import com.redsaz.lognition.stats.MovingStats;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 
 public class ProcessorImportServiceTest {
 
@@ -86,7 +94,7 @@ public class ProcessorImportServiceTest {
               return null;
             })
         .when(statsSvc)
-        .createOrUpdatePercentiles(eq(log.getId()), eq(lastLabelId), any());
+        .createOrUpdatePercentileCurve(eq(log.getId()), eq(lastLabelId), any());
 
     // When the file is imported,
     ImportInfo ii = unit.upload(is, log, importDirStr, uploadedUtc);
@@ -118,15 +126,29 @@ public class ProcessorImportServiceTest {
             });
 
     // and the stats should be eagerly calculated,
-    verify(statsSvc).createSampleLabels(eq(log.getId()), any());
+    ArgumentCaptor<List<String>> labels = ArgumentCaptor.captor();
+    verify(statsSvc).createSampleLabels(eq(log.getId()), labels.capture());
 
     for (long i = 0; i <= lastLabelId; ++i) {
       verify(statsSvc, times(2)).createOrUpdateCodeCounts(eq(log.getId()), eq(i), any());
       verify(statsSvc).createOrUpdateTimeseries(eq(log.getId()), eq(i), any());
       verify(statsSvc).createOrUpdateAggregate(eq(log.getId()), eq(i), any());
       verify(statsSvc).createOrUpdateHistogram(eq(log.getId()), eq(i), any());
+      verify(statsSvc, times(2)).createOrUpdateHdrHistograms(eq(log.getId()), eq(i), any());
       verify(statsSvc).createOrUpdatePercentiles(eq(log.getId()), eq(i), any());
+      verify(statsSvc).createOrUpdatePercentileCurve(eq(log.getId()), eq(i), any());
     }
+    // including the five minute moving stats of each label, every ten seconds.
+    for (int i = 0; i <= lastLabelId; ++i) {
+      ArgumentCaptor<Timeseries> moving = ArgumentCaptor.captor();
+      verify(statsSvc)
+          .createOrUpdateMovingTimeseries(
+              eq(log.getId()), eq((long) i), eq(300_000L), moving.capture());
+      String label = i == 0 ? null : labels.getValue().get(i);
+      assertSameStats(movingStats(actualSamples, label), moving.getValue());
+    }
+    // and the change is told once, after all of the stats are stored.
+    verify(statsSvc).statsChanged(eq(log.getId()));
 
     // Uploading is status whilst receiving bytes
     verify(logSvc).updateStatus(eq(log.getId()), eq(Log.Status.UPLOADING));
@@ -138,6 +160,85 @@ public class ProcessorImportServiceTest {
     verify(impSvc).delete(eq(ii.getId()));
   }
 
+  @Test
+  public void testUploadRecordsMetrics() throws IOException {
+    // Given a CSV-based JTL file,
+    ImportService impSvc = mock(ImportService.class);
+    LogsService logSvc = mock(LogsService.class);
+    StatsService statsSvc = mock(StatsService.class);
+    String importDirStr = importDir.getRoot().toString();
+    RecordingMetrics metrics = new RecordingMetrics();
+
+    ProcessorImportService unit =
+        new ProcessorImportService(
+            impSvc, logSvc, statsSvc, importDirStr, new LogEvents(), metrics);
+
+    Log log = new Log(1L, Log.Status.AWAITING_UPLOAD, "test", "Test", "testtest.csv", "notes");
+    String filename = "src/test/resources/test.jtl";
+    InputStream is = Files.newInputStream(Paths.get(filename));
+    ImportInfo imported = new ImportInfo(1L, filename, 1595126271000L);
+    when(impSvc.upload(same(is), same(log), eq(importDirStr), eq(1595126270000L)))
+        .thenReturn(imported);
+
+    // When the file is imported,
+    unit.upload(is, log, importDirStr, 1595126270000L);
+    await(metrics.done);
+
+    // Then the time spent waiting and in every phase is recorded,
+    assertEquals("queue waits", 1, metrics.queueWaits);
+    for (ImportMetrics.Phase phase : ImportMetrics.Phase.values()) {
+      assertNotNull(phase + " should be recorded", metrics.phases.get(phase));
+    }
+    // and the rows and bytes read,
+    long expectedRows =
+        AvroSamplesReader.readSamples(Path.of("src/test/resources/expected.avro"))
+            .getSamples()
+            .size();
+    assertEquals(expectedRows, metrics.rows);
+    assertEquals(Files.size(Path.of(filename)), metrics.bytes);
+    // and how much heap was used, without any failures.
+    assertTrue("heap high water mark", metrics.heapHighWater > 0L);
+    assertEquals(0, metrics.failures);
+    unit.shutdown();
+  }
+
+  private static class RecordingMetrics implements ImportMetrics {
+    private final CountDownLatch done = new CountDownLatch(1);
+    private final Map<Phase, Long> phases = new ConcurrentHashMap<>();
+    private volatile int queueWaits;
+    private volatile long rows;
+    private volatile long bytes;
+    private volatile long heapHighWater;
+    private volatile int failures;
+
+    @Override
+    public void queueWait(long waitNanos) {
+      ++queueWaits;
+    }
+
+    @Override
+    public void phase(Phase phase, long nanos) {
+      phases.merge(phase, nanos, Long::sum);
+    }
+
+    @Override
+    public void imported(long numRows, long numBytes, long nanos) {
+      rows = numRows;
+      bytes = numBytes;
+    }
+
+    @Override
+    public void heapHighWater(long numBytes) {
+      heapHighWater = numBytes;
+      done.countDown();
+    }
+
+    @Override
+    public void failed(Phase phase, Throwable cause) {
+      ++failures;
+    }
+  }
+
   private static boolean await(CountDownLatch latch) {
     try {
       return latch.await(10, TimeUnit.DAYS);
@@ -147,4 +248,45 @@ public class ProcessorImportServiceTest {
     }
     return false;
   }
+
+  /** The moving stats of the samples of a label, or of every sample if the label is null. */
+  private static Timeseries movingStats(List<Sample> samples, String label) {
+    MovingStats stats = new MovingStats(10_000L, 300_000L);
+    for (Sample sample : samples) {
+      if (label == null || label.equals(sample.getLabel())) {
+        stats.add(
+            sample.getOffset(),
+            sample.getDuration(),
+            sample.isSuccess(),
+            sample.getResponseBytes());
+      }
+    }
+    return stats.timeseries();
+  }
+
+  private static void assertSameStats(Timeseries expected, Timeseries actual) {
+    assertEquals(expected.getSpanMillis(), actual.getSpanMillis());
+    assertEquals(expected.getStatsList().size(), actual.getStatsList().size());
+    assertTrue(actual.getStatsList().size() > 0);
+    for (int i = 0; i < expected.getStatsList().size(); ++i) {
+      assertEquals(fields(expected.getStatsList().get(i)), fields(actual.getStatsList().get(i)));
+    }
+  }
+
+  private static List<Object> fields(Stats stats) {
+    return Arrays.asList(
+        stats.getOffsetMillis(),
+        stats.getMin(),
+        stats.getP25(),
+        stats.getP50(),
+        stats.getP75(),
+        stats.getP90(),
+        stats.getP95(),
+        stats.getP99(),
+        stats.getMax(),
+        stats.getAvg(),
+        stats.getNumSamples(),
+        stats.getTotalResponseBytes(),
+        stats.getNumErrors());
+  }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.services;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.redsaz.lognition.api.LogsService;
+import com.redsaz.lognition.api.ReviewsService;
+import com.redsaz.lognition.api.model.Label;
+import com.redsaz.lognition.api.model.Log;
+import com.redsaz.lognition.api.model.Review;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+
+public class ReviewMembershipTest {
+
+  @Test
+  public void testLogChanged() {
+    // Given reviews which do not have any logs yet,
+    LogsService logsSrv = mock(LogsService.class);
+    ReviewsService reviewsSrv = mock(ReviewsService.class);
+    List<Review> reviews =
+        List.of(review(1L, "env=prod"), review(2L, "app, env notin (test)"), review(3L, "!app"));
+    when(reviewsSrv.list()).thenReturn(reviews);
+    when(logsSrv.listIdsBySelector(any())).thenReturn(List.of());
+    ReviewMembership unit = new ReviewMembership(logsSrv, reviewsSrv, 100L);
+    verify(reviewsSrv, timeout(5000L).times(3)).setReviewLogs(anyLong(), eq(List.of()));
+
+    // When several logs are uploaded in a burst,
+    givenLog(logsSrv, 1L, new Label("env", "prod"), new Label("app", "x"));
+    givenLog(logsSrv, 2L, new Label("env", "test"), new Label("app", "y"));
+    givenLog(logsSrv, 3L, new Label("env", "prod"));
+    unit.logChanged(1L);
+    unit.logChanged(2L);
+    unit.logChanged(3L);
+
+    // Then they are checked together, and each review is updated once with its matching logs.
+    verify(reviewsSrv, timeout(5000L)).setReviewLogs(1L, Set.of(1L, 3L));
+    verify(reviewsSrv, timeout(5000L)).setReviewLogs(2L, Set.of(1L));
+    verify(reviewsSrv, timeout(5000L)).setReviewLogs(3L, Set.of(3L));
+    unit.reviewDeleted(99L); // Waits for anything still being checked.
+
+    // When a log is relabeled,
+    givenLog(logsSrv, 2L, new Label("env", "prod"), new Label("app", "y"));
+    unit.logChanged(2L);
+
+    // Then only the reviews which gained the log are updated,
+    verify(reviewsSrv, timeout(5000L)).setReviewLogs(1L, Set.of(1L, 2L, 3L));
+    verify(reviewsSrv, timeout(5000L)).setReviewLogs(2L, Set.of(1L, 2L));
+    unit.reviewDeleted(99L);
+
+    // and when a log is deleted,
+    when(logsSrv.get(1L)).thenReturn(null);
+    unit.logChanged(1L);
+
+    // Then it is removed from the reviews which had it.
+    verify(reviewsSrv, timeout(5000L)).setReviewLogs(1L, Set.of(2L, 3L));
+    verify(reviewsSrv, timeout(5000L)).setReviewLogs(2L, Set.of(2L));
+    unit.reviewDeleted(99L);
+    verify(reviewsSrv, times(4)).setReviewLogs(eq(1L), any());
+    verify(reviewsSrv, times(4)).setReviewLogs(eq(2L), any());
+    verify(reviewsSrv, times(2)).setReviewLogs(eq(3L), any());
+    unit.shutdown();
+  }
+
+  @Test
+  public void testReviewChanged() {
+    // Given a log, and a review which does not match it,
+    LogsService logsSrv = mock(LogsService.class);
+    ReviewsService reviewsSrv = mock(ReviewsService.class);
+    when(reviewsSrv.list()).thenReturn(List.of(review(1L, "env=prod")));
+    when(logsSrv.listIdsBySelector(any())).thenReturn(List.of());
+    givenLog(logsSrv, 1L, new Label("env", "test"));
+    ReviewMembership unit = new ReviewMembership(logsSrv, reviewsSrv, 0L);
+    verify(reviewsSrv, timeout(5000L)).setReviewLogs(1L, List.of());
+
+    // When the review is changed to match it,
+    when(logsSrv.listIdsBySelector(any())).thenReturn(List.of(1L));
+    unit.reviewChanged(review(1L, "env=test"));
+
+    // Then the review has the log as soon as the change is made,
+    verify(reviewsSrv).setReviewLogs(1L, List.of(1L));
+
+    // and keeps it when the log changes but still matches the new selector.
+    givenLog(logsSrv, 1L, new Label("env", "test"), new Label("app", "x"));
+    unit.logChanged(1L);
+    unit.reviewDeleted(99L); // Waits for the change to be checked.
+    verify(reviewsSrv, times(2)).setReviewLogs(eq(1L), any());
+    unit.shutdown();
+  }
+
+  private static Review review(long id, String selector) {
+    return new Review(id, "review" + id, "Review " + id, "", 0L, 0L, selector);
+  }
+
+  private static void givenLog(LogsService logsSrv, long logId, Label... labels) {
+    Log log = new Log(logId, Log.Status.COMPLETE, "test", "Test", "test.jtl", "notes");
+    when(logsSrv.get(logId)).thenReturn(log);
+    when(logsSrv.getLabels(logId)).thenReturn(List.of(labels));
+  }
+}
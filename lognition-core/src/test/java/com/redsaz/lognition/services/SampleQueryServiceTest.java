@@ -0,0 +1,333 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.redsaz.lognition.api.LogsService;
+import com.redsaz.lognition.api.StatsService;
+import com.redsaz.lognition.api.exceptions.AppClientException;
+import com.redsaz.lognition.api.model.FilteredStats;
+import com.redsaz.lognition.api.model.Log;
+import com.redsaz.lognition.api.model.Sample;
+import com.redsaz.lognition.api.model.SampleFilter;
+import com.redsaz.lognition.api.model.Stats;
+import com.redsaz.lognition.api.model.Timeseries;
+import com.redsaz.lognition.convert.AvroSamplesWriter;
+import com.redsaz.lognition.convert.ListSamples;
+import com.redsaz.lognition.convert.Samples;
+import com.redsaz.lognition.convert.SyntheticSamples;
+import com.redsaz.lognition.stats.MergeableStats;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SampleQueryServiceTest {
+
+  private static final long SPAN_MILLIS = 10_000L;
+  private static final long STORED_SPAN_MILLIS = 60_000L;
+  private static final long CACHE_BYTES = 1L << 20;
+
+  @Rule public TemporaryFolder temp = new TemporaryFolder();
+
+  private Samples samples;
+  private File avroFile;
+
+  @Before
+  public void setUp() throws IOException {
+    ListSamples.Builder builder = ListSamples.builder();
+    SyntheticSamples.builder()
+        .seed(31L)
+        .rows(20_000)
+        .labels(6)
+        .threads(8)
+        .callsPerSecond(20.0)
+        .statusCodes(Map.of("200", 90.0, "404", 5.0, "500", 5.0))
+        .build()
+        .stream()
+        .forEach(builder::add);
+    samples = builder.build();
+    avroFile = temp.newFile("1.avro");
+    new AvroSamplesWriter().write(samples, avroFile);
+  }
+
+  @Test
+  public void testQuery() {
+    // Given a finished log,
+    LogsService logsSrv = logsService(Log.Status.COMPLETE);
+    SampleQueryService unit = unit(logsSrv);
+
+    // When the stats of only some of the samples are asked for,
+    String label = samples.getLabels().get(1);
+    List<String> threads =
+        samples.getSamples().stream().map(Sample::getThreadName).distinct().limit(3).toList();
+    SampleFilter filter =
+        SampleFilter.parse(
+            List.of(
+                "name~: " + Pattern.quote(label) + "|" + Pattern.quote(samples.getLabels().get(3)),
+                "success: false",
+                "code: 404, 500",
+                "thread~: " + String.join("|", threads.stream().map(Pattern::quote).toList()),
+                "from: 50000",
+                "to: 600000"));
+    FilteredStats actual = unit.query(1L, filter, SPAN_MILLIS);
+
+    // Then the stats are of only the samples the filter selects.
+    Predicate<Sample> selected =
+        s ->
+            (s.getLabel().equals(label) || s.getLabel().equals(samples.getLabels().get(3)))
+                && !s.isSuccess()
+                && (s.getStatusCode().equals("404") || s.getStatusCode().equals("500"))
+                && threads.contains(s.getThreadName())
+                && s.getOffset() >= 50000L
+                && s.getOffset() < 600000L;
+    MergeableStats expected = new MergeableStats(SPAN_MILLIS);
+    samples.getSamples().stream().filter(selected).forEach(s -> add(expected, s));
+    assertTrue("Some samples should be selected", expected.size() > 0L);
+    assertEquals(filter.getTerms(), actual.getFilter());
+    assertEquals(fields(expected.aggregate()), fields(actual.getAggregate()));
+    List<Stats> expectedBins = expected.timeseries().getStatsList();
+    List<Stats> actualBins = actual.getTimeseries().getStatsList();
+    assertEquals(expectedBins.size(), actualBins.size());
+    for (int i = 0; i < expectedBins.size(); ++i) {
+      assertEquals(fields(expectedBins.get(i)), fields(actualBins.get(i)));
+    }
+    assertEquals(expected.aggregateCounts().getCodes(), actual.getCodeCounts().getCodes());
+    assertEquals(expected.aggregateCounts().getCounts(), actual.getCodeCounts().getCounts());
+    assertEquals(
+        expected.histogram().getPercentiles().getValues(),
+        actual.getPercentiles().getValues());
+  }
+
+  @Test
+  public void testQuery_noLabelsMatch() {
+    // Given a finished log,
+    SampleQueryService unit = unit(logsService(Log.Status.COMPLETE));
+
+    // When the filter selects a label the log does not have,
+    FilteredStats actual =
+        unit.query(1L, SampleFilter.parse(List.of("name: not a label")), SPAN_MILLIS);
+
+    // Then there are no stats.
+    assertEquals(0L, actual.getAggregate().getNumSamples());
+    assertTrue(actual.getTimeseries().getStatsList().isEmpty());
+  }
+
+  @Test
+  public void testQuery_cached() throws FileNotFoundException {
+    // Given a finished log,
+    LogsService logsSrv = logsService(Log.Status.COMPLETE);
+    SampleQueryService unit = unit(logsSrv);
+
+    // When the same filter is asked for twice, with its terms in a different order,
+    FilteredStats first =
+        unit.query(1L, SampleFilter.parse(List.of("success: true", "code: 200")), SPAN_MILLIS);
+    FilteredStats second =
+        unit.query(1L, SampleFilter.parse(List.of("code: 200", "success: true")), SPAN_MILLIS);
+
+    // Then the samples are only read the first time.
+    assertSame(first, second);
+    verify(logsSrv, times(1)).getAvroFile(1L);
+
+    // But once the log's results are evicted, the samples are read again.
+    unit.evict(1L);
+    unit.query(1L, SampleFilter.parse(List.of("success: true", "code: 200")), SPAN_MILLIS);
+    verify(logsSrv, times(2)).getAvroFile(1L);
+  }
+
+  @Test
+  public void testQuery_notFinished() throws FileNotFoundException {
+    // Given a log which is still running,
+    LogsService logsSrv = logsService(Log.Status.RUNNING);
+    SampleQueryService unit = unit(logsSrv);
+
+    // When the same filter is asked for twice,
+    unit.query(1L, SampleFilter.ALL, SPAN_MILLIS);
+    unit.query(1L, SampleFilter.ALL, SPAN_MILLIS);
+
+    // Then the samples are read both times, since they might have changed.
+    verify(logsSrv, times(2)).getAvroFile(1L);
+  }
+
+  @Test
+  public void testQuery_tooBigToCache() throws FileNotFoundException {
+    // Given a cache too small for any result,
+    LogsService logsSrv = logsService(Log.Status.COMPLETE);
+    SampleQueryService unit = new SampleQueryService(logsSrv, mock(StatsService.class), 1L);
+
+    // When the same filter is asked for twice,
+    unit.query(1L, SampleFilter.ALL, SPAN_MILLIS);
+    unit.query(1L, SampleFilter.ALL, SPAN_MILLIS);
+
+    // Then the samples are read both times.
+    verify(logsSrv, times(2)).getAvroFile(1L);
+  }
+
+  @Test
+  public void testTimeseries_fromSamples() throws FileNotFoundException {
+    // Given a finished log,
+    LogsService logsSrv = logsService(Log.Status.COMPLETE);
+    SampleQueryService unit = unit(logsSrv);
+
+    // When a timeseries of a small span over a window of some of the labels is asked for,
+    Set<String> labels = Set.of(samples.getLabels().get(0), samples.getLabels().get(4));
+    Timeseries actual = unit.timeseries(1L, labels, 122_500L, 245_000L, 5_000L);
+
+    // Then it is of only the samples of those labels within the window, starting at the bin the
+    // window starts in,
+    MergeableStats expected = new MergeableStats(5_000L);
+    samples.getSamples().stream()
+        .filter(s -> labels.contains(s.getLabel()))
+        .filter(s -> s.getOffset() >= 122_500L && s.getOffset() < 245_000L)
+        .forEach(s -> add(expected, s));
+    List<Stats> expectedBins = expected.timeseries().getStatsList();
+    List<Stats> actualBins = actual.getStatsList();
+    assertEquals(5_000L, actual.getSpanMillis());
+    assertEquals(120_000L, actualBins.getFirst().getOffsetMillis());
+    assertEquals(expectedBins.size() - 24, actualBins.size());
+    for (int i = 0; i < actualBins.size(); ++i) {
+      assertEquals(fields(expectedBins.get(i + 24)), fields(actualBins.get(i)));
+    }
+
+    // and asking again is answered from the cache.
+    assertSame(actual, unit.timeseries(1L, labels, 122_500L, 245_000L, 5_000L));
+    verify(logsSrv, times(1)).getAvroFile(1L);
+  }
+
+  @Test
+  public void testTimeseries_fromStored() throws FileNotFoundException {
+    // Given a finished log with the timeseries and histograms of each label stored,
+    LogsService logsSrv = logsService(Log.Status.COMPLETE);
+    StatsService statsSrv = mock(StatsService.class);
+    List<String> sampleLabels = new ArrayList<>();
+    sampleLabels.add("Overall");
+    sampleLabels.addAll(samples.getLabels());
+    when(statsSrv.getSampleLabels(1L)).thenReturn(sampleLabels);
+    for (int i = 1; i < sampleLabels.size(); ++i) {
+      String label = sampleLabels.get(i);
+      MergeableStats stored = new MergeableStats(STORED_SPAN_MILLIS);
+      samples.getSamples().stream()
+          .filter(s -> s.getLabel().equals(label))
+          .forEach(s -> add(stored, s));
+      when(statsSrv.getTimeseries(1L, i)).thenReturn(stored.timeseries());
+      when(statsSrv.getHdrHistograms(1L, i, STORED_SPAN_MILLIS))
+          .thenReturn(stored.timeseriesHdrHistograms());
+    }
+    SampleQueryService unit = new SampleQueryService(logsSrv, statsSrv, CACHE_BYTES);
+
+    // When a timeseries of a multiple of the stored span is asked for, on stored bin boundaries,
+    Set<String> labels = Set.of(samples.getLabels().get(2), samples.getLabels().get(5));
+    Timeseries actual = unit.timeseries(1L, labels, 120_000L, 720_000L, 180_000L);
+
+    // Then it is combined from the stored bins without reading the samples,
+    verify(logsSrv, never()).getAvroFile(1L);
+    // and the counts and totals are the same as from the samples, with the percentiles between
+    // the min and max.
+    MergeableStats expected = new MergeableStats(180_000L);
+    samples.getSamples().stream()
+        .filter(s -> labels.contains(s.getLabel()))
+        .filter(s -> s.getOffset() >= 120_000L && s.getOffset() < 720_000L)
+        .forEach(s -> add(expected, s));
+    List<Stats> expectedBins = expected.timeseries().getStatsList();
+    List<Stats> actualBins = actual.getStatsList();
+    assertEquals(180_000L, actual.getSpanMillis());
+    assertEquals(expectedBins.size(), actualBins.size());
+    for (int i = 0; i < actualBins.size(); ++i) {
+      Stats e = expectedBins.get(i);
+      Stats a = actualBins.get(i);
+      assertEquals(e.getOffsetMillis(), a.getOffsetMillis());
+      assertEquals(e.getNumSamples(), a.getNumSamples());
+      assertEquals(e.getNumErrors(), a.getNumErrors());
+      assertEquals(e.getTotalResponseBytes(), a.getTotalResponseBytes());
+      assertEquals(e.getMin(), a.getMin());
+      assertEquals(e.getMax(), a.getMax());
+      assertTrue(a.getP50() >= a.getMin() && a.getP99() <= a.getMax());
+      assertTrue(Math.abs(e.getAvg() - a.getAvg()) <= 1L);
+    }
+  }
+
+  @Test(expected = AppClientException.class)
+  public void testQuery_spanTooSmall() {
+    SampleQueryService unit = unit(logsService(Log.Status.COMPLETE));
+
+    unit.query(1L, SampleFilter.ALL, 1L);
+  }
+
+  @Test(expected = AppClientException.class)
+  public void testParse_unknownTerm() {
+    SampleFilter.parse(List.of("colour: blue"));
+  }
+
+  private SampleQueryService unit(LogsService logsSrv) {
+    return new SampleQueryService(logsSrv, mock(StatsService.class), CACHE_BYTES);
+  }
+
+  private static void add(MergeableStats stats, Sample sample) {
+    stats.add(
+        sample.getOffset(),
+        sample.getDuration(),
+        sample.isSuccess(),
+        sample.getResponseBytes(),
+        sample.getStatusCode());
+  }
+
+  private LogsService logsService(Log.Status status) {
+    LogsService logsSrv = mock(LogsService.class);
+    try {
+      when(logsSrv.get(1L)).thenReturn(new Log(1L, status, "test", "Test", "test.jtl", "notes"));
+      when(logsSrv.getColumnarFile(1L)).thenThrow(new FileNotFoundException("Not columnar."));
+      when(logsSrv.getAvroFile(1L)).thenReturn(avroFile);
+    } catch (FileNotFoundException ex) {
+      throw new IllegalStateException(ex);
+    }
+    return logsSrv;
+  }
+
+  private static List<Object> fields(Stats stats) {
+    return Arrays.asList(
+        stats.getOffsetMillis(),
+        stats.getMin(),
+        stats.getP25(),
+        stats.getP50(),
+        stats.getP75(),
+        stats.getP90(),
+        stats.getP95(),
+        stats.getP99(),
+        stats.getMax(),
+        stats.getAvg(),
+        stats.getNumSamples(),
+        stats.getTotalResponseBytes(),
+        stats.getNumErrors());
+  }
+}
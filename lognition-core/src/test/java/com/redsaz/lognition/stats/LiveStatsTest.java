@@ -0,0 +1,72 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.stats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.redsaz.lognition.api.model.Sample;
+import com.redsaz.lognition.api.model.Stats;
+import com.redsaz.lognition.api.model.Timeseries;
+import java.util.List;
+import org.junit.Test;
+
+public class LiveStatsTest {
+
+  private static final long START = 1595126270000L;
+
+  @Test
+  public void testAdd() {
+    // Given samples for two labels that arrive out of order, spanning two minutes,
+    LiveStats unit = new LiveStats();
+    unit.add(Sample.of(START, 100, "a", "t1", "200", "OK", true, 10, 2));
+    unit.add(Sample.of(START + 61_500, 300, "b", "t2", "500", "Error", false, 20, 2));
+    unit.add(Sample.of(START + 1_200, 200, "a", "t2", "200", "OK", true, 30, 2));
+    unit.add(Sample.of(START - 500, 50, "b", "t1", "200", "OK", true, 40, 2));
+
+    // Then the labels are in the order they were seen, after Overall,
+    assertEquals(List.of("Overall", "a", "b"), unit.getLabels());
+    assertEquals(START, unit.getStartMillis());
+    assertEquals(4L, unit.getNumSamples());
+
+    // and the overall aggregate has everything,
+    Stats overall = unit.getAggregate(0);
+    assertEquals(Long.valueOf(50L), overall.getMin());
+    assertEquals(Long.valueOf(300L), overall.getMax());
+    assertEquals(Long.valueOf(162L), overall.getAvg());
+    assertEquals(4L, overall.getNumSamples());
+    assertEquals(100L, overall.getTotalResponseBytes());
+    assertEquals(1L, overall.getNumErrors());
+
+    // and the samples are binned per minute, with earlier samples in the first bin,
+    Timeseries minutes = unit.getTimeseries(0, LiveStats.MINUTE_SPAN_MILLIS);
+    assertEquals(2, minutes.getStatsList().size());
+    assertEquals(3L, minutes.getStatsList().get(0).getNumSamples());
+    assertEquals(Long.valueOf(60_000L), minutes.getStatsList().get(1).getOffsetMillis());
+    assertEquals(Long.valueOf(300L), minutes.getStatsList().get(1).getP50());
+
+    // and per second, without percentiles.
+    Timeseries seconds = unit.getTimeseries(2, LiveStats.SECOND_SPAN_MILLIS);
+    assertEquals(62, seconds.getStatsList().size());
+    assertEquals(1L, seconds.getStatsList().get(0).getNumSamples());
+    assertEquals(0L, seconds.getStatsList().get(1).getNumSamples());
+    assertEquals(Long.valueOf(300L), seconds.getStatsList().get(61).getMax());
+    assertNull(seconds.getStatsList().get(61).getP50());
+
+    // And only the newest bins can be fetched.
+    assertEquals(1, unit.getTimeseries(2, LiveStats.SECOND_SPAN_MILLIS, 61).getStatsList().size());
+  }
+}
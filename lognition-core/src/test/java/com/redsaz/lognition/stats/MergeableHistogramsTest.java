@@ -0,0 +1,103 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.stats;
+
+import static org.junit.Assert.assertEquals;
+
+import com.redsaz.lognition.api.model.EncodedHistograms;
+import com.redsaz.lognition.api.model.Sample;
+import com.redsaz.lognition.convert.OffHeapBudget;
+import com.redsaz.lognition.convert.OffHeapSamples;
+import com.redsaz.lognition.convert.SyntheticSamples;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.HdrHistogram.AbstractHistogram;
+import org.junit.Test;
+
+/** Checks that stored histograms merge into the same histograms as recording everything at once. */
+public class MergeableHistogramsTest {
+
+  private static final long SPAN_MILLIS = 60_000L;
+
+  @Test
+  public void testMergeLabels() {
+    // Given samples with several labels,
+    SyntheticSamples generator =
+        SyntheticSamples.builder()
+            .seed(23L)
+            .rows(20_000)
+            .labels(5)
+            .latency(SyntheticSamples.Latency.BIMODAL)
+            .build();
+    OffHeapSamples.Builder builder = OffHeapSamples.builder(new OffHeapBudget(1L << 30));
+    generator.stream().forEach(builder::add);
+
+    try (OffHeapSamples columns = builder.build()) {
+      // When the histograms of each label are encoded, decoded, and merged,
+      List<Sample> samples = new ArrayList<>(columns.getSamples());
+      AbstractHistogram overall = decodeOne(StatsBuilder.calcHdrHistogram(samples));
+      List<AbstractHistogram> overallBins =
+          MergeableHistograms.decode(
+              StatsBuilder.calcTimeseriesHdrHistograms(samples, SPAN_MILLIS));
+      Map<String, List<Sample>> labels = StatsBuilder.sortAndSplitByLabel(samples);
+      List<AbstractHistogram> labelAggregates = new ArrayList<>();
+      List<List<AbstractHistogram>> labelBins = new ArrayList<>();
+      for (List<Sample> label : labels.values()) {
+        labelAggregates.add(decodeOne(StatsBuilder.calcHdrHistogram(label)));
+        labelBins.add(
+            MergeableHistograms.decode(
+                StatsBuilder.calcTimeseriesHdrHistograms(label, SPAN_MILLIS)));
+      }
+
+      // Then the merged aggregate is the same as the overall aggregate,
+      assertEquals(columns.size(), overall.getTotalCount());
+      assertEquals(overall, MergeableHistograms.merge(labelAggregates));
+
+      // and each merged bin is the same as the overall bin.
+      for (int i = 0; i < overallBins.size(); ++i) {
+        List<AbstractHistogram> bin = new ArrayList<>();
+        for (List<AbstractHistogram> bins : labelBins) {
+          if (i < bins.size()) {
+            bin.add(bins.get(i));
+          }
+        }
+        assertEquals("Bin " + i, overallBins.get(i), MergeableHistograms.merge(bin));
+      }
+    }
+  }
+
+  @Test
+  public void testRecord_outOfRange() {
+    // Given a histogram,
+    AbstractHistogram unit = MergeableHistograms.create();
+
+    // When a duration longer than the range is recorded,
+    MergeableHistograms.record(unit, MergeableHistograms.HIGHEST_TRACKABLE_MILLIS * 2L);
+
+    // Then it is recorded as the longest duration instead.
+    assertEquals(1L, unit.getTotalCount());
+    assertEquals(
+        unit.highestEquivalentValue(MergeableHistograms.HIGHEST_TRACKABLE_MILLIS),
+        unit.getMaxValue());
+  }
+
+  private static AbstractHistogram decodeOne(EncodedHistograms histograms) {
+    assertEquals(0L, histograms.getSpanMillis());
+    assertEquals(1, histograms.size());
+    return MergeableHistograms.decode(histograms.getHistograms().get(0));
+  }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.stats;
+
+import static org.junit.Assert.assertEquals;
+
+import com.redsaz.lognition.api.model.CodeCounts;
+import com.redsaz.lognition.api.model.EncodedHistograms;
+import com.redsaz.lognition.api.model.Sample;
+import com.redsaz.lognition.api.model.Stats;
+import com.redsaz.lognition.api.model.Timeseries;
+import com.redsaz.lognition.convert.OffHeapBudget;
+import com.redsaz.lognition.convert.OffHeapSamples;
+import com.redsaz.lognition.convert.SyntheticSamples;
+import com.redsaz.lognition.stats.StatsBuilder.StatsItems;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.Test;
+
+/** Checks that stats merged from each label are the same as stats from all of the samples. */
+public class MergeableStatsTest {
+
+  private static final long SPAN_MILLIS = 60_000L;
+
+  @Test
+  public void testMerge_sameAsStatsBuilder() {
+    // Given samples with several labels, status codes, and stalls,
+    SyntheticSamples generator =
+        SyntheticSamples.builder()
+            .seed(29L)
+            .rows(40_000)
+            .labels(7)
+            .outOfOrderMillis(100)
+            .latency(SyntheticSamples.Latency.BIMODAL)
+            .stalls(90_000L, 5_000L)
+            .statusCodes(Map.of("200", 90.0, "404", 4.0, "500", 6.0))
+            .build();
+    OffHeapSamples.Builder builder = OffHeapSamples.builder(new OffHeapBudget(1L << 30));
+    generator.stream().forEach(builder::add);
+
+    try (OffHeapSamples columns = builder.build()) {
+      // When the stats of each label are collected separately and then merged,
+      Map<String, MergeableStats> labelsStats = new TreeMap<>();
+      for (int row = 0; row < columns.size(); ++row) {
+        String label = columns.labels().get(columns.labelRef(row));
+        labelsStats
+            .computeIfAbsent(label, k -> new MergeableStats(SPAN_MILLIS))
+            .add(
+                columns.offset(row),
+                columns.duration(row),
+                columns.success(row),
+                columns.responseBytes(row),
+                columns.statusCode(row));
+      }
+      MergeableStats overall = MergeableStats.merge(SPAN_MILLIS, labelsStats.values());
+
+      // Then the merged stats are the same as the stats of all of the samples,
+      List<Sample> samples = new ArrayList<>(columns.getSamples());
+      assertEquals(columns.size(), overall.size());
+      assertSameAsStatsBuilder(samples, overall);
+
+      // and the stats of each label are the same as the stats of its samples.
+      Map<String, List<Sample>> labels = StatsBuilder.sortAndSplitByLabel(samples);
+      assertEquals(labels.keySet(), labelsStats.keySet());
+      for (Map.Entry<String, List<Sample>> label : labels.entrySet()) {
+        assertSameAsStatsBuilder(label.getValue(), labelsStats.get(label.getKey()));
+      }
+    }
+  }
+
+  @Test
+  public void testMerge_lastSampleStartsBin() {
+    // Given one label whose last sample is exactly on the start of a bin, and another whose last
+    // sample is not, and so has one more bin,
+    List<Sample> first =
+        List.of(
+            sample(0L, 5L, "a", "200"),
+            sample(10L, 7L, "a", "200"),
+            sample(120_000L, 3L, "a", "500"));
+    List<Sample> second =
+        List.of(sample(30_000L, 9L, "b", "200"), sample(125_000L, 4L, "b", "204"));
+
+    // When their stats are merged,
+    MergeableStats overall =
+        MergeableStats.merge(SPAN_MILLIS, List.of(collect(first), collect(second)));
+
+    // Then the sample on the start of a bin is only left out if it is the last of all of them,
+    // (The list versions reorder the samples, so each gets its own copy.)
+    assertSame(
+        StatsBuilder.calcTimeseriesStats(sorted(first, second), SPAN_MILLIS),
+        overall.timeseries());
+    assertSame(
+        StatsBuilder.calcTimeseriesCounts(sorted(first, second), SPAN_MILLIS),
+        overall.timeseriesCounts());
+    assertEquals(3, overall.timeseries().getStatsList().size());
+    assertEquals(2, collect(first).timeseries().getStatsList().size());
+    // and the aggregates still include every sample.
+    assertSame(StatsBuilder.calcAggregateCounts(sorted(first, second)), overall.aggregateCounts());
+    assertSame(StatsBuilder.calcAggregateStats(sorted(first, second)), overall.aggregate());
+  }
+
+  @Test
+  public void testMerge_nothing() {
+    // Given no samples at all,
+    // When nothing is merged,
+    MergeableStats overall = MergeableStats.merge(SPAN_MILLIS, List.of());
+
+    // Then the stats are the same as the stats of no samples.
+    List<Sample> none = new ArrayList<>();
+    assertEquals(0L, overall.size());
+    assertSame(StatsBuilder.calcAggregateCounts(none), overall.aggregateCounts());
+    assertSame(StatsBuilder.calcTimeseriesCounts(none, SPAN_MILLIS), overall.timeseriesCounts());
+    assertSame(StatsBuilder.calcTimeseriesStats(none, SPAN_MILLIS), overall.timeseries());
+    assertSame(StatsBuilder.calcAggregateStats(none), overall.aggregate());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testAdd_completed() {
+    // Given completed stats,
+    MergeableStats unit = new MergeableStats(SPAN_MILLIS);
+    unit.complete();
+
+    // When another sample is added,
+    // Then it is refused.
+    unit.add(0L, 1L, true, 10L, "200");
+  }
+
+  private static MergeableStats collect(List<Sample> samples) {
+    MergeableStats stats = new MergeableStats(SPAN_MILLIS);
+    for (Sample sample : samples) {
+      stats.add(
+          sample.getOffset(),
+          sample.getDuration(),
+          sample.isSuccess(),
+          sample.getResponseBytes(),
+          sample.getStatusCode());
+    }
+    return stats;
+  }
+
+  private static List<Sample> sorted(List<Sample> first, List<Sample> second) {
+    List<Sample> all = new ArrayList<>(first);
+    all.addAll(second);
+    all.sort(StatsBuilder.TEMPORAL_COMPARATOR);
+    return all;
+  }
+
+  /** The list versions reorder the samples, so each gets its own copy, in time order. */
+  private static List<Sample> sorted(List<Sample> samples) {
+    List<Sample> copy = new ArrayList<>(samples);
+    copy.sort(StatsBuilder.TEMPORAL_COMPARATOR);
+    return copy;
+  }
+
+  private static Sample sample(long offset, long duration, String label, String statusCode) {
+    return Sample.of(
+        offset, duration, label, "thread-1", statusCode, "", "200".equals(statusCode), 100L, 1);
+  }
+
+  private static void assertSameAsStatsBuilder(List<Sample> expected, MergeableStats actual) {
+    assertSame(StatsBuilder.calcAggregateCounts(sorted(expected)), actual.aggregateCounts());
+    assertSame(
+        StatsBuilder.calcTimeseriesCounts(sorted(expected), SPAN_MILLIS),
+        actual.timeseriesCounts());
+    assertSame(
+        StatsBuilder.calcTimeseriesStats(sorted(expected), SPAN_MILLIS), actual.timeseries());
+    assertSame(StatsBuilder.calcAggregateStats(sorted(expected)), actual.aggregate());
+    assertSame(StatsBuilder.calcHistogram(sorted(expected)), actual.histogram());
+    assertSame(StatsBuilder.calcHdrHistogram(sorted(expected)), actual.hdrHistogram());
+    assertSame(
+        StatsBuilder.calcTimeseriesHdrHistograms(sorted(expected), SPAN_MILLIS),
+        actual.timeseriesHdrHistograms());
+  }
+
+  private static void assertSame(CodeCounts expected, CodeCounts actual) {
+    assertEquals(expected.getSpanMillis(), actual.getSpanMillis());
+    assertEquals(expected.getCodes(), actual.getCodes());
+    assertEquals(expected.getCounts(), actual.getCounts());
+  }
+
+  private static void assertSame(Timeseries expected, Timeseries actual) {
+    assertEquals(expected.getSpanMillis(), actual.getSpanMillis());
+    assertEquals(expected.getStatsList().size(), actual.getStatsList().size());
+    for (int i = 0; i < expected.getStatsList().size(); ++i) {
+      assertSame(expected.getStatsList().get(i), actual.getStatsList().get(i));
+    }
+  }
+
+  private static void assertSame(StatsItems expected, StatsItems actual) {
+    assertEquals(expected.getHistogram().getCounts(), actual.getHistogram().getCounts());
+    assertEquals(
+        expected.getHistogram().getBucketMaximums(), actual.getHistogram().getBucketMaximums());
+    assertEquals(expected.getPercentiles().getCounts(), actual.getPercentiles().getCounts());
+    assertEquals(expected.getPercentiles().getValues(), actual.getPercentiles().getValues());
+    assertEquals(
+        expected.getPercentiles().getPercentiles(), actual.getPercentiles().getPercentiles());
+  }
+
+  private static void assertSame(EncodedHistograms expected, EncodedHistograms actual) {
+    assertEquals(expected.getSpanMillis(), actual.getSpanMillis());
+    assertEquals(MergeableHistograms.decode(expected), MergeableHistograms.decode(actual));
+  }
+
+  private static void assertSame(Stats expected, Stats actual) {
+    assertEquals(fields(expected), fields(actual));
+  }
+
+  private static List<Object> fields(Stats stats) {
+    return Arrays.asList(
+        stats.getOffsetMillis(),
+        stats.getMin(),
+        stats.getP25(),
+        stats.getP50(),
+        stats.getP75(),
+        stats.getP90(),
+        stats.getP95(),
+        stats.getP99(),
+        stats.getMax(),
+        stats.getAvg(),
+        stats.getNumSamples(),
+        stats.getTotalResponseBytes(),
+        stats.getNumErrors());
+  }
+}
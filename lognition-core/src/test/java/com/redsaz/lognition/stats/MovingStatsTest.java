@@ -0,0 +1,228 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.stats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.redsaz.lognition.api.model.Stats;
+import com.redsaz.lognition.api.model.Timeseries;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/** Checks that the moving stats are the same as the stats of the samples in each window. */
+public class MovingStatsTest {
+
+  private static final long STEP_MILLIS = 10_000L;
+  private static final long WINDOW_MILLIS = 60_000L;
+
+  @Test
+  public void testTimeseries_sameAsEachWindow() {
+    // Given samples spread over several windows, out of order, with a gap in the middle,
+    List<long[]> samples = samples(17L, 5_000, 2_000L);
+    MovingStats unit = new MovingStats(STEP_MILLIS, WINDOW_MILLIS);
+    samples.forEach(sample -> add(unit, sample));
+
+    // When the moving stats are calculated,
+    Timeseries actual = unit.timeseries();
+
+    // Then there is a point for every step, each the stats of the window ending there.
+    assertEquals(STEP_MILLIS, actual.getSpanMillis());
+    assertEquals(numSteps(samples), actual.getStatsList().size());
+    assertSameAsEachWindow(samples, actual);
+  }
+
+  @Test
+  public void testTimeseries_longDurations() {
+    // Given samples that take longer than the histogram is exact for,
+    List<long[]> samples = samples(23L, 2_000, 600_000L);
+    MovingStats unit = new MovingStats(STEP_MILLIS, WINDOW_MILLIS);
+    samples.forEach(sample -> add(unit, sample));
+
+    // When the moving stats are calculated,
+    Timeseries actual = unit.timeseries();
+
+    // Then the counts and averages are still exact, and the rest are as precise as the histogram.
+    assertSameAsEachWindow(samples, actual);
+  }
+
+  @Test
+  public void testMerge() {
+    // Given the moving stats of two groups of samples,
+    List<long[]> first = samples(31L, 1_000, 2_000L);
+    List<long[]> second = samples(37L, 3_000, 2_000L);
+    MovingStats firstStats = new MovingStats(STEP_MILLIS, WINDOW_MILLIS);
+    first.forEach(sample -> add(firstStats, sample));
+    MovingStats secondStats = new MovingStats(STEP_MILLIS, WINDOW_MILLIS);
+    second.forEach(sample -> add(secondStats, sample));
+
+    // When they are merged,
+    MovingStats merged =
+        MovingStats.merge(STEP_MILLIS, WINDOW_MILLIS, List.of(firstStats, secondStats));
+
+    // Then the moving stats are the same as the stats of the windows of all of the samples.
+    List<long[]> all = new ArrayList<>(first);
+    all.addAll(second);
+    assertSameAsEachWindow(all, merged.timeseries());
+  }
+
+  @Test
+  public void testTimeseries_nothing() {
+    // Given no samples,
+    MovingStats unit = new MovingStats(STEP_MILLIS, WINDOW_MILLIS);
+
+    // When the moving stats are calculated,
+    Timeseries actual = unit.timeseries();
+
+    // Then there are no points.
+    assertEquals(STEP_MILLIS, actual.getSpanMillis());
+    assertTrue(actual.getStatsList().isEmpty());
+  }
+
+  @Test
+  public void testMergeableStats_movingTimeseries() {
+    // Given mergeable stats of two labels which also collect the moving stats, and one which does
+    // not,
+    MergeableStats first = new MergeableStats(60_000L, STEP_MILLIS, WINDOW_MILLIS);
+    MergeableStats second = new MergeableStats(60_000L, STEP_MILLIS, WINDOW_MILLIS);
+    MergeableStats without = new MergeableStats(60_000L);
+    List<long[]> samples = samples(41L, 2_000, 2_000L);
+    for (int i = 0; i < samples.size(); ++i) {
+      long[] sample = samples.get(i);
+      (i % 2 == 0 ? first : second).add(sample[0], sample[1], sample[2] == 0L, sample[3], "200");
+      without.add(sample[0], sample[1], sample[2] == 0L, sample[3], "200");
+    }
+
+    // When they are merged,
+    MergeableStats merged = MergeableStats.merge(60_000L, List.of(first, second));
+    MergeableStats mixed = MergeableStats.merge(60_000L, List.of(first, without));
+
+    // Then the moving stats are merged too, but only if every label collected them.
+    assertSameAsEachWindow(samples, merged.movingTimeseries());
+    assertNull(without.movingTimeseries());
+    assertNull(mixed.movingTimeseries());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCreate_windowNotMultipleOfStep() {
+    // Given a window which is not a multiple of the step,
+    // When the moving stats are created,
+    // Then it is refused.
+    new MovingStats(STEP_MILLIS, 15_000L);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testAdd_merged() {
+    // Given merged moving stats,
+    MovingStats unit =
+        MovingStats.merge(
+            STEP_MILLIS, WINDOW_MILLIS, List.of(new MovingStats(STEP_MILLIS, WINDOW_MILLIS)));
+
+    // When another sample is added,
+    // Then it is refused.
+    unit.add(0L, 1L, true, 10L);
+  }
+
+  /** Each sample is offset, duration, 1 if an error else 0, and response bytes. */
+  private static List<long[]> samples(long seed, int count, long maxDuration) {
+    Random random = new Random(seed);
+    List<long[]> samples = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      long offset = random.nextLong(600_000L);
+      if (offset > 200_000L && offset < 320_000L) {
+        // Leave a gap longer than the window, so some windows are empty.
+        continue;
+      }
+      samples.add(
+          new long[] {
+            offset,
+            random.nextLong(maxDuration),
+            random.nextInt(20) == 0 ? 1L : 0L,
+            random.nextLong(10_000L)
+          });
+    }
+    return samples;
+  }
+
+  private static void add(MovingStats stats, long[] sample) {
+    stats.add(sample[0], sample[1], sample[2] == 0L, sample[3]);
+  }
+
+  private static int numSteps(List<long[]> samples) {
+    long last = 0L;
+    for (long[] sample : samples) {
+      last = Math.max(last, sample[0]);
+    }
+    return (int) (last / STEP_MILLIS) + 1;
+  }
+
+  private static void assertSameAsEachWindow(List<long[]> samples, Timeseries actual) {
+    assertEquals(numSteps(samples), actual.getStatsList().size());
+    for (int i = 0; i < actual.getStatsList().size(); ++i) {
+      long end = (i + 1L) * STEP_MILLIS;
+      List<Long> durations = new ArrayList<>();
+      long totalDuration = 0L;
+      long totalResponseBytes = 0L;
+      long errors = 0L;
+      for (long[] sample : samples) {
+        if (sample[0] >= end - WINDOW_MILLIS && sample[0] < end) {
+          durations.add(sample[1]);
+          totalDuration += sample[1];
+          errors += sample[2];
+          totalResponseBytes += sample[3];
+        }
+      }
+      durations.sort(null);
+      Stats stats = actual.getStatsList().get(i);
+      assertEquals(Long.valueOf(end), stats.getOffsetMillis());
+      assertEquals(durations.size(), stats.getNumSamples());
+      assertEquals(totalResponseBytes, stats.getTotalResponseBytes());
+      assertEquals(errors, stats.getNumErrors());
+      if (durations.isEmpty()) {
+        assertNull(stats.getMin());
+        assertNull(stats.getP50());
+        assertNull(stats.getMax());
+        assertNull(stats.getAvg());
+        continue;
+      }
+      assertEquals(Long.valueOf(totalDuration / durations.size()), stats.getAvg());
+      assertClose(durations.getFirst(), stats.getMin());
+      assertClose(percentile(durations, 0.25D), stats.getP25());
+      assertClose(percentile(durations, 0.50D), stats.getP50());
+      assertClose(percentile(durations, 0.75D), stats.getP75());
+      assertClose(percentile(durations, 0.90D), stats.getP90());
+      assertClose(percentile(durations, 0.95D), stats.getP95());
+      assertClose(percentile(durations, 0.99D), stats.getP99());
+      assertClose(durations.getLast(), stats.getMax());
+    }
+  }
+
+  private static long percentile(List<Long> sorted, double percent) {
+    return sorted.get((int) Math.ceil((sorted.size() - 1) * percent));
+  }
+
+  /** Exact for durations of up to two seconds, and within a tenth of a percent after. */
+  private static void assertClose(long expected, Long actual) {
+    if (expected < 2048L) {
+      assertEquals(Long.valueOf(expected), actual);
+    } else {
+      assertEquals(expected, actual, expected / 1000.0D);
+    }
+  }
+}
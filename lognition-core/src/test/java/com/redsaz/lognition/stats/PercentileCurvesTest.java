@@ -0,0 +1,87 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.stats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.redsaz.lognition.api.model.Percentiles;
+import java.util.List;
+import org.junit.Test;
+
+public class PercentileCurvesTest {
+
+  @Test
+  public void testNormalize() {
+    // Given percentiles which start past 0, repeat a percentile, and stop before 100,
+    Percentiles percs =
+        new Percentiles(
+            List.of(0L, 10L, 20L, 20L, 40L),
+            List.of(1L, 10L, 20L, 25L, 40L),
+            List.of(0d, 10d, 50d, 50d, 99.5d));
+
+    // When they are normalized,
+    long[] curve = PercentileCurves.normalize(percs);
+
+    // Then there is a value for every point,
+    assertEquals(PercentileCurves.size(), curve.length);
+    // and the first percentile is left out, so points before the next take its value,
+    assertEquals(10L, curve[indexOf(0d)]);
+    assertEquals(10L, curve[indexOf(10d)]);
+    // and the first of the repeated percentiles is used,
+    assertEquals(20L, curve[indexOf(50d)]);
+    // and points in between are interpolated and rounded,
+    assertEquals(15L, curve[indexOf(30d)]);
+    assertEquals(20L + Math.round(20d * 25d / 49.5d), curve[indexOf(75d)]);
+    // and points after the last percentile take its value.
+    assertEquals(40L, curve[indexOf(99.5d)]);
+    assertEquals(40L, curve[indexOf(99.9d)]);
+    assertEquals(40L, curve[indexOf(100d)]);
+  }
+
+  @Test
+  public void testNormalize_singlePercentile() {
+    // Given percentiles with only one percentile after the first,
+    Percentiles percs = new Percentiles(List.of(0L, 5L), List.of(3L, 7L), List.of(0d, 100d));
+
+    // When they are normalized,
+    long[] curve = PercentileCurves.normalize(percs);
+
+    // Then every point has that value.
+    for (long value : curve) {
+      assertEquals(7L, value);
+    }
+  }
+
+  @Test
+  public void testNormalize_tooFew() {
+    // Given percentiles with only the first percentile,
+    Percentiles percs = new Percentiles(List.of(0L), List.of(3L), List.of(0d));
+
+    // When they are normalized,
+    // Then there is no curve.
+    assertNull(PercentileCurves.normalize(percs));
+  }
+
+  private static int indexOf(double point) {
+    for (int i = 0; i < PercentileCurves.size(); ++i) {
+      if (PercentileCurves.point(i) == point) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException("No such point " + point);
+  }
+}
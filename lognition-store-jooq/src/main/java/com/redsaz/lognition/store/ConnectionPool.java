@@ -26,4 +26,10 @@ import javax.sql.DataSource;
 public interface ConnectionPool extends AutoCloseable, DataSource {
 
   void close() throws SQLException;
+
+  /**
+   * @return the most connections that can be in use at once. Asking for more than this waits for
+   *     one to be given back.
+   */
+  int maxConnections();
 }
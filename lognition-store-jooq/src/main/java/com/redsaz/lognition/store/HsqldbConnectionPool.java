@@ -36,10 +36,23 @@ import org.slf4j.LoggerFactory;
 public class HsqldbConnectionPool implements ConnectionPool {
   private static final Logger LOG = LoggerFactory.getLogger(HsqldbConnectionPool.class);
 
+  /** The same as the default size of a JDBCPool. */
+  public static final int DEFAULT_MAX_CONNECTIONS = 8;
+
   private final JDBCPool pool;
+  private final int maxConnections;
 
   public HsqldbConnectionPool(JDBCPool jdbcPool) {
+    this(jdbcPool, DEFAULT_MAX_CONNECTIONS);
+  }
+
+  /**
+   * @param jdbcPool the pool to wrap
+   * @param maxConnections the size the pool was created with
+   */
+  public HsqldbConnectionPool(JDBCPool jdbcPool, int maxConnections) {
     pool = jdbcPool;
+    this.maxConnections = maxConnections;
   }
 
   /**
@@ -65,12 +78,12 @@ public class HsqldbConnectionPool implements ConnectionPool {
     String password = "SA";
 
     // Now start up the DB for realsies
-    JDBCPool jdbc = new JDBCPool();
+    JDBCPool jdbc = new JDBCPool(DEFAULT_MAX_CONNECTIONS);
     jdbc.setUrl(url);
     jdbc.setUser(user);
     jdbc.setPassword(password);
 
-    return new HsqldbConnectionPool(jdbc);
+    return new HsqldbConnectionPool(jdbc, DEFAULT_MAX_CONNECTIONS);
   }
 
   public static HsqldbConnectionPool initAndOpen(Path hsqldbFilepath) throws SQLException {
@@ -93,12 +106,12 @@ public class HsqldbConnectionPool implements ConnectionPool {
       LOG.error("Unable to run DB auto-initialization. Skipping.", ex);
     }
 
-    JDBCPool jdbc = new JDBCPool();
+    JDBCPool jdbc = new JDBCPool(DEFAULT_MAX_CONNECTIONS);
     jdbc.setUrl(url);
     jdbc.setUser(user);
     jdbc.setPassword(password);
 
-    return new HsqldbConnectionPool(jdbc);
+    return new HsqldbConnectionPool(jdbc, DEFAULT_MAX_CONNECTIONS);
   }
 
   @Override
@@ -111,6 +124,11 @@ public class HsqldbConnectionPool implements ConnectionPool {
     pool.close(0);
   }
 
+  @Override
+  public int maxConnections() {
+    return maxConnections;
+  }
+
   @Override
   public Connection getConnection(String username, String password) throws SQLException {
     return pool.getConnection(username, password);
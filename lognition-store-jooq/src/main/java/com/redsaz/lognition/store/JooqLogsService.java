@@ -35,6 +35,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
@@ -43,12 +44,15 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.sql.DataSource;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
@@ -80,9 +84,11 @@ public class JooqLogsService implements LogsService {
   private final SQLDialect dialect;
   private final String logsDir;
   private final AttachmentsService attSvc;
+  private final LabelIndex labelIndex;
 
   /**
-   * Create a new LogsService backed by a data store.
+   * Create a new LogsService backed by a data store. The labels of every log are loaded into an
+   * in-memory index for answering label selectors, see {@link LabelIndex}.
    *
    * @param jdbcDataSource opens connections to database
    * @param sqlDialect the type of SQL database that we should speak
@@ -97,6 +103,7 @@ public class JooqLogsService implements LogsService {
     dialect = sqlDialect;
     logsDir = logsDirectory;
     attSvc = attachmentsService;
+    labelIndex = loadLabelIndex();
   }
 
   @Override
@@ -129,7 +136,11 @@ public class JooqLogsService implements LogsService {
               .returning()
               .fetchOne();
       LOGGER.info("...Created log entry in DB.");
-      return R2L.map(result);
+      Log created = R2L.map(result);
+      if (labelIndex != null) {
+        labelIndex.addLog(created.getId());
+      }
+      return created;
     } catch (SQLException ex) {
       throw new AppServerException("Failed to create log: " + ex.getMessage(), ex);
     }
@@ -151,6 +162,24 @@ public class JooqLogsService implements LogsService {
     return dataPath.toFile();
   }
 
+  @Override
+  public File getColumnarFile(long id) throws FileNotFoundException {
+    Path dataPath = Path.of(logsDir, id + ".lgc");
+    if (!Files.exists(dataPath)) {
+      throw new FileNotFoundException("No columnar file exists for " + dataPath.getFileName());
+    }
+    return dataPath.toFile();
+  }
+
+  @Override
+  public File getLabelPartitionsDir(long id) throws FileNotFoundException {
+    Path dirPath = Path.of(logsDir, id + "-labels");
+    if (!Files.isDirectory(dirPath)) {
+      throw new FileNotFoundException("No label partitions exist for " + dirPath.getFileName());
+    }
+    return dirPath.toFile();
+  }
+
   @Override
   public Log get(long id) {
     try (Connection c = dataSource.getConnection()) {
@@ -174,6 +203,25 @@ public class JooqLogsService implements LogsService {
 
   @Override
   public List<Long> listIdsBySelector(LabelSelectorExpression labelSelector) {
+    if (labelIndex != null) {
+      try {
+        List<Long> ids = labelIndex.select(labelSelector);
+        if (ids != null) {
+          return ids;
+        }
+      } catch (LabelSelectorSyntaxException ex) {
+        throw new AppClientException("Label selector is invalid.", ex);
+      }
+    }
+    return listIdsBySelectorFromDb(labelSelector);
+  }
+
+  /**
+   * Finds the logs matching a label selector by querying the database, rather than the in-memory
+   * label index. This is what is used if the index could not be loaded, and what the index is
+   * checked against.
+   */
+  List<Long> listIdsBySelectorFromDb(LabelSelectorExpression labelSelector) {
     try (Connection c = dataSource.getConnection()) {
       DSLContext context = DSL.using(c, dialect);
       LabelSelectorToSelect ls2s = new LabelSelectorToSelect(context);
@@ -198,11 +246,16 @@ public class JooqLogsService implements LogsService {
     try (Connection c = dataSource.getConnection()) {
       DSLContext context = DSL.using(c, dialect);
 
+      ReviewChartStates.markStaleForLog(context, id);
       context.delete(LOG).where(LOG.ID.eq(id)).execute();
     } catch (SQLException ex) {
       throw new AppServerException(
           "Failed to delete log_id=" + id + " because: " + ex.getMessage(), ex);
     }
+    if (labelIndex != null) {
+      labelIndex.removeLog(id);
+    }
+    deleteDataFiles(id);
   }
 
   @Override
@@ -238,6 +291,10 @@ public class JooqLogsService implements LogsService {
       uq.setReturning();
       uq.execute();
       LogRecord result = uq.getReturnedRecord();
+      if (source.getName() != null) {
+        // The review charts name each log.
+        ReviewChartStates.markStaleForLog(context, source.getId());
+      }
       LOGGER.info("...Updated entry in DB.");
       return R2L.map(result);
     } catch (SQLException ex) {
@@ -334,7 +391,11 @@ public class JooqLogsService implements LogsService {
     } catch (SQLException ex) {
       throw new AppServerException("Failed to create timeseries: " + ex.getMessage(), ex);
     }
-    return getLabels(logId);
+    List<Label> result = getLabels(logId);
+    if (labelIndex != null) {
+      labelIndex.setLabels(logId, result);
+    }
+    return result;
   }
 
   @Override
@@ -408,10 +469,61 @@ public class JooqLogsService implements LogsService {
     attSvc.delete(toOwner(logId), attachmentPath);
   }
 
+  /**
+   * Deletes the samples of a log, and everything made from them: the block index of the Avro file,
+   * the columnar file, and the label partitions. The log record is already gone by now, so anything
+   * that cannot be deleted is only logged.
+   */
+  private void deleteDataFiles(long id) {
+    for (String name : List.of(id + ".avro", id + ".avro.idx", id + ".lgc")) {
+      deleteQuietly(Path.of(logsDir, name));
+    }
+    Path dir = Path.of(logsDir, id + "-labels");
+    if (!Files.isDirectory(dir)) {
+      return;
+    }
+    // Deepest first, so each directory is empty by the time it is deleted.
+    try (Stream<Path> paths = Files.walk(dir)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(JooqLogsService::deleteQuietly);
+    } catch (IOException | UncheckedIOException ex) {
+      LOGGER.warn("Could not delete " + dir + " of deleted log_id=" + id, ex);
+    }
+  }
+
+  private static void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException ex) {
+      LOGGER.warn("Could not delete " + path, ex);
+    }
+  }
+
   private static String toOwner(long logId) {
     return "logs/" + logId;
   }
 
+  private LabelIndex loadLabelIndex() {
+    long startMillis = System.currentTimeMillis();
+    try (Connection c = dataSource.getConnection()) {
+      DSLContext context = DSL.using(c, dialect);
+      LabelIndex index = new LabelIndex();
+      context.select(LOG.ID).from(LOG).fetch(LOG.ID).forEach(index::addLog);
+      Map<Long, List<Label>> labels = new HashMap<>();
+      for (LabelRecord record : context.selectFrom(LABEL).fetch()) {
+        labels.computeIfAbsent(record.getLogId(), k -> new ArrayList<>()).add(R2LABEL.map(record));
+      }
+      labels.forEach(index::setLabels);
+      LOGGER.info(
+          "{}ms to index the labels of {} logs.",
+          System.currentTimeMillis() - startMillis,
+          labels.size());
+      return index;
+    } catch (SQLException | RuntimeException ex) {
+      LOGGER.warn("Could not index log labels, so label selectors will query the database.", ex);
+      return null;
+    }
+  }
+
   private static class RecordToLogMapper implements RecordMapper<LogRecord, Log> {
 
     @Override
@@ -518,12 +630,7 @@ public class JooqLogsService implements LogsService {
       }
       Condition condition = LABEL.KEY.eq(labelName);
       Condition inCondition =
-          LOG.ID.in(
-              context
-                  .selectDistinct(LABEL.LOG_ID)
-                  .from(LABEL)
-                  .whereNotExists(
-                      context.selectDistinct(LABEL.LOG_ID).from(LABEL).where(condition)));
+          LOG.ID.notIn(context.selectDistinct(LABEL.LOG_ID).from(LABEL).where(condition));
       conditions.add(inCondition);
     }
 
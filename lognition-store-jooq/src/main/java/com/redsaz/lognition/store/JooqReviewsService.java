@@ -17,6 +17,8 @@ package com.redsaz.lognition.store;
 
 import static com.redsaz.lognition.model.tables.Log.LOG;
 import static com.redsaz.lognition.model.tables.Review.REVIEW;
+import static com.redsaz.lognition.model.tables.ReviewChart.REVIEW_CHART;
+import static com.redsaz.lognition.model.tables.ReviewChartState.REVIEW_CHART_STATE;
 import static com.redsaz.lognition.model.tables.ReviewLog.REVIEW_LOG;
 
 import com.redsaz.lognition.api.AttachmentsService;
@@ -26,7 +28,11 @@ import com.redsaz.lognition.api.exceptions.AppServerException;
 import com.redsaz.lognition.api.model.Attachment;
 import com.redsaz.lognition.api.model.Log;
 import com.redsaz.lognition.api.model.Review;
+import com.redsaz.lognition.api.model.ReviewChart;
+import com.redsaz.lognition.api.model.ReviewCharts;
 import com.redsaz.lognition.model.tables.records.LogRecord;
+import com.redsaz.lognition.model.tables.records.ReviewChartRecord;
+import com.redsaz.lognition.model.tables.records.ReviewChartStateRecord;
 import com.redsaz.lognition.model.tables.records.ReviewLogRecord;
 import com.redsaz.lognition.model.tables.records.ReviewRecord;
 import java.io.InputStream;
@@ -40,6 +46,7 @@ import java.util.stream.Collectors;
 import javax.sql.DataSource;
 import org.jooq.DSLContext;
 import org.jooq.InsertValuesStep2;
+import org.jooq.InsertValuesStep6;
 import org.jooq.Record;
 import org.jooq.RecordHandler;
 import org.jooq.RecordMapper;
@@ -61,6 +68,7 @@ public class JooqReviewsService implements ReviewsService {
   private static final RecordToReviewMapper R2R = new RecordToReviewMapper();
   private static final LogRecordToLogMapper LR2L = new LogRecordToLogMapper();
   private static final RecordToLogMapper R2L = new RecordToLogMapper();
+  private static final RecordToChartMapper R2C = new RecordToChartMapper();
 
   private final DataSource dataSource;
   private final SQLDialect dialect;
@@ -116,6 +124,15 @@ public class JooqReviewsService implements ReviewsService {
                   source.getBody())
               .returning()
               .fetchOne();
+      // The new review has no charts yet, so they start out stale.
+      context
+          .insertInto(
+              REVIEW_CHART_STATE,
+              REVIEW_CHART_STATE.REVIEW_ID,
+              REVIEW_CHART_STATE.DATA_VERSION,
+              REVIEW_CHART_STATE.BUILT_VERSION)
+          .values(result.getId(), 1L, 0L)
+          .execute();
       LOGGER.info("...Created review entry in DB.");
       return R2R.map(result);
     } catch (SQLException ex) {
@@ -248,6 +265,9 @@ public class JooqReviewsService implements ReviewsService {
             .where(REVIEW_LOG.REVIEW_ID.eq(reviewId).and(REVIEW_LOG.LOG_ID.in(toDeletes)))
             .execute();
       }
+      if (!toAdds.isEmpty() || !toDeletes.isEmpty()) {
+        ReviewChartStates.markStale(context, reviewId);
+      }
       LOGGER.info("...Created/Updated/Deleted review logs in DB.");
     } catch (SQLException ex) {
       throw new AppServerException("Failed to create timeseries: " + ex.getMessage(), ex);
@@ -274,6 +294,96 @@ public class JooqReviewsService implements ReviewsService {
     }
   }
 
+  @Override
+  public ReviewCharts getCharts(long reviewId) {
+    try (Connection c = dataSource.getConnection()) {
+      DSLContext context = DSL.using(c, dialect);
+      ReviewChartStateRecord state =
+          context
+              .selectFrom(REVIEW_CHART_STATE)
+              .where(REVIEW_CHART_STATE.REVIEW_ID.eq(reviewId))
+              .fetchOne();
+      if (state == null) {
+        return null;
+      }
+      List<ReviewChart> charts =
+          context
+              .selectFrom(REVIEW_CHART)
+              .where(REVIEW_CHART.REVIEW_ID.eq(reviewId))
+              .orderBy(REVIEW_CHART.CHART_INDEX)
+              .fetch(R2C);
+      return new ReviewCharts(state.getDataVersion(), state.getBuiltVersion(), charts);
+    } catch (SQLException ex) {
+      throw new AppServerException("Failed to load charts for reviewId=" + reviewId, ex);
+    }
+  }
+
+  @Override
+  public void putCharts(long reviewId, long dataVersion, List<ReviewChart> charts) {
+    if (charts == null) {
+      throw new NullPointerException("No charts were specified.");
+    }
+    try (Connection c = dataSource.getConnection()) {
+      DSLContext context = DSL.using(c, dialect);
+      context.transaction(
+          config -> {
+            DSLContext tx = DSL.using(config);
+            // Only replace the charts with ones built from newer data.
+            int updated =
+                tx.update(REVIEW_CHART_STATE)
+                    .set(REVIEW_CHART_STATE.BUILT_VERSION, dataVersion)
+                    .where(REVIEW_CHART_STATE.REVIEW_ID.eq(reviewId))
+                    .and(REVIEW_CHART_STATE.BUILT_VERSION.lt(dataVersion))
+                    .execute();
+            if (updated == 0) {
+              return;
+            }
+            tx.deleteFrom(REVIEW_CHART).where(REVIEW_CHART.REVIEW_ID.eq(reviewId)).execute();
+            if (charts.isEmpty()) {
+              return;
+            }
+            InsertValuesStep6<ReviewChartRecord, Long, Integer, String, String, String, String>
+                insert =
+                    tx.insertInto(
+                        REVIEW_CHART,
+                        REVIEW_CHART.REVIEW_ID,
+                        REVIEW_CHART.CHART_INDEX,
+                        REVIEW_CHART.NAME,
+                        REVIEW_CHART.URL_NAME,
+                        REVIEW_CHART.CHART_HTML,
+                        REVIEW_CHART.HEIGHT);
+            for (int i = 0; i < charts.size(); ++i) {
+              ReviewChart chart = charts.get(i);
+              insert =
+                  insert.values(
+                      reviewId,
+                      i,
+                      chart.getName(),
+                      chart.getUrlName(),
+                      chart.getChartHtml(),
+                      chart.getHeight());
+            }
+            insert.execute();
+          });
+    } catch (SQLException ex) {
+      throw new AppServerException("Failed to store charts for reviewId=" + reviewId, ex);
+    }
+  }
+
+  @Override
+  public List<Long> listStaleChartReviewIds() {
+    try (Connection c = dataSource.getConnection()) {
+      DSLContext context = DSL.using(c, dialect);
+      return context
+          .select(REVIEW_CHART_STATE.REVIEW_ID)
+          .from(REVIEW_CHART_STATE)
+          .where(REVIEW_CHART_STATE.BUILT_VERSION.lt(REVIEW_CHART_STATE.DATA_VERSION))
+          .fetch(REVIEW_CHART_STATE.REVIEW_ID);
+    } catch (SQLException ex) {
+      throw new AppServerException("Failed to list reviews with stale charts.", ex);
+    }
+  }
+
   @Override
   public Attachment putAttachment(long reviewId, Attachment source, InputStream data) {
     try (Connection c = dataSource.getConnection()) {
@@ -379,6 +489,18 @@ public class JooqReviewsService implements ReviewsService {
     }
   }
 
+  private static class RecordToChartMapper implements RecordMapper<ReviewChartRecord, ReviewChart> {
+
+    @Override
+    public ReviewChart map(ReviewChartRecord record) {
+      if (record == null) {
+        return null;
+      }
+      return new ReviewChart(
+          record.getName(), record.getUrlName(), record.getChartHtml(), record.getHeight());
+    }
+  }
+
   private static class LogRecordToLogMapper implements RecordMapper<LogRecord, Log> {
 
     @Override
@@ -17,14 +17,18 @@ package com.redsaz.lognition.store;
 
 import static com.redsaz.lognition.model.tables.Aggregate.AGGREGATE;
 import static com.redsaz.lognition.model.tables.CodeCount.CODE_COUNT;
+import static com.redsaz.lognition.model.tables.HdrHistogram.HDR_HISTOGRAM;
 import static com.redsaz.lognition.model.tables.Histogram.HISTOGRAM;
+import static com.redsaz.lognition.model.tables.MovingTimeseries.MOVING_TIMESERIES;
 import static com.redsaz.lognition.model.tables.Percentile.PERCENTILE;
+import static com.redsaz.lognition.model.tables.PercentileCurve.PERCENTILE_CURVE;
 import static com.redsaz.lognition.model.tables.SampleLabel.SAMPLE_LABEL;
 import static com.redsaz.lognition.model.tables.Timeseries.TIMESERIES;
 
 import com.redsaz.lognition.api.StatsService;
 import com.redsaz.lognition.api.exceptions.AppServerException;
 import com.redsaz.lognition.api.model.CodeCounts;
+import com.redsaz.lognition.api.model.EncodedHistograms;
 import com.redsaz.lognition.api.model.Histogram;
 import com.redsaz.lognition.api.model.Percentiles;
 import com.redsaz.lognition.api.model.Stats;
@@ -47,6 +51,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -107,14 +112,25 @@ public class JooqStatsService implements StatsService {
     try (Connection c = dataSource.getConnection()) {
       DSLContext context = DSL.using(c, dialect);
 
-      InsertValuesStep3<SampleLabelRecord, Long, Long, String> inserts =
-          context.insertInto(
-              SAMPLE_LABEL, SAMPLE_LABEL.LOG_ID, SAMPLE_LABEL.LABEL_ID, SAMPLE_LABEL.LABEL);
-      for (int i = 0; i < labels.size(); ++i) {
-        String label = labels.get(i);
-        inserts = inserts.values(logId, Long.valueOf(i), label);
-      }
-      inserts.execute();
+      context.transaction(
+          config -> {
+            DSLContext tx = DSL.using(config);
+            // Labels may be created more than once for a log, such as for live logs which gain
+            // labels as the test runs, and then are numbered differently once imported. The old
+            // labels are removed first, and the stats stored for them go with them.
+            tx.deleteFrom(SAMPLE_LABEL).where(SAMPLE_LABEL.LOG_ID.eq(logId)).execute();
+            if (labels.isEmpty()) {
+              return;
+            }
+            InsertValuesStep3<SampleLabelRecord, Long, Long, String> inserts =
+                tx.insertInto(
+                    SAMPLE_LABEL, SAMPLE_LABEL.LOG_ID, SAMPLE_LABEL.LABEL_ID, SAMPLE_LABEL.LABEL);
+            for (int i = 0; i < labels.size(); ++i) {
+              String label = labels.get(i);
+              inserts = inserts.values(logId, Long.valueOf(i), label);
+            }
+            inserts.execute();
+          });
       LOGGER.info("...Created sample labels in DB for logId={}.", logId);
     } catch (SQLException ex) {
       throw new AppServerException("Failed to create timeseries: " + ex.getMessage(), ex);
@@ -215,6 +231,88 @@ public class JooqStatsService implements StatsService {
     }
   }
 
+  @Override
+  public long[] getPercentileCurve(long logId, long labelId) {
+    try (Connection c = dataSource.getConnection()) {
+      DSLContext context = DSL.using(c, dialect);
+      byte[] curveData =
+          context
+              .select(PERCENTILE_CURVE.CURVE_DATA)
+              .from(PERCENTILE_CURVE)
+              .where(PERCENTILE_CURVE.LOG_ID.eq(logId))
+              .and(PERCENTILE_CURVE.LABEL_ID.eq(labelId))
+              .fetchOne(PERCENTILE_CURVE.CURVE_DATA);
+      return curveData == null ? null : convertToCurve(curveData);
+    } catch (SQLException ex) {
+      throw new AppServerException(
+          "Cannot get percentile curve log_id="
+              + logId
+              + " label_id="
+              + labelId
+              + " because: "
+              + ex.getMessage(),
+          ex);
+    }
+  }
+
+  @Override
+  public EncodedHistograms getHdrHistograms(long logId, long labelId, long spanMillis) {
+    try (Connection c = dataSource.getConnection()) {
+      DSLContext context = DSL.using(c, dialect);
+      byte[] histogramData =
+          context
+              .select(HDR_HISTOGRAM.HISTOGRAM_DATA)
+              .from(HDR_HISTOGRAM)
+              .where(HDR_HISTOGRAM.LOG_ID.eq(logId))
+              .and(HDR_HISTOGRAM.LABEL_ID.eq(labelId))
+              .and(HDR_HISTOGRAM.SPAN_MILLIS.eq(spanMillis))
+              .fetchOne(HDR_HISTOGRAM.HISTOGRAM_DATA);
+      return histogramData == null ? null : convertToHistograms(spanMillis, histogramData);
+    } catch (SQLException ex) {
+      throw new AppServerException(
+          "Cannot get hdr_histogram log_id="
+              + logId
+              + " label_id="
+              + labelId
+              + " span_millis="
+              + spanMillis
+              + " because: "
+              + ex.getMessage(),
+          ex);
+    }
+  }
+
+  @Override
+  public Timeseries getMovingTimeseries(
+      long logId, long labelId, long stepMillis, long windowMillis) {
+    try (Connection c = dataSource.getConnection()) {
+      DSLContext context = DSL.using(c, dialect);
+      byte[] seriesData =
+          context
+              .select(MOVING_TIMESERIES.SERIES_DATA)
+              .from(MOVING_TIMESERIES)
+              .where(MOVING_TIMESERIES.LOG_ID.eq(logId))
+              .and(MOVING_TIMESERIES.LABEL_ID.eq(labelId))
+              .and(MOVING_TIMESERIES.STEP_MILLIS.eq(stepMillis))
+              .and(MOVING_TIMESERIES.WINDOW_MILLIS.eq(windowMillis))
+              .fetchOne(MOVING_TIMESERIES.SERIES_DATA);
+      return seriesData == null ? null : convertToTimeseries(stepMillis, seriesData);
+    } catch (SQLException ex) {
+      throw new AppServerException(
+          "Cannot get moving_timeseries log_id="
+              + logId
+              + " label_id="
+              + labelId
+              + " step_millis="
+              + stepMillis
+              + " window_millis="
+              + windowMillis
+              + " because: "
+              + ex.getMessage(),
+          ex);
+    }
+  }
+
   @Override
   public CodeCounts getCodeCounts(long logId, long labelId, long spanMillis) {
     try (Connection c = dataSource.getConnection()) {
@@ -402,6 +500,33 @@ public class JooqStatsService implements StatsService {
     }
   }
 
+  @Override
+  public void createOrUpdatePercentileCurve(long logId, long labelId, long[] curve) {
+    if (curve == null) {
+      throw new NullPointerException("No percentile curve was specified.");
+    } else if (logId < 1L) {
+      throw new IllegalArgumentException("Bad log id.");
+    }
+
+    byte[] curveBytes = convertToCurveData(curve);
+
+    try (Connection c = dataSource.getConnection()) {
+      DSLContext context = DSL.using(c, dialect);
+
+      // Not a change to the stats, the curve is only another form of the percentiles.
+      context
+          .mergeInto(
+              PERCENTILE_CURVE,
+              PERCENTILE_CURVE.LOG_ID,
+              PERCENTILE_CURVE.LABEL_ID,
+              PERCENTILE_CURVE.CURVE_DATA)
+          .values(logId, labelId, curveBytes)
+          .execute();
+    } catch (SQLException ex) {
+      throw new AppServerException("Failed to create percentile curve: " + ex.getMessage(), ex);
+    }
+  }
+
   @Override
   public void createOrUpdateCodeCounts(long logId, long labelId, CodeCounts codeCounts) {
     if (logId < 1L) {
@@ -432,6 +557,76 @@ public class JooqStatsService implements StatsService {
     }
   }
 
+  @Override
+  public void createOrUpdateHdrHistograms(long logId, long labelId, EncodedHistograms histograms) {
+    if (logId < 1L) {
+      throw new IllegalArgumentException("Bad log id");
+    } else if (histograms == null) {
+      throw new NullPointerException("Null histograms given.");
+    }
+    byte[] histogramBytes = convertToHistogramData(histograms);
+
+    try (Connection c = dataSource.getConnection()) {
+      DSLContext context = DSL.using(c, dialect);
+
+      context
+          .mergeInto(
+              HDR_HISTOGRAM,
+              HDR_HISTOGRAM.LOG_ID,
+              HDR_HISTOGRAM.LABEL_ID,
+              HDR_HISTOGRAM.SPAN_MILLIS,
+              HDR_HISTOGRAM.HISTOGRAM_DATA)
+          .values(logId, labelId, histograms.getSpanMillis(), histogramBytes)
+          .execute();
+    } catch (SQLException ex) {
+      throw new AppServerException("Failed to create hdr histograms: " + ex.getMessage(), ex);
+    }
+  }
+
+  @Override
+  public void createOrUpdateMovingTimeseries(
+      long logId, long labelId, long windowMillis, Timeseries timeseries) {
+    if (timeseries == null) {
+      throw new NullPointerException("No moving timeseries was specified.");
+    } else if (timeseries.getStatsList() == null) {
+      throw new NullPointerException("No moving timeseries data were specified.");
+    } else if (timeseries.getSpanMillis() < 1L) {
+      throw new IllegalArgumentException("Bad step (ms) for moving timeseries.");
+    } else if (windowMillis < timeseries.getSpanMillis()) {
+      throw new IllegalArgumentException("Bad window (ms) for moving timeseries.");
+    } else if (logId < 1L) {
+      throw new IllegalArgumentException("Bad log id.");
+    }
+
+    byte[] statsBytes = convertToSeriesData(timeseries);
+
+    try (Connection c = dataSource.getConnection()) {
+      DSLContext context = DSL.using(c, dialect);
+
+      context
+          .mergeInto(
+              MOVING_TIMESERIES,
+              MOVING_TIMESERIES.LOG_ID,
+              MOVING_TIMESERIES.LABEL_ID,
+              MOVING_TIMESERIES.STEP_MILLIS,
+              MOVING_TIMESERIES.WINDOW_MILLIS,
+              MOVING_TIMESERIES.SERIES_DATA)
+          .values(logId, labelId, timeseries.getSpanMillis(), windowMillis, statsBytes)
+          .execute();
+    } catch (SQLException ex) {
+      throw new AppServerException("Failed to create moving timeseries: " + ex.getMessage(), ex);
+    }
+  }
+
+  @Override
+  public void statsChanged(long logId) {
+    try (Connection c = dataSource.getConnection()) {
+      ReviewChartStates.markStaleForLog(DSL.using(c, dialect), logId);
+    } catch (SQLException ex) {
+      throw new AppServerException("Failed to mark review charts stale: " + ex.getMessage(), ex);
+    }
+  }
+
   private static byte[] convertToSeriesData(Timeseries timeseries) {
     return writeTimeseriesCsv(timeseries.getStatsList());
   }
@@ -441,7 +636,7 @@ public class JooqStatsService implements StatsService {
     return new Timeseries(resolutionMillis, series);
   }
 
-  private static byte[] convertToSeriesData(Histogram histogram) {
+  public static byte[] convertToSeriesData(Histogram histogram) {
     ByteArrayOutputStream baos = new ByteArrayOutputStream();
     try (Writer w = new OutputStreamWriter(baos)) {
       CsvWriter writer = null;
@@ -468,7 +663,7 @@ public class JooqStatsService implements StatsService {
     return baos.toByteArray();
   }
 
-  private static Histogram convertToHistogram(byte[] seriesData) {
+  public static Histogram convertToHistogram(byte[] seriesData) {
     List<Long> maxs = new ArrayList<>();
     List<Long> counts = new ArrayList<>();
     try (ByteArrayInputStream bais = new ByteArrayInputStream(seriesData)) {
@@ -510,7 +705,7 @@ public class JooqStatsService implements StatsService {
     return histogram;
   }
 
-  private static byte[] convertToSeriesData(Percentiles percentiles) {
+  public static byte[] convertToSeriesData(Percentiles percentiles) {
     ByteArrayOutputStream baos = new ByteArrayOutputStream();
     try (Writer w = new OutputStreamWriter(baos)) {
       CsvWriter writer = null;
@@ -538,7 +733,43 @@ public class JooqStatsService implements StatsService {
     return baos.toByteArray();
   }
 
-  private static byte[] convertToCodeCountData(CodeCounts codeCounts) {
+  public static byte[] convertToCurveData(long[] curve) {
+    ByteBuffer buffer = ByteBuffer.allocate(curve.length * Long.BYTES);
+    buffer.asLongBuffer().put(curve);
+    return buffer.array();
+  }
+
+  public static long[] convertToCurve(byte[] curveData) {
+    long[] curve = new long[curveData.length / Long.BYTES];
+    ByteBuffer.wrap(curveData).asLongBuffer().get(curve);
+    return curve;
+  }
+
+  /** Writes each histogram preceded by its length, since each compresses to a different size. */
+  public static byte[] convertToHistogramData(EncodedHistograms histograms) {
+    int size = 0;
+    for (byte[] histogram : histograms.getHistograms()) {
+      size += Integer.BYTES + histogram.length;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    for (byte[] histogram : histograms.getHistograms()) {
+      buffer.putInt(histogram.length).put(histogram);
+    }
+    return buffer.array();
+  }
+
+  public static EncodedHistograms convertToHistograms(long spanMillis, byte[] histogramData) {
+    ByteBuffer buffer = ByteBuffer.wrap(histogramData);
+    List<byte[]> histograms = new ArrayList<>();
+    while (buffer.hasRemaining()) {
+      byte[] histogram = new byte[buffer.getInt()];
+      buffer.get(histogram);
+      histograms.add(histogram);
+    }
+    return new EncodedHistograms(spanMillis, histograms);
+  }
+
+  public static byte[] convertToCodeCountData(CodeCounts codeCounts) {
     ByteArrayOutputStream baos = new ByteArrayOutputStream();
     try (Writer w = new OutputStreamWriter(baos)) {
       CsvWriter writer = null;
@@ -569,7 +800,7 @@ public class JooqStatsService implements StatsService {
     return baos.toByteArray();
   }
 
-  private static Percentiles convertToPercentiles(byte[] seriesData) {
+  public static Percentiles convertToPercentiles(byte[] seriesData) {
     List<Double> percs = new ArrayList<>();
     List<Long> counts = new ArrayList<>();
     List<Long> values = new ArrayList<>();
@@ -621,7 +852,7 @@ public class JooqStatsService implements StatsService {
     return percentiles;
   }
 
-  private static CodeCounts convertToCodeCounts(long spanMillis, byte[] codeCountData) {
+  public static CodeCounts convertToCodeCounts(long spanMillis, byte[] codeCountData) {
     final List<String> codeList = new ArrayList<>();
     List<List<Integer>> codeCounts = new ArrayList<>();
     try (ByteArrayInputStream bais = new ByteArrayInputStream(codeCountData)) {
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.store;
+
+import com.redsaz.lognition.api.labelselector.LabelSelectorExpression;
+import com.redsaz.lognition.api.labelselector.LabelSelectorExpressionListener;
+import com.redsaz.lognition.api.model.Label;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Which logs have which labels, kept in memory as bitmaps of log ids, so that label selectors can
+ * be answered without going to the database. There is a bitmap of every log, a bitmap per label
+ * key of the logs which have that key, and a bitmap per key and value. Each term of a selector is
+ * one or a few bitmap operations, and the terms are ANDed together.
+ *
+ * <p>The bitmaps are indexed by log id, so the index only works while ids fit in an int. If a
+ * bigger id is ever added, the index stops answering (see {@link #select}) and the selectors go to
+ * the database instead.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+class LabelIndex {
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final BitSet logs = new BitSet();
+  private final Map<String, BitSet> keys = new HashMap<>();
+  private final Map<String, Map<String, BitSet>> values = new HashMap<>();
+  // The labels of each log, to know which bits to clear when they change.
+  private final Map<Integer, Map<String, String>> logLabels = new HashMap<>();
+  private boolean overflowed;
+
+  void addLog(long logId) {
+    lock.writeLock().lock();
+    try {
+      if (fits(logId)) {
+        logs.set((int) logId);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  void removeLog(long logId) {
+    lock.writeLock().lock();
+    try {
+      if (fits(logId)) {
+        clearLabels((int) logId);
+        logs.clear((int) logId);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Replaces all of the labels of a log.
+   *
+   * @param logId the log
+   * @param labels every label the log has now
+   */
+  void setLabels(long logId, Collection<Label> labels) {
+    lock.writeLock().lock();
+    try {
+      if (!fits(logId)) {
+        return;
+      }
+      int id = (int) logId;
+      clearLabels(id);
+      logs.set(id);
+      if (labels.isEmpty()) {
+        return;
+      }
+      Map<String, String> current = new HashMap<>();
+      for (Label label : labels) {
+        current.put(label.getKey(), label.getValue());
+        keys.computeIfAbsent(label.getKey(), k -> new BitSet()).set(id);
+        values
+            .computeIfAbsent(label.getKey(), k -> new HashMap<>())
+            .computeIfAbsent(label.getValue(), v -> new BitSet())
+            .set(id);
+      }
+      logLabels.put(id, current);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Finds the logs which match a label selector, the same as the database query would.
+   *
+   * @param selector the label selector
+   * @return the matching log ids in ascending order, or null if the index cannot answer and the
+   *     database must be asked instead.
+   */
+  List<Long> select(LabelSelectorExpression selector) {
+    lock.readLock().lock();
+    try {
+      if (overflowed) {
+        return null;
+      }
+      Evaluation evaluation = new Evaluation();
+      selector.consume(evaluation);
+      BitSet result = evaluation.result;
+      if (result == null) {
+        return List.of();
+      }
+      List<Long> ids = new ArrayList<>(result.cardinality());
+      result.stream().forEach(id -> ids.add((long) id));
+      return ids;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private boolean fits(long logId) {
+    if (logId < 0L || logId > Integer.MAX_VALUE) {
+      overflowed = true;
+      return false;
+    }
+    return true;
+  }
+
+  private void clearLabels(int id) {
+    Map<String, String> previous = logLabels.remove(id);
+    if (previous == null) {
+      return;
+    }
+    previous.forEach(
+        (key, value) -> {
+          BitSet keyLogs = keys.get(key);
+          keyLogs.clear(id);
+          Map<String, BitSet> keyValues = values.get(key);
+          BitSet valueLogs = keyValues.get(value);
+          valueLogs.clear(id);
+          if (valueLogs.isEmpty()) {
+            keyValues.remove(value);
+          }
+          if (keyLogs.isEmpty()) {
+            keys.remove(key);
+            values.remove(key);
+          }
+        });
+  }
+
+  private BitSet withKey(String key) {
+    BitSet keyLogs = keys.get(key);
+    return keyLogs == null ? new BitSet() : (BitSet) keyLogs.clone();
+  }
+
+  private BitSet withAnyValue(String key, List<String> keyValues) {
+    BitSet matches = new BitSet();
+    Map<String, BitSet> byValue = values.get(key);
+    if (byValue != null) {
+      for (String value : keyValues) {
+        BitSet valueLogs = byValue.get(value);
+        if (valueLogs != null) {
+          matches.or(valueLogs);
+        }
+      }
+    }
+    return matches;
+  }
+
+  private BitSet withAnyId(List<String> ids) {
+    BitSet matches = new BitSet();
+    for (String id : ids) {
+      try {
+        long logId = Long.parseLong(id);
+        if (logId >= 0L && logId <= Integer.MAX_VALUE) {
+          matches.set((int) logId);
+        }
+      } catch (NumberFormatException ex) {
+        // Not an id, so no log has it.
+      }
+    }
+    matches.and(logs);
+    return matches;
+  }
+
+  /** ANDs together the logs matching each term of a selector. */
+  private class Evaluation implements LabelSelectorExpressionListener {
+
+    private BitSet result;
+
+    @Override
+    public void in(String labelName, List<String> labelValues) {
+      if ("id".equals(labelName)) {
+        and(withAnyId(labelValues));
+      } else {
+        and(withAnyValue(labelName, labelValues));
+      }
+    }
+
+    @Override
+    public void notIn(String labelName, List<String> labelValues) {
+      if ("id".equals(labelName)) {
+        BitSet matches = (BitSet) logs.clone();
+        matches.andNot(withAnyId(labelValues));
+        and(matches);
+      } else {
+        // Only the logs which have the label, but with another value.
+        BitSet matches = withKey(labelName);
+        matches.andNot(withAnyValue(labelName, labelValues));
+        and(matches);
+      }
+    }
+
+    @Override
+    public void exists(String labelName) {
+      if ("id".equals(labelName)) {
+        // All logs have ids, so this does not narrow anything, same as the query.
+        return;
+      }
+      and(withKey(labelName));
+    }
+
+    @Override
+    public void notExists(String labelName) {
+      if ("id".equals(labelName)) {
+        return;
+      }
+      BitSet matches = (BitSet) logs.clone();
+      BitSet keyLogs = keys.get(labelName);
+      if (keyLogs != null) {
+        matches.andNot(keyLogs);
+      }
+      and(matches);
+    }
+
+    @Override
+    public void equals(String labelName, String labelValue) {
+      in(labelName, List.of(labelValue));
+    }
+
+    @Override
+    public void notEquals(String labelName, String labelValue) {
+      notIn(labelName, List.of(labelValue));
+    }
+
+    private void and(BitSet matches) {
+      if (result == null) {
+        result = matches;
+      } else {
+        result.and(matches);
+      }
+    }
+  }
+}
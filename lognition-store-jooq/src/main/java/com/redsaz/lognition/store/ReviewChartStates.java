@@ -0,0 +1,69 @@
+/*
+ * Copyright 2018 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.store;
+
+import static com.redsaz.lognition.model.tables.ReviewChartState.REVIEW_CHART_STATE;
+import static com.redsaz.lognition.model.tables.ReviewLog.REVIEW_LOG;
+
+import org.jooq.DSLContext;
+
+/**
+ * Marks the stored charts of reviews as stale, by moving the data version of the reviews ahead of
+ * the version their charts were built from. Anything which changes what a review chart shows calls
+ * this, in the same connection as the change. Stats are the exception: a log has many of them, so
+ * its reviews are only marked once all of them are stored, see {@code StatsService#statsChanged}.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+final class ReviewChartStates {
+
+  private ReviewChartStates() {
+    // Do not allow utility classes to be instanciated.
+  }
+
+  /**
+   * The logs of a review changed.
+   *
+   * @param context the connection making the change
+   * @param reviewId the review
+   */
+  static void markStale(DSLContext context, long reviewId) {
+    context
+        .update(REVIEW_CHART_STATE)
+        .set(REVIEW_CHART_STATE.DATA_VERSION, REVIEW_CHART_STATE.DATA_VERSION.plus(1L))
+        .where(REVIEW_CHART_STATE.REVIEW_ID.eq(reviewId))
+        .execute();
+  }
+
+  /**
+   * A log, or the stats of a log, changed, so every review with the log is stale.
+   *
+   * @param context the connection making the change
+   * @param logId the log
+   */
+  static void markStaleForLog(DSLContext context, long logId) {
+    context
+        .update(REVIEW_CHART_STATE)
+        .set(REVIEW_CHART_STATE.DATA_VERSION, REVIEW_CHART_STATE.DATA_VERSION.plus(1L))
+        .where(
+            REVIEW_CHART_STATE.REVIEW_ID.in(
+                context
+                    .select(REVIEW_LOG.REVIEW_ID)
+                    .from(REVIEW_LOG)
+                    .where(REVIEW_LOG.LOG_ID.eq(logId))))
+        .execute();
+  }
+}
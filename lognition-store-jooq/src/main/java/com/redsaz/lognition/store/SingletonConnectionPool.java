@@ -65,6 +65,11 @@ public class SingletonConnectionPool implements ConnectionPool {
     }
   }
 
+  @Override
+  public int maxConnections() {
+    return 1;
+  }
+
   @Override
   public Connection getConnection() throws SQLException {
     try {
@@ -0,0 +1,36 @@
+-- Copyright 2026 Redsaz <redsaz@gmail.com>.
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--      http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+
+
+-- Review charts are built in the background and stored, so that viewing a review does not have to
+-- recalculate them. data_version goes up whenever the logs of a review or their stats change, and
+-- the charts are stale until they are built again from that version.
+CREATE TABLE IF NOT EXISTS review_chart_state (
+	review_id BIGINT NOT NULL,
+	data_version BIGINT NOT NULL,
+	built_version BIGINT NOT NULL,
+	CONSTRAINT pk_review_chart_state PRIMARY KEY (review_id),
+	CONSTRAINT fk_review_chart_state_review FOREIGN KEY (review_id) REFERENCES review(id) ON DELETE CASCADE);
+
+CREATE TABLE IF NOT EXISTS review_chart (
+	review_id BIGINT NOT NULL,
+	chart_index INTEGER NOT NULL,
+	name VARCHAR(1024) NOT NULL,
+	url_name VARCHAR(1024) NOT NULL,
+	chart_html CLOB NOT NULL,
+	height VARCHAR(63),
+	CONSTRAINT pk_review_chart PRIMARY KEY (review_id, chart_index),
+	CONSTRAINT fk_review_chart_review FOREIGN KEY (review_id) REFERENCES review(id) ON DELETE CASCADE);
+
+INSERT INTO review_chart_state (review_id, data_version, built_version) SELECT id, 1, 0 FROM review;
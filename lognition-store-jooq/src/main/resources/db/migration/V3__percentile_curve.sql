@@ -0,0 +1,24 @@
+-- Copyright 2026 Redsaz <redsaz@gmail.com>.
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--      http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+
+
+-- The percentiles of a label normalized onto a fixed set of percentile points, computed once when
+-- the stats are calculated, so that the percentiles of many logs can be charted together without
+-- interpolating each of them again. curve_data is one 8-byte value per point.
+CREATE TABLE IF NOT EXISTS percentile_curve (
+	log_id BIGINT NOT NULL,
+	label_id BIGINT NOT NULL,
+	curve_data BLOB NOT NULL,
+	CONSTRAINT pk_percentile_curve PRIMARY KEY (log_id, label_id),
+	CONSTRAINT fk_percentile_curve_sample_label FOREIGN KEY (log_id, label_id) REFERENCES sample_label (log_id, label_id) ON DELETE CASCADE);
@@ -0,0 +1,26 @@
+-- Copyright 2026 Redsaz <redsaz@gmail.com>.
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--      http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+
+
+-- HdrHistograms of the durations of a label, in their compressed form, all with the same range and
+-- precision so that they can be merged. A span_millis of 0 is one histogram of the entire log,
+-- otherwise histogram_data holds a histogram for each bin of that span, each preceded by its
+-- length.
+CREATE TABLE IF NOT EXISTS hdr_histogram (
+	log_id BIGINT NOT NULL,
+	label_id BIGINT NOT NULL,
+	span_millis BIGINT NOT NULL,
+	histogram_data BLOB NOT NULL,
+	CONSTRAINT pk_hdr_histogram PRIMARY KEY (log_id, label_id, span_millis),
+	CONSTRAINT fk_hdr_histogram_sample_label FOREIGN KEY (log_id, label_id) REFERENCES sample_label (log_id, label_id) ON DELETE CASCADE);
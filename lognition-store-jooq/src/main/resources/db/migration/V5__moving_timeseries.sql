@@ -0,0 +1,26 @@
+-- Copyright 2026 Redsaz <redsaz@gmail.com>.
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--      http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+
+
+-- Timeseries of a label where each point is the stats of a window of time ending at that point,
+-- every step_millis, rather than the stats of a bin of its own. The series_data is in the same
+-- form as that of the timeseries table.
+CREATE TABLE IF NOT EXISTS moving_timeseries (
+	log_id BIGINT NOT NULL,
+	label_id BIGINT NOT NULL,
+	step_millis BIGINT NOT NULL,
+	window_millis BIGINT NOT NULL,
+	series_data BLOB NOT NULL,
+	CONSTRAINT pk_moving_timeseries PRIMARY KEY (log_id, label_id, step_millis, window_millis),
+	CONSTRAINT fk_moving_timeseries_sample_label FOREIGN KEY (log_id, label_id) REFERENCES sample_label (log_id, label_id) ON DELETE CASCADE);
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.store;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.redsaz.lognition.api.model.Log;
+import com.redsaz.lognition.api.model.Log.Status;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import org.jooq.SQLDialect;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the parts of the logs service that are not about labels.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class JooqLogsServiceTest {
+
+  @Rule public TemporaryFolder tempDir = new TemporaryFolder();
+
+  @Test
+  public void testDelete_removesFiles() throws IOException, SQLException {
+    try (ConnectionPool cp = HsqldbConnectionPool.initAndOpen(tempDir.newFile().toPath())) {
+      // Given two logs, each with its samples and everything made from them,
+      Path logsDir = tempDir.newFolder().toPath();
+      JooqAttachmentsService attSvc =
+          new JooqAttachmentsService(cp, SQLDialect.HSQLDB, tempDir.newFolder().toString());
+      JooqLogsService unit = new JooqLogsService(cp, SQLDialect.HSQLDB, logsDir.toString(), attSvc);
+      long deletedId = createLog(unit);
+      long keptId = createLog(unit);
+      List<Path> deletedFiles = createDataFiles(logsDir, deletedId);
+      List<Path> keptFiles = createDataFiles(logsDir, keptId);
+
+      // When one of the logs is deleted,
+      unit.delete(deletedId);
+
+      // Then it and all of its files are gone,
+      assertNull(unit.get(deletedId));
+      for (Path file : deletedFiles) {
+        assertFalse(file + " should be deleted.", Files.exists(file));
+      }
+      // and the files of the other log are left alone.
+      for (Path file : keptFiles) {
+        assertTrue(file + " should be kept.", Files.exists(file));
+      }
+    }
+  }
+
+  private static long createLog(JooqLogsService logSvc) {
+    Log log = new Log(0L, Status.COMPLETE, "test", "Test", "test.jtl", "notes");
+    return logSvc.create(log).getId();
+  }
+
+  /** Makes every kind of file and directory that a log can have. */
+  private static List<Path> createDataFiles(Path logsDir, long id) throws IOException {
+    Path avro = Files.createFile(logsDir.resolve(id + ".avro"));
+    Path index = Files.createFile(logsDir.resolve(id + ".avro.idx"));
+    Path columnar = Files.createFile(logsDir.resolve(id + ".lgc"));
+    Path labelsDir = Files.createDirectory(logsDir.resolve(id + "-labels"));
+    Path partition = Files.createFile(labelsDir.resolve("label-000000.avro"));
+    return List.of(avro, index, columnar, partition, labelsDir);
+  }
+}
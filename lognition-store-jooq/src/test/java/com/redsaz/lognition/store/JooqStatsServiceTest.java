@@ -15,17 +15,22 @@
  */
 package com.redsaz.lognition.store;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
 import com.redsaz.lognition.api.model.CodeCounts;
+import com.redsaz.lognition.api.model.EncodedHistograms;
 import com.redsaz.lognition.api.model.Log;
 import com.redsaz.lognition.api.model.Log.Status;
+import com.redsaz.lognition.api.model.Stats;
+import com.redsaz.lognition.api.model.Timeseries;
 import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import org.jooq.SQLDialect;
 import org.junit.Rule;
@@ -205,6 +210,170 @@ public class JooqStatsServiceTest {
     }
   }
 
+  @Test
+  public void testCreateOrUpdatePercentileCurve() throws IOException, SQLException {
+    try (ConnectionPool cp = createConnectionPool()) {
+      // Given a log with a label,
+      JooqStatsService unit = new JooqStatsService(cp, SQLDialect.HSQLDB);
+      JooqLogsService logSvc =
+          new JooqLogsService(cp, SQLDialect.HSQLDB, connectionDir.newFolder().toString(), null);
+      Log log = new Log(1L, Status.COMPLETE, "test", "Test", "test.jtl", "notes");
+      log = logSvc.create(log);
+      unit.createSampleLabels(log.getId(), Collections.singletonList("overall"));
+      assertNull("No curve until one is stored.", unit.getPercentileCurve(log.getId(), 0L));
+
+      // When a percentile curve is stored, and then stored again,
+      unit.createOrUpdatePercentileCurve(log.getId(), 0L, new long[] {1L, 2L, 3L});
+      long[] expected = new long[] {1L, 5L, Long.MAX_VALUE, 0L};
+      unit.createOrUpdatePercentileCurve(log.getId(), 0L, expected);
+
+      // Then retrieving the curve will match the last one stored.
+      assertArrayEquals(expected, unit.getPercentileCurve(log.getId(), 0L));
+    }
+  }
+
+  @Test
+  public void testCreateOrUpdateHdrHistograms() throws IOException, SQLException {
+    try (ConnectionPool cp = createConnectionPool()) {
+      // Given a log with a label,
+      JooqStatsService unit = new JooqStatsService(cp, SQLDialect.HSQLDB);
+      JooqLogsService logSvc =
+          new JooqLogsService(cp, SQLDialect.HSQLDB, connectionDir.newFolder().toString(), null);
+      Log log = new Log(1L, Status.COMPLETE, "test", "Test", "test.jtl", "notes");
+      log = logSvc.create(log);
+      unit.createSampleLabels(log.getId(), Collections.singletonList("overall"));
+
+      // When an aggregate histogram, and histograms of bins of differing sizes, are stored,
+      EncodedHistograms aggregate = new EncodedHistograms(0L, List.of(new byte[] {1, 2, 3}));
+      EncodedHistograms bins =
+          new EncodedHistograms(15_000L, List.of(new byte[] {4}, new byte[0], new byte[] {5, 6}));
+      unit.createOrUpdateHdrHistograms(log.getId(), 0L, aggregate);
+      unit.createOrUpdateHdrHistograms(log.getId(), 0L, bins);
+
+      // Then each can be retrieved by its span,
+      assertSame(aggregate, unit.getHdrHistograms(log.getId(), 0L, 0L));
+      assertSame(bins, unit.getHdrHistograms(log.getId(), 0L, 15_000L));
+      // and nothing is found for other spans.
+      assertNull(unit.getHdrHistograms(log.getId(), 0L, 60_000L));
+    }
+  }
+
+  @Test
+  public void testCreateSampleLabels_replacesLabelsAndStats() throws IOException, SQLException {
+    try (ConnectionPool cp = createConnectionPool()) {
+      // Given a live log with labels in the order they were seen, and stats for them,
+      JooqStatsService unit = new JooqStatsService(cp, SQLDialect.HSQLDB);
+      JooqLogsService logSvc =
+          new JooqLogsService(cp, SQLDialect.HSQLDB, connectionDir.newFolder().toString(), null);
+      Log log = new Log(1L, Status.RUNNING, "test", "Test", "test.jtl", "notes");
+      log = logSvc.create(log);
+      unit.createSampleLabels(log.getId(), Arrays.asList("Overall", "b", "a"));
+      Timeseries minutes = new Timeseries(60_000L, List.of(stats(0L, 5L)));
+      for (long labelId = 0L; labelId < 3L; ++labelId) {
+        unit.createOrUpdateTimeseries(log.getId(), labelId, minutes);
+      }
+
+      // When the labels are created again, numbered differently,
+      unit.createSampleLabels(log.getId(), Arrays.asList("Overall", "a", "b"));
+
+      // Then only the new labels remain,
+      assertEquals(Arrays.asList("Overall", "a", "b"), unit.getSampleLabels(log.getId()));
+      // and the stats of the old labels are gone rather than attached to the new labels.
+      for (long labelId = 0L; labelId < 3L; ++labelId) {
+        assertNull(unit.getTimeseries(log.getId(), labelId));
+      }
+    }
+  }
+
+  @Test
+  public void testCreateOrUpdateMovingTimeseries() throws IOException, SQLException {
+    try (ConnectionPool cp = createConnectionPool()) {
+      // Given a log with a label, and a fixed timeseries of the same span already stored,
+      JooqStatsService unit = new JooqStatsService(cp, SQLDialect.HSQLDB);
+      JooqLogsService logSvc =
+          new JooqLogsService(cp, SQLDialect.HSQLDB, connectionDir.newFolder().toString(), null);
+      Log log = new Log(1L, Status.COMPLETE, "test", "Test", "test.jtl", "notes");
+      log = logSvc.create(log);
+      unit.createSampleLabels(log.getId(), Collections.singletonList("overall"));
+      Timeseries fixed = new Timeseries(10_000L, List.of(stats(0L, 5L)));
+      unit.createOrUpdateTimeseries(log.getId(), 0L, fixed);
+
+      // When moving timeseries of two different windows are stored,
+      Timeseries oneMinute =
+          new Timeseries(10_000L, List.of(stats(10_000L, 3L), emptyStats(20_000L)));
+      Timeseries fiveMinutes = new Timeseries(10_000L, List.of(stats(10_000L, 7L)));
+      unit.createOrUpdateMovingTimeseries(log.getId(), 0L, 60_000L, oneMinute);
+      unit.createOrUpdateMovingTimeseries(log.getId(), 0L, 300_000L, fiveMinutes);
+
+      // Then each can be retrieved by its step and window,
+      assertSame(oneMinute, unit.getMovingTimeseries(log.getId(), 0L, 10_000L, 60_000L));
+      assertSame(fiveMinutes, unit.getMovingTimeseries(log.getId(), 0L, 10_000L, 300_000L));
+      // and nothing is found for other steps or windows.
+      assertNull(unit.getMovingTimeseries(log.getId(), 0L, 60_000L, 60_000L));
+      assertNull(unit.getMovingTimeseries(log.getId(), 0L, 10_000L, 120_000L));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCreateOrUpdateMovingTimeseries_windowSmallerThanStep()
+      throws IOException, SQLException {
+    try (ConnectionPool cp = createConnectionPool()) {
+      JooqStatsService unit = new JooqStatsService(cp, SQLDialect.HSQLDB);
+
+      // Given a window smaller than the step of the moving timeseries,
+      Timeseries moving = new Timeseries(10_000L, List.of(stats(10_000L, 3L)));
+
+      // When attempting to store it,
+      unit.createOrUpdateMovingTimeseries(1L, 0L, 5_000L, moving);
+
+      // Then an illegal argument exception is thrown. (Checked by test harness)
+    }
+  }
+
+  private static Stats stats(long offsetMillis, long duration) {
+    return new Stats(
+        offsetMillis,
+        duration,
+        duration,
+        duration,
+        duration,
+        duration,
+        duration,
+        duration,
+        duration,
+        duration,
+        1L,
+        100L,
+        0L);
+  }
+
+  private static Stats emptyStats(long offsetMillis) {
+    return new Stats(
+        offsetMillis, null, null, null, null, null, null, null, null, null, 0L, 0L, 0L);
+  }
+
+  private static void assertSame(Timeseries expected, Timeseries actual) {
+    assertEquals(expected.getSpanMillis(), actual.getSpanMillis());
+    assertEquals(expected.getStatsList().size(), actual.getStatsList().size());
+    for (int i = 0; i < expected.getStatsList().size(); ++i) {
+      Stats e = expected.getStatsList().get(i);
+      Stats a = actual.getStatsList().get(i);
+      assertEquals(e.getOffsetMillis(), a.getOffsetMillis());
+      assertEquals(e.getP50(), a.getP50());
+      assertEquals(e.getAvg(), a.getAvg());
+      assertEquals(e.getNumSamples(), a.getNumSamples());
+      assertEquals(e.getTotalResponseBytes(), a.getTotalResponseBytes());
+    }
+  }
+
+  private static void assertSame(EncodedHistograms expected, EncodedHistograms actual) {
+    assertEquals(expected.getSpanMillis(), actual.getSpanMillis());
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); ++i) {
+      assertArrayEquals(expected.getHistograms().get(i), actual.getHistograms().get(i));
+    }
+  }
+
   private ConnectionPool createConnectionPool() throws IOException, SQLException {
     File hsqldbFile = connectionDir.newFile();
     return HsqldbConnectionPool.initAndOpen(hsqldbFile.toPath());
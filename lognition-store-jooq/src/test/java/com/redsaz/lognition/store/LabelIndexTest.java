@@ -0,0 +1,160 @@
+/*
+ * Copyright 2026 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.redsaz.lognition.api.labelselector.ComposibleLabelSelectorExpression;
+import com.redsaz.lognition.api.labelselector.Expressions;
+import com.redsaz.lognition.api.labelselector.LabelSelectorExpression;
+import com.redsaz.lognition.api.model.Label;
+import com.redsaz.lognition.api.model.Log;
+import com.redsaz.lognition.api.model.Log.Status;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.jooq.SQLDialect;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests that the in-memory label index selects the same logs as the database does.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class LabelIndexTest {
+
+  @Rule public TemporaryFolder connectionDir = new TemporaryFolder();
+
+  @Test
+  public void testSameAsDatabase() throws IOException, SQLException {
+    try (ConnectionPool cp = createConnectionPool()) {
+      // Given logs with several labels, some without labels,
+      JooqLogsService unit = logsService(cp);
+      List<Long> ids = new ArrayList<>();
+      for (int i = 0; i < 12; ++i) {
+        long id = createLog(unit);
+        ids.add(id);
+        List<Label> labels = new ArrayList<>();
+        if (i % 2 == 0) {
+          labels.add(new Label("env", i % 4 == 0 ? "prod" : "test"));
+        }
+        if (i % 3 != 2) {
+          labels.add(new Label("app", "app" + (i % 3)));
+        }
+        if (i == 5) {
+          labels.add(new Label("soak", "true"));
+        }
+        unit.setLabels(id, labels);
+      }
+
+      // When selectors of every kind are evaluated by both the index and the database,
+      // Then they select the same logs.
+      for (LabelSelectorExpression selector : selectors(ids)) {
+        assertSame(unit, selector);
+      }
+
+      // And the same is true after labels change and logs are deleted,
+      unit.setLabels(ids.get(0), List.of(new Label("env", "test")));
+      unit.setLabels(ids.get(1), List.of());
+      unit.delete(ids.get(2));
+      for (LabelSelectorExpression selector : selectors(ids)) {
+        assertSame(unit, selector);
+      }
+
+      // and for a new service which loads the index from the database.
+      JooqLogsService reloaded = logsService(cp);
+      for (LabelSelectorExpression selector : selectors(ids)) {
+        assertSame(reloaded, selector);
+      }
+    }
+  }
+
+  @Test
+  public void testIdsTooBig() {
+    // Given an index with a log id that does not fit in the bitmaps,
+    LabelIndex unit = new LabelIndex();
+    unit.setLabels(1L, List.of(new Label("env", "prod")));
+    unit.addLog(Integer.MAX_VALUE + 1L);
+
+    // When a selector is evaluated,
+    // Then the index cannot answer, so the database is asked instead.
+    assertNull(unit.select(Expressions.equals("env", "prod")));
+  }
+
+  private static List<LabelSelectorExpression> selectors(List<Long> ids) {
+    List<LabelSelectorExpression> selectors = new ArrayList<>();
+    selectors.add(Expressions.exists("env"));
+    selectors.add(Expressions.notExists("env"));
+    selectors.add(Expressions.notExists("missing"));
+    selectors.add(Expressions.equals("env", "prod"));
+    selectors.add(Expressions.notEquals("env", "prod"));
+    selectors.add(Expressions.in("app", List.of("app0", "app2")));
+    selectors.add(Expressions.notIn("app", List.of("app0")));
+    selectors.add(Expressions.equals("missing", "x"));
+    selectors.add(Expressions.equals("id", ids.get(3).toString()));
+    selectors.add(Expressions.notEquals("id", ids.get(3).toString()));
+    selectors.add(Expressions.in("id", List.of(ids.get(4).toString(), ids.get(5).toString())));
+    selectors.add(Expressions.notIn("id", List.of(ids.get(4).toString())));
+    selectors.add(
+        and(
+            Expressions.exists("app"),
+            Expressions.notEquals("env", "test"),
+            Expressions.notExists("soak")));
+    selectors.add(
+        and(
+            Expressions.in("env", List.of("prod", "test")),
+            Expressions.notIn("id", List.of(ids.get(0).toString()))));
+    selectors.add(and(Expressions.exists("id")));
+    return selectors;
+  }
+
+  private static LabelSelectorExpression and(LabelSelectorExpression... terms) {
+    ComposibleLabelSelectorExpression expression = new ComposibleLabelSelectorExpression();
+    for (int i = 0; i < terms.length; ++i) {
+      if (i > 0) {
+        expression.addExpression(Expressions.and());
+      }
+      expression.addExpression(terms[i]);
+    }
+    return expression;
+  }
+
+  private static void assertSame(JooqLogsService unit, LabelSelectorExpression selector) {
+    List<Long> expected = new ArrayList<>(unit.listIdsBySelectorFromDb(selector));
+    expected.sort(null);
+    assertEquals(expected, unit.listIdsBySelector(selector));
+  }
+
+  private JooqLogsService logsService(ConnectionPool cp) throws IOException {
+    JooqAttachmentsService attSvc =
+        new JooqAttachmentsService(cp, SQLDialect.HSQLDB, connectionDir.newFolder().toString());
+    return new JooqLogsService(
+        cp, SQLDialect.HSQLDB, connectionDir.newFolder().toString(), attSvc);
+  }
+
+  private static long createLog(JooqLogsService logSvc) {
+    Log log = new Log(0L, Status.COMPLETE, "test", "Test", "test.jtl", "notes");
+    return logSvc.create(log).getId();
+  }
+
+  private ConnectionPool createConnectionPool() throws IOException, SQLException {
+    return HsqldbConnectionPool.initAndOpen(connectionDir.newFile().toPath());
+  }
+}
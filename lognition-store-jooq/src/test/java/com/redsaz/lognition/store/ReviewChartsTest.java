@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 Redsaz <redsaz@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.redsaz.lognition.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.redsaz.lognition.api.model.Log;
+import com.redsaz.lognition.api.model.Review;
+import com.redsaz.lognition.api.model.ReviewChart;
+import com.redsaz.lognition.api.model.ReviewCharts;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import org.jooq.SQLDialect;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests that stored review charts become stale when what they show changes.
+ *
+ * @author Redsaz <redsaz@gmail.com>
+ */
+public class ReviewChartsTest {
+
+  @Rule public TemporaryFolder tempDir = new TemporaryFolder();
+
+  @Test
+  public void testStaleness() throws IOException, SQLException {
+    try (ConnectionPool cp = HsqldbConnectionPool.initAndOpen(tempDir.newFile().toPath())) {
+      JooqAttachmentsService attSvc =
+          new JooqAttachmentsService(cp, SQLDialect.HSQLDB, tempDir.newFolder().toString());
+      JooqReviewsService reviewsSvc = new JooqReviewsService(cp, SQLDialect.HSQLDB, attSvc);
+      JooqLogsService logsSvc =
+          new JooqLogsService(cp, SQLDialect.HSQLDB, tempDir.newFolder().toString(), attSvc);
+      JooqStatsService statsSvc = new JooqStatsService(cp, SQLDialect.HSQLDB);
+
+      // Given a new review,
+      Review review = reviewsSvc.create(new Review(0, "test", "Test", "", 0L, 0L, "app"));
+      long reviewId = review.getId();
+
+      // Then it has no charts yet, so they are stale,
+      ReviewCharts charts = reviewsSvc.getCharts(reviewId);
+      assertTrue("New review charts are stale", charts.isStale());
+      assertTrue(charts.getCharts().isEmpty());
+      assertEquals(List.of(reviewId), reviewsSvc.listStaleChartReviewIds());
+
+      // and when charts are built, they are stored and no longer stale.
+      reviewsSvc.putCharts(reviewId, charts.getDataVersion(), List.of(chart("a"), chart("b")));
+      charts = reviewsSvc.getCharts(reviewId);
+      assertFalse("Built charts are stale", charts.isStale());
+      assertEquals(List.of("a", "b"), charts.getCharts().stream().map(c -> c.getName()).toList());
+      assertEquals("height", charts.getCharts().get(0).getHeight());
+      assertEquals(List.of(), reviewsSvc.listStaleChartReviewIds());
+
+      // When a log is added to the review, the charts are stale,
+      Log log = logsSvc.create(new Log(0L, Log.Status.COMPLETE, "test", "Test", "test.jtl", ""));
+      long builtFrom = charts.getDataVersion();
+      reviewsSvc.setReviewLogs(reviewId, List.of(log.getId()));
+      assertTrue("Charts stale after logs change", reviewsSvc.getCharts(reviewId).isStale());
+
+      // and charts built from before the change do not make them fresh.
+      reviewsSvc.putCharts(reviewId, builtFrom, List.of(chart("old")));
+      charts = reviewsSvc.getCharts(reviewId);
+      assertTrue("Charts stale after old charts are put", charts.isStale());
+      assertEquals(List.of("a", "b"), charts.getCharts().stream().map(c -> c.getName()).toList());
+
+      // When the stats of the log change, or the log is renamed, the charts are stale again.
+      reviewsSvc.putCharts(reviewId, charts.getDataVersion(), List.of(chart("c")));
+      statsSvc.createSampleLabels(log.getId(), List.of("Overall", "GET /"));
+      statsSvc.statsChanged(log.getId());
+      assertTrue("Charts stale after stats change", reviewsSvc.getCharts(reviewId).isStale());
+
+      reviewsSvc.putCharts(
+          reviewId, reviewsSvc.getCharts(reviewId).getDataVersion(), List.of(chart("d")));
+      logsSvc.update(new Log(log.getId(), null, null, "Renamed", null, null));
+      assertTrue("Charts stale after log rename", reviewsSvc.getCharts(reviewId).isStale());
+    }
+  }
+
+  private static ReviewChart chart(String name) {
+    return new ReviewChart(name, name, "new Chartist.Bar('#graphdiv0', {});", "height");
+  }
+}